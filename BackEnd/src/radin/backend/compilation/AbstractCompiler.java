@@ -1,5 +1,6 @@
 package radin.backend.compilation;
 
+import radin.backend.microcompilers.IndentPrintWriter;
 import radin.core.chaining.ICompilerFunction;
 import radin.core.errorhandling.AbstractCompilationError;
 import radin.midanalysis.TypeAugmentedSemanticNode;
@@ -34,6 +35,10 @@ public abstract class AbstractCompiler implements ICompilerFunction<TypeAugmente
     }
     
     public String compileToString(TypeAugmentedSemanticNode node) {
+        if(printWriter instanceof IndentPrintWriter) {
+            // compiled into the end of the file's buffer, and then taken back out
+            return ((IndentPrintWriter) printWriter).getBuffer().capture(() -> compile(node));
+        }
         PrintWriter saved = printWriter; // temporarily change where output is directed
        
         StringWriter writer = new StringWriter();
@@ -0,0 +1,138 @@
+package radin.backend.compilation;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.CharBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Holds the output of a file while it's being compiled, so that every compiler writing to the file appends to the
+ * same buffer instead of going through a chain of writers. Lines are indented by whatever writer starts them, and
+ * nothing is written to disk until the whole file is done.
+ * <p>
+ * A buffer created with a writer passes its contents on to that writer whenever it's flushed.
+ * </p>
+ */
+public class CodeBuffer extends Writer {
+
+    private static final String LINE_SEPARATOR = System.lineSeparator();
+
+    private StringBuilder builder = new StringBuilder(1 << 12);
+    private Writer out;
+    private boolean lineStart = true;
+    private int capturing;
+
+    public CodeBuffer() {
+    }
+
+    /**
+     * @param out the writer that the contents are passed to when flushed
+     */
+    public CodeBuffer(Writer out) {
+        this.out = out;
+    }
+
+    /**
+     * Appends text, indenting every line it starts. Indentation isn't added while capturing.
+     * @param s the text
+     * @param start the first character to append
+     * @param end the character after the last one to append
+     * @param indentation the indentation of a line
+     */
+    public void append(CharSequence s, int start, int end, String indentation) {
+        while (start < end) {
+            int newLine = start;
+            while (newLine < end && s.charAt(newLine) != '\n') newLine++;
+            if (newLine > start) {
+                if (lineStart && capturing == 0) {
+                    builder.append(indentation);
+                }
+                builder.append(s, start, newLine);
+                lineStart = false;
+            }
+            if (newLine < end) {
+                newLine();
+            }
+            start = newLine + 1;
+        }
+    }
+
+    public void newLine() {
+        builder.append(LINE_SEPARATOR);
+        lineStart = true;
+    }
+
+    /**
+     * Runs an action and takes out what it appended instead of keeping it in the buffer
+     * @param action the action, which returns whether it succeeded
+     * @return what was appended, or null if the action failed
+     */
+    public String capture(BooleanSupplier action) {
+        int mark = builder.length();
+        boolean wasLineStart = lineStart;
+        capturing++;
+        lineStart = false;
+        try {
+            return action.getAsBoolean() ? builder.substring(mark) : null;
+        } finally {
+            capturing--;
+            builder.setLength(mark);
+            lineStart = wasLineStart;
+        }
+    }
+
+    /**
+     * Writes the contents of the buffer to a file, replacing the file, and empties the buffer
+     * @param path the file
+     * @throws IOException if the file can't be written
+     */
+    public void writeTo(Path path) throws IOException {
+        try {
+            Files.writeString(path, builder);
+        } finally {
+            clear();
+        }
+    }
+
+    public void clear() {
+        builder.setLength(0);
+        lineStart = true;
+    }
+
+    public int length() {
+        return builder.length();
+    }
+
+    @Override
+    public String toString() {
+        return builder.toString();
+    }
+
+    @Override
+    public void write(char[] cbuf, int off, int len) {
+        append(CharBuffer.wrap(cbuf), off, off + len, "");
+    }
+
+    @Override
+    public void write(String str, int off, int len) {
+        append(str, off, off + len, "");
+    }
+
+    @Override
+    public void flush() throws IOException {
+        if (out == null) return;
+        out.append(builder);
+        out.flush();
+        builder.setLength(0);
+    }
+
+    @Override
+    public void close() throws IOException {
+        flush();
+        if (out != null) {
+            out.close();
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package radin.backend.compilation;
+
+import radin.core.semantics.types.CXType;
+import radin.core.semantics.types.ICXWrapper;
+import radin.core.semantics.types.compound.CXClassType;
+import radin.core.semantics.types.methods.CXMethod;
+import radin.core.semantics.types.primitives.PointerType;
+import radin.core.utility.ICompilationSettings;
+import radin.midanalysis.MethodTASNTracker;
+import radin.midanalysis.TypeAugmentedSemanticNode;
+import radin.output.tags.BasicCompilationTag;
+import radin.output.tags.DirectMethodCallTag;
+import radin.output.tags.MethodCallTag;
+
+import java.util.*;
+
+/**
+ * Finds virtual method calls whose receiver's class, and every class that inherits from it, use the same
+ * implementation of the method, and tags them with a {@link DirectMethodCallTag} so they're output as a direct call
+ * instead of a call through the vtable. This only works once every class of the program has been created.
+ */
+public class Devirtualizer {
+
+    private ReachabilityAnalyzer reachability;
+    private Map<CXClassType, Map<String, Optional<CXMethod>>> implementations = new HashMap<>();
+    private Set<TypeAugmentedSemanticNode> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+    private int devirtualized;
+
+    /**
+     * @param reachability the methods that are output, or null if every method is output
+     */
+    public Devirtualizer(ReachabilityAnalyzer reachability) {
+        this.reachability = reachability;
+    }
+
+    /**
+     * Tags the calls in a file, and in the bodies of the methods of the classes it defines
+     * @param tree the typed tree of the file
+     */
+    public void devirtualize(TypeAugmentedSemanticNode tree) {
+        visit(tree);
+    }
+
+    /**
+     * Tags the calls in the bodies of the methods of every class
+     * @param classes the classes
+     */
+    public void devirtualizeMethods(Collection<CXClassType> classes) {
+        MethodTASNTracker tracker = MethodTASNTracker.getInstance();
+        for (CXClassType cxClassType : classes) {
+            List<CXMethod> methods = new ArrayList<>(cxClassType.getConcreteMethodsOrder());
+            methods.addAll(cxClassType.getVirtualMethodsOrder());
+            methods.addAll(cxClassType.getConstructors());
+            methods.addAll(cxClassType.getGeneratedSupers());
+            for (CXMethod method : methods) {
+                TypeAugmentedSemanticNode body = tracker.get(method);
+                if (body != null) {
+                    visit(body);
+                }
+            }
+        }
+        ICompilationSettings.debugLog.fine("Devirtualized " + devirtualized + " method calls");
+    }
+
+    private void visit(TypeAugmentedSemanticNode node) {
+        if (!visited.add(node)) return;
+        if (node.containsCompilationTag(BasicCompilationTag.VIRTUAL_METHOD_CALL) &&
+                node.containsCompilationTag(MethodCallTag.class) &&
+                !node.containsCompilationTag(DirectMethodCallTag.class)) {
+            CXMethod method = node.getCompilationTag(MethodCallTag.class).getMethod();
+            CXClassType receiver = getReceiverClass(node.getChild(0).getCXType(), method.getParent());
+            CXMethod implementation = getOnlyImplementation(receiver, method.getCMethodName());
+            if (implementation != null && hasBody(implementation) &&
+                    (reachability == null || reachability.isReachable(implementation))) {
+                node.addCompilationTag(new DirectMethodCallTag(implementation));
+                devirtualized++;
+            }
+        }
+        for (TypeAugmentedSemanticNode child : node.getChildren()) {
+            visit(child);
+        }
+    }
+
+    /**
+     * Methods defined in an implement block only have their body in the {@link MethodTASNTracker}
+     */
+    private static boolean hasBody(CXMethod method) {
+        return method.getMethodBody() != null || MethodTASNTracker.getInstance().get(method) != null;
+    }
+
+    /**
+     * Gets the static class of the object a method is called on, which can be more specific than the class that
+     * declares the method
+     */
+    private static CXClassType getReceiverClass(CXType type, CXClassType declaring) {
+        while (type != null && !(type instanceof CXClassType)) {
+            if (type instanceof PointerType) {
+                type = ((PointerType) type).getSubType();
+            } else if (type instanceof ICXWrapper) {
+                type = ((ICXWrapper) type).getWrappedType();
+            } else {
+                return declaring;
+            }
+        }
+        if (type != null && declaring != null && ((CXClassType) type).is(declaring)) {
+            return (CXClassType) type;
+        }
+        return declaring;
+    }
+
+    /**
+     * Gets the implementation of a virtual method that a class and every class that inherits from it use
+     * @param cxClassType the class
+     * @param methodName the name of the method in the vtable
+     * @return the implementation, or null if there's more than one
+     */
+    private CXMethod getOnlyImplementation(CXClassType cxClassType, String methodName) {
+        if (cxClassType == null) return null;
+        return implementations.computeIfAbsent(cxClassType, k -> new HashMap<>())
+                .computeIfAbsent(methodName, name -> {
+                    CXMethod found = null;
+                    for (CXClassType created : cxClassType.getEnvironment().getAllCreated()) {
+                        if (!created.is(cxClassType)) continue;
+                        CXMethod implementation = getImplementation(created, name);
+                        if (implementation == null) return Optional.empty();
+                        if (found == null) {
+                            found = implementation;
+                        } else if (!found.equals(implementation)) {
+                            return Optional.empty();
+                        }
+                    }
+                    return Optional.ofNullable(found);
+                }).orElse(null);
+    }
+
+    private static CXMethod getImplementation(CXClassType cxClassType, String methodName) {
+        for (CXMethod cxMethod : cxClassType.getVirtualMethodsOrder()) {
+            if (cxMethod.getCMethodName().equals(methodName)) {
+                return cxMethod;
+            }
+        }
+        return null;
+    }
+}
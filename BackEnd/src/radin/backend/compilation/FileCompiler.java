@@ -1,24 +1,41 @@
 package radin.backend.compilation;
 
+import radin.backend.microcompilers.FunctionCompiler;
+import radin.backend.microcompilers.IndentPrintWriter;
 import radin.backend.microcompilers.TopLevelDeclarationCompiler;
+import radin.core.semantics.types.CXIdentifier;
 import radin.midanalysis.TypeAugmentedSemanticNode;
 import radin.core.utility.ICompilationSettings;
+import radin.core.utility.UniversalCompilerSettings;
 
 import java.io.File;
-import java.io.FileNotFoundException;
-import java.io.PrintWriter;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 public class FileCompiler extends AbstractCompiler {
     
     private File outputFile;
+    private File currentFile;
+    private CodeBuffer code;
+    /**
+     * The trees of the files that are output once the whole program is known
+     */
+    private Map<File, TypeAugmentedSemanticNode> deferred = new LinkedHashMap<>();
     
     public FileCompiler() {
-        super(new PrintWriter(System.out));
+        this(new CodeBuffer());
     }
     
-    public FileCompiler(File file) throws FileNotFoundException {
-        super(new PrintWriter(getCreatedFile(file)));
+    public FileCompiler(File file) {
+        this(new CodeBuffer());
         this.outputFile = getCreatedFile(file);
+        this.currentFile = outputFile;
+    }
+    
+    private FileCompiler(CodeBuffer code) {
+        super(new IndentPrintWriter(code, 0, ""));
+        this.code = code;
     }
     
     public File getOutputFile() {
@@ -36,17 +53,73 @@ public class FileCompiler extends AbstractCompiler {
             } else {
                 throw new UnsupportedOperationException();
             }
-           
-           
-            try {
-                setPrintWriter(new PrintWriter(f));
-            } catch (FileNotFoundException ignore) {
-            }
+            currentFile = f;
         }
         
     }
     
-    private static File getCreatedFile(File value) {
+    /**
+     * At optimization level 2 or higher, files are only output once every file has been compiled, so that functions
+     * that can't be reached from anywhere in the program can be left out.
+     * @return whether files are being deferred
+     */
+    private boolean isDeferring() {
+        return UniversalCompilerSettings.getInstance().getSettings().getOptimizationLevel() >= 2;
+    }
+    
+    /**
+     * Finds what can be reached from the main function in the files compiled so far
+     * @return the analysis, or null if files aren't being deferred
+     */
+    public ReachabilityAnalyzer analyzeReachability() {
+        if(!isDeferring()) return null;
+        return analyzeReachability(null);
+    }
+    
+    private ReachabilityAnalyzer analyzeReachability(File entryFile) {
+        ReachabilityAnalyzer analyzer = new ReachabilityAnalyzer();
+        for (Map.Entry<File, TypeAugmentedSemanticNode> entry : deferred.entrySet()) {
+            if(entry.getKey().equals(entryFile)) {
+                analyzer.addEntryProgram(entry.getValue());
+            } else {
+                analyzer.addProgram(entry.getValue());
+            }
+        }
+        analyzer.addEntryFunction(CXIdentifier.from("main"));
+        analyzer.analyze();
+        return analyzer;
+    }
+    
+    /**
+     * Outputs the files that were deferred, leaving out everything that can't be reached from the main function or
+     * from the functions of the entry file. As every class is known by now, virtual calls that can only call one
+     * implementation are output as direct calls.
+     * @param entryFile the file whose functions are all kept, such as the runtime
+     * @return whether every file was output
+     */
+    public boolean compileDeferred(File entryFile) {
+        if(deferred.isEmpty()) return true;
+        ReachabilityAnalyzer analyzer = analyzeReachability(getCreatedFile(entryFile));
+        Devirtualizer devirtualizer = new Devirtualizer(analyzer);
+        for (TypeAugmentedSemanticNode tree : deferred.values()) {
+            devirtualizer.devirtualize(tree);
+        }
+        if(FunctionCompiler.environment != null) {
+            devirtualizer.devirtualizeMethods(FunctionCompiler.environment.getAllCreated());
+        }
+        boolean success = true;
+        for (Map.Entry<File, TypeAugmentedSemanticNode> entry : deferred.entrySet()) {
+            success &= output(entry.getValue(), analyzer, entry.getKey());
+        }
+        deferred.clear();
+        return success;
+    }
+    
+    /**
+     * @param value a source file
+     * @return the C file the source file is output to
+     */
+    public static File getCreatedFile(File value) {
         var nextName = value.getName();
         if(nextName.endsWith(".jdn")) {
             nextName = nextName.substring(0, nextName.length() - 4) + ".c";
@@ -69,23 +142,52 @@ public class FileCompiler extends AbstractCompiler {
     @Override
     public boolean compile(TypeAugmentedSemanticNode node) {
         // ICompilationSettings.debugLog.info("Compiling\n" + node.toTreeForm());
+        if(isDeferring() && currentFile != null) {
+            deferred.put(currentFile, node);
+            return true;
+        }
+        return output(node, null, currentFile);
+    }
+    
+    /**
+     * Compiles a file into the buffer, and then writes the buffer to the file all at once
+     * @param node the typed tree of the file
+     * @param reachability what can be reached in the program, or null to output everything
+     * @param file the file to write to, or null to print to the standard output
+     * @return whether the file was compiled and written
+     */
+    private boolean output(TypeAugmentedSemanticNode node, ReachabilityAnalyzer reachability, File file) {
         if(preamble != null) {
             println(preamble);
             println();
         }
         try {
             TopLevelDeclarationCompiler topLevelDeclarationCompiler = new TopLevelDeclarationCompiler(getPrintWriter());
+            topLevelDeclarationCompiler.setReachability(reachability);
             topLevelDeclarationCompiler.compile(node);
             
         }catch (Throwable t) {
             t.printStackTrace();
-            flush();
-            close();
+            write(file);
             return false;
         }
         
-        flush();
-        close();
+        return write(file);
+    }
+    
+    private boolean write(File file) {
+        try {
+            if(file == null) {
+                System.out.print(code);
+                System.out.flush();
+                code.clear();
+            } else {
+                code.writeTo(file.toPath());
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+            return false;
+        }
         return true;
     }
 }
@@ -0,0 +1,232 @@
+package radin.backend.compilation;
+
+import radin.core.semantics.ASTNodeType;
+import radin.core.semantics.types.CXIdentifier;
+import radin.core.semantics.types.compound.CXClassType;
+import radin.core.semantics.types.compound.ICXClassType;
+import radin.core.semantics.types.methods.CXConstructor;
+import radin.core.semantics.types.methods.CXMethod;
+import radin.core.utility.ICompilationSettings;
+import radin.midanalysis.MethodTASNTracker;
+import radin.midanalysis.TypeAugmentedSemanticNode;
+import radin.output.tags.ConstructorCallTag;
+import radin.output.tags.MethodCallTag;
+import radin.output.tags.PriorConstructorTag;
+import radin.output.tags.ResolvedPathTag;
+import radin.output.tags.SuperCallTag;
+
+import java.util.*;
+
+/**
+ * Finds the functions, methods and classes of a whole program that can be reached from its entry points. Calls to
+ * virtual methods reach the implementations of the method in every instantiated class that inherits from the class
+ * the method was called on, so methods of classes that are never constructed aren't reached through their vtables.
+ * <p>
+ * Global variables are always kept, so their initializers are treated as entry points.
+ * </p>
+ */
+public class ReachabilityAnalyzer {
+
+    /**
+     * The definitions of each function. The runtime defines a main function of its own, which calls the main function
+     * of the program once that is renamed in C, so a path can have multiple definitions.
+     */
+    private Map<CXIdentifier, List<TypeAugmentedSemanticNode>> functions = new HashMap<>();
+
+    private Set<CXIdentifier> reachableFunctions = new HashSet<>();
+    private Set<CXMethod> reachableMethods = new HashSet<>();
+    private Set<CXClassType> instantiatedClasses = new LinkedHashSet<>();
+    /**
+     * The names of the virtual methods that were called on each class
+     */
+    private Map<CXClassType, Set<String>> calledVirtualMethods = new HashMap<>();
+
+    private Deque<TypeAugmentedSemanticNode> toVisit = new ArrayDeque<>();
+
+    /**
+     * Adds the functions and global variables of a file to the program
+     * @param tree the typed tree of the file
+     */
+    public void addProgram(TypeAugmentedSemanticNode tree) {
+        addProgram(tree, false);
+    }
+
+    /**
+     * Adds the functions and global variables of a file to the program, and makes every function in it an entry point
+     * @param tree the typed tree of the file
+     */
+    public void addEntryProgram(TypeAugmentedSemanticNode tree) {
+        addProgram(tree, true);
+    }
+
+    private void addProgram(TypeAugmentedSemanticNode tree, boolean entry) {
+        for (TypeAugmentedSemanticNode child : tree.getChildren()) {
+            switch (child.getASTType()) {
+                case function_definition: {
+                    CXIdentifier path = getPath(child.getASTChild(ASTNodeType.id));
+                    if (path == null) break;
+                    functions.computeIfAbsent(path, k -> new ArrayList<>()).add(child);
+                    if (reachableFunctions.contains(path)) {
+                        toVisit.add(child);
+                    } else if (entry) {
+                        addEntryFunction(path);
+                    }
+                    break;
+                }
+                case declarations:
+                    toVisit.add(child);
+                    break;
+                case class_type_definition:
+                case implement:
+                    break;
+                default:
+                    addProgram(child, entry);
+            }
+        }
+    }
+
+    /**
+     * Makes a function an entry point
+     * @param function the path of the function
+     */
+    public void addEntryFunction(CXIdentifier function) {
+        if (!reachableFunctions.add(function)) return;
+        toVisit.addAll(functions.getOrDefault(function, Collections.emptyList()));
+    }
+
+    /**
+     * Finds everything that can be reached from the entry points added so far
+     */
+    public void analyze() {
+        while (!toVisit.isEmpty()) {
+            visit(toVisit.pop());
+        }
+        ICompilationSettings.debugLog.fine("Reachable: " + reachableFunctions.size() + " of " + functions.size() +
+                " functions, " + reachableMethods.size() + " methods, " + instantiatedClasses.size() + " classes");
+    }
+
+    private void visit(TypeAugmentedSemanticNode node) {
+        if (node.getASTType() == ASTNodeType.id) {
+            CXIdentifier path = getPath(node);
+            if (path != null && functions.containsKey(path)) {
+                addEntryFunction(path);
+            }
+        }
+        if (node.containsCompilationTag(SuperCallTag.class)) {
+            addMethod(node.getCompilationTag(SuperCallTag.class).getMethod());
+        } else if (node.containsCompilationTag(MethodCallTag.class)) {
+            CXMethod method = node.getCompilationTag(MethodCallTag.class).getMethod();
+            if (method.isVirtual()) {
+                addVirtualCall(method);
+            } else {
+                addMethod(method);
+            }
+        }
+        if (node.containsCompilationTag(ConstructorCallTag.class)) {
+            addConstructor(node.getCompilationTag(ConstructorCallTag.class).getConstructor());
+        }
+        if (node.containsCompilationTag(PriorConstructorTag.class)) {
+            addConstructor(node.getCompilationTag(PriorConstructorTag.class).getPriorConstructor());
+        }
+        for (TypeAugmentedSemanticNode child : node.getChildren()) {
+            visit(child);
+        }
+    }
+
+    private void addMethod(CXMethod method) {
+        if (method == null || !reachableMethods.add(method)) return;
+        TypeAugmentedSemanticNode body = MethodTASNTracker.getInstance().get(method);
+        if (body != null) {
+            toVisit.add(body);
+        }
+    }
+
+    private void addConstructor(CXConstructor constructor) {
+        if (constructor == null) return;
+        addMethod(constructor);
+        CXClassType parent = constructor.getParent();
+        if (parent == null || !instantiatedClasses.add(parent)) return;
+        Set<String> called = new HashSet<>();
+        for (CXClassType cxClassType : parent.getLineage()) {
+            called.addAll(calledVirtualMethods.getOrDefault(cxClassType, Collections.emptySet()));
+        }
+        for (String methodName : called) {
+            addImplementation(parent, methodName);
+        }
+    }
+
+    private void addVirtualCall(CXMethod method) {
+        CXClassType parent = method.getParent();
+        String methodName = method.getCMethodName();
+        if (parent == null ||
+                !calledVirtualMethods.computeIfAbsent(parent, k -> new HashSet<>()).add(methodName)) return;
+        for (CXClassType instantiated : instantiatedClasses) {
+            if (instantiated.is(parent)) {
+                addImplementation(instantiated, methodName);
+            }
+        }
+    }
+
+    private void addImplementation(CXClassType cxClassType, String methodName) {
+        for (CXMethod cxMethod : cxClassType.getVirtualMethodsOrder()) {
+            if (cxMethod.getCMethodName().equals(methodName)) {
+                addMethod(cxMethod);
+                return;
+            }
+        }
+    }
+
+    private static CXIdentifier getPath(TypeAugmentedSemanticNode id) {
+        if (id == null || !id.containsCompilationTag(ResolvedPathTag.class)) return null;
+        return id.getCompilationTag(ResolvedPathTag.class).getAbsolutePath();
+    }
+
+    public boolean isReachable(CXIdentifier function) {
+        return reachableFunctions.contains(function);
+    }
+
+    /**
+     * @param definition a function definition
+     * @return whether the function can be reached, which is true for functions outside of the analyzed program
+     */
+    public boolean isReachable(TypeAugmentedSemanticNode definition) {
+        CXIdentifier path = getPath(definition.getASTChild(ASTNodeType.id));
+        return path == null || !functions.containsKey(path) || reachableFunctions.contains(path);
+    }
+
+    public boolean isReachable(CXMethod method) {
+        return reachableMethods.contains(method);
+    }
+
+    /**
+     * @param cxClassType the class
+     * @return whether the class is constructed anywhere the program can reach
+     */
+    public boolean isInstantiated(ICXClassType cxClassType) {
+        return instantiatedClasses.contains(cxClassType);
+    }
+
+    /**
+     * @param cxClassType the class
+     * @return whether any code of the class needs to be output
+     */
+    public boolean isUsed(ICXClassType cxClassType) {
+        if (isInstantiated(cxClassType)) return true;
+        for (CXMethod method : reachableMethods) {
+            if (Objects.equals(method.getParent(), cxClassType)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Gets the classes that are constructed, and the classes they inherit from
+     * @return the classes
+     */
+    public Set<CXClassType> getReachableClasses() {
+        Set<CXClassType> output = new LinkedHashSet<>();
+        for (CXClassType instantiatedClass : instantiatedClasses) {
+            output.addAll(instantiatedClass.getLineage());
+        }
+        return output;
+    }
+}
@@ -4,15 +4,11 @@ import radin.backend.microcompilers.IndentPrintWriter;
 import radin.core.semantics.TypeEnvironment;
 import radin.core.semantics.types.compound.CXClassType;
 import radin.core.utility.ICompilationSettings;
-import radin.core.utility.UniversalCompilerSettings;
 
 import java.io.*;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.function.Function;
-import java.util.function.Predicate;
-import java.util.stream.Collectors;
 
 import static radin.core.utility.ICompilationSettings.createBuildFile;
 
@@ -20,17 +16,15 @@ public class RuntimeCompiler extends AbstractIndentedOutputSingleOutputCompiler
     
     
     private TypeEnvironment environment;
+    private File runtimeFile;
     private String entrancePoint = "main";
     private String jodinEntrancePoint = "__main";
+    private Set<CXClassType> reachableClasses;
     
     public RuntimeCompiler(TypeEnvironment environment) throws IOException {
-        super(new PrintWriter(new FileWriter(createBuildFile("runtime.jdn"))), 0);
+        super(new IndentPrintWriter(new CodeBuffer(), 0, ""), 0);
         this.environment = environment;
-    }
-    
-    public static <T> Predicate<T> distinctBy(Function<? super T, ?> f) {
-        Set<Object> seen = ConcurrentHashMap.newKeySet();
-        return t -> seen.add(f.apply(t));
+        this.runtimeFile = createBuildFile("runtime.jdn");
     }
     
     @Override
@@ -57,7 +51,8 @@ public class RuntimeCompiler extends AbstractIndentedOutputSingleOutputCompiler
         println("int " + jodinEntrancePoint + "(int argc, std::String argv[]);");
         println("in std {");
         setIndent(getIndent() + 1);
-        List<CXClassType> cxClassTypes = environment.getAllCreated().stream().filter(distinctBy((t) -> environment.getTypeId(t))).collect(Collectors.toList());
+        List<CXClassType> cxClassTypes = new ArrayList<>(environment.getClassesById());
+        int classCount = cxClassTypes.size();
         int classInfoIndex = 0;
         for (int i = 0; i < cxClassTypes.size(); i++) {
             if(cxClassTypes.get(i).getTypeName().equals("std::ClassInfo")) {
@@ -67,21 +62,21 @@ public class RuntimeCompiler extends AbstractIndentedOutputSingleOutputCompiler
         }
         CXClassType classInfo = cxClassTypes.remove(classInfoIndex);
         cxClassTypes.add(0, classInfo);
-        for (CXClassType cxClassType :
-                cxClassTypes) {
-            println("ClassInfo " + cxClassType.getCTypeName() + "_info = nullptr; // class_id = " + environment.getTypeId(cxClassType));
+        if(reachableClasses != null) {
+            // the ids of the classes don't change, so the removed classes just leave their slot of the table empty
+            cxClassTypes.removeIf(cxClassType -> !reachableClasses.contains(cxClassType) &&
+                    !cxClassType.getTypeName().equals("std::ClassInfo") &&
+                    !cxClassType.getTypeName().equals("std::String"));
         }
+        // indexed by class_id, so looking up a class doesn't depend on the amount of classes
+        println("ClassInfo __class_table[" + classCount + "];");
         
         
         
         println("ClassInfo __get_class(class_id id) {");
         setIndent(getIndent() + 1);
-        for (CXClassType cxClassType :
-                cxClassTypes) {
-            String identifier = cxClassType.getCTypeName() + "_info";
-            println("if (id == " + environment.getTypeId(cxClassType) + ") return " + identifier + ";");
-        }
-        println("return nullptr;");
+        println("if (id < 0 || id >= " + classCount + ") return nullptr;");
+        println("return __class_table[id];");
         setIndent(getIndent() - 1);
         println("}");
         setIndent(getIndent() - 1);
@@ -91,14 +86,14 @@ public class RuntimeCompiler extends AbstractIndentedOutputSingleOutputCompiler
         setIndent(getIndent() + 1);
         for (CXClassType cxClassType :
                 cxClassTypes) {
-            String identifier = cxClassType.getCTypeName() + "_info";
+            String identifier = getClassInfo(cxClassType);
+            println(identifier + " = new std::ClassInfo(); // " + cxClassType.getTypeName());
             /*
             println(identifier + " = (std::ClassInfo) malloc(sizeof(std::ClassInfo));");
             println(identifier + "->name = new std::String(\"" + cxClassType.getTypeName() +"\");");
             println(identifier + "->classHash = " + cxClassType.getCTypeName().hashCode() +";");
             
              */
-            println(identifier + " = new std::ClassInfo();");
             println(identifier + "->name = new std::String(\"" + cxClassType.getTypeName() +"\");");
             println(identifier + "->classHash = " + cxClassType.hashCode() +";");
             if(cxClassType.getTypeName().equals("std::ClassInfo")) {
@@ -109,11 +104,11 @@ public class RuntimeCompiler extends AbstractIndentedOutputSingleOutputCompiler
         for (CXClassType cxClassType :
                 cxClassTypes) {
         
-            String identifier = cxClassType.getCTypeName() + "_info";
-            if(cxClassType.getParent() == null) {
+            String identifier = getClassInfo(cxClassType);
+            if(cxClassType.getParent() == null || !cxClassTypes.contains(cxClassType.getParent())) {
                 println(identifier + "->parent = nullptr;");
             } else {
-                println(identifier + "->parent = __get_class(" + environment.getTypeId(cxClassType.getParent()) + ");");
+                println(identifier + "->parent = " + getClassInfo(cxClassType.getParent()) + ";");
             }
         
         }
@@ -137,11 +132,19 @@ public class RuntimeCompiler extends AbstractIndentedOutputSingleOutputCompiler
         println("}");
     
         
-        flush();
-        close();
+        try {
+            getPrintWriter().getBuffer().writeTo(runtimeFile.toPath());
+        } catch (IOException e) {
+            e.printStackTrace();
+            return false;
+        }
         return true;
     }
     
+    private String getClassInfo(CXClassType cxClassType) {
+        return "__class_table[" + environment.getTypeId(cxClassType) + "]";
+    }
+    
     public void setEntrancePoint(String entrancePoint) {
         this.entrancePoint = entrancePoint;
     }
@@ -150,9 +153,17 @@ public class RuntimeCompiler extends AbstractIndentedOutputSingleOutputCompiler
         this.jodinEntrancePoint = jodinEntrancePoint;
     }
     
+    /**
+     * Only creates the class info of these classes, instead of every class in the environment
+     * @param reachableClasses the classes that can be constructed, and their parents
+     */
+    public void setReachableClasses(Set<CXClassType> reachableClasses) {
+        this.reachableClasses = reachableClasses;
+    }
+    
     @Override
     protected void setIndent(int indent) {
         super.setIndent(indent);
-        setPrintWriter(new IndentPrintWriter(getPrintWriter(), getIndent(), UniversalCompilerSettings.getInstance().getSettings().getIndent()));
+        getPrintWriter().setIndent(indent);
     }
 }
@@ -3,9 +3,11 @@ package radin.backend.microcompilers;
 import radin.midanalysis.TypeAugmentedSemanticNode;
 import radin.midanalysis.TypeAugmentedSemanticTree;
 import radin.backend.compilation.AbstractIndentedOutputSingleOutputCompiler;
+import radin.backend.compilation.ReachabilityAnalyzer;
 import radin.output.tags.PriorConstructorTag;
 import radin.core.semantics.ASTNodeType;
 import radin.core.semantics.AbstractSyntaxNode;
+import radin.core.semantics.types.compound.CXClassType;
 import radin.core.semantics.types.compound.CXStructType;
 import radin.core.semantics.types.compound.ICXClassType;
 import radin.core.semantics.types.methods.CXConstructor;
@@ -13,11 +15,15 @@ import radin.core.semantics.types.methods.CXMethod;
 import radin.core.utility.UniversalCompilerSettings;
 
 import java.io.PrintWriter;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 
 public class ClassCompiler extends AbstractIndentedOutputSingleOutputCompiler {
     
     private ICXClassType cxClassType;
     private TypeAugmentedSemanticNode corresponding;
+    private ReachabilityAnalyzer reachability;
     
     public ClassCompiler(PrintWriter printWriter, int indent, ICXClassType cxClassType,
                          TypeAugmentedSemanticNode corresponding) {
@@ -26,6 +32,19 @@ public class ClassCompiler extends AbstractIndentedOutputSingleOutputCompiler {
         this.corresponding = corresponding;
     }
     
+    /**
+     * Only outputs the methods and constructors that can be reached, and the init method if the class is ever
+     * constructed. The init method then only fills in the reachable methods.
+     * @param reachability the analysis of the whole program, or null to output everything
+     */
+    public void setReachability(ReachabilityAnalyzer reachability) {
+        this.reachability = reachability;
+    }
+    
+    private boolean isReachable(CXMethod method) {
+        return reachability == null || reachability.isReachable(method);
+    }
+    
     @Override
     public boolean compile() {
         cxClassType.generateSuperMethods(UniversalCompilerSettings.getInstance().getSettings().getvTableName());
@@ -55,12 +74,17 @@ public class ClassCompiler extends AbstractIndentedOutputSingleOutputCompiler {
         }
         println();
         
+        if(reachability != null && !reachability.isUsed(cxClassType)) return true;
+        
         // CREATE INIT METHOD;
-        {
+        if(reachability == null || reachability.isInstantiated(cxClassType)) {
             CXMethod initMethod = cxClassType.getInitMethod();
             AbstractSyntaxNode methodBody = initMethod.getMethodBody();
             TypeAugmentedSemanticNode augmentedSemanticNode =
                     new TypeAugmentedSemanticTree(methodBody, cxClassType.getEnvironment()).getHead();
+            if(reachability != null) {
+                removeUnreachableAssignments(augmentedSemanticNode);
+            }
             //augmentedSemanticNode.printTreeForm();
             FunctionCompiler initFunctionCompiler = new FunctionCompiler(
                     getPrintWriter(),
@@ -75,7 +99,7 @@ public class ClassCompiler extends AbstractIndentedOutputSingleOutputCompiler {
         }
         // PRINT METHODS
         for (CXMethod cxMethod : cxClassType.getConcreteMethodsOrder()) {
-            if(cxMethod.getMethodBody() != null) {
+            if(cxMethod.getMethodBody() != null && isReachable(cxMethod)) {
                 MethodCompiler methodCompiler = new MethodCompiler(getPrintWriter(), 0, cxMethod);
                 if(!methodCompiler.compile()) return false;
             }
@@ -83,7 +107,7 @@ public class ClassCompiler extends AbstractIndentedOutputSingleOutputCompiler {
         }
         println();
         for (CXConstructor constructor : cxClassType.getConstructors()) {
-            if(constructor.getMethodBody() != null) {
+            if(constructor.getMethodBody() != null && isReachable(constructor)) {
                 
                 TypeAugmentedSemanticNode constructTAST =
                         corresponding.findFromASTNode(constructor.getCorrespondingASTNode());
@@ -107,6 +131,7 @@ public class ClassCompiler extends AbstractIndentedOutputSingleOutputCompiler {
         
         // CREATE STATIC SUPER METHODS
         for (CXMethod generatedSuper : cxClassType.getGeneratedSupers()) {
+            if(!isReachable(generatedSuper)) continue;
             print("static ");
             MethodCompiler methodCompiler = new MethodCompiler(getPrintWriter(), 0, generatedSuper);
             if(!methodCompiler.compile()) return false;
@@ -115,7 +140,7 @@ public class ClassCompiler extends AbstractIndentedOutputSingleOutputCompiler {
         
         
         for (CXMethod cxMethod : cxClassType.getVirtualMethodsOrder()) {
-            if(cxMethod.getMethodBody() != null && cxMethod.getParent() == cxClassType) {
+            if(cxMethod.getMethodBody() != null && cxMethod.getParent() == cxClassType && isReachable(cxMethod)) {
                 MethodCompiler methodCompiler = new MethodCompiler(getPrintWriter(), 0, cxMethod);
                 if(!methodCompiler.compile()) return false;
                 println();
@@ -126,4 +151,26 @@ public class ClassCompiler extends AbstractIndentedOutputSingleOutputCompiler {
     
         return true;
     }
+    
+    /**
+     * Removes the statements of the init method that put unreachable methods into the vtable or the object, as those
+     * methods aren't output
+     * @param initBody the body of the init method
+     */
+    private void removeUnreachableAssignments(TypeAugmentedSemanticNode initBody) {
+        Set<String> unreachable = new HashSet<>();
+        for (CXMethod cxMethod : cxClassType.getVirtualMethodsOrder()) {
+            if(!isReachable(cxMethod)) unreachable.add(cxMethod.getCFunctionName());
+        }
+        List<CXMethod> concreteMethods = cxClassType instanceof CXClassType ?
+                ((CXClassType) cxClassType).getAllConcreteMethods() : cxClassType.getConcreteMethodsOrder();
+        for (CXMethod cxMethod : concreteMethods) {
+            if(!isReachable(cxMethod)) unreachable.add(cxMethod.getCFunctionName());
+        }
+        initBody.getChildren().removeIf(statement -> {
+            if(statement.getASTType() != ASTNodeType.assignment) return false;
+            TypeAugmentedSemanticNode value = statement.getChild(statement.getChildren().size() - 1);
+            return value.getASTType() == ASTNodeType.id && unreachable.contains(value.getToken().getImage());
+        });
+    }
 }
@@ -4,6 +4,7 @@ import radin.backend.compilation.AbstractCompiler;
 import radin.midanalysis.TypeAugmentedSemanticNode;
 import radin.output.tags.BasicCompilationTag;
 import radin.output.tags.ConstructorCallTag;
+import radin.output.tags.DirectMethodCallTag;
 import radin.output.tags.MethodCallTag;
 import radin.output.tags.SuperCallTag;
 import radin.core.lexical.Token;
@@ -40,7 +41,13 @@ public class ExpressionCompiler extends AbstractCompiler {
             }
             case id:
             case literal: {
-                print(node.getToken().getImage());
+                String image = node.getToken().getImage();
+                // folded constants can be negative, which shouldn't merge with a preceding minus
+                if (image.startsWith("-")) {
+                    print("(" + image + ")");
+                } else {
+                    print(image);
+                }
                 break;
             }
             case _true: {
@@ -185,9 +192,10 @@ public class ExpressionCompiler extends AbstractCompiler {
                 boolean isLValueMethodCall = caller.isLValue();
                 
                 
-                String sequence = compileToString(node.getASTChild(ASTNodeType.sequence));
+                TypeAugmentedSemanticNode sequenceNode = node.getASTChild(ASTNodeType.sequence);
+                String sequence = compileToString(sequenceNode);
                 if(sequence == null) return false;
-                int sequenceLength = sequence.isBlank()? 0 : sequence.split(",").length;
+                int sequenceLength = sequenceNode.getChildren().size();
                 
                 if(node.containsCompilationTag(SuperCallTag.class)) {
                     SuperCallTag compilationTag = node.getCompilationTag(SuperCallTag.class);
@@ -200,6 +208,8 @@ public class ExpressionCompiler extends AbstractCompiler {
                 }
                 
                 MethodCallTag methodCallTag = node.getCompilationTag(MethodCallTag.class);
+                // virtual calls that can only reach one implementation skip the vtable
+                DirectMethodCallTag directCall = node.getCompilationTag(DirectMethodCallTag.class);
                 
                 
                 objectInteractionImage = compileToString(caller); // save for later use
@@ -210,7 +220,7 @@ public class ExpressionCompiler extends AbstractCompiler {
                     callingOnString = objectInteractionImage;
                 } else {
                     
-                    if(isLValueMethodCall) {
+                    if(isLValueMethodCall && directCall == null) {
                         print(objectInteractionImage);
                         
                     }
@@ -255,13 +265,28 @@ public class ExpressionCompiler extends AbstractCompiler {
                         CXType firstType = methodCallTag.getMethod().getParent().toPointer();
                         println("({");
                         println("\t" + firstType.generateCDeclaration("__temp") +  " = " + callingOnString + ";");
-                        print("\t(*__temp)");
+                        print(directCall == null ? "\t(*__temp)" : "\t");
                         callingOnString = "__temp";
                     }
                     
                 }
                 
-                if(!isLValueMethodCall && !node.getChild(0).containsCompilationTag(BasicCompilationTag.NEW_OBJECT_DEREFERENCE)) {
+                if(directCall != null && !node.getChild(0).containsCompilationTag(BasicCompilationTag.NEW_OBJECT_DEREFERENCE)) {
+                    CXMethod implementation = directCall.getMethod();
+                    if(implementation.getParent() != methodCallTag.getMethod().getParent()) {
+                        callingOnString = "(" + implementation.getParent().toPointer().generateCDefinition() + ") " +
+                                callingOnString;
+                    }
+                    if (sequence.isEmpty()) {
+                        print(implementation.methodAsFunctionCall(callingOnString));
+                    } else {
+                        print(implementation.methodAsFunctionCall(callingOnString, sequence));
+                    }
+                    if(!isLValueMethodCall) {
+                        println(";");
+                        print("})");
+                    }
+                } else if(!isLValueMethodCall && !node.getChild(0).containsCompilationTag(BasicCompilationTag.NEW_OBJECT_DEREFERENCE)) {
                     
                     
                     boolean isVirtualCall =
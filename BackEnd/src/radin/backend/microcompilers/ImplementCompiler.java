@@ -1,6 +1,7 @@
 package radin.backend.microcompilers;
 
 import radin.backend.compilation.AbstractIndentedOutputSingleOutputCompiler;
+import radin.backend.compilation.ReachabilityAnalyzer;
 import radin.midanalysis.TypeAugmentedSemanticNode;
 import radin.output.tags.ImplementMethodTag;
 import radin.output.tags.PriorConstructorTag;
@@ -13,18 +14,28 @@ import java.io.PrintWriter;
 public class ImplementCompiler extends AbstractIndentedOutputSingleOutputCompiler {
     
     private TypeAugmentedSemanticNode block;
+    private ReachabilityAnalyzer reachability;
     
     public ImplementCompiler(PrintWriter printWriter, int indent, TypeAugmentedSemanticNode block) {
         super(printWriter, indent);
         this.block = block;
     }
     
+    /**
+     * Only outputs the methods that can be reached
+     * @param reachability the analysis of the whole program, or null to output everything
+     */
+    public void setReachability(ReachabilityAnalyzer reachability) {
+        this.reachability = reachability;
+    }
+    
     @Override
     public boolean compile() {
         CXClassType parentType = ((CXClassType) block.getCXType());
         for (TypeAugmentedSemanticNode child : block.getChildren()) {
             if(child.getASTType() == ASTNodeType.function_definition) {
                 ImplementMethodTag compilationTag = child.getCompilationTag(ImplementMethodTag.class);
+                if(reachability != null && !reachability.isReachable(compilationTag.getMethod())) continue;
                 FunctionCompiler functionCompiler = new MethodCompiler(getPrintWriter(), getIndent(),
                         compilationTag.getMethod(), child.getASTChild(ASTNodeType.compound_statement));
                 if(!functionCompiler.compile()) return false;
@@ -32,6 +43,7 @@ public class ImplementCompiler extends AbstractIndentedOutputSingleOutputCompile
                 child.printTreeForm();
                 ImplementMethodTag compilationTag = child.getCompilationTag(ImplementMethodTag.class);
                 CXConstructor cxConstructor = (CXConstructor) compilationTag.getMethod();
+                if(reachability != null && !reachability.isReachable(cxConstructor)) continue;
                 PriorConstructorTag priorConstructorTag = null;
                 if(child.containsCompilationTag(PriorConstructorTag.class)) {
                     priorConstructorTag = child.getCompilationTag(PriorConstructorTag.class);
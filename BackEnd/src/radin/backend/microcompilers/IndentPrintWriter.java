@@ -1,24 +1,46 @@
 package radin.backend.microcompilers;
 
+import radin.backend.compilation.CodeBuffer;
+
 import java.io.PrintWriter;
+import java.nio.CharBuffer;
 
+/**
+ * Writes to a {@link CodeBuffer} with its own indentation. Writers created from another indent writer share its
+ * buffer, so changing the indentation doesn't add another layer of writers.
+ */
 public class IndentPrintWriter extends PrintWriter {
     
+    private CodeBuffer buffer;
     private int indent;
-    private String buffer;
     private String indentString;
+    private String indentation;
     
-    public IndentPrintWriter(PrintWriter parent, int indent, String indentString) {
-        super(parent);
-        this.indent = indent;
+    public IndentPrintWriter(CodeBuffer buffer, int indent, String indentString) {
+        super(buffer);
+        this.buffer = buffer;
         this.indentString = indentString;
-        this.buffer = getIndentString();
+        setIndent(indent);
+    }
+    
+    public IndentPrintWriter(PrintWriter parent, int indent, String indentString) {
+        this(parent instanceof IndentPrintWriter ? ((IndentPrintWriter) parent).buffer : new CodeBuffer(parent), indent,
+                indentString);
     }
     
     public int getIndent() {
         return indent;
     }
     
+    public void setIndent(int indent) {
+        this.indent = indent;
+        this.indentation = indentString.repeat(indent);
+    }
+    
+    public CodeBuffer getBuffer() {
+        return buffer;
+    }
+    
     public static IndentPrintWriter create(PrintWriter parent, int indent, String indentString) {
         return new IndentPrintWriter(parent, indent, indentString);
     }
@@ -28,56 +50,30 @@ public class IndentPrintWriter extends PrintWriter {
     }
     
     protected String getIndentString(String s) {
-        return indentString.repeat(indent) + s;
+        return indentation + s;
     }
     
     protected String getIndentString() {
-        return indentString.repeat(indent);
-    }
-    
-    @Override
-    public void print(String s) {
-        if(buffer != null) {
-            super.print(buffer);
-            buffer = null;
-        }
-        String[] split = s.split("\n");
-        if(split.length > 1) {
-            for (int i = 0; i < split.length - 1; i++) {
-                println(split[i]);
-            }
-            print(split[split.length - 1]);
-        }
-        else super.print(s);
+        return indentation;
     }
     
     @Override
-    public void print(Object obj) {
-        if(buffer != null) {
-            super.print(buffer);
-            buffer = null;
-        }
-        print(obj.toString());
+    public void write(int c) {
+        write(String.valueOf((char) c));
     }
     
     @Override
-    public void println() {
-        super.println();
-        if(indent > 0)
-            buffer = getIndentString();
+    public void write(char[] buf, int off, int len) {
+        buffer.append(CharBuffer.wrap(buf), off, off + len, indentation);
     }
     
     @Override
-    public void println(String x) {
-        super.println(x);
-        if(indent > 0)
-            buffer = getIndentString();
+    public void write(String s, int off, int len) {
+        buffer.append(s, off, off + len, indentation);
     }
     
     @Override
-    public void println(Object x) {
-        super.println(x);
-        if(indent > 0)
-            buffer = getIndentString();
+    public void println() {
+        buffer.newLine();
     }
 }
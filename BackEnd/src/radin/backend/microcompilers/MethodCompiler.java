@@ -6,7 +6,6 @@ import radin.output.typeanalysis.errors.IncorrectlyMissingCompoundStatement;
 import radin.core.semantics.types.compound.CXClassType;
 import radin.core.semantics.types.methods.CXMethod;
 import radin.core.semantics.types.methods.CXParameter;
-import radin.core.utility.UniversalCompilerSettings;
 
 import java.io.PrintWriter;
 
@@ -67,6 +66,6 @@ public class MethodCompiler extends FunctionCompiler {
     @Override
     protected void setIndent(int indent) {
         super.setIndent(indent);
-        setPrintWriter(new IndentPrintWriter(getPrintWriter(), getIndent(), UniversalCompilerSettings.getInstance().getSettings().getIndent()));
+        getPrintWriter().setIndent(indent);
     }
 }
\ No newline at end of file
@@ -1,6 +1,7 @@
 package radin.backend.microcompilers;
 
 import radin.backend.compilation.AbstractCompiler;
+import radin.backend.compilation.ReachabilityAnalyzer;
 import radin.midanalysis.TypeAugmentedSemanticNode;
 import radin.output.tags.TypeDefHelperTag;
 import radin.core.semantics.ASTNodeType;
@@ -19,10 +20,20 @@ import java.util.List;
 
 public class TopLevelDeclarationCompiler extends AbstractCompiler {
     
+    private ReachabilityAnalyzer reachability;
+    
     public TopLevelDeclarationCompiler(PrintWriter printWriter) {
         super(printWriter);
     }
     
+    /**
+     * Only outputs the functions and methods that can be reached
+     * @param reachability the analysis of the whole program, or null to output everything
+     */
+    public void setReachability(ReachabilityAnalyzer reachability) {
+        this.reachability = reachability;
+    }
+    
     @Override
     public boolean compile(TypeAugmentedSemanticNode node) {
         for (TypeAugmentedSemanticNode topLevelDeclaration : node.getChildren()) {
@@ -53,6 +64,7 @@ public class TopLevelDeclarationCompiler extends AbstractCompiler {
                     break;
                 }
                 case function_definition: {
+                    if(reachability != null && !reachability.isReachable(topLevelDeclaration)) break;
                     String name = topLevelDeclaration.getASTChild(ASTNodeType.id).getToken().getImage();
                     CXType returnType = ((TypedAbstractSyntaxNode) topLevelDeclaration.getASTNode()).getCxType();
                     List<CXParameter> parameters = new LinkedList<>();
@@ -150,6 +162,7 @@ public class TopLevelDeclarationCompiler extends AbstractCompiler {
                 
                     ClassCompiler classCompiler =
                             new ClassCompiler(getPrintWriter(), 0, cxClass, topLevelDeclaration);
+                    classCompiler.setReachability(reachability);
                 
                     if(!classCompiler.compile()) return false;
                     break;
@@ -161,6 +174,7 @@ public class TopLevelDeclarationCompiler extends AbstractCompiler {
                 case implement: {
                     ImplementCompiler implementCompiler = new ImplementCompiler(getPrintWriter(), 0,
                             topLevelDeclaration);
+                    implementCompiler.setReachability(reachability);
                     
                     if(!implementCompiler.compile()) return false;
                     break;
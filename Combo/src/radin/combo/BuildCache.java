@@ -0,0 +1,309 @@
+package radin.combo;
+
+import radin.core.semantics.TypeEnvironment;
+import radin.core.semantics.types.compound.CXClassType;
+import radin.core.semantics.types.methods.CXMethod;
+import radin.core.utility.ICompilationSettings;
+import radin.core.utility.UniversalCompilerSettings;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.util.*;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static radin.core.utility.Hashing.*;
+
+/**
+ * Remembers what every file compiled to in earlier builds, so that files that haven't changed aren't compiled again.
+ * The cache is kept in the build directory, and for each file stores
+ * <ul>
+ *     <li>a hash of the file, every file it includes, and the settings it was compiled with</li>
+ *     <li>a hash of the classes of the type environment when its output was generated</li>
+ *     <li>a hash of the classes of the whole program once it was compiled</li>
+ *     <li>a hash of the output that was generated</li>
+ *     <li>whether the file created classes, and whether it defined the main function</li>
+ * </ul>
+ * <p>
+ * Files share the type environment, and the classes in it can't be read back from the cache, so files that create
+ * classes are always analyzed. Only their output is skipped when it would come out the same. Files that don't create
+ * classes don't affect any other file, so they skip being compiled entirely, as long as the classes of the program
+ * are the same as when they were last compiled.
+ * </p>
+ */
+public class BuildCache {
+
+    private static final Pattern INCLUDE = Pattern.compile("^\\s*#include\\s*([\"<])([^\">]+)[\">]", Pattern.MULTILINE);
+
+    private File indexFile;
+    private Function<String, File> outputFiles;
+    private Map<String, Entry> entries = new LinkedHashMap<>();
+    private Map<File, String> includeHashes = new HashMap<>();
+
+    private static class Entry {
+        private String source;
+        private String environment;
+        private String program;
+        private String output;
+        private boolean createsClasses;
+        private boolean definesMain;
+    }
+
+    /**
+     * Loads the cache from the build directory, or starts an empty one if there isn't one yet
+     * @param outputFiles gets the output file of a source file, which is checked so that outputs that were changed or
+     *                    deleted are generated again
+     */
+    public BuildCache(Function<String, File> outputFiles) {
+        this.outputFiles = outputFiles;
+        indexFile = ICompilationSettings.createBuildFile("cache/index");
+        if (indexFile == null || !indexFile.exists()) return;
+        try {
+            for (String line : Files.readAllLines(indexFile.toPath())) {
+                String[] parts = line.split("\t");
+                if (parts.length != 7) continue;
+                Entry entry = new Entry();
+                entry.source = parts[1];
+                entry.environment = parts[2];
+                entry.program = parts[3];
+                entry.output = parts[4];
+                entry.createsClasses = Boolean.parseBoolean(parts[5]);
+                entry.definesMain = Boolean.parseBoolean(parts[6]);
+                entries.put(parts[0], entry);
+            }
+            ICompilationSettings.debugLog.info("Loaded build cache with " + entries.size() + " files");
+        } catch (IOException e) {
+            ICompilationSettings.debugLog.warning("Couldn't read build cache, compiling every file");
+            entries.clear();
+        }
+    }
+
+    private BuildCache() {
+    }
+
+    /**
+     * Hashes files together with the files they include and the current settings, without using the cache
+     * @param files the files
+     * @return the hash
+     * @throws IOException if a file can't be read
+     */
+    public static String hashFiles(Collection<File> files) throws IOException {
+        BuildCache hasher = new BuildCache();
+        MessageDigest digest = createDigest();
+        for (File file : files) {
+            update(digest, file.getAbsolutePath());
+            update(digest, hasher.hashSource(file.getPath(), Files.readString(file.toPath())));
+        }
+        return toHex(digest.digest());
+    }
+
+    /**
+     * Writes the cache to the build directory
+     */
+    public void save() {
+        if (indexFile == null) return;
+        List<String> lines = new ArrayList<>();
+        for (Map.Entry<String, Entry> pair : entries.entrySet()) {
+            Entry entry = pair.getValue();
+            if (entry.source == null || entry.output == null) continue;
+            lines.add(String.join("\t", pair.getKey(), entry.source, entry.environment, String.valueOf(entry.program),
+                    entry.output, String.valueOf(entry.createsClasses), String.valueOf(entry.definesMain)));
+        }
+        try {
+            Files.write(indexFile.toPath(), lines);
+        } catch (IOException e) {
+            ICompilationSettings.debugLog.warning("Couldn't write build cache to " + indexFile);
+        }
+    }
+
+    /**
+     * Hashes a file together with the files it includes and the current settings
+     * @param file the file
+     * @param text the text of the file
+     * @return the hash
+     */
+    public String hashSource(String file, String text) {
+        MessageDigest digest = createDigest();
+        update(digest, settingsFingerprint());
+        update(digest, text);
+        Set<File> included = new LinkedHashSet<>();
+        findIncludes(new File(file), text, included);
+        for (File include : included) {
+            update(digest, include.getPath());
+            update(digest, includeHashes.get(include));
+        }
+        return toHex(digest.digest());
+    }
+
+    /**
+     * Hashes the classes of a type environment in the order of their ids, including their fields and the C names of
+     * their methods, as outputs use all of these
+     * @param environment the type environment
+     * @return the hash
+     */
+    public static String fingerprint(TypeEnvironment environment) {
+        MessageDigest digest = createDigest();
+        for (CXClassType cxClassType : environment.getClassesById()) {
+            update(digest, cxClassType.classInfo());
+            CXClassType parent = cxClassType.getParent();
+            update(digest, parent == null ? "" : parent.getCTypeName());
+            for (CXMethod method : cxClassType.getAllMethods()) {
+                update(digest, method.getCFunctionName());
+            }
+        }
+        return toHex(digest.digest());
+    }
+
+    /**
+     * @param file the file
+     * @param source the hash of the file
+     * @return whether the file doesn't need to be compiled at all, as long as the classes of the program stay the same
+     */
+    public boolean canSkip(String file, String source) {
+        Entry entry = entries.get(file);
+        return isUnchanged(entry, file, source) && !entry.createsClasses && entry.program != null;
+    }
+
+    /**
+     * @param file the file
+     * @param source the hash of the file
+     * @param environment the fingerprint of the type environment before the output is generated
+     * @return whether the output of the file would be the same as the one already generated
+     */
+    public boolean canSkipOutput(String file, String source, String environment) {
+        Entry entry = entries.get(file);
+        return isUnchanged(entry, file, source) && environment.equals(entry.environment);
+    }
+
+    /**
+     * @param file a file that was skipped
+     * @param program the fingerprint of the type environment once the program was compiled
+     * @return whether the classes the file was last compiled with are still the same
+     */
+    public boolean isProgramUnchanged(String file, String program) {
+        Entry entry = entries.get(file);
+        return entry != null && program.equals(entry.program);
+    }
+
+    public boolean definesMain(String file) {
+        Entry entry = entries.get(file);
+        return entry != null && entry.definesMain;
+    }
+
+    /**
+     * Records that a file was compiled, and hashes its output
+     * @param file the file
+     * @param source the hash of the file
+     * @param environment the fingerprint of the type environment when the output was generated
+     * @param createsClasses whether the file created classes
+     * @param definesMain whether the file defined the main function
+     */
+    public void record(String file, String source, String environment, boolean createsClasses, boolean definesMain) {
+        Entry entry = new Entry();
+        entry.source = source;
+        entry.environment = environment;
+        entry.output = hashOutput(file);
+        entry.createsClasses = createsClasses;
+        entry.definesMain = definesMain;
+        entries.put(file, entry);
+    }
+
+    /**
+     * Records the classes of the program the files were compiled in
+     * @param files the files
+     * @param program the fingerprint of the type environment once the program was compiled
+     */
+    public void setProgram(Collection<String> files, String program) {
+        for (String file : files) {
+            Entry entry = entries.get(file);
+            if (entry != null) {
+                entry.program = program;
+            }
+        }
+    }
+
+    private boolean isUnchanged(Entry entry, String file, String source) {
+        return entry != null && source.equals(entry.source) && Objects.equals(entry.output, hashOutput(file));
+    }
+
+    private String hashOutput(String file) {
+        File output = outputFiles.apply(file);
+        if (output == null || !output.exists()) return null;
+        try {
+            MessageDigest digest = createDigest();
+            digest.update(Files.readAllBytes(output.toPath()));
+            return toHex(digest.digest());
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Finds every file that a file includes, directly or through other includes. Includes are found without evaluating
+     * conditional directives, so this can find more files than are actually included.
+     */
+    private void findIncludes(File file, String text, Set<File> included) {
+        Matcher matcher = INCLUDE.matcher(text);
+        while (matcher.find()) {
+            File include = resolveInclude(file, matcher.group(2), matcher.group(1).equals("\""));
+            if (include == null || !included.add(include)) continue;
+            try {
+                String includeText = Files.readString(include.toPath());
+                includeHashes.computeIfAbsent(include, f -> hash(includeText));
+                findIncludes(include, includeText, included);
+            } catch (IOException e) {
+                includeHashes.put(include, "");
+            }
+        }
+    }
+
+    private static File resolveInclude(File from, String filename, boolean isLocal) {
+        if (isLocal) {
+            File parent = from.getAbsoluteFile().getParentFile();
+            if (parent == null) return null;
+            Path path = Paths.get(parent.getPath(), filename);
+            return Files.exists(path) ? path.normalize().toFile() : null;
+        }
+        for (File dir : UniversalCompilerSettings.getInstance().getSettings().includeDirectories()) {
+            Path path = Paths.get(dir.getPath(), filename);
+            if (Files.exists(path)) {
+                return path.normalize().toFile();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * The settings that change the output of a file, and when the compiler itself was built
+     */
+    private static String settingsFingerprint() {
+        ICompilationSettings<?, ?, ?> settings = UniversalCompilerSettings.getInstance().getSettings();
+        StringBuilder builder = new StringBuilder();
+        builder.append(settings.getOptimizationLevel()).append(';')
+                .append(settings.getUseStackTrace()).append(';')
+                .append(settings.getUseTryCatch()).append(';')
+                .append(settings.autoCreateStrings()).append(';')
+                .append(settings.getIndent()).append(';')
+                .append(settings.getvTableName()).append(';')
+                .append(settings.isReduceIndirection()).append(';')
+                .append(settings.getTabSize()).append(';')
+                .append(settings.isHideClassPrivateDeclarations()).append(';')
+                .append(settings.isAllowUseStatements()).append(';')
+                .append(settings.isLookForMainFunction()).append(';')
+                .append(settings.isInRuntimeCompilationMode()).append(';');
+        for (File include : settings.includeDirectories()) {
+            builder.append(include.getPath()).append(';');
+        }
+        try {
+            File compiler = new File(BuildCache.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+            builder.append(compiler.lastModified());
+        } catch (Exception ignored) {
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,144 @@
+package radin.combo;
+
+import radin.core.SymbolTable;
+import radin.core.semantics.TypeEnvironment;
+import radin.core.semantics.types.CXIdentifier;
+import radin.core.utility.ICompilationSettings;
+import radin.midanalysis.MethodTASNTracker;
+import radin.midanalysis.TypeAugmentedSemanticNode;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Everything the interpreter needs from a compiled program: the symbol table of its functions and global variables,
+ * the type environment holding its classes, and the trees of its methods. The image is written to the build directory
+ * after the program is compiled, and loaded instead of compiling the program and the standard library again, as long
+ * as none of the files it was compiled from changed.
+ * <p>
+ * The image is written with Java serialization. Trees and types refer to each other deeply, so images are read and
+ * written on a thread with a large stack.
+ * </p>
+ */
+public class InterpreterImage {
+
+    private static final int MAGIC = 0x4A494D47; // JIMG
+    private static final int VERSION = 3;
+    private static final long STACK_SIZE = 1L << 30;
+
+    private final TypeEnvironment environment;
+    private final SymbolTable<CXIdentifier, TypeAugmentedSemanticNode> symbols;
+    private final MethodTASNTracker methods;
+
+    public InterpreterImage(TypeEnvironment environment, SymbolTable<CXIdentifier, TypeAugmentedSemanticNode> symbols,
+                            MethodTASNTracker methods) {
+        this.environment = environment;
+        this.symbols = symbols;
+        this.methods = methods;
+    }
+
+    public TypeEnvironment getEnvironment() {
+        return environment;
+    }
+
+    public SymbolTable<CXIdentifier, TypeAugmentedSemanticNode> getSymbols() {
+        return symbols;
+    }
+
+    public MethodTASNTracker getMethods() {
+        return methods;
+    }
+
+    /**
+     * Creates the key of the image of a program
+     * @param files every file the program is compiled from
+     * @param arch the word size the program is compiled for
+     * @return the key, or null if a file couldn't be read
+     */
+    public static String createKey(Collection<File> files, int arch) {
+        try {
+            return arch + ":" + BuildCache.hashFiles(files);
+        } catch (IOException e) {
+            ICompilationSettings.debugLog.warning("Couldn't hash the files of the program, not using an image");
+            return null;
+        }
+    }
+
+    private static File getImageFile() {
+        return ICompilationSettings.createBuildFile("cache/interpreter.img");
+    }
+
+    /**
+     * Writes the image to the build directory
+     * @param key the key of the program, from {@link #createKey(Collection, int)}
+     */
+    public void save(String key) {
+        File file = getImageFile();
+        if (file == null) return;
+        File temporary = new File(file.getPath() + ".tmp");
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        runWithLargeStack(() -> {
+            try (ObjectOutputStream output =
+                         new ObjectOutputStream(new BufferedOutputStream(new FileOutputStream(temporary)))) {
+                output.writeInt(MAGIC);
+                output.writeInt(VERSION);
+                output.writeUTF(key);
+                output.writeObject(environment);
+                output.writeObject(symbols);
+                output.writeObject(methods);
+            } catch (IOException | StackOverflowError e) {
+                failure.set(e);
+            }
+        });
+        try {
+            if (failure.get() != null) throw new IOException(failure.get());
+            Files.move(temporary.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            ICompilationSettings.debugLog.warning("Couldn't write interpreter image: " + e.getMessage());
+            temporary.delete();
+            return;
+        }
+        ICompilationSettings.debugLog.info("Wrote interpreter image to " + file);
+    }
+
+    /**
+     * Loads the image of a program from the build directory
+     * @param key the key of the program, from {@link #createKey(Collection, int)}
+     * @return the image, or null if there isn't an image for this program
+     */
+    public static InterpreterImage load(String key) {
+        File file = getImageFile();
+        if (key == null || file == null || !file.exists()) return null;
+        AtomicReference<InterpreterImage> image = new AtomicReference<>();
+        runWithLargeStack(() -> {
+            try (ObjectInputStream input = new ObjectInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+                if (input.readInt() != MAGIC || input.readInt() != VERSION || !input.readUTF().equals(key)) {
+                    ICompilationSettings.debugLog.info("Interpreter image is out of date");
+                    return;
+                }
+                TypeEnvironment environment = (TypeEnvironment) input.readObject();
+                @SuppressWarnings("unchecked")
+                SymbolTable<CXIdentifier, TypeAugmentedSemanticNode> symbols =
+                        (SymbolTable<CXIdentifier, TypeAugmentedSemanticNode>) input.readObject();
+                MethodTASNTracker methods = (MethodTASNTracker) input.readObject();
+                image.set(new InterpreterImage(environment, symbols, methods));
+            } catch (IOException | ClassNotFoundException | RuntimeException | StackOverflowError e) {
+                ICompilationSettings.debugLog.warning("Couldn't read interpreter image: " + e);
+            }
+        });
+        return image.get();
+    }
+
+    private static void runWithLargeStack(Runnable runnable) {
+        Thread thread = new Thread(null, runnable, "interpreter-image", STACK_SIZE);
+        thread.start();
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -6,6 +6,8 @@ import radin.core.chaining.IToolChain;
 import radin.core.errorhandling.AbstractCompilationError;
 import radin.core.errorhandling.CompilationError;
 import radin.core.errorhandling.ICompilationErrorCollector;
+import radin.core.lexical.Token;
+import radin.core.lexical.TokenType;
 import radin.midanalysis.ScopedTypeTracker;
 import radin.midanalysis.TypeAugmentedSemanticNode;
 import radin.output.typeanalysis.TypeAnalyzer;
@@ -13,14 +15,14 @@ import radin.output.typeanalysis.errors.MissingMainFunctionError;
 import radin.output.typeanalysis.errors.MultipleMainDefinitionsError;
 import radin.core.semantics.AbstractSyntaxNode;
 import radin.core.semantics.TypeEnvironment;
-import radin.core.semantics.types.CXIdentifier;
 import radin.core.semantics.types.compound.CXClassType;
 import radin.core.utility.ICompilationSettings;
 import radin.core.utility.UniversalCompilerSettings;
 
 import java.io.*;
 import java.util.*;
-import java.util.stream.Stream;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
 
 public class MultipleFileHandler <Output> implements ICompilationErrorCollector {
     
@@ -35,9 +37,9 @@ public class MultipleFileHandler <Output> implements ICompilationErrorCollector
     private HashSet<CompilationNode> nodes;
     private int compileAttempt;
     private HashMap<CompilationNode, List<CXClassType>> directingMap;
-    private HashMap<CompilationNode, List<CXIdentifier>> dependencies;
     private HashMap<CXClassType, CompilationNode> classToFile;
     private int numberFilesToCompile;
+    private BuildCache buildCache;
     
     public MultipleFileHandler(List<File> files, ICompilationSettings<AbstractSyntaxNode, TypeAugmentedSemanticNode,
             Output> settings) {
@@ -61,13 +63,11 @@ public class MultipleFileHandler <Output> implements ICompilationErrorCollector
             System.exit(-1);
         }
         
-        dependencies = new HashMap<>();
         numberFilesToCompile = 0;
         for (File file : files) {
             
             CompilationNode e = new CompilationNode(file, TypeAnalyzer.getEnvironment());
             nodes.add(e);
-            dependencies.put(e, new LinkedList<>());
             numberFilesToCompile++;
         }
         
@@ -79,7 +79,6 @@ public class MultipleFileHandler <Output> implements ICompilationErrorCollector
     public void addFile(File file) {
         CompilationNode e = new CompilationNode(file, TypeAnalyzer.getEnvironment());
         nodes.add(e);
-        dependencies.put(e, new LinkedList<>());
         numberFilesToCompile++;
     }
     
@@ -98,90 +97,135 @@ public class MultipleFileHandler <Output> implements ICompilationErrorCollector
     public List<Output> getGeneratedOutputs() {
         return generatedOutputs;
     }
+    
+    /**
+     * Skips files that haven't changed since the last build. This only works if the back tool chain writes its output
+     * to files, and outputs every file on its own.
+     * @param buildCache the cache, or null to compile every file
+     */
+    public void setBuildCache(BuildCache buildCache) {
+        this.buildCache = buildCache;
+    }
 
+    /**
+     * Compiles every file. First every file is lexed and parsed, on as many threads as the settings allow. Then type
+     * analysis and the back end are run one file at a time, because files share the type environment. This happens in
+     * waves, where every file is attempted once per wave, and files that error out are attempted again in the next wave.
+     * Compilation stops when a wave completes no files.
+     * <p>
+     * If there is a build cache, files that don't create classes and haven't changed are left out of the waves. Once
+     * every other file is compiled, they're only compiled if the classes of the program changed.
+     * </p>
+     * @return whether every file compiled
+     */
     public boolean compileAll() {
         compileAttempt = 0;
+        List<CompilationNode> skipped = skipUnchanged();
+        List<CompilationNode> compiled = new ArrayList<>();
+        prepareAll();
         CompilationNode last = null;
         List<CompilationNode> failed = new LinkedList<>();
-        CompilationNode firstInCycle = null;
-        Set<CompilationNode> explored = new HashSet<>();
+        List<CompilationNode> wave = new ArrayList<>(nodes);
+        nodes.clear();
         double filesCompiled = 0;
-        while (!nodes.isEmpty()) {
-            
-            
-            compileAttempt++;
-            CompilationNode next = ((CompilationNode) nodes.toArray()[0]);
-            nodes.remove(next);
-    
-            
-            
-            stateChanged = !next.equals(last);
-            if (firstInCycle == null) {
-                firstInCycle = next;
-                explored.clear();
-            } else if (firstInCycle == next) {
-                if (explored.equals(new HashSet<>(nodes))) {
-                    ICompilationSettings.debugLog.severe("Attempted to compile project and made no progress");
-                    ICompilationSettings.debugLog.severe("Compilation Failed");
-                    
-                    return false;
+        while (!wave.isEmpty() || !skipped.isEmpty()) {
+            List<CompilationNode> erroredOut = new ArrayList<>();
+            boolean madeProgress = false;
+            for (CompilationNode next : wave) {
+                compileAttempt++;
+                stateChanged = !next.equals(last);
+                
+                next.getErrors().clear();
+                
+                ICompilationSettings.debugLog.info("Attempting to compile %s", next.getFile());
+                boolean hadMain = MultipleMainDefinitionsError.firstDefinition != null;
+                int classCount = next.environment.getCreatedClasses().size();
+                CompilationResult compilationResult = next.attemptCompile();
+                var createdClasses = next.environment.getCreatedClasses();
+                next.createdClasses |= createdClasses.size() > classCount;
+                
+                directingMap.putIfAbsent(next, new LinkedList<>());
+                List<CXClassType> cxClassTypes = directingMap.get(next);
+                if (cxClassTypes != null) {
+                    List<CXClassType> newClasses = new LinkedList<>(createdClasses);
+                    newClasses.removeAll(cxClassTypes);
+                    if (newClasses.size() > 0) {
+                        ICompilationSettings.debugLog.info("In %s:", next.file);
+                        for (CXClassType newClass : newClasses) {
+                            if (!classToFile.containsKey(newClass)) {
+                                ICompilationSettings.debugLog.info("\t+%s <- %s", newClass, newClass.getParent());
+                                cxClassTypes.add(newClass);
+                                classToFile.put(newClass, next);
+                            }
+                        }
+                    }
                 }
-            }
-            
-            next.getErrors().clear();
-            
-            ICompilationSettings.debugLog.info("Attempting to compile " + next.getFile());
-            CompilationResult compilationResult = next.attemptCompile();
-            var createdClasses = next.environment.getCreatedClasses();
-            
-            directingMap.putIfAbsent(next, new LinkedList<>());
-            List<CXClassType> cxClassTypes = directingMap.get(next);
-            if (cxClassTypes != null) {
-                List<CXClassType> newClasses = new LinkedList<>(createdClasses);
-                newClasses.removeAll(cxClassTypes);
-                if (newClasses.size() > 0) {
-                    ICompilationSettings.debugLog.info("In " + next.file + ":");
-                    for (CXClassType newClass : newClasses) {
-                        if (!classToFile.containsKey(newClass)) {
-                            ICompilationSettings.debugLog.info("\t+" + newClass + " <- " + newClass.getParent());
-                            cxClassTypes.add(newClass);
-                            classToFile.put(newClass, next);
+                
+                switch (compilationResult) {
+                    case ErroredOut:
+                        ICompilationSettings.debugLog.warning("Erroring out of %s", next.getFile());
+                        for (AbstractCompilationError error : next.getErrors()) {
+                            ICompilationSettings.debugLog.throwing("MultipleFileHandler", "attemptCompile", error);
+                        }
+                        erroredOut.add(next);
+                        break;
+                    case Completed:
+                        ICompilationSettings.debugLog.info("Compiled %s", next.getFile());
+                        madeProgress = true;
+                        filesCompiled += 1;
+                        double percent = (filesCompiled)/numberFilesToCompile * 100;
+                        System.out.printf("[%3.0f%%] %s %s\n", percent, next.outputSkipped ? "Up to date" : "Compiled",
+                                next.file);
+                        compiled.add(next);
+                        if (buildCache != null && next.sourceHash != null) {
+                            boolean definesMain = !hadMain && MultipleMainDefinitionsError.firstDefinition != null;
+                            buildCache.record(next.file, next.sourceHash, next.environmentHash,
+                                    next.createdClasses, definesMain);
+                        }
+                        break;
+                    case Failed: {
+                        ICompilationSettings.debugLog.severe("Failed to compile %s", next.getFile());
+                        for (AbstractCompilationError error : next.getErrors()) {
+                            ICompilationSettings.debugLog.throwing("MultipleFileHandler", "attemptCompile", error);
                         }
+                        failed.add(next);
                     }
+                    break;
                 }
+                
+                // AFTER COMPILE ATTEMPT
+                last = next;
             }
             
-            switch (compilationResult) {
-                case ErroredOut:
-                    ICompilationSettings.debugLog.warning("Erroring out of " + next.getFile());
-                    for (AbstractCompilationError error : next.getErrors()) {
-                        ICompilationSettings.debugLog.throwing("MultipleFileHandler", "attemptCompile", error);
-                    }
-                    nodes.add(next);
-                    break;
-                case Completed:
-                    ICompilationSettings.debugLog.info("Compiled " + next.getFile());
-                    if (firstInCycle == next) {
-                        firstInCycle = null;
+            if (!madeProgress && !erroredOut.isEmpty()) {
+                ICompilationSettings.debugLog.severe("Attempted to compile project and made no progress");
+                ICompilationSettings.debugLog.severe("Compilation Failed");
+                
+                return false;
+            }
+            wave = erroredOut;
+            if (wave.isEmpty() && !skipped.isEmpty()) {
+                String program = BuildCache.fingerprint(TypeAnalyzer.getEnvironment());
+                for (CompilationNode node : skipped) {
+                    if (!buildCache.isProgramUnchanged(node.file, program)) {
+                        ICompilationSettings.debugLog.info("Classes changed since %s was compiled", node.file);
+                        wave.add(node);
                     }
+                }
+                skipped.removeAll(wave);
+                for (CompilationNode node : skipped) {
                     filesCompiled += 1;
                     double percent = (filesCompiled)/numberFilesToCompile * 100;
-                    System.out.printf("[%3.0f%%] Compiled %s\n", percent, next.file);;
-                    break;
-                case Failed: {
-                    ICompilationSettings.debugLog.severe("Failed to compile " + next.getFile());
-                    for (AbstractCompilationError error : next.getErrors()) {
-                        ICompilationSettings.debugLog.throwing("MultipleFileHandler", "attemptCompile", error);
+                    System.out.printf("[%3.0f%%] Up to date %s\n", percent, node.file);
+                    compiled.add(node);
+                    if (buildCache.definesMain(node.file) && MultipleMainDefinitionsError.firstDefinition == null) {
+                        Token main = new Token(TokenType.t_id, "main");
+                        main.setFilename(node.file);
+                        MultipleMainDefinitionsError.firstDefinition = main;
                     }
-                    failed.add(next);
                 }
-                break;
+                skipped.clear();
             }
-            
-            // AFTER COMPILE ATTEMPT
-            explored.add(next);
-            last = next;
-            
         }
         
         if (!failed.isEmpty()) {
@@ -194,9 +238,57 @@ public class MultipleFileHandler <Output> implements ICompilationErrorCollector
             if (MultipleMainDefinitionsError.firstDefinition == null) {
                 throw new MissingMainFunctionError();
             }
+            if (buildCache != null) {
+                List<String> files = new ArrayList<>();
+                for (CompilationNode node : compiled) {
+                    files.add(node.file);
+                }
+                buildCache.setProgram(files, BuildCache.fingerprint(TypeAnalyzer.getEnvironment()));
+                buildCache.save();
+            }
         }
         return failed.isEmpty();
     }
+    
+    /**
+     * Hashes every file, and takes out the files that the build cache says don't need to be compiled
+     * @return the files that were taken out
+     */
+    private List<CompilationNode> skipUnchanged() {
+        List<CompilationNode> skipped = new ArrayList<>();
+        if (buildCache == null) return skipped;
+        for (CompilationNode node : nodes) {
+            if (node.inputString == null) continue;
+            node.sourceHash = buildCache.hashSource(node.file, node.inputString);
+            if (buildCache.canSkip(node.file, node.sourceHash)) {
+                ICompilationSettings.debugLog.info("%s is up to date", node.file);
+                skipped.add(node);
+            }
+        }
+        nodes.removeAll(skipped);
+        return skipped;
+    }
+    
+    /**
+     * Lexes and parses every file on a work stealing pool. Each file gets its own copy of the front end unit, so this
+     * does nothing if the front end unit can't be copied, or if there is only one thread or file to use.
+     */
+    private void prepareAll() {
+        int threads = Math.min(settings.getCompileThreads(), nodes.size());
+        if (threads <= 1 || frontEndUnit.copy() == null) return;
+        
+        ICompilationSettings.debugLog.info("Lexing and parsing %s files on %s threads", nodes.size(), threads);
+        List<Callable<Boolean>> tasks = new ArrayList<>();
+        for (CompilationNode node : nodes) {
+            tasks.add(node::prepare);
+        }
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            pool.invokeAll(tasks);
+        } finally {
+            pool.shutdown();
+        }
+    }
 
     @Override
     public List<AbstractCompilationError> getErrors() {
@@ -216,7 +308,12 @@ public class MultipleFileHandler <Output> implements ICompilationErrorCollector
         private AbstractSyntaxNode astTree;
         private TypeAugmentedSemanticNode typedTree;
         private String inputString;
+        private IFrontEndUnit<? extends AbstractSyntaxNode> preparedFrontEnd;
         private long lastCompileAttemptTime;
+        private String sourceHash;
+        private String environmentHash;
+        private boolean outputSkipped;
+        private boolean createdClasses;
         
         
         private boolean isCompleted;
@@ -269,7 +366,7 @@ public class MultipleFileHandler <Output> implements ICompilationErrorCollector
         public boolean equals(Object o) {
             if (this == o) return true;
             if (o == null || getClass() != o.getClass()) return false;
-            CompilationNode that = (CompilationNode) o;
+            MultipleFileHandler<?>.CompilationNode that = (MultipleFileHandler<?>.CompilationNode) o;
             return file.equals(that.file);
         }
         
@@ -282,20 +379,49 @@ public class MultipleFileHandler <Output> implements ICompilationErrorCollector
                     '}';
         }
         
+        /**
+         * Lexes and parses this file with a copy of the front end unit, so that it can run at the same time as other
+         * files. If this throws, the file is lexed and parsed again when it's compiled, which reports the error.
+         * @return whether the file was lexed and parsed without errors
+         */
+        public boolean prepare() {
+            if (inputString == null) return false;
+            IFrontEndUnit<? extends AbstractSyntaxNode> unit = frontEndUnit.copy();
+            try {
+                ICompilationSettings.debugLog.finer("Preparing AST for %s", file);
+                unit.setVariable("lexer.filename", file);
+                unit.setVariable("lexer.inputString", inputString);
+                boolean success = unit.prepare();
+                preparedFrontEnd = unit;
+                return success;
+            } catch (Error | RuntimeException e) {
+                ICompilationSettings.debugLog.warning("Couldn't prepare %s: %s", file, e);
+                return false;
+            }
+        }
+        
         public CompilationResult attemptCompile() {
             try {
                 lastCompileAttemptTime = compileAttempt;
                 
                 if (astTree == null) {
-                    frontEndUnit.reset();
-                    frontEndUnit.clearErrors();
-                    ICompilationSettings.debugLog.finer("Creating AST for " + file);
-                    ICompilationSettings.debugLog.finer("Setting lexer.filename to " + file);
-                    frontEndUnit.setVariable("lexer.filename", file);
-                    ICompilationSettings.debugLog.finer("Setting lexer.inputString");
-                    frontEndUnit.setVariable("lexer.inputString", inputString);
-                    astTree = frontEndUnit.invoke();
-                    inputString = frontEndUnit.getUsedString();
+                    IFrontEndUnit<? extends AbstractSyntaxNode> unit;
+                    if (preparedFrontEnd != null) {
+                        ICompilationSettings.debugLog.finer("Creating AST for %s from its parse tree", file);
+                        unit = preparedFrontEnd;
+                        preparedFrontEnd = null;
+                    } else {
+                        unit = frontEndUnit;
+                        unit.reset();
+                        unit.clearErrors();
+                        ICompilationSettings.debugLog.finer("Creating AST for %s", file);
+                        ICompilationSettings.debugLog.finer("Setting lexer.filename to %s", file);
+                        unit.setVariable("lexer.filename", file);
+                        ICompilationSettings.debugLog.finer("Setting lexer.inputString");
+                        unit.setVariable("lexer.inputString", inputString);
+                    }
+                    astTree = unit.invoke();
+                    inputString = unit.getUsedString();
                     
                     if (UniversalCompilerSettings.getInstance().getSettings().isOutputPostprocessingOutput()) {
                         try {
@@ -303,10 +429,10 @@ public class MultipleFileHandler <Output> implements ICompilationErrorCollector
                             FileWriter fileWriter = new FileWriter(preProcessingOutput);
                             fileWriter.write(inputString);
                             fileWriter.flush();
-                            ICompilationSettings.debugLog.info("Created PreProcessor Output File " + preProcessingOutput.getName());
+                            ICompilationSettings.debugLog.info("Created PreProcessor Output File %s", preProcessingOutput.getName());
                             fileWriter.close();
                         } catch (IOException e) {
-                            ICompilationSettings.debugLog.warning("Couldn't create pre-processing output file at " + file + ".ppo");
+                            ICompilationSettings.debugLog.warning("Couldn't create pre-processing output file at %s.ppo", file);
                         }
                     }
                     
@@ -318,22 +444,22 @@ public class MultipleFileHandler <Output> implements ICompilationErrorCollector
                             fileWriter.println(astTree.toTreeForm());
                             fileWriter.println("}");
                             fileWriter.flush();
-                            ICompilationSettings.debugLog.info("Created AST File " + astOutput);
+                            ICompilationSettings.debugLog.info("Created AST File %s", astOutput);
                             fileWriter.close();
                         } catch (IOException e) {
-                            ICompilationSettings.debugLog.warning("Couldn't create AST file at " + file + ".ast");
+                            ICompilationSettings.debugLog.warning("Couldn't create AST file at %s.ast", file);
                         }
                     }
                     
-                    if (frontEndUnit.hasErrors() || astTree == null) {
+                    if (unit.hasErrors() || astTree == null) {
                         
-                        errors.addAll(frontEndUnit.getErrors());
+                        errors.addAll(unit.getErrors());
                         return CompilationResult.Failed;
                     }
                 } else {
-                    ICompilationSettings.debugLog.finer("Skipping creating AST for " + file);
+                    ICompilationSettings.debugLog.finer("Skipping creating AST for %s", file);
                 }
-                ICompilationSettings.debugLog.finest("Clearing errors for " + file);
+                ICompilationSettings.debugLog.finest("Clearing errors for %s", file);
                 errors.clear();
                 ScopedTypeTracker.setEnvironment(environment);
                 
@@ -343,7 +469,7 @@ public class MultipleFileHandler <Output> implements ICompilationErrorCollector
                     midToolChain.reset();
                     // ICompilationSettings.debugLog.finer("Setting environment");
                     // midToolChain.setVariable("environment", environment);
-                    ICompilationSettings.debugLog.finer("Creating Type-AST for " + file);
+                    ICompilationSettings.debugLog.finer("Creating Type-AST for %s", file);
                     midToolChain.clearErrors();
                     
                     invoke = midToolChain.invoke(astTree);
@@ -353,22 +479,30 @@ public class MultipleFileHandler <Output> implements ICompilationErrorCollector
                             PrintWriter fileWriter = new PrintWriter(new FileWriter(astOutput));
                             fileWriter.println(invoke.toTreeForm());
                             fileWriter.flush();
-                            ICompilationSettings.debugLog.info("Created TAST File " + astOutput);
+                            ICompilationSettings.debugLog.info("Created TAST File %s", astOutput);
                             fileWriter.close();
                         } catch (IOException e) {
-                            ICompilationSettings.debugLog.warning("Couldn't create AST file at " + file + ".ast");
+                            ICompilationSettings.debugLog.warning("Couldn't create AST file at %s.ast", file);
                         }
                     }
                     
                 } else {
-                    ICompilationSettings.debugLog.finer("Skipping creating Type-AST for " + file);
+                    ICompilationSettings.debugLog.finer("Skipping creating Type-AST for %s", file);
                     invoke = typedTree;
                 }
                 if (invoke != null) {
                     typedTree = invoke;
                     isCompleted = true;
+                    if (buildCache != null && sourceHash != null) {
+                        environmentHash = BuildCache.fingerprint(environment);
+                        if (buildCache.canSkipOutput(file, sourceHash, environmentHash)) {
+                            ICompilationSettings.debugLog.info("Output of %s is up to date", file);
+                            outputSkipped = true;
+                            return CompilationResult.Completed;
+                        }
+                    }
                     backToolChain.reset();
-                    ICompilationSettings.debugLog.finer("Setting file to " + file);
+                    ICompilationSettings.debugLog.finer("Setting file to %s", file);
                     backToolChain.setVariable("file", file);
                     
                     backToolChain.getErrors().clear();
@@ -420,39 +554,10 @@ public class MultipleFileHandler <Output> implements ICompilationErrorCollector
             return isCompleted;
         }
         
-        public long timeSinceLastCompile() {
-            return compileAttempt - lastCompileAttemptTime;
-        }
-        
-        public long getNumberOfUnfilledDependencies() {
-            Stream<CXIdentifier> cxIdentifiers = dependencies.get(this).stream();
-            long dependencyCount = dependencies.get(this).size();
-            for (CXClassType cxClassType : classToFile.keySet()) {
-                if (cxIdentifiers.anyMatch(o -> o.equals(cxClassType.getTypeNameIdentifier()))) {
-                    --dependencyCount;
-                }
-            }
-            return dependencyCount;
-        }
-        
-        
         @Override
         public List<AbstractCompilationError> getErrors() {
             return errors;
         }
     }
     
-    private class NodeComparator implements Comparator<CompilationNode> {
-        
-        @Override
-        public int compare(CompilationNode t0, CompilationNode t1) {
-            var lhs = (double) t0.getNumberOfUnfilledDependencies() / t0.timeSinceLastCompile();
-            var rhs = (double) t1.getNumberOfUnfilledDependencies() / t1.timeSinceLastCompile();
-            ICompilationSettings.debugLog.finer("Comparing two possible nodes for next compilation");
-            ICompilationSettings.debugLog.finer("\tNode 1: " + t0.file + " [" + lhs + "]");
-            ICompilationSettings.debugLog.finer("\tNode 2: " + t1.file + " [" + rhs + "]");
-            return Double.compare(lhs, rhs);
-        }
-    }
-    
 }
@@ -1,8 +1,10 @@
 package radin.core;
 
+import java.io.Serializable;
 import java.util.List;
 
-public abstract class AbstractTree<T extends AbstractTree<T>> {
+public abstract class AbstractTree<T extends AbstractTree<T>> implements Serializable {
+    private static final long serialVersionUID = 1L;
     
     final public String toTreeForm() {
         return toTreeForm(0);
@@ -10,7 +10,23 @@ public interface IFrontEndUnit<S> extends ICompilerProducer<S>, IToolChainHead<S
     TypeEnvironment getEnvironment();
     String getUsedString();
     
+    /**
+     * Creates a front end unit with its own lexer and parser, that shares everything else with this one. Different
+     * copies can be {@link #prepare() prepared} on different threads at the same time.
+     * @return the copy, or null if this front end unit can't be copied
+     */
+    default IFrontEndUnit<S> copy() {
+        return null;
+    }
     
+    /**
+     * Runs the parts of the front end that don't use the environment, such as lexing and parsing, so that the next
+     * {@link #invoke()} only has to run the rest.
+     * @return false if the front end resulted in errors
+     */
+    default boolean prepare() {
+        return true;
+    }
     
     @Override
     default S invoke(Void input) {
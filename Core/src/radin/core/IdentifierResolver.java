@@ -59,17 +59,16 @@ public class IdentifierResolver {
 
     public CXIdentifier createIdentity(CXIdentifier id) {
         if(currentNamespace.isNone()) {
-            if(!tree.getBaseObjects().contains(id)) {
-                tree.getBaseObjects().add(id);
+            if(!tree.containsObject(null, id)) {
+                tree.addObject(null, id);
             }
             return id;
         }
         CXIdentifier fullPath = CXIdentifier.from(currentNamespace.unwrap(), id);
         CXIdentifier parentPath = fullPath.getParentNamespace();
         tree.addNamespace(parentPath);
-        List<CXIdentifier> objects = tree.getObjectsForNamespace(parentPath);
-        if(!objects.contains(fullPath)) {
-            objects.add(fullPath);
+        if(!tree.containsObject(parentPath, fullPath)) {
+            tree.addObject(parentPath, fullPath);
         }
 
         return fullPath;
@@ -299,6 +299,18 @@ public class JodinLogger {
         base.entering(sourceClass, sourceMethod, params);
     }
     
+    /**
+     * Logs entering a method, where the method is described by a format string, such as {@code "getType(%s, %s)"}. The
+     * description is only formatted if it would be logged
+     * @param sourceClass the class
+     * @param methodFormat the format of the method
+     * @param arg1 the first argument of the format
+     * @param arg2 the second argument of the format
+     */
+    public void entering(String sourceClass, String methodFormat, Object arg1, Object arg2) {
+        if(base.isLoggable(Level.FINER)) base.entering(sourceClass, String.format(methodFormat, arg1, arg2));
+    }
+    
     public void exiting(String sourceClass, String sourceMethod) {
         base.exiting(sourceClass, sourceMethod);
     }
@@ -313,6 +325,7 @@ public class JodinLogger {
         if(thrown.getCause() != null) {
             throwing(sourceClass, sourceMethod, thrown.getCause());
         }
+        if(!base.isLoggable(Level.FINER)) return;
         boolean first = true;
         for (StackTraceElement stackTraceElement : thrown.getStackTrace()) {
             if(first) {
@@ -324,6 +337,95 @@ public class JodinLogger {
         finer("");
     }
     
+    /*
+     * The methods below that take a format string only format the message if it would be logged, so they can be used in
+     * hot paths. They take a fixed amount of arguments so that nothing is allocated when the level is off.
+     */
+    
+    public void severe(String format, Object arg) {
+        if(base.isLoggable(Level.SEVERE)) base.severe(String.format(format, arg));
+    }
+    
+    public void severe(String format, Object arg1, Object arg2) {
+        if(base.isLoggable(Level.SEVERE)) base.severe(String.format(format, arg1, arg2));
+    }
+    
+    public void severe(String format, Object arg1, Object arg2, Object arg3) {
+        if(base.isLoggable(Level.SEVERE)) base.severe(String.format(format, arg1, arg2, arg3));
+    }
+    
+    public void warning(String format, Object arg) {
+        if(base.isLoggable(Level.WARNING)) base.warning(String.format(format, arg));
+    }
+    
+    public void warning(String format, Object arg1, Object arg2) {
+        if(base.isLoggable(Level.WARNING)) base.warning(String.format(format, arg1, arg2));
+    }
+    
+    public void warning(String format, Object arg1, Object arg2, Object arg3) {
+        if(base.isLoggable(Level.WARNING)) base.warning(String.format(format, arg1, arg2, arg3));
+    }
+    
+    public void info(String format, Object arg) {
+        if(base.isLoggable(Level.INFO)) base.info(String.format(format, arg));
+    }
+    
+    public void info(String format, Object arg1, Object arg2) {
+        if(base.isLoggable(Level.INFO)) base.info(String.format(format, arg1, arg2));
+    }
+    
+    public void info(String format, Object arg1, Object arg2, Object arg3) {
+        if(base.isLoggable(Level.INFO)) base.info(String.format(format, arg1, arg2, arg3));
+    }
+    
+    public void config(String format, Object arg) {
+        if(base.isLoggable(Level.CONFIG)) base.config(String.format(format, arg));
+    }
+    
+    public void config(String format, Object arg1, Object arg2) {
+        if(base.isLoggable(Level.CONFIG)) base.config(String.format(format, arg1, arg2));
+    }
+    
+    public void config(String format, Object arg1, Object arg2, Object arg3) {
+        if(base.isLoggable(Level.CONFIG)) base.config(String.format(format, arg1, arg2, arg3));
+    }
+    
+    public void fine(String format, Object arg) {
+        if(base.isLoggable(Level.FINE)) base.fine(String.format(format, arg));
+    }
+    
+    public void fine(String format, Object arg1, Object arg2) {
+        if(base.isLoggable(Level.FINE)) base.fine(String.format(format, arg1, arg2));
+    }
+    
+    public void fine(String format, Object arg1, Object arg2, Object arg3) {
+        if(base.isLoggable(Level.FINE)) base.fine(String.format(format, arg1, arg2, arg3));
+    }
+    
+    public void finer(String format, Object arg) {
+        if(base.isLoggable(Level.FINER)) base.finer(String.format(format, arg));
+    }
+    
+    public void finer(String format, Object arg1, Object arg2) {
+        if(base.isLoggable(Level.FINER)) base.finer(String.format(format, arg1, arg2));
+    }
+    
+    public void finer(String format, Object arg1, Object arg2, Object arg3) {
+        if(base.isLoggable(Level.FINER)) base.finer(String.format(format, arg1, arg2, arg3));
+    }
+    
+    public void finest(String format, Object arg) {
+        if(base.isLoggable(Level.FINEST)) base.finest(String.format(format, arg));
+    }
+    
+    public void finest(String format, Object arg1, Object arg2) {
+        if(base.isLoggable(Level.FINEST)) base.finest(String.format(format, arg1, arg2));
+    }
+    
+    public void finest(String format, Object arg1, Object arg2, Object arg3) {
+        if(base.isLoggable(Level.FINEST)) base.finest(String.format(format, arg1, arg2, arg3));
+    }
+    
     public void severe(Supplier<String> msgSupplier) {
         base.severe(msgSupplier);
     }
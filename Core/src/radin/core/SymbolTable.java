@@ -5,11 +5,15 @@ import radin.core.semantics.types.CXIdentifier;
 import radin.core.semantics.types.CXType;
 import radin.core.utility.Pair;
 
+import java.io.Serializable;
 import java.util.*;
 
-public class SymbolTable<K, T> implements Iterable<Map.Entry<SymbolTable<K, T>.Key, T>> {
+public class SymbolTable<K, T> implements Iterable<Map.Entry<SymbolTable<K, T>.Key, T>>, Serializable {
+    private static final long serialVersionUID = 1L;
     
-    public class Key {
+    public class Key implements Serializable {
+        private static final long serialVersionUID = 1L;
+        
         private K key;
         private String fileOrigin;
         private Token token;
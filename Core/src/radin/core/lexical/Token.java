@@ -1,10 +1,12 @@
 package radin.core.lexical;
 
+import java.io.Serializable;
 import java.util.Objects;
 
 import static radin.core.lexical.TokenType.t_id;
 
-public class Token implements Comparable<Token>, Cloneable {
+public class Token implements Comparable<Token>, Cloneable, Serializable {
+    private static final long serialVersionUID = 1L;
     
     private TokenType type;
     private String image;
@@ -112,8 +114,9 @@ public class Token implements Comparable<Token>, Cloneable {
     
     @Override
     public int hashCode() {
-        if(type == TokenType.t_typename) return Objects.hash(t_id, image);
-        return Objects.hash(type, image);
+        // ordinals keep the hash the same between runs, as it's used in the names of generated C functions
+        if(type == TokenType.t_typename) return Objects.hash(t_id.ordinal(), image);
+        return Objects.hash(type.ordinal(), image);
     }
     
     @Override
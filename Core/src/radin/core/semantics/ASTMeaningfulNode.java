@@ -7,6 +7,7 @@ import radin.core.lexical.Token;
  * @param <T>
  */
 public abstract class ASTMeaningfulNode<T extends ASTMeaningfulNode<T>> extends AbstractGenericMeaningfulNode<ASTNodeType, T> {
+    private static final long serialVersionUID = 1L;
     
     abstract public ASTNodeType getTreeType();
     abstract public Token getToken();
@@ -6,6 +6,7 @@ import java.util.LinkedList;
 import java.util.List;
 
 public abstract class AbstractGenericMeaningfulNode <T extends Enum<T>, R extends AbstractGenericMeaningfulNode<T, R>> extends AbstractTree<R> {
+    private static final long serialVersionUID = 1L;
     
     abstract public T getTreeType();
     
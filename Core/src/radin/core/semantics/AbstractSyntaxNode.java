@@ -7,6 +7,7 @@ import radin.core.semantics.types.CXType;
 import java.util.*;
 
 public class AbstractSyntaxNode extends ASTMeaningfulNode<AbstractSyntaxNode> implements Iterable<AbstractSyntaxNode>{
+    private static final long serialVersionUID = 1L;
     
     public static final HashMap<String, ASTNodeType> cleanNameToType = new HashMap<>();
     
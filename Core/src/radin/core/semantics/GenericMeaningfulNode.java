@@ -4,6 +4,8 @@ import java.util.LinkedList;
 import java.util.List;
 
 public class GenericMeaningfulNode <T extends Enum<T>, R extends AbstractGenericMeaningfulNode<T, R>> extends AbstractGenericMeaningfulNode<T, R> {
+    private static final long serialVersionUID = 1L;
+
     private T type;
     private LinkedList<R> children;
     
@@ -4,67 +4,82 @@ import radin.core.Namespaced;
 import radin.core.semantics.types.AmbiguousIdentifierError;
 import radin.core.semantics.types.CXIdentifier;
 
-import java.util.HashSet;
-import java.util.LinkedList;
-import java.util.List;
-import java.util.Set;
+import java.io.Serializable;
+import java.util.*;
 
-public class NamespaceTree<T extends Namespaced> {
+public class NamespaceTree<T extends Namespaced> implements Serializable {
+    private static final long serialVersionUID = 1L;
 
-    private class Node {
+    private class Node implements Serializable {
+        private static final long serialVersionUID = 1L;
+        
         private String shorthand;
         private CXIdentifier identifier;
-        private List<Node> children;
+        private Map<String, Node> children;
         private List<T> relatedTypes;
-    
+        /**
+         * The related types, indexed by the last part of their identifiers
+         */
+        private Map<String, List<T>> relatedTypesByName;
+
         public Node(String shorthand, CXIdentifier identifier) {
             this.shorthand = shorthand;
             this.identifier = identifier;
-            children = new LinkedList<>();
-            relatedTypes = new LinkedList<>();
+            children = new LinkedHashMap<>();
+            relatedTypes = new ArrayList<>();
+            relatedTypesByName = new HashMap<>();
         }
-    
-        public boolean add(Node node) {
-            return children.add(node);
+
+        public void add(Node node) {
+            children.put(node.shorthand, node);
         }
-    
-        public List<Node> getChildren() {
-            return children;
+
+        public Collection<Node> getChildren() {
+            return children.values();
+        }
+
+        public Node getChild(String shorthand) {
+            return children.get(shorthand);
         }
-    
+
         public String getShorthand() {
             return shorthand;
         }
-    
+
         public CXIdentifier getIdentifier() {
             return identifier;
         }
-    
+
         public boolean add(T type) {
+            relatedTypesByName.computeIfAbsent(type.getIdentifier().getIdentifierString(), k -> new ArrayList<>(1))
+                    .add(type);
             return relatedTypes.add(type);
         }
-    
+
         public List<T> getRelatedTypes() {
-            return relatedTypes;
+            return Collections.unmodifiableList(relatedTypes);
+        }
+
+        public List<T> getRelatedTypes(String name) {
+            return relatedTypesByName.getOrDefault(name, Collections.emptyList());
         }
     }
-    
-    private List<Node> topNamespaces;
-    private List<T> baseObjects = new LinkedList<>();
-    
+
+    private Map<String, Node> topNamespaces;
+    private Node base = new Node(null, null);
+
     public NamespaceTree() {
-        this.topNamespaces = new LinkedList<>();
+        this.topNamespaces = new LinkedHashMap<>();
     }
-    
+
     public CXIdentifier getNamespace(CXIdentifier currentNamespace, CXIdentifier path) {
         if(namespaceExists(path)) return path;
         if(!namespaceExists(currentNamespace)) return null;
         if(path == null) return currentNamespace;
         CXIdentifier parent = getNamespace(currentNamespace, path.getParentNamespace());
         if(parent == null) return null;
-        for (Node child : getNode(parent).children) {
-            if(child.shorthand.equals(path.getIdentifierString())) return child.identifier;
-        }
+        Node child = getNode(parent).getChild(path.getIdentifierString());
+        if(child != null) return child.identifier;
         return null;
     }
 
@@ -77,52 +92,92 @@ public class NamespaceTree<T extends Namespaced> {
             else {
                 Set<CXIdentifier> parents = getNamespaces(currentNamespace, path.getParentNamespace());
                 for (CXIdentifier parent : parents) {
-                    for (Node child : getNode(parent).children) {
-                        if (child.shorthand.equals(path.getIdentifierString())) output.add(child.identifier);
-                    }
+                    Node child = getNode(parent).getChild(path.getIdentifierString());
+                    if (child != null) output.add(child.identifier);
                 }
-                
+
             }
         }
         return output;
     }
-    
 
-    
+
+
+    /**
+     * @param identifier the namespace, or null for the objects outside of any namespace
+     * @return an unmodifiable list of the objects in the namespace, or null if the namespace doesn't exist
+     */
     public List<T> getObjectsForNamespace(CXIdentifier identifier) {
-        if(identifier == null) return baseObjects;
+        if(identifier == null) return base.getRelatedTypes();
         Node node = getNode(identifier);
         if(node == null) return null;
         return node.getRelatedTypes();
     }
-    
+
+    /**
+     * Gets the objects in a namespace whose identifiers end with a name, without going through every object in the
+     * namespace
+     * @param identifier the namespace, or null for the objects outside of any namespace
+     * @param name the last part of the identifiers
+     * @return the objects, or null if the namespace doesn't exist
+     */
+    public List<T> getObjectsForNamespace(CXIdentifier identifier, String name) {
+        if(identifier == null) return base.getRelatedTypes(name);
+        Node node = getNode(identifier);
+        if(node == null) return null;
+        return node.getRelatedTypes(name);
+    }
+
+    /**
+     * @return an unmodifiable list of the objects outside of any namespace
+     */
     public List<T> getBaseObjects() {
-        return baseObjects;
+        return base.getRelatedTypes();
+    }
+
+    /**
+     * Adds an object to a namespace
+     * @param identifier the namespace, or null to add the object outside of any namespace
+     * @param object the object
+     * @throws IllegalArgumentException if the namespace doesn't exist
+     */
+    public void addObject(CXIdentifier identifier, T object) {
+        Node node = identifier == null ? base : getNode(identifier);
+        if(node == null) throw new IllegalArgumentException("Namespace " + identifier + " doesn't exist");
+        node.add(object);
     }
-    
+
+    /**
+     * @param identifier the namespace, or null for the objects outside of any namespace
+     * @param object the object
+     * @return whether the namespace exists and contains an object equal to the given object
+     */
+    public boolean containsObject(CXIdentifier identifier, T object) {
+        List<T> named = getObjectsForNamespace(identifier, object.getIdentifier().getIdentifierString());
+        return named != null && named.contains(object);
+    }
+
     private Node getNode(CXIdentifier currentNamespace) {
         if(currentNamespace == null) return null;
+        Node node;
         if(currentNamespace.getParentNamespace() == null) {
-            for (Node topNamespace : topNamespaces) {
-                if(topNamespace.identifier.equals(currentNamespace)) return topNamespace;
-            }
+            node = topNamespaces.get(currentNamespace.getIdentifierString());
         } else {
             Node parent = getNode(currentNamespace.getParentNamespace());
             if(parent == null) return null;
-            for (Node child : parent.children) {
-                if(child.identifier.equals(currentNamespace)) return child;
-            }
+            node = parent.getChild(currentNamespace.getIdentifierString());
         }
+        if(node != null && node.identifier.equals(currentNamespace)) return node;
         return null;
     }
-    
+
     public boolean namespaceExists(CXIdentifier namespacePath) {
         return getNode(namespacePath) != null;
     }
 
     public T getFromIdentifier(CXIdentifier currentNamespace, CXIdentifier path) {
         if(path.getParentNamespace() == null) {
-            for(T o : baseObjects) {
+            for(T o : base.getRelatedTypes(path.getIdentifierString())) {
                 if (o.getIdentifier().equals(path)) {
                     return o;
                 }
@@ -132,11 +187,7 @@ public class NamespaceTree<T extends Namespaced> {
         List<T> output = new LinkedList<>();
 
         for (CXIdentifier namespace : getNamespaces(currentNamespace, path.getParentNamespace())) {
-            for (T object : getObjectsForNamespace(namespace)) {
-                if(object.getIdentifier().getIdentifierString().equals(path.getIdentifierString())) {
-                    output.add(object);
-                }
-            }
+            output.addAll(getObjectsForNamespace(namespace, path.getIdentifierString()));
         }
 
 
@@ -145,11 +196,11 @@ public class NamespaceTree<T extends Namespaced> {
 
         return null;
     }
-    
+
     public void addNamespace(CXIdentifier namespace) {
         if(namespaceExists(namespace)) return;
         if(namespace.getParentNamespace() == null) {
-            topNamespaces.add(new Node(namespace.getIdentifierString(), namespace));
+            topNamespaces.put(namespace.getIdentifierString(), new Node(namespace.getIdentifierString(), namespace));
         } else {
             if(!namespaceExists(namespace.getParentNamespace())) {
                 addNamespace(namespace.getParentNamespace());
@@ -7,6 +7,7 @@ import java.util.List;
 import static radin.core.semantics.ASTNodeType.ast;
 
 public class TokenStoringAbstractSyntaxNode extends AbstractSyntaxNode {
+    private static final long serialVersionUID = 1L;
 
     private List<? extends Token> tokens;
     
@@ -14,12 +14,17 @@ import radin.core.utility.ICompilationSettings;
 import radin.core.utility.Pair;
 
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
 import java.util.*;
+import java.util.logging.Level;
 
 import static radin.core.lexical.TokenType.t_id;
 import static radin.core.semantics.ASTNodeType.*;
 
-public class TypeEnvironment {
+public class TypeEnvironment implements Serializable {
+    private static final long serialVersionUID = 1L;
     
     private final static HashSet<String> primitives;
     
@@ -34,17 +39,16 @@ public class TypeEnvironment {
     
     private static int environmentsCreated = 0;
     
-    private String environmentLogString(String message) {
-        return this.toString() + ": " + message;
-    }
-    
     private HashMap<String, CXType> typeDefinitions;
     private HashSet<CXCompoundType> namedCompoundTypes;
     private HashMap<String, CXCompoundType> namedCompoundTypesMap;
     private HashSet<CXClassType> createdClasses;
     private HashMap<CXIdentifier, CXMappedType> delayedTypeDefinitionHashMap;
     private HashSet<CXCompoundTypeNameIndirection> lateBoundReferences;
-    private AnnotationManager<CXClassType> classTargetManger;
+    /**
+     * Only used while compiling, so it isn't kept when the environment is serialized
+     */
+    private transient AnnotationManager<CXClassType> classTargetManger;
     private CXClassType defaultInheritance = null;
     private CXIdentifier currentNamespace = null;
     private List<CXIdentifier> usingNamespaces = new LinkedList<>();
@@ -60,14 +64,16 @@ public class TypeEnvironment {
     private int longDoubleSize = 10;
     private boolean standardBooleanDefined;
     
-    private List<CXClassType> allCreated = new LinkedList<>(); // doesn't reset;
+    private List<CXClassType> allCreated = new ArrayList<>(); // doesn't reset;
+    private Map<CXClassType, Integer> typeIds = new HashMap<>(); // doesn't reset;
+    private List<CXClassType> classesById = new ArrayList<>(); // doesn't reset;
     
     public CXClassType getDefaultInheritance() {
         return defaultInheritance;
     }
     
     public TypeEnvironment() {
-        ICompilationSettings.typeLog.info("Type Environment " + environmentsCreated++ + " Created!");
+        ICompilationSettings.typeLog.info("Type Environment %s Created!", environmentsCreated++);
         // ICompilationSettings.debugLog.throwing("TypeEnvironment", "<init>", new Throwable());
         typeDefinitions = new HashMap<>();
         namedCompoundTypes = new HashSet<>();
@@ -77,13 +83,11 @@ public class TypeEnvironment {
         
         standardBooleanDefined = false;
         delayedTypeDefinitionHashMap = new HashMap<>();
-        classTargetManger = AnnotationManager.createTargeted(
-                new Pair<String, AnnotationManager.TargetCommandNoArgs<CXClassType>>("setAsDefaultInheritance", this::setDefaultInheritance)
-        );
+        classTargetManger = createClassTargetManager();
     }
     
     public void resetToNone() {
-        ICompilationSettings.typeLog.finer(environmentLogString("Type Environment Reset"));
+        ICompilationSettings.typeLog.finer("%s: Type Environment Reset", this);
         typeDefinitions = new HashMap<>();
         namedCompoundTypes = new HashSet<>();
         namedCompoundTypesMap = new HashMap<>();
@@ -91,9 +95,7 @@ public class TypeEnvironment {
         createdClasses = new HashSet<>();
         
         delayedTypeDefinitionHashMap = new HashMap<>();
-        classTargetManger = AnnotationManager.createTargeted(
-                new Pair<String, AnnotationManager.TargetCommandNoArgs<CXClassType>>("setAsDefaultInheritance", this::setDefaultInheritance)
-        );
+        classTargetManger = createClassTargetManager();
         namespaceTree = new NamespaceTree<>();
         defaultInheritance = null;
         currentNamespace = null;
@@ -133,10 +135,31 @@ public class TypeEnvironment {
         currentNamespace = null;
     }
     
+    private AnnotationManager<CXClassType> createClassTargetManager() {
+        return AnnotationManager.createTargeted(
+                new Pair<String, AnnotationManager.TargetCommandNoArgs<CXClassType>>("setAsDefaultInheritance", this::setDefaultInheritance)
+        );
+    }
+    
     public AnnotationManager<CXClassType> getClassTargetManger() {
+        if (classTargetManger == null) {
+            classTargetManger = createClassTargetManager();
+        }
         return classTargetManger;
     }
     
+    /**
+     * Types are hashed by their contents, which may not have been read yet when a set holding them is read, so the sets
+     * of types are rebuilt once everything in the environment has been read
+     */
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        namedCompoundTypes = new HashSet<>(namedCompoundTypes);
+        createdClasses = new HashSet<>(createdClasses);
+        lateBoundReferences = new HashSet<>(lateBoundReferences);
+        typeIds = new HashMap<>(typeIds);
+    }
+    
     public int getShortIntSize() {
         return shortIntSize;
     }
@@ -190,7 +213,7 @@ public class TypeEnvironment {
         if(delayedTypeDefinitionHashMap.containsKey(cxIdentifier)) return getTempType(cxIdentifier);
         CXDelayedTypeDefinition delayedTypeDefinition = new CXDelayedTypeDefinition(cxIdentifier, tok, this);
         delayedTypeDefinitionHashMap.put(cxIdentifier, delayedTypeDefinition);
-        ICompilationSettings.typeLog.finest(environmentLogString("Added temp type " + delayedTypeDefinition));
+        ICompilationSettings.typeLog.finest("%s: Added temp type %s", this, delayedTypeDefinition);
         return getTempType(cxIdentifier);
     }
     
@@ -200,9 +223,9 @@ public class TypeEnvironment {
         if(identifier.getParentNamespace() != null)
             parent = namespaceTree.getNamespace(currentNamespace, identifier.getParentNamespace());
         else parent = currentNamespace;
-        ICompilationSettings.debugLog.finest(environmentLogString("Getting temp type " + identifier));
+        ICompilationSettings.debugLog.finest("%s: Getting temp type %s", this, identifier);
         CXIdentifier actual = new CXIdentifier(parent, identifier.getBase());
-        ICompilationSettings.debugLog.finest(environmentLogString("Rectified to " + actual));
+        ICompilationSettings.debugLog.finest("%s: Rectified to %s", this, actual);
         
         return delayedTypeDefinitionHashMap.getOrDefault(actual, null);
     }
@@ -213,19 +236,19 @@ public class TypeEnvironment {
         if(delayedTypeDefinitionHashMap.containsKey(cxIdentifier)) return getTempType(cxIdentifier);
         CXDeferredClassDefinition delayedTypeDefinition = new CXDeferredClassDefinition(tok, this, cxIdentifier);
         delayedTypeDefinitionHashMap.put(cxIdentifier, delayedTypeDefinition);
-        ICompilationSettings.typeLog.finest(environmentLogString("Added deferred type " + delayedTypeDefinition));
+        ICompilationSettings.typeLog.finest("%s: Added deferred type %s", this, delayedTypeDefinition);
         return getTempType(cxIdentifier);
     }
     
     public CXMappedType getTempType(String identifier) {
-        ICompilationSettings.debugLog.finest("Getting temp type " + identifier);
+        ICompilationSettings.debugLog.finest("Getting temp type %s", identifier);
         return getTempType(new CXIdentifier(currentNamespace, new Token(t_id, identifier)));
     }
     
     public CXMappedType getTempType(CXIdentifier namespace, Token identifier) {
         
         CXIdentifier actual = new CXIdentifier(namespace,  identifier);
-        ICompilationSettings.debugLog.finest("Getting temp type " + actual);
+        ICompilationSettings.debugLog.finest("Getting temp type %s", actual);
         
         return delayedTypeDefinitionHashMap.getOrDefault(actual, null);
     }
@@ -322,9 +345,10 @@ public class TypeEnvironment {
                 corresponding);
         
         List<CXType> output = new LinkedList<>();
+        String name = namespacedTypename.getIdentifierString();
         
         for (CXIdentifier namespace : namespaceTree.getNamespaces(currentNamespace, namespacedTypename.getParentNamespace())) {
-            for (CXCompoundType cxCompoundType : namespaceTree.getObjectsForNamespace(namespace)) {
+            for (CXCompoundType cxCompoundType : namespaceTree.getObjectsForNamespace(namespace, name)) {
                 if(cxCompoundType.getTypeNameIdentifier().equals(namespacedTypename)) {
                     output.add(cxCompoundType);
                 }
@@ -332,7 +356,7 @@ public class TypeEnvironment {
         }
 
         for(CXIdentifier using : usingNamespaces) {
-            for (CXCompoundType cxCompoundType : namespaceTree.getObjectsForNamespace(using)) {
+            for (CXCompoundType cxCompoundType : namespaceTree.getObjectsForNamespace(using, name)) {
                 if(cxCompoundType.getTypeNameIdentifier().equals(namespacedTypename)) {
                     if(!output.contains(cxCompoundType)) {
                         output.add(cxCompoundType);
@@ -360,7 +384,7 @@ public class TypeEnvironment {
     }
     
     public CXType getType(Token typenameImage, Token tok) {
-        ICompilationSettings.debugLog.entering("TypeEnvironment", String.format("getType(%s, %s)", typenameImage, tok));
+        ICompilationSettings.debugLog.entering("TypeEnvironment", "getType(%s, %s)", typenameImage, tok);
         CXType output = null;
         if(typeDefinitions.containsKey(typenameImage.getImage())) {
             output = typeDefinitions.get(typenameImage.getImage());
@@ -370,28 +394,21 @@ public class TypeEnvironment {
             if(output != null) throw new AmbiguousIdentifierError(tok, Arrays.asList(temp, output));
             output = temp;
         }
-        List<CXCompoundType> typesForNamespace = new LinkedList<>(namespaceTree.getObjectsForNamespace(currentNamespace));
-        if(currentNamespace != null) {
-            typesForNamespace.addAll(namespaceTree.getBaseObjects());
-        }
+        // only the types whose names match are looked at, so types from using namespaces only need to be checked
+        // against the other possibilities for duplicates
+        String name = typenameImage.getImage();
+        List<CXCompoundType> typesForNamespace = namespaceTree.getObjectsForNamespace(currentNamespace, name);
         if(typesForNamespace == null) {
             throw new TypeDoesNotExist(typenameImage.getImage());
         }
-        for (CXIdentifier usingNamespace : usingNamespaces) {
-            for (CXCompoundType cxCompoundType : namespaceTree.getObjectsForNamespace(usingNamespace)) {
-                if(!typesForNamespace.contains(cxCompoundType)) {
-                    typesForNamespace.add(cxCompoundType);
-                }
-            }
-
-        }
-
-
         List<CXType> possibilities = new LinkedList<>();
-        for (CXCompoundType cxCompoundType : typesForNamespace) {
-            
-            if(cxCompoundType.getTypeNameIdentifier().getBase().equals(typenameImage))
-                possibilities.add(cxCompoundType);
+        addPossibleTypes(possibilities, typesForNamespace, typenameImage, false);
+        if(currentNamespace != null) {
+            addPossibleTypes(possibilities, namespaceTree.getObjectsForNamespace(null, name), typenameImage, false);
+        }
+        for (CXIdentifier usingNamespace : usingNamespaces) {
+            addPossibleTypes(possibilities, namespaceTree.getObjectsForNamespace(usingNamespace, name), typenameImage,
+                    true);
         }
         
         
@@ -420,6 +437,17 @@ public class TypeEnvironment {
         return output;
     }
     
+    private void addPossibleTypes(List<CXType> possibilities, List<CXCompoundType> types, Token typenameImage,
+                                  boolean skipDuplicates) {
+        for (CXCompoundType cxCompoundType : types) {
+            if(cxCompoundType.getTypeNameIdentifier().getBase().equals(typenameImage)) {
+                if(!skipDuplicates || !possibilities.contains(cxCompoundType)) {
+                    possibilities.add(cxCompoundType);
+                }
+            }
+        }
+    }
+    
     public CXType getType(AbstractSyntaxNode ast) throws InvalidPrimitiveException {
         // System.out.println("Getting type for:");
         
@@ -640,7 +668,7 @@ public class TypeEnvironment {
                 addNamedCompoundType(type);
             }
             
-            ICompilationSettings.typeLog.info(environmentLogString("Created new type " + type));
+            ICompilationSettings.typeLog.info("%s: Created new type %s", this, type);
             
             output = type;
         } else {
@@ -670,7 +698,9 @@ public class TypeEnvironment {
                     case function_description:
                     case function_definition: {
                         boolean isVirtual = dec.hasChild(ASTNodeType._virtual);
-                        ICompilationSettings.debugLog.finest("Creating method in " + identifier + " with tree:\n" + dec.toTreeForm() + "...");
+                        if(ICompilationSettings.debugLog.isLoggable(Level.FINEST)) {
+                            ICompilationSettings.debugLog.finest("Creating method in " + identifier + " with tree:\n" + dec.toTreeForm() + "...");
+                        }
                         
                         methods.add(
                                 createMethod(visibility, isVirtual, dec)
@@ -701,7 +731,7 @@ public class TypeEnvironment {
                 } catch (InvalidPrimitiveException e) {
                     return null;
                 }
-                ICompilationSettings.debugLog.finest("Parent type found: " + parent);
+                ICompilationSettings.debugLog.finest("Parent type found: %s", parent);
                 
                 cxClassType = new CXClassType(identifier, parent, fieldDeclarations, methods, new LinkedList<>(), this);
                 
@@ -738,24 +768,29 @@ public class TypeEnvironment {
             createdClasses.add(cxClassType);
             cxClassType.setEnvironment(this);
             
-            ICompilationSettings.debugLog.info("Created new class " + cxClassType.getTypeNameIdentifier()
-                    + (cxClassType.getParent() != null ? " : " + cxClassType.getParent().getTypeNameIdentifier() : ""));
+            ICompilationSettings.debugLog.info("Created new class %s%s", cxClassType.getTypeNameIdentifier(),
+                    cxClassType.getParent() != null ? " : " + cxClassType.getParent().getTypeNameIdentifier() : "");
             
             
-            List<? super CXCompoundType> typesForNamespace = namespaceTree.getObjectsForNamespace(namespace);
-            typesForNamespace.add(cxClassType);
+            namespaceTree.addObject(namespace, cxClassType);
             
             addNamedCompoundType(cxClassType);
-            ICompilationSettings.typeLog.info(environmentLogString("Created new class " + cxClassType));
-            ICompilationSettings.typeLog.info("Fields:");
-            for (var field : cxClassType.getAllFields()) {
-                ICompilationSettings.typeLog.info("\t+ " + field);
-            }
-            ICompilationSettings.typeLog.info("Methods:");
-            for (CXMethod allMethod : cxClassType.getAllMethods()) {
-                ICompilationSettings.typeLog.info("\t+ " + allMethod);
+            cxClassType.addVirtualMethodsToLayout();
+            if(ICompilationSettings.typeLog.isLoggable(Level.INFO)) {
+                ICompilationSettings.typeLog.info("%s: Created new class %s", this, cxClassType);
+                ICompilationSettings.typeLog.info("Fields:");
+                for (var field : cxClassType.getAllFields()) {
+                    ICompilationSettings.typeLog.info("\t+ %s", field);
+                }
+                ICompilationSettings.typeLog.info("Methods:");
+                for (CXMethod allMethod : cxClassType.getAllMethods()) {
+                    ICompilationSettings.typeLog.info("\t+ %s", allMethod);
+                }
             }
             allCreated.add(cxClassType);
+            if(typeIds.putIfAbsent(cxClassType, classesById.size()) == null) {
+                classesById.add(cxClassType);
+            }
             return cxClassType;
             
         }
@@ -808,8 +843,22 @@ public class TypeEnvironment {
         return allCreated;
     }
     
+    /**
+     * Gets every created class once, in the order of their ids. Classes that are declared again in other files share
+     * the id of the first declaration.
+     * @return an unmodifiable list, where the index of each class is its id
+     */
+    public List<CXClassType> getClassesById() {
+        return Collections.unmodifiableList(classesById);
+    }
+    
+    /**
+     * Gets the id of a class
+     * @param type the class
+     * @return the id, or -1 if the class was never created
+     */
     public int getTypeId(CXClassType type) {
-        return allCreated.indexOf(type);
+        return typeIds.getOrDefault(type, -1);
     }
     
     /**
@@ -8,6 +8,7 @@ import radin.core.semantics.types.CXType;
 import java.util.ArrayList;
 
 public abstract class CXGeneric<T> extends CXType implements ICXGeneric<T> {
+    private static final long serialVersionUID = 1L;
     
     private TypeEnvironment environment;
     private ArrayList<CXParameterizedType> parameterizedTypes;
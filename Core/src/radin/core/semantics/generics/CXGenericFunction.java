@@ -13,6 +13,7 @@ import java.util.*;
 import java.util.stream.Collectors;
 
 public class CXGenericFunction extends CXFunctionPointer implements ICXGeneric<CXFunctionPointer> {
+    private static final long serialVersionUID = 1L;
     
     private TypeEnvironment environment;
     private CXIdentifier name;
@@ -15,6 +15,7 @@ import radin.core.utility.Reference;
 import java.util.List;
 
 public class CXParameterizedType extends CXType implements ICXClassType {
+    private static final long serialVersionUID = 1L;
     
     private ICXClassType upperBound;
     private Token name;
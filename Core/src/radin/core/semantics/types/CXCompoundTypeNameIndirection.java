@@ -9,6 +9,7 @@ import radin.core.semantics.types.compound.CXCompoundType;
 import radin.core.semantics.types.compound.ICXCompoundType;
 
 public class CXCompoundTypeNameIndirection extends CXType implements Namespaced {
+    private static final long serialVersionUID = 1L;
     
     public enum CompoundType {
         struct("struct"),
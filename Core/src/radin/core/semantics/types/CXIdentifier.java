@@ -6,10 +6,13 @@ import radin.core.lexical.TokenType;
 import radin.core.semantics.ASTNodeType;
 import radin.core.semantics.AbstractSyntaxNode;
 
+import java.io.Serializable;
 import java.util.Arrays;
 import java.util.Objects;
 
-public class CXIdentifier implements CXEquivalent, Namespaced {
+public class CXIdentifier implements CXEquivalent, Namespaced, Serializable {
+    private static final long serialVersionUID = 1L;
+    
     private CXIdentifier parentNamespace;
     private Token identifier;
     private Token corresponding;
@@ -9,11 +9,14 @@ import radin.core.semantics.types.primitives.ArrayType;
 import radin.core.semantics.types.primitives.CXPrimitiveType;
 import radin.core.semantics.types.primitives.PointerType;
 
+import java.io.Serializable;
+
 /**
  * Base type for any CXType. This needs to be inherited for a type to be properly tracked
  * Represents all C Types and Class Types
  */
-public abstract class CXType implements CXEquivalent, Namespaced {
+public abstract class CXType implements CXEquivalent, Namespaced, Serializable {
+    private static final long serialVersionUID = 1L;
     
     
     /**
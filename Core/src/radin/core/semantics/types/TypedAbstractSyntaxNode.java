@@ -8,6 +8,7 @@ import radin.core.semantics.AbstractSyntaxNode;
 import java.util.List;
 
 public class TypedAbstractSyntaxNode extends AbstractSyntaxNode {
+    private static final long serialVersionUID = 1L;
 
     public class NullCXTypeError extends AbstractCompilationError {
         public NullCXTypeError(Token t) {
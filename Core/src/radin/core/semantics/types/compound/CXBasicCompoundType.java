@@ -8,6 +8,7 @@ import radin.core.semantics.types.CXType;
 import java.util.List;
 
 public abstract class CXBasicCompoundType extends CXCompoundType {
+    private static final long serialVersionUID = 1L;
     
     public CXBasicCompoundType(List<FieldDeclaration> fields) {
         super(fields);
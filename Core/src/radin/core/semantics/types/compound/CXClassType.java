@@ -22,13 +22,22 @@ import radin.core.utility.UniversalCompilerSettings;
 import java.util.*;
 
 public class CXClassType extends CXCompoundType implements ICXClassType {
+    private static final long serialVersionUID = 1L;
     
     private CXClassType parent;
+    /**
+     * This class and the classes it inherits from, where the class at index i is the ancestor at depth i of the
+     * inheritance tree. A class is a subtype of another class if the other class is in its display at the depth of the
+     * other class, so subtype checks don't need to walk the lineage.
+     */
+    private final CXClassType[] display;
+    private List<CXClassType> reverseInheritanceOrder;
     
     private HashMap<String, Visibility> visibilityMap;
     
     private List<CXMethod> virtualMethodOrder;
     private List<CXMethod> concreteMethodsOrder;
+    private boolean layoutCreated;
     /**
      * Methods created for this class
      */
@@ -55,10 +64,16 @@ public class CXClassType extends CXCompoundType implements ICXClassType {
                        List<CXMethod> methods, List<CXConstructor> constructors, TypeEnvironment e) {
         super(typename, new LinkedList<>(declarations));
         classFields = declarations;
-        ICompilationSettings.debugLog.finest("Creating class " + typename);
+        ICompilationSettings.debugLog.finest("Creating class %s", typename);
         this.environment = e;
         sealed = false;
         this.parent = parent;
+        if(parent != null) {
+            display = Arrays.copyOf(parent.display, parent.display.length + 1);
+        } else {
+            display = new CXClassType[1];
+        }
+        display[display.length - 1] = this;
         instanceMethods = new LinkedList<>();
         instanceMethods.addAll(methods);
         if(parent != null) {
@@ -311,12 +326,30 @@ public class CXClassType extends CXCompoundType implements ICXClassType {
         return initMethod;
     }
     
+    /**
+     * Gets every method of the class, without changing the orders the methods are kept in
+     *
+     * @return a new list of the concrete methods followed by the virtual methods that aren't already in it
+     */
     public List<CXMethod> getAllMethods() {
-        List<CXMethod> output = getConcreteMethodsOrder();
-        output.addAll(getVirtualMethodsOrder());
+        List<CXMethod> output = new ArrayList<>(getConcreteMethodsOrder());
+        for (CXMethod cxMethod : getVirtualMethodsOrder()) {
+            if (!output.contains(cxMethod)) output.add(cxMethod);
+        }
         return output;
     }
     
+    /**
+     * Adds the virtual methods of the class, including the ones it inherits, after its concrete methods. The struct of
+     * the class has a member for each of these methods, and each one is declared and output with the class. This is
+     * done once, when the class is added to its environment.
+     */
+    public void addVirtualMethodsToLayout() {
+        if (layoutCreated) return;
+        layoutCreated = true;
+        concreteMethodsOrder.addAll(virtualMethodOrder);
+    }
+    
     @Override
     public List<CXMethod> getVirtualMethodsOrder() {
         return virtualMethodOrder;
@@ -501,23 +534,21 @@ public class CXClassType extends CXCompoundType implements ICXClassType {
     }
     
     public boolean is(CXClassType other) {
-        return getLineage().contains(other);
+        int depth = other.display.length - 1;
+        return depth < display.length && Objects.equals(display[depth], other);
     }
     
+    /**
+     * @return an unmodifiable list of this class and the classes it inherits from, starting from the root class
+     */
     public List<CXClassType> getLineage() {
-        List<CXClassType> output = new LinkedList<>();
-        CXClassType ptr = this;
-        while(ptr != null) {
-            output.add(0, ptr);
-            ptr = ptr.parent;
-        }
-        return output;
+        return Collections.unmodifiableList(Arrays.asList(display));
     }
     
     public CXMethod getMethodStrict(String name, ParameterTypeList parameterTypeList, Reference<Boolean> isVirtual) {
         ICompilationSettings.debugLog.finest("Getting method with strict parameter checking");
-        ICompilationSettings.debugLog.finest("Name = " + name);
-        ICompilationSettings.debugLog.finest("Parameter types = " + parameterTypeList);
+        ICompilationSettings.debugLog.finest("Name = %s", name);
+        ICompilationSettings.debugLog.finest("Parameter types = %s", parameterTypeList);
         CXMethod output = getVirtualMethodStrict(name, parameterTypeList);
         if(output != null) {
             if(isVirtual != null) isVirtual.setValue(true);
@@ -625,10 +656,16 @@ public class CXClassType extends CXCompoundType implements ICXClassType {
         return visibilityMap.get(name);
     }
     
+    /**
+     * @return an unmodifiable list of this class and the classes it inherits from, starting from this class
+     */
     public List<CXClassType> getReverseInheritanceOrder() {
-        List<CXClassType> lineage = getLineage();
-        Collections.reverse(lineage);
-        return lineage;
+        if(reverseInheritanceOrder == null) {
+            List<CXClassType> lineage = new ArrayList<>(Arrays.asList(display));
+            Collections.reverse(lineage);
+            reverseInheritanceOrder = Collections.unmodifiableList(lineage);
+        }
+        return reverseInheritanceOrder;
     }
     
     private boolean isExistingVirtualMethod(String name) {
@@ -655,7 +692,7 @@ public class CXClassType extends CXCompoundType implements ICXClassType {
             if(((CXClassType) other).environment != e) {
                 throw new MismatchedTypeEnvironmentException(this, e, other, ((CXClassType) other).environment);
             }
-            return this.getLineage().contains(other);
+            return is((CXClassType) other);
         } else if(other instanceof CXCompoundTypeNameIndirection) {
             if(((CXCompoundTypeNameIndirection) other).getCompoundType() != CXCompoundTypeNameIndirection.CompoundType._class) return false;
             CXCompoundType namedCompoundType = e.getNamedCompoundType(((CXCompoundTypeNameIndirection) other).getTypename());
@@ -9,6 +9,7 @@ import java.util.List;
 import java.util.Objects;
 
 public abstract class CXCompoundType extends CXType implements ICXCompoundType {
+    private static final long serialVersionUID = 1L;
     
     private List<FieldDeclaration> fields;
     private CXIdentifier typeName;
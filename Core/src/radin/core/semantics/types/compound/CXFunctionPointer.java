@@ -11,6 +11,7 @@ import java.util.List;
 import java.util.stream.Collectors;
 
 public class CXFunctionPointer extends AbstractCXPrimitiveType {
+    private static final long serialVersionUID = 1L;
     
     private CXType returnType;
     private List<CXType> parameterTypes;
@@ -7,6 +7,7 @@ import radin.core.semantics.types.CXType;
 import java.util.List;
 
 public class CXStructType extends CXBasicCompoundType {
+    private static final long serialVersionUID = 1L;
     
     public CXStructType(List<FieldDeclaration> fields) {
         super(fields);
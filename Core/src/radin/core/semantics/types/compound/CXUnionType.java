@@ -7,6 +7,7 @@ import radin.core.semantics.types.CXCompoundTypeNameIndirection;
 import java.util.List;
 
 public class CXUnionType extends CXBasicCompoundType {
+    private static final long serialVersionUID = 1L;
     
     public CXUnionType(List<FieldDeclaration> fields) {
         super(fields);
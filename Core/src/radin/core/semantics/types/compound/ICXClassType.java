@@ -50,6 +50,8 @@ public interface ICXClassType extends ICXCompoundType, CXCallable {
     boolean canInstantiateDirectly();
     
     class ClassFieldDeclaration extends FieldDeclaration {
+        private static final long serialVersionUID = 1L;
+
         private Visibility visibility;
         
         public ClassFieldDeclaration(CXType type, String name, Visibility visibility) {
@@ -4,6 +4,7 @@ import radin.core.Namespaced;
 import radin.core.semantics.types.CXIdentifier;
 import radin.core.semantics.types.CXType;
 
+import java.io.Serializable;
 import java.util.List;
 
 public interface ICXCompoundType extends Namespaced {
@@ -27,7 +28,9 @@ public interface ICXCompoundType extends Namespaced {
     
     CXIdentifier getTypeNameIdentifier();
     
-    class FieldDeclaration {
+    class FieldDeclaration implements Serializable {
+        private static final long serialVersionUID = 1L;
+        
         private CXType type;
         private String name;
     
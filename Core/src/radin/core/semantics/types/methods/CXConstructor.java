@@ -10,6 +10,7 @@ import radin.core.semantics.types.primitives.PointerType;
 import java.util.List;
 
 public class CXConstructor extends CXMethod {
+    private static final long serialVersionUID = 1L;
     
     private CXConstructor priorConstructor;
     private AbstractSyntaxNode correspondingASTNode;
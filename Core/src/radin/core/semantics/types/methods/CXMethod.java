@@ -12,12 +12,14 @@ import radin.core.semantics.types.primitives.PointerType;
 import radin.core.utility.UniversalCompilerSettings;
 
 
+import java.io.Serializable;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Objects;
 import java.util.stream.Collectors;
 
-public class CXMethod implements CXEquivalent {
+public class CXMethod implements CXEquivalent, Serializable {
+    private static final long serialVersionUID = 1L;
     
     private static String methodThisParameterName = "__this";
     
@@ -2,7 +2,11 @@ package radin.core.semantics.types.methods;
 
 import radin.core.semantics.types.CXType;
 
-public class CXParameter {
+import java.io.Serializable;
+
+public class CXParameter implements Serializable {
+    private static final long serialVersionUID = 1L;
+    
     private CXType type;
     private String name;
 
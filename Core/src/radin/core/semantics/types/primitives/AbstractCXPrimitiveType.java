@@ -4,6 +4,7 @@ import radin.core.semantics.types.CXIdentifier;
 import radin.core.semantics.types.CXType;
 
 public abstract class AbstractCXPrimitiveType extends CXType {
+    private static final long serialVersionUID = 1L;
     
     
     public boolean isPrimitive() {
@@ -11,6 +11,7 @@ import java.util.LinkedList;
 import java.util.List;
 
 public class ArrayType extends AbstractCXPrimitiveType implements Dereference {
+    private static final long serialVersionUID = 1L;
 
     private CXType baseType;
     private AbstractSyntaxNode size;
@@ -8,6 +8,8 @@ import radin.core.semantics.types.CXType;
  * Represents primitive types
  */
 public class CXPrimitiveType extends AbstractCXPrimitiveType {
+    private static final long serialVersionUID = 1L;
+
     enum Primitives {
         _char("char", true , false),
         _int("int", true , false),
@@ -92,7 +94,22 @@ public class CXPrimitiveType extends AbstractCXPrimitiveType {
     
     @Override
     public int hashCode() {
-        return myPrimitive.hashCode();
+        return myPrimitive.ordinal();
+    }
+    
+    /**
+     * Primitive types are compared by identity, so reading one from an interpreter image must give back the shared
+     * instance
+     * @return the shared instance of this primitive
+     */
+    private Object readResolve() {
+        switch (myPrimitive) {
+            case _int: return INTEGER;
+            case _char: return CHAR;
+            case _float: return FLOAT;
+            case _double: return DOUBLE;
+            default: return VOID;
+        }
     }
     
     /**
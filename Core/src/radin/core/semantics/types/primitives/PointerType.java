@@ -7,6 +7,7 @@ import radin.core.semantics.types.compound.CXClassType;
 import radin.core.semantics.types.wrapped.CXMappedType;
 
 public class PointerType extends ArrayType {
+    private static final long serialVersionUID = 1L;
     
     
     
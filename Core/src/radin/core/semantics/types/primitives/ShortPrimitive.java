@@ -5,6 +5,7 @@ import radin.core.semantics.TypeEnvironment;
 import radin.core.semantics.types.CXType;
 
 public class ShortPrimitive extends AbstractCXPrimitiveType {
+    private static final long serialVersionUID = 1L;
     
     private AbstractCXPrimitiveType primitiveCXType;
     
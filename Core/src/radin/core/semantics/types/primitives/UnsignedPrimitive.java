@@ -5,6 +5,7 @@ import radin.core.semantics.exceptions.InvalidPrimitiveException;
 import radin.core.semantics.types.CXType;
 
 public class UnsignedPrimitive extends AbstractCXPrimitiveType {
+    private static final long serialVersionUID = 1L;
     
     private AbstractCXPrimitiveType primitiveCXType;
     
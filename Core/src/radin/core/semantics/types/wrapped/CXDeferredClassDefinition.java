@@ -15,6 +15,7 @@ import java.util.LinkedList;
 import java.util.Objects;
 
 public class CXDeferredClassDefinition extends CXMappedType {
+    private static final long serialVersionUID = 1L;
     
     private CXClassType temp;
     private CXIdentifier identifier;
@@ -7,6 +7,7 @@ import radin.core.semantics.types.CXIdentifier;
 import radin.core.semantics.types.CXType;
 
 public class CXDelayedTypeDefinition extends CXMappedType {
+    private static final long serialVersionUID = 1L;
     
     private CXIdentifier identifier;
     
@@ -6,6 +6,7 @@ import radin.core.semantics.types.CXType;
 import radin.core.semantics.types.ICXWrapper;
 
 public class CXDynamicTypeDefinition extends CXType implements ICXWrapper {
+    private static final long serialVersionUID = 1L;
     
     private String typename;
     private CXType original;
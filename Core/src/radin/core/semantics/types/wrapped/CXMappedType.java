@@ -7,8 +7,10 @@ import radin.core.semantics.exceptions.TypeDoesNotExist;
 import radin.core.semantics.types.CXType;
 import radin.core.semantics.types.ICXWrapper;
 import radin.core.utility.ICompilationSettings;
+import java.util.logging.Level;
 
 public abstract class CXMappedType extends CXType implements ICXWrapper {
+    private static final long serialVersionUID = 1L;
     
     
     protected Token corresponding;
@@ -23,14 +25,15 @@ public abstract class CXMappedType extends CXType implements ICXWrapper {
     
     public boolean update() {
         if(actual != null) return true;
-        String old = toString();
+        // only used for logging, and the name changes once the type is updated
+        String old = ICompilationSettings.debugLog.isLoggable(Level.INFO) ? toString() : null;
         try {
             
             CXType type = getType();
             if(type == this) return false;
             if(type == null) return false;
             actual = type;
-            ICompilationSettings.debugLog.info(old + " updated to " + actual);
+            ICompilationSettings.debugLog.info("%s updated to %s", old, actual);
             return true;
         }catch (TypeNotPresentException e) {
             ICompilationSettings.debugLog.throwing(CXMappedType.class.getSimpleName(),
@@ -38,7 +41,7 @@ public abstract class CXMappedType extends CXType implements ICXWrapper {
                     e);
             return false;
         } catch (TypeDoesNotExist e) {
-            ICompilationSettings.debugLog.finer(old + " not yet updated");
+            ICompilationSettings.debugLog.finer("%s not yet updated", old);
             return false;
         }
         
@@ -7,6 +7,7 @@ import radin.core.semantics.types.CXType;
 import radin.core.semantics.types.ICXWrapper;
 
 public class CXNamespacedType extends CXType implements ICXWrapper {
+    private static final long serialVersionUID = 1L;
 
     private CXType actual;
     
@@ -10,6 +10,7 @@ import radin.core.semantics.types.primitives.ArrayType;
 import radin.core.semantics.types.primitives.PointerType;
 
 public class ConstantType extends CXType /*implements ICXWrapper*/ {
+    private static final long serialVersionUID = 1L;
     
     private CXType subtype;
     
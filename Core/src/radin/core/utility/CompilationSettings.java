@@ -45,6 +45,20 @@ public class CompilationSettings<Front, Mid, Back> implements ICompilationSettin
     
     private boolean thisPassedOffAsParameter = true;
     
+    private InterpreterMode interpreterMode = InterpreterMode.tree;
+    
+    private boolean packratParsing = false;
+    
+    private int compileThreads = Runtime.getRuntime().availableProcessors();
+    
+    private boolean incremental = false;
+    
+    private boolean precompiledHeaders = false;
+    
+    private boolean interpreterImage = false;
+    
+    private boolean segmentedStack = false;
+    
     private ArrayList<File> includeDirectories = new ArrayList<>();
     private ArrayList<File> sourceFiles = new ArrayList<>();
     
@@ -304,6 +318,83 @@ public class CompilationSettings<Front, Mid, Back> implements ICompilationSettin
         this.outputTAST = outputTAST;
     }
     
+    @Override
+    public InterpreterMode getInterpreterMode() {
+        return interpreterMode;
+    }
+    
+    @Override
+    public void setInterpreterMode(InterpreterMode interpreterMode) {
+        debugLog.config("Interpreter mode = " + interpreterMode);
+        this.interpreterMode = interpreterMode;
+    }
+    
+    @Override
+    public boolean isPackratParsing() {
+        return packratParsing;
+    }
+    
+    @Override
+    public void setPackratParsing(boolean packratParsing) {
+        debugLog.config("Packrat parsing = " + packratParsing);
+        this.packratParsing = packratParsing;
+    }
+    
+    @Override
+    public int getCompileThreads() {
+        return compileThreads;
+    }
+    
+    @Override
+    public void setCompileThreads(int compileThreads) {
+        debugLog.config("Compile threads = " + compileThreads);
+        this.compileThreads = compileThreads;
+    }
+    
+    @Override
+    public boolean isIncremental() {
+        return incremental;
+    }
+    
+    @Override
+    public void setIncremental(boolean incremental) {
+        debugLog.config("Incremental = " + incremental);
+        this.incremental = incremental;
+    }
+    
+    @Override
+    public boolean isPrecompiledHeaders() {
+        return precompiledHeaders;
+    }
+    
+    @Override
+    public void setPrecompiledHeaders(boolean precompiledHeaders) {
+        debugLog.config("Precompiled Headers = " + precompiledHeaders);
+        this.precompiledHeaders = precompiledHeaders;
+    }
+    
+    @Override
+    public boolean isInterpreterImage() {
+        return interpreterImage;
+    }
+    
+    @Override
+    public void setInterpreterImage(boolean interpreterImage) {
+        debugLog.config("Interpreter Image = " + interpreterImage);
+        this.interpreterImage = interpreterImage;
+    }
+    
+    @Override
+    public boolean isSegmentedStack() {
+        return segmentedStack;
+    }
+    
+    @Override
+    public void setSegmentedStack(boolean segmentedStack) {
+        debugLog.config("Segmented Stack = " + segmentedStack);
+        this.segmentedStack = segmentedStack;
+    }
+    
     @Override
     public String getDirectory() {
         return directory;
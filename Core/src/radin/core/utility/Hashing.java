@@ -0,0 +1,50 @@
+package radin.core.utility;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * The hashes the build cache and precompiled headers use to tell whether files and settings changed
+ */
+public class Hashing {
+
+    private Hashing() {
+    }
+
+    public static MessageDigest createDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Adds a string to a digest, followed by a separator so that consecutive strings can't run into each other
+     * @param digest the digest
+     * @param value the string, null is added as "null"
+     */
+    public static void update(MessageDigest digest, String value) {
+        digest.update(String.valueOf(value).getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+    }
+
+    public static String toHex(byte[] bytes) {
+        StringBuilder builder = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            builder.append(String.format("%02x", b));
+        }
+        return builder.toString();
+    }
+
+    /**
+     * @param text some text
+     * @return the hash of the text, as hex
+     */
+    public static String hash(String text) {
+        MessageDigest digest = createDigest();
+        update(digest, text);
+        return toHex(digest.digest());
+    }
+}
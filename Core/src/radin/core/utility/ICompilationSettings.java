@@ -90,6 +90,13 @@ public interface ICompilationSettings<Front, Mid, Back> {
         setInRuntimeCompilationMode(other.isInRuntimeCompilationMode());
         setOutputAST(other.isOutputAST());
         setOutputTAST(other.isOutputTAST());
+        setInterpreterMode(other.getInterpreterMode());
+        setPackratParsing(other.isPackratParsing());
+        setCompileThreads(other.getCompileThreads());
+        setIncremental(other.isIncremental());
+        setPrecompiledHeaders(other.isPrecompiledHeaders());
+        setInterpreterImage(other.isInterpreterImage());
+        setSegmentedStack(other.isSegmentedStack());
         debugLog.setLevel(level);
     }
     
@@ -293,8 +300,82 @@ public interface ICompilationSettings<Front, Mid, Back> {
     
     void setOutputTAST(boolean outputTAST);
     
+    InterpreterMode getInterpreterMode();
+    
+    /**
+     * Determines how the interpreter executes a program
+     * @param interpreterMode the execution mode
+     */
+    void setInterpreterMode(InterpreterMode interpreterMode);
+    
+    boolean isPackratParsing();
+    
+    /**
+     * Determines if the parser remembers the results of rules at each token, so that backtracking doesn't parse the
+     * same tokens again
+     * @param packratParsing whether to memoize rules
+     */
+    void setPackratParsing(boolean packratParsing);
+    
+    int getCompileThreads();
+    
+    /**
+     * Sets how many files can be lexed and parsed at the same time when compiling multiple files
+     * @param compileThreads the amount of threads, where 1 lexes and parses every file on the compiling thread
+     */
+    void setCompileThreads(int compileThreads);
+    
+    boolean isIncremental();
+    
+    /**
+     * Determines if files that haven't changed since the last build are skipped, using a cache in the build directory
+     * @param incremental whether to use the build cache
+     */
+    void setIncremental(boolean incremental);
+    
+    boolean isPrecompiledHeaders();
+    
+    /**
+     * Determines if headers included with angle brackets are only lexed once, and then reused by every file that
+     * includes them. Headers are also kept in the build directory between builds
+     * @param precompiledHeaders whether to precompile headers
+     */
+    void setPrecompiledHeaders(boolean precompiledHeaders);
+    
+    boolean isInterpreterImage();
+    
+    /**
+     * Determines if the interpreter saves the compiled program, along with its classes, to the build directory, and
+     * loads it instead of compiling again when none of the files it was compiled from changed
+     * @param interpreterImage whether to use an interpreter image
+     */
+    void setInterpreterImage(boolean interpreterImage);
+    
+    boolean isSegmentedStack();
+    
+    /**
+     * Determines if the interpreter continues deep recursion on new stack segments, so the depth of recursion is
+     * limited by memory instead of the stack size of the JVM
+     * @param segmentedStack whether to use a segmented stack
+     */
+    void setSegmentedStack(boolean segmentedStack);
+    
     enum SupportedWordSize {
         arch64,
         arch32
     }
+    
+    /**
+     * The ways the interpreter can execute a program
+     */
+    enum InterpreterMode {
+        /**
+         * Walks the type augmented syntax tree of each function every time it's executed
+         */
+        tree,
+        /**
+         * Compiles each function into a tree of pre-resolved executable nodes once, then runs those
+         */
+        closure
+    }
 }
@@ -1,9 +1,12 @@
 package radin.core.utility;
 
+import java.io.Serializable;
 import java.util.Map;
 import java.util.Objects;
 
-public class Pair<T, R> implements Map.Entry<T, R>{
+public class Pair<T, R> implements Map.Entry<T, R>, Serializable {
+    private static final long serialVersionUID = 1L;
+    
     private T val1;
     private R val2;
     
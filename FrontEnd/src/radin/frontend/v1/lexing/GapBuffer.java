@@ -0,0 +1,108 @@
+package radin.frontend.v1.lexing;
+
+/**
+ * Text that can be edited in place. The unused space of the buffer is kept at the position of the last edit, so
+ * inserting or removing text costs the length of the edit plus the distance from the last edit, instead of copying the
+ * whole text. The preprocessor always edits at the character it's lexing, so lexing a file while expanding its
+ * includes and macros is linear in the length of the output.
+ */
+public class GapBuffer implements CharSequence {
+
+    private static final int MINIMUM_GAP = 64;
+
+    private char[] buffer;
+    private int gapStart;
+    private int gapEnd;
+    private String cached;
+
+    public GapBuffer(String text) {
+        buffer = new char[text.length() + MINIMUM_GAP];
+        text.getChars(0, text.length(), buffer, 0);
+        gapStart = text.length();
+        gapEnd = buffer.length;
+        cached = text;
+    }
+
+    @Override
+    public int length() {
+        return buffer.length - (gapEnd - gapStart);
+    }
+
+    @Override
+    public char charAt(int index) {
+        if (index < gapStart) return buffer[index];
+        return buffer[index + gapEnd - gapStart];
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        return substring(start, end);
+    }
+
+    public String substring(int start, int end) {
+        if (end <= gapStart) return new String(buffer, start, end - start);
+        int gapLength = gapEnd - gapStart;
+        if (start >= gapStart) return new String(buffer, start + gapLength, end - start);
+        StringBuilder builder = new StringBuilder(end - start);
+        builder.append(buffer, start, gapStart - start);
+        builder.append(buffer, gapEnd, end - gapStart);
+        return builder.toString();
+    }
+
+    /**
+     * Inserts text
+     * @param index the index to insert the text at
+     * @param text the text
+     */
+    public void insert(int index, String text) {
+        moveGap(index);
+        ensureGap(text.length());
+        text.getChars(0, text.length(), buffer, gapStart);
+        gapStart += text.length();
+        cached = null;
+    }
+
+    /**
+     * Removes text
+     * @param index the index of the first removed character
+     * @param length the amount of characters to remove
+     */
+    public void remove(int index, int length) {
+        moveGap(index);
+        gapEnd += length;
+        cached = null;
+    }
+
+    private void moveGap(int index) {
+        if (index < gapStart) {
+            int moved = gapStart - index;
+            System.arraycopy(buffer, index, buffer, gapEnd - moved, moved);
+            gapStart -= moved;
+            gapEnd -= moved;
+        } else if (index > gapStart) {
+            int moved = index - gapStart;
+            System.arraycopy(buffer, gapEnd, buffer, gapStart, moved);
+            gapStart += moved;
+            gapEnd += moved;
+        }
+    }
+
+    private void ensureGap(int length) {
+        if (gapEnd - gapStart >= length) return;
+        int newLength = Math.max(buffer.length * 2, this.length() + length + MINIMUM_GAP);
+        char[] newBuffer = new char[newLength];
+        int tailLength = buffer.length - gapEnd;
+        System.arraycopy(buffer, 0, newBuffer, 0, gapStart);
+        System.arraycopy(buffer, gapEnd, newBuffer, newLength - tailLength, tailLength);
+        buffer = newBuffer;
+        gapEnd = newLength - tailLength;
+    }
+
+    @Override
+    public String toString() {
+        if (cached == null) {
+            cached = substring(0, length());
+        }
+        return cached;
+    }
+}
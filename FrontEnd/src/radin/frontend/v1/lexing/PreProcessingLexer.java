@@ -6,6 +6,7 @@ import radin.core.lexical.Token;
 import radin.core.lexical.TokenType;
 
 import radin.input.Tokenizer;
+import radin.core.utility.Hashing;
 import radin.core.utility.ICompilationSettings;
 import radin.core.utility.Reference;
 import radin.core.utility.UniversalCompilerSettings;
@@ -28,6 +29,73 @@ public class PreProcessingLexer extends Tokenizer<Token> {
     }
     
     
+    /**
+     * A piece of the replacement of a macro with arguments, either text that's copied as is, or where an argument is
+     * placed. Arguments that are stringified or pasted are placed as they were written, while other arguments are
+     * placed after their own macros are expanded.
+     */
+    private static class ReplacementPart {
+        private final String text;
+        private final int argument;
+        private final boolean stringify;
+        private boolean pasted;
+        
+        private ReplacementPart(String text) {
+            this.text = text;
+            this.argument = -1;
+            this.stringify = false;
+        }
+        
+        private ReplacementPart(int argument, boolean stringify, boolean pasted) {
+            this.text = null;
+            this.argument = argument;
+            this.stringify = stringify;
+            this.pasted = pasted;
+        }
+    }
+    
+    /**
+     * A macro that is being expanded. While the lexer is within the text it expanded into, the macro isn't expanded
+     * again, which stops self referencing macros from expanding forever.
+     */
+    private static class ActiveExpansion {
+        private final String identifier;
+        private int end;
+        
+        private ActiveExpansion(String identifier, int end) {
+            this.identifier = identifier;
+            this.end = end;
+        }
+    }
+    
+    /**
+     * A header that is being precompiled. The lexer records the header until it's past the end of the text the header
+     * expanded into, which moves as the text within it is edited.
+     */
+    private static class HeaderRecording {
+        private final String key;
+        private final String header;
+        private final int start;
+        private int end;
+        private final int restoreLength;
+        private final int startLine;
+        private final int firstToken;
+        private final Map<String, Define> definesBefore;
+        private final Map<String, String> sources = new LinkedHashMap<>();
+        
+        private HeaderRecording(String key, String header, int start, int end, int restoreLength, int startLine,
+                                int firstToken, Map<String, Define> definesBefore) {
+            this.key = key;
+            this.header = header;
+            this.start = start;
+            this.end = end;
+            this.restoreLength = restoreLength;
+            this.startLine = startLine;
+            this.firstToken = firstToken;
+            this.definesBefore = definesBefore;
+        }
+    }
+    
     private class Define {
         private String identifier;
         public final boolean hasArgs;
@@ -35,6 +103,7 @@ public class PreProcessingLexer extends Tokenizer<Token> {
         public final boolean isVararg;
         private List<String> args;
         private String replacementString;
+        private List<ReplacementPart> replacementParts;
         
         public Define(String identifier) {
             this(identifier, "");
@@ -56,6 +125,107 @@ public class PreProcessingLexer extends Tokenizer<Token> {
             this.isVararg = isVararg;
             this.args = args;
             this.replacementString = replacementString;
+            if(replacementString != null) {
+                replacementParts = compileReplacement();
+            }
+        }
+        
+        public PrecompiledHeader.Macro toMacro() {
+            return new PrecompiledHeader.Macro(identifier, hasArgs, isVararg, args, replacementString);
+        }
+        
+        @Override
+        public String toString() {
+            if(!hasArgs) return identifier + " " + replacementString;
+            return identifier + args + (isVararg ? "..." : "") + " " + replacementString;
+        }
+        
+        /**
+         * Splits the replacement string into the text between uses of the arguments, so that invoking the macro is a
+         * single pass over the parts. Uses of arguments within string and character literals aren't replaced, and
+         * {@code ##} is removed along with the whitespace around it.
+         * @return the parts of the replacement
+         */
+        private List<ReplacementPart> compileReplacement() {
+            List<ReplacementPart> parts = new ArrayList<>();
+            StringBuilder literal = new StringBuilder();
+            String body = replacementString;
+            int index = 0;
+            boolean pasteNext = false;
+            while (index < body.length()) {
+                char c = body.charAt(index);
+                boolean pasted = pasteNext;
+                pasteNext = false;
+                if(c == '"' || c == '\'') {
+                    int end = index + 1;
+                    while (end < body.length() && body.charAt(end) != c) {
+                        if(body.charAt(end) == '\\') end++;
+                        end++;
+                    }
+                    end = Math.min(end + 1, body.length());
+                    literal.append(body, index, end);
+                    index = end;
+                } else if(c == '#' && index + 1 < body.length() && body.charAt(index + 1) == '#') {
+                    while (literal.length() > 0 && Character.isWhitespace(literal.charAt(literal.length() - 1))) {
+                        literal.setLength(literal.length() - 1);
+                    }
+                    if(literal.length() == 0 && !parts.isEmpty()) {
+                        parts.get(parts.size() - 1).pasted = true;
+                    }
+                    pasteNext = true;
+                    index += 2;
+                    while (index < body.length() && Character.isWhitespace(body.charAt(index))) {
+                        index++;
+                    }
+                    continue;
+                } else if(c == '#') {
+                    int start = index + 1;
+                    while (start < body.length() && Character.isWhitespace(body.charAt(start))) {
+                        start++;
+                    }
+                    int end = identifierEnd(body, start);
+                    int argument = argumentIndex(body.substring(start, end));
+                    if(argument >= 0) {
+                        addLiteral(parts, literal);
+                        parts.add(new ReplacementPart(argument, true, false));
+                        index = end;
+                    } else {
+                        literal.append(c);
+                        index++;
+                    }
+                } else if(Character.isLetter(c) || c == '_') {
+                    int end = identifierEnd(body, index);
+                    String word = body.substring(index, end);
+                    int argument = argumentIndex(word);
+                    if(argument >= 0) {
+                        addLiteral(parts, literal);
+                        parts.add(new ReplacementPart(argument, false, pasted));
+                    } else {
+                        literal.append(word);
+                    }
+                    index = end;
+                } else {
+                    literal.append(c);
+                    index++;
+                }
+            }
+            addLiteral(parts, literal);
+            return parts;
+        }
+        
+        private void addLiteral(List<ReplacementPart> parts, StringBuilder literal) {
+            if(literal.length() == 0) return;
+            parts.add(new ReplacementPart(literal.toString()));
+            literal.setLength(0);
+        }
+        
+        /**
+         * @param word an identifier in the replacement string
+         * @return the index of the argument with the name, {@link Define#numArgs} for {@code __VA_ARGS__}, or -1
+         */
+        private int argumentIndex(String word) {
+            if(isVararg && word.equals("__VA_ARGS__")) return numArgs;
+            return args.indexOf(word);
         }
         
         public String invoke() {
@@ -64,38 +234,55 @@ public class PreProcessingLexer extends Tokenizer<Token> {
         }
         
         public String invoke(String[] args) {
+            return invoke(args, args);
+        }
+        
+        /**
+         * Invokes the macro
+         * @param args the arguments as they were written
+         * @param expandedArgs the arguments after their macros were expanded
+         * @return the replacement
+         */
+        public String invoke(String[] args, String[] expandedArgs) {
             if(args.length < numArgs) throw new IllegalArgumentException(String.format("Macro %s has %d args, but %d args were given",
                     identifier, numArgs, args.length));
             if(!isVararg && args.length > numArgs) throw new IllegalArgumentException(String.format("Macro %s has %d args, but %d args were given " +
                             "(%s)",
              identifier, numArgs, args.length, Arrays.deepToString(args)));
             
-            String output = replacementString;
-            for (int i = 0; i < this.args.size(); i++) {
-                String thisArg = this.args.get(i);
-                String replace = args[i].trim().replaceAll("\\s+", " ");
-                
-                output = output.replaceAll("#" + thisArg + "(\\W|$)", "\"" + replace + "\"$2");
-                output = output.replaceAll("([^\\w#])" + thisArg + "(\\W)", "$1" + replace + "$2");
-                output = output.replaceAll("##" + thisArg + "\\W", replace + "$1");
-                output = output.replaceAll("##" + thisArg + "$", replace);
-                output = output.replaceAll("\\W" + thisArg + "##", "$1" + replace + "##");
-                output = output.replaceAll("^" + thisArg + "##", replace + "##");
-                //output = output.replaceAll("##" + thisArg + "##", replace);
+            String[] values = argumentValues(args);
+            String[] expandedValues = args == expandedArgs ? values : argumentValues(expandedArgs);
+            
+            StringBuilder output = new StringBuilder();
+            for (ReplacementPart part : replacementParts) {
+                if(part.text != null) {
+                    output.append(part.text);
+                } else if(part.stringify) {
+                    output.append('"');
+                    output.append(values[part.argument].replace("\\", "\\\\").replace("\"", "\\\""));
+                    output.append('"');
+                } else if(part.pasted) {
+                    output.append(values[part.argument]);
+                } else {
+                    output.append(expandedValues[part.argument]);
+                }
+            }
+            return output.toString();
+        }
+        
+        private String[] argumentValues(String[] args) {
+            String[] values = new String[numArgs + 1];
+            for (int i = 0; i < numArgs; i++) {
+                values[i] = args[i].trim().replaceAll("\\s+", " ");
             }
             if(isVararg) {
                 List<String> extraArgs = new LinkedList<>();
                 for(int i = 0; i < args.length - numArgs; i++) {
-                    extraArgs.add(args[numArgs + i]);
+                    extraArgs.add(args[numArgs + i].trim());
                 }
-                String replace = String.join(", ", extraArgs);
-                String thisArg = "__VA_ARGS__";
-                output = output.replaceAll("(\\W)" + thisArg + "(\\W)", "$1" + replace + "$2");
-                output = output.replaceAll("##" + thisArg + "\\W", replace + "$1");
-                output = output.replaceAll("\\W" + thisArg + "##", "$1" + replace);
-                output = output.replaceAll("##" + thisArg + "##", replace);
+                values[numArgs] = String.join(", ", extraArgs);
             }
-            return output;
+            return values;
         }
         
     }
@@ -122,7 +309,7 @@ public class PreProcessingLexer extends Tokenizer<Token> {
         }
         
         @Override
-        public String invoke(String[] args) {
+        public String invoke(String[] args, String[] expandedArgs) {
             if(args.length < numArgs) throw new IllegalArgumentException();
             if(!isVararg && args.length > numArgs) throw new IllegalArgumentException();
             
@@ -137,20 +324,63 @@ public class PreProcessingLexer extends Tokenizer<Token> {
     private HashMap<String, Define> defines;
     private List<AbstractCompilationError> compilationErrors;
     private int finishedIndex = -1;
+    private GapBuffer text;
+    private List<ActiveExpansion> activeExpansions;
+    private HeaderRecording recording;
+    private ArrayDeque<Token> replayedTokens = new ArrayDeque<>();
     
     public PreProcessingLexer(String filename, String inputString) {
-        super(inputString, filename);
+        super(inputString, filename, Token[]::new);
         defines = baseDefines();
         compilationErrors = new LinkedList<>();
         fileCurrentLineNumber = new HashMap<>();
         currentFile = filename;
+        text = new GapBuffer(inputString);
+        activeExpansions = new ArrayList<>();
     }
     
     public PreProcessingLexer() {
-        super("", "");
+        super("", "", Token[]::new);
         defines = baseDefines();
         compilationErrors = new LinkedList<>();
         fileCurrentLineNumber = new HashMap<>();
+        text = new GapBuffer("");
+        activeExpansions = new ArrayList<>();
+    }
+    
+    @Override
+    public <V> void setVariable(String variable, V value) {
+        super.setVariable(variable, value);
+        if(variable.equals("inputString")) {
+            text = new GapBuffer(inputString);
+            activeExpansions.clear();
+            recording = null;
+            replayedTokens.clear();
+        }
+    }
+    
+    @Override
+    protected char inputCharAt(int index) {
+        return text.charAt(index);
+    }
+    
+    @Override
+    protected int inputLength() {
+        return text.length();
+    }
+    
+    @Override
+    protected String inputSubstring(int start, int end) {
+        return text.substring(start, end);
+    }
+    
+    /**
+     * Gets the input after includes and macros that have been lexed so far were expanded
+     * @return the input string
+     */
+    @Override
+    public String getInputString() {
+        return text.toString();
     }
     
     
@@ -174,65 +404,92 @@ public class PreProcessingLexer extends Tokenizer<Token> {
         return c;
     }
     
+    private static int identifierEnd(CharSequence str, int start) {
+        int end = start;
+        while (end < str.length() && (Character.isLetterOrDigit(str.charAt(end)) || str.charAt(end) == '_')) {
+            end++;
+        }
+        return end;
+    }
+    
     private String findAndReplaceMacros(String str) {
-        String output = str;
-        output = output.replaceAll("defined\\s+(\\w+)\\W", "defined($1)");
-        String prev;
-        do {
-            prev = output;
-            List<String> strings = new ArrayList<>(defines.keySet());
-            strings.remove("defined");
-            strings.add(0, "defined");
-            for (String macro : strings) {
-                Define d = defines.get(macro);
-                if (d.hasArgs) {
-                    int startIndex = output.indexOf(d.identifier);
-                    if(startIndex == -1) break;
-                    int index = startIndex+ d.identifier.length();
-                    String collected = d.identifier;
-                    while (Character.isWhitespace(output.charAt(index))) {
-                        ++index;
-                    }
-                    if(output.charAt(index) != '(') {
-                        
-                        break;
+        String output = str.replaceAll("defined\\s+(\\w+)\\W", "defined($1)");
+        return expandMacros(output, new HashSet<>());
+    }
+    
+    private String[] expandArguments(String[] args, Set<String> hidden) {
+        String[] expanded = new String[args.length];
+        for (int i = 0; i < args.length; i++) {
+            expanded[i] = expandMacros(args[i], hidden);
+        }
+        return expanded;
+    }
+    
+    /**
+     * Expands the macros in a string in a single pass. The expansion of each macro is expanded again with the macro
+     * hidden, so that a macro never expands within itself.
+     * @param str the string
+     * @param hidden the macros that can't be expanded
+     * @return the expanded string
+     */
+    private String expandMacros(String str, Set<String> hidden) {
+        StringBuilder output = new StringBuilder();
+        int index = 0;
+        while (index < str.length()) {
+            char c = str.charAt(index);
+            if(!Character.isLetter(c) && c != '_') {
+                output.append(c);
+                index++;
+                continue;
+            }
+            int end = identifierEnd(str, index);
+            String identifier = str.substring(index, end);
+            Define d = defines.get(identifier);
+            if(d == null || hidden.contains(identifier)) {
+                output.append(identifier);
+                index = end;
+                continue;
+            }
+            String invoke;
+            if(d.hasArgs) {
+                int argsStart = end;
+                while (argsStart < str.length() && Character.isWhitespace(str.charAt(argsStart))) {
+                    argsStart++;
+                }
+                if(argsStart == str.length() || str.charAt(argsStart) != '(') {
+                    output.append(identifier);
+                    index = end;
+                    continue;
+                }
+                int parens = 0;
+                List<String> collectedArguments = new LinkedList<>();
+                StringBuilder currentArgument = new StringBuilder();
+                index = argsStart + 1;
+                while (index < str.length() && !(str.charAt(index) == ')' && parens == 0)) {
+                    char next = str.charAt(index++);
+                    if(next == ',' && parens == 0) {
+                        collectedArguments.add(currentArgument.toString());
+                        currentArgument.setLength(0);
                     } else {
-                        collected += output.charAt(index++);
-                        int parens = 0;
-                        List<String> collectedArguments = new LinkedList<>();
-                        String currentArgument = "";
-                        while (!(output.charAt(index) == ')' && parens == 0)) {
-                            char c = output.charAt(index++);
-                            collected += c;
-                            
-                            if (c == '(') {
-                                currentArgument += c;
-                                parens++;
-                            } else if (c == ',' && parens == 0) {
-                                collectedArguments.add(currentArgument);
-                                currentArgument = "";
-                            } else if (c != ')' || parens > 0) {
-                                if (c == ')') {
-                                    parens--;
-                                }
-                                currentArgument += c;
-                            }
-                            
-                        }
-                        collected += output.charAt(index);
-                        collectedArguments.add(currentArgument);
-                        collectedArguments.removeIf(String::isBlank);
-                        
-                        String invoke = d.invoke(collectedArguments.toArray(new String[0]));
-                        output = output.replace(collected, invoke);
+                        if(next == '(') parens++;
+                        else if(next == ')') parens--;
+                        currentArgument.append(next);
                     }
-                } else {
-                    output = output.replaceAll("(\\W|$)" + d.identifier + "(\\W|^)", "$1" + d.invoke() + "$2");
                 }
+                index++;
+                collectedArguments.add(currentArgument.toString());
+                collectedArguments.removeIf(String::isBlank);
+                String[] args = collectedArguments.toArray(new String[0]);
+                invoke = d.invoke(args, expandArguments(args, hidden));
+            } else {
+                invoke = d.invoke();
+                index = end;
             }
-        }  while (!output.equals(prev));
-        
-        return output;
+            hidden.add(identifier);
+            output.append(expandMacros(invoke, hidden));
+            hidden.remove(identifier);
+        }
+        return output.toString();
     }
     
     protected void incrementLine() {
@@ -295,26 +552,76 @@ public class PreProcessingLexer extends Tokenizer<Token> {
     
     
     
-    private void insertString(String s) {
-        inputString = getInputString().substring(0, currentIndex) + s + getInputString().substring(currentIndex);
-    }
-    
     private void removeString(int length) {
-        inputString = getInputString().substring(0, currentIndex) + getInputString().substring(currentIndex + length);
+        text.remove(currentIndex, length);
+        for (ActiveExpansion expansion : activeExpansions) {
+            if(expansion.end > currentIndex) expansion.end = Math.max(currentIndex, expansion.end - length);
+        }
+        if(recording != null && recording.end > currentIndex) {
+            recording.end = Math.max(currentIndex, recording.end - length);
+        }
     }
     
     private void removeChar() {
         removeString(1);
     }
     
+    /**
+     * Replaces text that was just consumed. Expansions that contain all of the replaced text contain all of the
+     * replacement, while expansions that end within the replaced text end where the replacement starts.
+     * @param original the consumed text
+     * @param replace the replacement
+     */
     private void replaceString(String original, String replace) {
         unconsume(original);
         if(match(original)) {
-            removeString(original.length());
-            insertString(replace);
+            int start = currentIndex;
+            int end = start + original.length();
+            text.remove(start, original.length());
+            text.insert(start, replace);
+            int change = replace.length() - original.length();
+            for (ActiveExpansion expansion : activeExpansions) {
+                if(expansion.end >= end) expansion.end += change;
+                else if(expansion.end > start) expansion.end = start;
+            }
+            if(recording != null && recording.end >= end) recording.end += change;
         }
     }
     
+    /**
+     * Replaces an invocation of a macro with its expansion, and stops the macro from being expanded again until the
+     * lexer is past the expansion
+     * @param identifier the name of the macro
+     * @param original the invocation
+     * @param replace the expansion
+     */
+    private void expandMacro(String identifier, String original, String replace) {
+        replaceString(original, replace);
+        activeExpansions.add(new ActiveExpansion(identifier, currentIndex + replace.length()));
+    }
+    
+    /**
+     * Checks whether an identifier is within the expansion of a macro of the same name
+     * @param identifier the identifier
+     * @param start the index the identifier starts at
+     * @return whether the macro can't be expanded
+     */
+    private Set<String> expandingMacros(int start) {
+        Set<String> output = new HashSet<>();
+        for (ActiveExpansion expansion : activeExpansions) {
+            if(expansion.end > start) output.add(expansion.identifier);
+        }
+        return output;
+    }
+    
+    private boolean isExpanding(String identifier, int start) {
+        activeExpansions.removeIf(expansion -> expansion.end <= start);
+        for (ActiveExpansion expansion : activeExpansions) {
+            if(expansion.identifier.equals(identifier)) return true;
+        }
+        return false;
+    }
+    
     private enum PreProcessorIfOutput {
         TRUE,
         FALSE,
@@ -323,7 +630,7 @@ public class PreProcessingLexer extends Tokenizer<Token> {
     
     private PreProcessorIfOutput checkIf(String statement) {
         String fixedStatement = findAndReplaceMacros(statement);
-        ICompilationSettings.debugLog.finer("Fixed PP If Statement Condition = " + fixedStatement);
+        ICompilationSettings.debugLog.finer("Fixed PP If Statement Condition = %s", fixedStatement);
         return PreProcessorIfOutput.NONDETERMINED;
     }
     
@@ -342,13 +649,13 @@ public class PreProcessingLexer extends Tokenizer<Token> {
         }
         
         String arguments = directiveString.substring(directiveString.indexOf(directive) + directive.length()).trim();
-        ICompilationSettings.debugLog.finest("PP DIRECTIVE = " + directive);
+        ICompilationSettings.debugLog.finest("PP DIRECTIVE = %s", directive);
         if(!arguments.isBlank())
-            ICompilationSettings.debugLog.finest("PP ARGUMENTS = " + arguments);
+            ICompilationSettings.debugLog.finest("PP ARGUMENTS = %s", arguments);
         
         switch (directive) {
             case "#undef": {
-                ICompilationSettings.debugLog.fine("PP Undefined: " + arguments);
+                ICompilationSettings.debugLog.fine("PP Undefined: %s", arguments);
                 defines.remove(arguments);
                 return;
             }
@@ -383,32 +690,32 @@ public class PreProcessingLexer extends Tokenizer<Token> {
                         else
                             define = new Define(identifier, rest);
                     }
-                    ICompilationSettings.debugLog.fine("PP Defined: " + identifier);
+                    ICompilationSettings.debugLog.fine("PP Defined: %s", identifier);
                     defines.put(identifier, define);
                 }
                 return;
             }
             case "#ifndef": {
-                ICompilationSettings.debugLog.finest("Checking if " + arguments + " is not defined...");
+                ICompilationSettings.debugLog.finest("Checking if %s is not defined...", arguments);
                 inIfStatement = true;
                 if(defines.containsKey(arguments)) {
-                    ICompilationSettings.debugLog.finest("" + arguments + " is defined");
+                    ICompilationSettings.debugLog.finest("%s is defined", arguments);
                     skipToIfFalse = true;
                     ICompilationSettings.debugLog.finer("Skipping until #else or #endif is found");
                 } else {
-                    ICompilationSettings.debugLog.finest("" + arguments + " is not defined");
+                    ICompilationSettings.debugLog.finest("%s is not defined", arguments);
                 }
                 return;
             }
             case "#ifdef": {
-                ICompilationSettings.debugLog.finest("Checking if " + arguments + " is defined...");
+                ICompilationSettings.debugLog.finest("Checking if %s is defined...", arguments);
                 inIfStatement = true;
                 if(!defines.containsKey(arguments)) {
-                    ICompilationSettings.debugLog.finest("" + arguments + " is not defined");
+                    ICompilationSettings.debugLog.finest("%s is not defined", arguments);
                     skipToIfFalse = true;
                     ICompilationSettings.debugLog.finer("Skipping until #else or #endif is found");
                 } else {
-                    ICompilationSettings.debugLog.finest("" + arguments + " is defined");
+                    ICompilationSettings.debugLog.finest("%s is defined", arguments);
                 }
                 return;
             }
@@ -432,7 +739,7 @@ public class PreProcessingLexer extends Tokenizer<Token> {
             case "#else": {
                 
                 if(inIfStatement) {
-                    ICompilationSettings.debugLog.finer("#else found, compilation continuing = " + !skipToIfFalse);
+                    ICompilationSettings.debugLog.finer("#else found, compilation continuing = %s", !skipToIfFalse);
                     skipToIfFalse = !skipToIfFalse;
                 }
                 return;
@@ -440,7 +747,7 @@ public class PreProcessingLexer extends Tokenizer<Token> {
             case "#endif": {
                 // if(!inIfStatement) throw new IllegalArgumentException();
                 if(inIfStatement) {
-                    if(skipToIfFalse) ICompilationSettings.debugLog.finer("#endif found, compilation continuing at " + lineNumber);
+                    if(skipToIfFalse) ICompilationSettings.debugLog.finer("#endif found, compilation continuing at %s", lineNumber);
                     skipToIfFalse = false;
                     inIfStatement = false;
                 }
@@ -461,7 +768,7 @@ public class PreProcessingLexer extends Tokenizer<Token> {
                     ICompilationSettings.debugLog.finer("Include is local");
                     try {
                         File localDirectory = new File(this.filename).getCanonicalFile().getParentFile();
-                        ICompilationSettings.debugLog.finer("Parent search directory is " + localDirectory);
+                        ICompilationSettings.debugLog.finer("Parent search directory is %s", localDirectory);
                         if(localDirectory == null
                                 || !localDirectory.isDirectory()) {
                             throw new CompilationError("File does not exist", closestToken);
@@ -500,38 +807,45 @@ public class PreProcessingLexer extends Tokenizer<Token> {
                 if(file == null || !file.exists()) {
                     throw new CompilationError("File does not exist", closestToken);
                 }
-                StringBuilder text = new StringBuilder();
-                try {
-                    ICompilationSettings.debugLog.info("Including file " + file);
-                    BufferedReader bufferedReader = new BufferedReader(new FileReader(file));
-                    
-                    String line;
-                    while((line = bufferedReader.readLine()) != null) {
-                        
-                        if(!line.endsWith("\\")) {
-                            text.append(line);
-                            text.append("\n");
-                        } else {
-                            text.append(line, 0, line.length() - 1);
-                            text.append(' ');
-                        }
+                
+                String key = null;
+                if(!isLocal && UniversalCompilerSettings.getInstance().getSettings().isPrecompiledHeaders()) {
+                    key = headerKey(file);
+                    PrecompiledHeader header = PrecompiledHeader.find(key);
+                    if(header != null) {
+                        ICompilationSettings.debugLog.info("Including precompiled header %s", file);
+                        replayHeader(header, originalString);
+                        return;
                     }
-                    
+                }
+                
+                String text = "";
+                try {
+                    ICompilationSettings.debugLog.info("Including file %s", file);
+                    text = PrecompiledHeader.readSource(file);
                 } catch (IOException e) {
                     e.printStackTrace();
                     System.exit(-1);
                 }
+                if(recording != null) {
+                    recording.sources.put(file.getPath(), Hashing.hash(text));
+                }
                 
                 
                 int restoreLineNumber = getLine();
-                String fullText = "#line " + 1 + " \""+ filename + "\"\n" + text.toString() +
-                        "\n#line " + restoreLineNumber + " \""+ this.filename + "\"\n";
+                String restore = restoreDirective(restoreLineNumber);
+                String fullText = "#line " + 1 + " \""+ filename + "\"\n" + text + "\n" + restore;
                 
                 fullText = fullText.replace("\t", " ".repeat(UniversalCompilerSettings.getInstance().getSettings().getTabSize()));
                 //fullText = fullText.replaceAll("//.*\n", "\n");
                 //fullText = Pattern.compile("/\\*.*\\*/", Pattern.DOTALL).matcher(fullText).replaceAll("");
                 // fullText = fullText.replaceAll("/\\*.*\\*/", "");
                 replaceString(originalString, fullText);
+                if(key != null && recording == null) {
+                    recording = new HeaderRecording(key, filename, currentIndex, currentIndex + fullText.length(),
+                            restore.length(), lineNumber, createdTokens.size(), new HashMap<>(defines));
+                    recording.sources.put(file.getPath(), Hashing.hash(text));
+                }
                 return;
             }
             case "#line": {
@@ -543,6 +857,9 @@ public class PreProcessingLexer extends Tokenizer<Token> {
                 } else {
                     setLine(lineNumber);
                 }
+                if(recording != null && currentIndex == recording.end) {
+                    finishRecording();
+                }
                 
                 return;
             }
@@ -552,6 +869,90 @@ public class PreProcessingLexer extends Tokenizer<Token> {
         }
     }
     
+    /**
+     * The directive at the end of an included file, which goes back to the file that included it
+     * @param restoreLineNumber the line after the include directive
+     * @return the directive
+     */
+    private String restoreDirective(int restoreLineNumber) {
+        return "#line " + restoreLineNumber + " \""+ currentFile + "\"\n";
+    }
+    
+    /**
+     * The key of a header, from the file and the macros that are defined where it's included
+     * @param file the file of the header
+     * @return the key
+     */
+    private String headerKey(File file) {
+        List<String> macros = new ArrayList<>();
+        for (Define define : defines.values()) {
+            if(!(define instanceof FunctionDefine)) macros.add(define.toString());
+        }
+        ICompilationSettings<?, ?, ?> settings = UniversalCompilerSettings.getInstance().getSettings();
+        return PrecompiledHeader.key(file.getPath(), macros, settings.getTabSize(),
+                settings.isInRuntimeCompilationMode());
+    }
+    
+    /**
+     * Stores the header that was being recorded, once the lexer has gone through all of it
+     */
+    private void finishRecording() {
+        HeaderRecording finished = recording;
+        recording = null;
+        if(!compilationErrors.isEmpty()) return;
+        String recorded = text.substring(finished.start, finished.end - finished.restoreLength);
+        List<Token> lexed = new ArrayList<>(createdTokens.size() - finished.firstToken);
+        for (int i = finished.firstToken; i < createdTokens.size(); i++) {
+            lexed.add(createdTokens.get(i));
+        }
+        List<PrecompiledHeader.Macro> defined = new ArrayList<>();
+        for (Map.Entry<String, Define> entry : defines.entrySet()) {
+            if(finished.definesBefore.get(entry.getKey()) != entry.getValue()) {
+                defined.add(entry.getValue().toMacro());
+            }
+        }
+        List<String> undefined = new ArrayList<>();
+        for (String identifier : finished.definesBefore.keySet()) {
+            if(!defines.containsKey(identifier)) undefined.add(identifier);
+        }
+        PrecompiledHeader.store(new PrecompiledHeader(finished.key, finished.header, finished.sources, recorded, lexed,
+                finished.startLine, defined, undefined));
+    }
+    
+    /**
+     * Includes a precompiled header. Its text is spliced in so the output of the preprocessor is the same, but the
+     * lexer moves past it, and the tokens and macros of the header are used instead.
+     * @param header the header
+     * @param originalString the include directive
+     */
+    private void replayHeader(PrecompiledHeader header, String originalString) {
+        int restoreLineNumber = getLine();
+        String fullText = header.getText() + restoreDirective(restoreLineNumber);
+        replaceString(originalString, fullText);
+        replayedTokens.addAll(header.createTokens(lineNumber));
+        for (String identifier : header.getUndefined()) {
+            defines.remove(identifier);
+        }
+        for (PrecompiledHeader.Macro macro : header.getDefined()) {
+            Define define;
+            if(macro.hasArgs) {
+                define = new Define(macro.identifier, macro.isVararg, macro.args, macro.replacement);
+            } else {
+                define = new Define(macro.identifier, macro.replacement);
+            }
+            defines.put(macro.identifier, define);
+        }
+        if(recording != null) {
+            recording.sources.putAll(header.getSources());
+        }
+        for (int i = 0; i < fullText.length(); i++) {
+            if(fullText.charAt(i) == '\n') lineNumber++;
+        }
+        currentIndex += fullText.length();
+        column = 1;
+        setLine(currentFile, restoreLineNumber);
+    }
+    
     public void define(String name) {
         defines.put(name, new Define(name));
     }
@@ -628,14 +1029,18 @@ public class PreProcessingLexer extends Tokenizer<Token> {
                             throw new PreprocessorDirectiveError(token, "Preprocessor Directive must begin line");
                         }
                     }
-                    String preprocessorDirective = "";
+                    int start = currentIndex;
                     while (getChar() != '\n') {
-                        preprocessorDirective += consumeChar();
+                        consumeChar();
                     }
+                    String preprocessorDirective = inputSubstring(start, currentIndex);
                     
                     String original = preprocessorDirective + consumeChar();
                     preprocessorDirective = preprocessorDirective.replaceAll("\\s+", " ");
                     invokePreprocessorDirective(preprocessorDirective, original);
+                    if(!replayedTokens.isEmpty()) {
+                        return replayedTokens.poll();
+                    }
                     
                 } else if(skipToIfFalse) {
                     removeChar();
@@ -726,57 +1131,60 @@ public class PreProcessingLexer extends Tokenizer<Token> {
                 
                 return new Token(TokenType.t_literal, image);
             } else if (Character.isLetter(getChar()) || match('_')) {
-                image += consumeChar();
+                int start = currentIndex;
+                consumeChar();
                 while (Character.isLetter(getChar()) || match('_') || Character.isDigit(getChar())) {
-                    image += consumeChar();
+                    consumeChar();
                 }
+                image = inputSubstring(start, currentIndex);
                 
-                if (defines.containsKey(image)) {
-                    Define define = defines.get(image);
+                Define define = defines.get(image);
+                if (define != null && !isExpanding(image, start)) {
                     
                     if (define.hasArgs) {
-                        String collected = "";
+                        StringBuilder collected = new StringBuilder();
                         while (Character.isWhitespace(getChar())) {
-                            collected += consumeChar();
+                            collected.append(consumeChar());
                         }
                         if(getChar() != '(') {
                             
-                            unconsume(collected);
+                            unconsume(collected.toString());
                         } else {
-                            collected += consumeChar();
+                            collected.append(consumeChar());
                             int parens = 0;
                             List<String> collectedArguments = new LinkedList<>();
-                            String currentArgument = "";
+                            StringBuilder currentArgument = new StringBuilder();
                             while (!(match(')') && parens == 0)) {
                                 char c = consumeChar();
-                                collected += c;
+                                collected.append(c);
                                 
                                 if(c == '(') {
-                                    currentArgument += c;
+                                    currentArgument.append(c);
                                     parens++;
                                 } else if(c == ',' && parens == 0) {
-                                    collectedArguments.add(currentArgument);
-                                    currentArgument = "";
+                                    collectedArguments.add(currentArgument.toString());
+                                    currentArgument.setLength(0);
                                 } else if (c != ')' || parens > 0){
                                     if(c == ')') {
                                         parens--;
                                     }
-                                    currentArgument += c;
+                                    currentArgument.append(c);
                                 }
                                 
                             }
-                            collected += consumeChar();
-                            collectedArguments.add(currentArgument);
+                            collected.append(consumeChar());
+                            collectedArguments.add(currentArgument.toString());
                             collectedArguments.removeIf(String::isBlank);
                             
-                            String invoke = define.invoke(collectedArguments.toArray(new String[collectedArguments.size()]));
+                            String[] args = collectedArguments.toArray(new String[collectedArguments.size()]);
+                            String invoke = define.invoke(args, expandArguments(args, expandingMacros(start)));
                             String totalToReplace = image + collected;
-                            replaceString(totalToReplace, invoke);
+                            expandMacro(image, totalToReplace, invoke);
                             continue;
                         }
                         
                     } else {
-                        replaceString(image, define.invoke());
+                        expandMacro(image, image, define.invoke());
                         continue;
                     }
                     
@@ -998,20 +1406,27 @@ public class PreProcessingLexer extends Tokenizer<Token> {
     public Token getNext() {
         if (++tokenIndex >= createdTokens.size()) {
             Token tok;
-            try {
-                tok = singleLex();
-                
-            } catch (AbstractCompilationError e) {
-                getErrors().add(e);
-                //finishedIndex = getTokenIndex();
-                tok = null;
+            if (!replayedTokens.isEmpty()) {
+                tok = replayedTokens.poll();
+            } else {
+                try {
+                    tok = singleLex();
+                    
+                } catch (AbstractCompilationError e) {
+                    getErrors().add(e);
+                    //finishedIndex = getTokenIndex();
+                    tok = null;
+                }
             }
             if (tok == null) return null;
             tok.setPrevious(getPrevious());
-            String representation = tok.getRepresentation();
-            tok.addColumnAndLineNumber(column - representation.length(), lineNumber);
-            tok.setFilename(currentFile);
-            tok.setActualLineNumber(fileCurrentLineNumber.get(currentFile).getValue());
+            // tokens from a precompiled header already have their positions
+            if (tok.getVirtualLineNumber() < 0) {
+                String representation = tok.getRepresentation();
+                tok.addColumnAndLineNumber(column - representation.length(), lineNumber);
+                tok.setFilename(currentFile);
+                tok.setActualLineNumber(fileCurrentLineNumber.get(currentFile).getValue());
+            }
             //prevLineNumber = lineNumber;
             //prevColumn = column;
             createdTokens.add(tok);
@@ -1032,7 +1447,7 @@ public class PreProcessingLexer extends Tokenizer<Token> {
         }
         if(getTokenIndex() < createdTokens.size() - 1) return true;
         
-        return currentIndex < getInputString().length();
+        return !replayedTokens.isEmpty() || currentIndex < inputLength();
     }
     
     @Override
@@ -1043,6 +1458,9 @@ public class PreProcessingLexer extends Tokenizer<Token> {
     @Override
     public void reset() {
         super.reset();
+        activeExpansions.clear();
+        recording = null;
+        replayedTokens.clear();
         fileCurrentLineNumber = new HashMap<>();
         defines = baseDefines();
     }
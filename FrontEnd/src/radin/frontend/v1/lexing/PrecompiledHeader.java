@@ -0,0 +1,400 @@
+package radin.frontend.v1.lexing;
+
+import radin.core.lexical.Token;
+import radin.core.lexical.TokenType;
+import radin.core.utility.ICompilationSettings;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static radin.core.utility.Hashing.*;
+
+/**
+ * A header after the preprocessor went through it once. It stores the text the header expanded into, the tokens that
+ * were lexed from it, and the macros it defined and undefined, so that the next file that includes the header splices
+ * in the text and reuses the tokens instead of reading, expanding and lexing the header again.
+ * <p>
+ * What a header expands into depends on the macros defined before it's included, so headers are found by a key made
+ * from the header and those macros. Headers are kept in memory for the rest of the run, and in the build directory in
+ * a binary format, where they're checked against the files they were made from before they're used.
+ * </p>
+ * <p>
+ * Only the preprocessor and lexer are skipped. The tokens of the header are still parsed and analyzed in every file
+ * that includes it, so the parser's typedefs and the declarations in the type environment aren't stored. Skipping the
+ * parser would need the syntax tree of the header too, as the declarations it creates are analyzed with each file,
+ * and the types in the environment can't be read back into another compilation.
+ * </p>
+ */
+public class PrecompiledHeader {
+
+    private static final int MAGIC = 0x4A504348; // JPCH
+    private static final int VERSION = 1;
+
+    private static final String compilerVersion = compilerVersion();
+    private static final Map<String, PrecompiledHeader> headers = new ConcurrentHashMap<>();
+
+    /**
+     * A macro the header defined, kept as the parts of its directive so the lexer can create it again
+     */
+    public static class Macro {
+        public final String identifier;
+        public final boolean hasArgs;
+        public final boolean isVararg;
+        public final List<String> args;
+        public final String replacement;
+
+        public Macro(String identifier, boolean hasArgs, boolean isVararg, List<String> args, String replacement) {
+            this.identifier = identifier;
+            this.hasArgs = hasArgs;
+            this.isVararg = isVararg;
+            this.args = args;
+            this.replacement = replacement;
+        }
+    }
+
+    /**
+     * A token lexed from the header. Its line is relative to the line the header was included at.
+     */
+    private static class CompiledToken {
+        private final TokenType type;
+        private final String image;
+        private final int column;
+        private final int line;
+        private final int actualLine;
+        private final String filename;
+
+        private CompiledToken(TokenType type, String image, int column, int line, int actualLine, String filename) {
+            this.type = type;
+            this.image = image;
+            this.column = column;
+            this.line = line;
+            this.actualLine = actualLine;
+            this.filename = filename;
+        }
+    }
+
+    private final String key;
+    private final String header;
+    private final Map<String, String> sources;
+    private final String text;
+    private final List<CompiledToken> tokens;
+    private final List<Macro> defined;
+    private final List<String> undefined;
+
+    private PrecompiledHeader(String key, String header, Map<String, String> sources, String text,
+                              List<CompiledToken> tokens, List<Macro> defined, List<String> undefined) {
+        this.key = key;
+        this.header = header;
+        this.sources = sources;
+        this.text = text;
+        this.tokens = tokens;
+        this.defined = defined;
+        this.undefined = undefined;
+    }
+
+    /**
+     * Creates a precompiled header from what the lexer created while it went through the header
+     * @param key the key of the header
+     * @param header the name the header was included by
+     * @param sources the files that were read, mapped to the hashes of their text
+     * @param text the text the header expanded into, without the directive that restores the line of the includer
+     * @param lexed the tokens lexed from the header
+     * @param startLine the line of the lexer when the header was included
+     * @param defined the macros the header defined
+     * @param undefined the macros the header undefined
+     */
+    public PrecompiledHeader(String key, String header, Map<String, String> sources, String text, List<Token> lexed,
+                             int startLine, List<Macro> defined, List<String> undefined) {
+        this(key, header, sources, text, new ArrayList<>(lexed.size()), defined, undefined);
+        for (Token token : lexed) {
+            tokens.add(new CompiledToken(token.getType(), token.getImage(), token.getVirtualColumn(),
+                    token.getVirtualLineNumber() - startLine, token.getActualLineNumber(), token.getFilename()));
+        }
+    }
+
+    public String getHeader() {
+        return header;
+    }
+
+    public Map<String, String> getSources() {
+        return sources;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    public List<Macro> getDefined() {
+        return defined;
+    }
+
+    public List<String> getUndefined() {
+        return undefined;
+    }
+
+    /**
+     * Creates new tokens for a file that includes the header
+     * @param startLine the line of the lexer when the header was included
+     * @return the tokens, in the order they were lexed
+     */
+    public List<Token> createTokens(int startLine) {
+        List<Token> output = new ArrayList<>(tokens.size());
+        for (CompiledToken compiled : tokens) {
+            Token token = new Token(compiled.type, compiled.image);
+            token.addColumnAndLineNumber(compiled.column, startLine + compiled.line);
+            token.setActualLineNumber(compiled.actualLine);
+            token.setFilename(compiled.filename);
+            output.add(token);
+        }
+        return output;
+    }
+
+    /**
+     * Creates the key of a header. Headers are only reused when everything that changes how they expand is the same.
+     * @param header the file of the header
+     * @param macros the macros defined when it was included, as the text of their directives
+     * @param tabSize the tab size
+     * @param runtimeCompilationMode whether identifiers starting with {@code __} are allowed
+     * @return the key
+     */
+    public static String key(String header, Collection<String> macros, int tabSize, boolean runtimeCompilationMode) {
+        MessageDigest digest = createDigest();
+        update(digest, header);
+        update(digest, String.valueOf(tabSize));
+        update(digest, String.valueOf(runtimeCompilationMode));
+        update(digest, compilerVersion);
+        List<String> sorted = new ArrayList<>(macros);
+        Collections.sort(sorted);
+        for (String macro : sorted) {
+            update(digest, macro);
+        }
+        return toHex(digest.digest());
+    }
+
+    /**
+     * Finds a header that was already precompiled, first in memory and then in the build directory
+     * @param key the key of the header
+     * @return the header, or null if it hasn't been precompiled or the files it was made from changed
+     */
+    public static PrecompiledHeader find(String key) {
+        PrecompiledHeader header = headers.get(key);
+        if (header != null) return header;
+        File file = ICompilationSettings.getBuildFile("cache/pch/" + key + ".pch");
+        if (file == null || !file.exists()) return null;
+        try {
+            header = read(file);
+        } catch (IOException | RuntimeException e) {
+            ICompilationSettings.debugLog.warning("Couldn't read precompiled header " + file);
+            return null;
+        }
+        if (header == null || !header.key.equals(key) || !header.isUpToDate()) {
+            ICompilationSettings.debugLog.info("Precompiled header " + file + " is out of date");
+            return null;
+        }
+        ICompilationSettings.debugLog.info("Loaded precompiled header " + header.header);
+        PrecompiledHeader existing = headers.putIfAbsent(key, header);
+        return existing != null ? existing : header;
+    }
+
+    /**
+     * Keeps a header for the rest of the run, and writes it to the build directory
+     * @param header the header
+     */
+    public static void store(PrecompiledHeader header) {
+        if (headers.putIfAbsent(header.key, header) != null) return;
+        ICompilationSettings.debugLog.info("Precompiled header " + header.header);
+        File file = ICompilationSettings.createBuildFile("cache/pch/" + header.key + ".pch");
+        if (file == null) return;
+        try {
+            header.write(file);
+        } catch (IOException e) {
+            ICompilationSettings.debugLog.warning("Couldn't write precompiled header " + file);
+        }
+    }
+
+    private boolean isUpToDate() {
+        for (Map.Entry<String, String> source : sources.entrySet()) {
+            try {
+                String text = readSource(new File(source.getKey()));
+                if (!hash(text).equals(source.getValue())) return false;
+            } catch (IOException e) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Reads a source file the same way the preprocessor does, joining lines that end with a backslash
+     * @param file the file
+     * @return the text
+     * @throws IOException if the file couldn't be read
+     */
+    public static String readSource(File file) throws IOException {
+        StringBuilder text = new StringBuilder();
+        try (BufferedReader bufferedReader = new BufferedReader(new FileReader(file))) {
+            String line;
+            while ((line = bufferedReader.readLine()) != null) {
+                if (!line.endsWith("\\")) {
+                    text.append(line);
+                    text.append("\n");
+                } else {
+                    text.append(line, 0, line.length() - 1);
+                    text.append(' ');
+                }
+            }
+        }
+        return text.toString();
+    }
+
+    private void write(File file) throws IOException {
+        List<String> filenames = new ArrayList<>();
+        Map<String, Integer> filenameIndexes = new HashMap<>();
+        for (CompiledToken token : tokens) {
+            if (!filenameIndexes.containsKey(token.filename)) {
+                filenameIndexes.put(token.filename, filenames.size());
+                filenames.add(token.filename);
+            }
+        }
+
+        try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+            output.writeInt(MAGIC);
+            output.writeInt(VERSION);
+            output.writeInt(TokenType.values().length);
+            writeString(output, key);
+            writeString(output, header);
+            output.writeInt(sources.size());
+            for (Map.Entry<String, String> source : sources.entrySet()) {
+                writeString(output, source.getKey());
+                writeString(output, source.getValue());
+            }
+            writeString(output, text);
+            output.writeInt(filenames.size());
+            for (String filename : filenames) {
+                writeString(output, filename);
+            }
+            output.writeInt(tokens.size());
+            for (CompiledToken token : tokens) {
+                output.writeShort(token.type.ordinal());
+                writeString(output, token.image);
+                output.writeInt(token.column);
+                output.writeInt(token.line);
+                output.writeInt(token.actualLine);
+                output.writeInt(filenameIndexes.get(token.filename));
+            }
+            output.writeInt(defined.size());
+            for (Macro macro : defined) {
+                writeString(output, macro.identifier);
+                output.writeBoolean(macro.hasArgs);
+                output.writeBoolean(macro.isVararg);
+                output.writeInt(macro.args == null ? -1 : macro.args.size());
+                if (macro.args != null) {
+                    for (String arg : macro.args) {
+                        writeString(output, arg);
+                    }
+                }
+                writeString(output, macro.replacement);
+            }
+            output.writeInt(undefined.size());
+            for (String identifier : undefined) {
+                writeString(output, identifier);
+            }
+        }
+    }
+
+    /**
+     * Maps the file into memory and reads the header from it
+     * @return the header, or null if the file was written by a different version of the compiler
+     */
+    private static PrecompiledHeader read(File file) throws IOException {
+        ByteBuffer input;
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            input = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (input.getInt() != MAGIC || input.getInt() != VERSION || input.getInt() != TokenType.values().length) {
+            return null;
+        }
+        TokenType[] types = TokenType.values();
+        String key = readString(input);
+        String header = readString(input);
+        int sourceCount = input.getInt();
+        Map<String, String> sources = new LinkedHashMap<>();
+        for (int i = 0; i < sourceCount; i++) {
+            sources.put(readString(input), readString(input));
+        }
+        String text = readString(input);
+        String[] filenames = new String[input.getInt()];
+        for (int i = 0; i < filenames.length; i++) {
+            filenames[i] = readString(input);
+        }
+        int tokenCount = input.getInt();
+        List<CompiledToken> tokens = new ArrayList<>(tokenCount);
+        for (int i = 0; i < tokenCount; i++) {
+            TokenType type = types[input.getShort()];
+            String image = readString(input);
+            int column = input.getInt();
+            int line = input.getInt();
+            int actualLine = input.getInt();
+            String filename = filenames[input.getInt()];
+            tokens.add(new CompiledToken(type, image, column, line, actualLine, filename));
+        }
+        int definedCount = input.getInt();
+        List<Macro> defined = new ArrayList<>(definedCount);
+        for (int i = 0; i < definedCount; i++) {
+            String identifier = readString(input);
+            boolean hasArgs = input.get() != 0;
+            boolean isVararg = input.get() != 0;
+            int argCount = input.getInt();
+            List<String> args = null;
+            if (argCount >= 0) {
+                args = new LinkedList<>();
+                for (int j = 0; j < argCount; j++) {
+                    args.add(readString(input));
+                }
+            }
+            defined.add(new Macro(identifier, hasArgs, isVararg, args, readString(input)));
+        }
+        int undefinedCount = input.getInt();
+        List<String> undefined = new ArrayList<>(undefinedCount);
+        for (int i = 0; i < undefinedCount; i++) {
+            undefined.add(readString(input));
+        }
+        return new PrecompiledHeader(key, header, sources, text, tokens, defined, undefined);
+    }
+
+    private static void writeString(DataOutputStream output, String value) throws IOException {
+        if (value == null) {
+            output.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        output.writeInt(bytes.length);
+        output.write(bytes);
+    }
+
+    private static String readString(ByteBuffer input) {
+        int length = input.getInt();
+        if (length < 0) return null;
+        byte[] bytes = new byte[length];
+        input.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * When the compiler was built, so that headers precompiled by another build of the compiler aren't used
+     */
+    private static String compilerVersion() {
+        try {
+            File compiler = new File(PrecompiledHeader.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+            return String.valueOf(compiler.lastModified());
+        } catch (Exception e) {
+            return "";
+        }
+    }
+}
@@ -27,6 +27,55 @@ BasicParser implements IParser<Token, ParseNode> {
     private Stack<Boolean> forceParse;
     private List<AbstractCompilationError> allErrors;
     private List<AbstractCompilationError> tempErrors;
+    private int errorCount;
+    private int forceCount;
+    private boolean packrat;
+    private HashMap<MemoKey, MemoEntry> memo;
+    
+    /**
+     * Identifies a parse of a rule starting at a token
+     */
+    private static class MemoKey {
+        private final String rule;
+        private final int tokenIndex;
+        private final long scopeVersion;
+    
+        private MemoKey(String rule, int tokenIndex, long scopeVersion) {
+            this.rule = rule;
+            this.tokenIndex = tokenIndex;
+            this.scopeVersion = scopeVersion;
+        }
+    
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            MemoKey memoKey = (MemoKey) o;
+            return tokenIndex == memoKey.tokenIndex &&
+                    scopeVersion == memoKey.scopeVersion &&
+                    rule.equals(memoKey.rule);
+        }
+    
+        @Override
+        public int hashCode() {
+            return Objects.hash(rule, tokenIndex, scopeVersion);
+        }
+    }
+    
+    /**
+     * The result of a successful parse of a rule
+     */
+    private static class MemoEntry {
+        private final List<ParseNode> nodes;
+        private final int endIndex;
+        private final boolean forced;
+    
+        private MemoEntry(List<ParseNode> nodes, int endIndex, boolean forced) {
+            this.nodes = nodes;
+            this.endIndex = endIndex;
+            this.forced = forced;
+        }
+    }
     
     public BasicParser() {
         states = new Stack<>();
@@ -34,6 +83,7 @@ BasicParser implements IParser<Token, ParseNode> {
         allErrors = new LinkedList<>();
         tempErrors = new LinkedList<>();
         forceParse = new Stack<>();
+        memo = new HashMap<>();
     }
     
     @Override
@@ -44,13 +94,14 @@ BasicParser implements IParser<Token, ParseNode> {
         allErrors.clear();
         tempErrors.clear();
         forceParse.clear();
+        memo.clear();
     }
     
     
     @Override
     public void setTokenizer(ITokenizer<? extends Token> t) {
         lexer = t;
-        
+        memo.clear();
     }
     
     @Override
@@ -91,6 +142,7 @@ BasicParser implements IParser<Token, ParseNode> {
     }
     
     public void forceParse() {
+        forceCount++;
         for (int i = 0; i < forceParse.size(); i++) {
             forceParse.set(i, true);
         }
@@ -159,6 +211,7 @@ BasicParser implements IParser<Token, ParseNode> {
     
     protected boolean error(String msg, boolean release, Token correspondingToken) {
         ParsingError error = new SingleParsingError(msg, correspondingToken, "here");
+        errorCount++;
     
         if(suppressErrors.empty() || forceParse.peek()) {
              allErrors.add(error);
@@ -185,6 +238,7 @@ BasicParser implements IParser<Token, ParseNode> {
     }
     
     protected boolean absorbErrors(String newError, boolean includeTemps, Token correspondingToken) {
+        errorCount++;
         List<AbstractCompilationError> errors = new LinkedList<>();
         if(includeTemps) {
             errors.addAll(tempErrors);
@@ -277,6 +331,64 @@ BasicParser implements IParser<Token, ParseNode> {
         return AttemptStatus.PARSED;
     }
     
+    public boolean isPackrat() {
+        return packrat;
+    }
+    
+    /**
+     * Sets whether successful parses of memoized rules are remembered, so that when the parser backtracks and tries
+     * the same rule at the same token again, the result is reused instead of parsed again
+     * @param packrat whether to memoize rules
+     */
+    public void setPackrat(boolean packrat) {
+        this.packrat = packrat;
+        memo.clear();
+    }
+    
+    /**
+     * Gets a version of any state outside of the token position that rules depend on. Parses of a rule are only
+     * reused if they started at the same token and the same version.
+     * @return the version
+     */
+    protected long getScopeVersion() {
+        return 0;
+    }
+    
+    /**
+     * Parses a rule, reusing the result of an earlier parse of the same rule at the same token if packrat parsing is
+     * enabled. Only successful parses that don't create errors or change the scope version are remembered.
+     * @param rule the name of the rule
+     * @param function the rule
+     * @param parent the node to add the parsed nodes to
+     * @return whether the rule parsed
+     */
+    final protected boolean memoize(String rule, ParseFunction function, CategoryNode parent) {
+        if(!packrat) return function.parse(parent);
+        
+        long scopeVersion = getScopeVersion();
+        MemoKey key = new MemoKey(rule, lexer.getTokenIndex(), scopeVersion);
+        MemoEntry entry = memo.get(key);
+        if(entry != null) {
+            for (ParseNode node : entry.nodes) {
+                parent.addChild(node);
+            }
+            lexer.setTokenIndex(entry.endIndex);
+            if(entry.forced) forceParse();
+            return true;
+        }
+        
+        int children = parent.getAllChildren().size();
+        int errors = errorCount;
+        int forces = forceCount;
+        if(!function.parse(parent)) return false;
+        if(errorCount == errors && getScopeVersion() == scopeVersion) {
+            List<ParseNode> allChildren = parent.getAllChildren();
+            List<ParseNode> nodes = new ArrayList<>(allChildren.subList(children, allChildren.size()));
+            memo.put(key, new MemoEntry(nodes, lexer.getTokenIndex(), forceCount != forces));
+        }
+        return true;
+    }
+    
     final protected boolean oneMustParse(CategoryNode parent, ParseFunction parseFunction, ParseFunction... functions) {
         if(functions.length == 0) return parseFunction.parse(parent);
         switch (attemptParse(parseFunction, parent)) {
@@ -312,7 +424,9 @@ BasicParser implements IParser<Token, ParseNode> {
     }
     
     protected TokenType getCurrentType() {
-        return getCurrent().getType();
+        TokenType type = lexer.getCurrentType();
+        if (type == null) return getCurrent().getType();
+        return type;
     }
     
     protected TokenType getNextType() {
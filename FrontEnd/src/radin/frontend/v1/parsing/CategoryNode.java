@@ -10,6 +10,7 @@ import java.util.LinkedList;
 import java.util.List;
 
 public class CategoryNode extends ParseNode {
+    private static final long serialVersionUID = 1L;
     
     private List<ParseNode> allChildren;
     private List<LeafNode> leafChildren;
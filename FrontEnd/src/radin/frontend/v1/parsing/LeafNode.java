@@ -6,6 +6,7 @@ import java.util.LinkedList;
 import java.util.List;
 
 public class LeafNode extends ParseNode {
+    private static final long serialVersionUID = 1L;
     
     private Token token;
     
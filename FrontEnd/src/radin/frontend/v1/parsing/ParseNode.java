@@ -9,6 +9,7 @@ import java.util.LinkedList;
 import java.util.List;
 
 public abstract class ParseNode extends AbstractTree<ParseNode> {
+    private static final long serialVersionUID = 1L;
 
     private String data;
     private AbstractSyntaxNode synthesized;
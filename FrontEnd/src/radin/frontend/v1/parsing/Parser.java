@@ -4,6 +4,7 @@ import radin.core.lexical.Token;
 import radin.core.lexical.TokenType;
 import radin.core.semantics.TokenStoringAbstractSyntaxNode;
 import radin.core.utility.ICompilationSettings;
+import radin.core.utility.UniversalCompilerSettings;
 
 import java.util.HashSet;
 import java.util.LinkedList;
@@ -11,32 +12,51 @@ import java.util.List;
 import java.util.Stack;
 
 import static radin.core.lexical.TokenType.*;
+import java.util.logging.Level;
 
 public class Parser extends BasicParser {
     
     
-    private HashSet<String> compoundTypeNames;
-    private Stack<HashSet<String>> scopedTypedefStack;
-    private Stack<HashSet<String>> compoundTypesStack;
+    private ScopedNameSet compoundTypeNames;
+    private ScopedNameSet typedefs;
+    private Stack<ScopeMark> scopeMarks;
     private HashSet<String> noScopeTypeDef = new HashSet<>();
+    private long scopeVersion;
+    private long nextScopeVersion;
+    
+    /**
+     * The state of the known type names when a state was pushed or a typedef closure was made
+     */
+    private static class ScopeMark {
+        private final int typedefs;
+        private final int compoundTypeNames;
+        private final int noScopeTypeDefs;
+        private final long version;
+    
+        private ScopeMark(int typedefs, int compoundTypeNames, int noScopeTypeDefs, long version) {
+            this.typedefs = typedefs;
+            this.compoundTypeNames = compoundTypeNames;
+            this.noScopeTypeDefs = noScopeTypeDefs;
+            this.version = version;
+        }
+    }
     
     public Parser() {
         super();
-        compoundTypeNames = new HashSet<>();
-        scopedTypedefStack = new Stack<>();
-        
-        scopedTypedefStack.add(new HashSet<>());
-        compoundTypesStack = new Stack<>();
-        
+        compoundTypeNames = new ScopedNameSet();
+        typedefs = new ScopedNameSet();
+        scopeMarks = new Stack<>();
+        scopeVersion = 0;
+        nextScopeVersion = 1;
     }
     
     
     public HashSet<String> getTypedefed() {
-        return scopedTypedefStack.peek();
+        return typedefs.toSet();
     }
     
     private boolean isTypeName(String image) {
-        return scopedTypedefStack.peek().contains(image) || noScopeTypeDef.contains(image);
+        return typedefs.contains(image) || noScopeTypeDef.contains(image);
     }
     
     private boolean isCompoundTypeName(String image) {
@@ -55,43 +75,82 @@ public class Parser extends BasicParser {
         return output;
     }
     
+    @Override
+    protected TokenType getCurrentType() {
+        TokenType type = super.getCurrentType();
+        if (type == TokenType.t_id) return getCurrent().getType();
+        return type;
+    }
+    
+    /**
+     * Every different set of known type names has a different version, so parses at the same token with the same
+     * version see the same type names.
+     * @return the version of the known type names
+     */
+    @Override
+    protected long getScopeVersion() {
+        return scopeVersion;
+    }
+    
+    private void addTypeDef(String name) {
+        if (typedefs.add(name)) scopeVersion = nextScopeVersion++;
+    }
+    
+    private void addCompoundTypeName(String name) {
+        if (compoundTypeNames.add(name)) scopeVersion = nextScopeVersion++;
+    }
+    
+    private void addNoScopeTypeDef(String name) {
+        if (noScopeTypeDef.add(name)) scopeVersion = nextScopeVersion++;
+    }
+    
+    private void markScope() {
+        scopeMarks.push(new ScopeMark(typedefs.mark(), compoundTypeNames.mark(), noScopeTypeDef.size(), scopeVersion));
+    }
+    
+    /**
+     * Goes back to the version of a mark if every name added since it was made has been removed
+     * @param mark the mark
+     */
+    private void restoreScopeVersion(ScopeMark mark) {
+        if (typedefs.mark() == mark.typedefs && compoundTypeNames.mark() == mark.compoundTypeNames &&
+                noScopeTypeDef.size() == mark.noScopeTypeDefs) {
+            scopeVersion = mark.version;
+        } else {
+            scopeVersion = nextScopeVersion++;
+        }
+    }
+    
     public void typedefClosure() {
-        
-        scopedTypedefStack.push(new HashSet<>(scopedTypedefStack.peek()));
-       
+        markScope();
     }
     
     public void releaseTypeDefClosure() {
-        scopedTypedefStack.pop();
-        
+        ScopeMark mark = scopeMarks.pop();
+        typedefs.rollback(mark.typedefs);
+        restoreScopeVersion(mark);
     }
     
     public void addTempTypeDef(String name) {
-        scopedTypedefStack.peek().add(name);
+        addTypeDef(name);
     }
     
     @Override
     protected void pushState() {
         super.pushState();
-        typedefClosure();
-        compoundTypesStack.push(new HashSet<>(compoundTypeNames));
+        markScope();
     }
     
     @Override
     protected boolean popState() {
         boolean b = super.popState();
         if (b) {
-            HashSet<String> pop = scopedTypedefStack.pop();
-            pop.removeAll(scopedTypedefStack.peek());
-            
-            
-            scopedTypedefStack.peek().addAll(pop);
-            if(!pop.isEmpty() ){
-                ICompilationSettings.debugLog.finer("Typedefs added after state pop: " + pop);
-                ICompilationSettings.debugLog.finest("Known types: " + scopedTypedefStack.peek());
+            ScopeMark mark = scopeMarks.pop();
+            if (typedefs.mark() != mark.typedefs && ICompilationSettings.debugLog.isLoggable(Level.FINER)) {
+                List<String> added = typedefs.addedSince(mark.typedefs);
+                ICompilationSettings.debugLog.finer("Typedefs added after state pop: %s", added);
+                ICompilationSettings.debugLog.finest("Known types: %s", typedefs);
             }
-            
-            compoundTypesStack.pop();
         }
         return b;
     }
@@ -100,14 +159,14 @@ public class Parser extends BasicParser {
     protected boolean applyState() {
         boolean b = super.applyState();
         if (b) {
-            HashSet<String> peek = scopedTypedefStack.peek();
-            scopedTypedefStack.pop();
-            peek.removeAll(scopedTypedefStack.peek());
-            if(!peek.isEmpty()) {
-                ICompilationSettings.debugLog.finer("Typedefs lost after state application: " + peek);
-                ICompilationSettings.debugLog.finest("Known types: " + scopedTypedefStack.peek());
+            ScopeMark mark = scopeMarks.pop();
+            List<String> lost = typedefs.rollback(mark.typedefs);
+            if(!lost.isEmpty()) {
+                ICompilationSettings.debugLog.finer("Typedefs lost after state application: %s", lost);
+                ICompilationSettings.debugLog.finest("Known types: %s", typedefs);
             }
-            compoundTypeNames = compoundTypesStack.pop();
+            compoundTypeNames.rollback(mark.compoundTypeNames);
+            restoreScopeVersion(mark);
         }
         return b;
     }
@@ -115,10 +174,10 @@ public class Parser extends BasicParser {
     @Override
     public void reset() {
         compoundTypeNames.clear();
-        scopedTypedefStack.clear();
-        scopedTypedefStack.add(new HashSet<>());
+        typedefs.clear();
         noScopeTypeDef.clear();
-        compoundTypesStack.clear();
+        scopeMarks.clear();
+        scopeVersion = nextScopeVersion++;
     }
     
     protected Token undoTypeName(Token other) {
@@ -129,6 +188,8 @@ public class Parser extends BasicParser {
     public CategoryNode parse() {
         CategoryNode output = new CategoryNode("Program");
         lexer.reset();
+        ICompilationSettings<?, ?, ?> settings = UniversalCompilerSettings.getInstance().getSettings();
+        setPackrat(settings != null && settings.isPackratParsing());
         if (!parseTopLevelDecsList(output)) {
             return null;
         }
@@ -1257,6 +1318,10 @@ public class Parser extends BasicParser {
     }
     
     private boolean parseFactor(CategoryNode parent) {
+        return memoize("Factor", this::parseFactorRule, parent);
+    }
+    
+    private boolean parseFactorRule(CategoryNode parent) {
         CategoryNode child = new CategoryNode("Factor");
         
         switch (getCurrentType()) {
@@ -1522,6 +1587,10 @@ public class Parser extends BasicParser {
     // TYPES
     
     protected boolean parseAbstractTypeName(CategoryNode parent) {
+        return memoize("AbstractTypeName", this::parseAbstractTypeNameRule, parent);
+    }
+    
+    private boolean parseAbstractTypeNameRule(CategoryNode parent) {
         CategoryNode output = new CategoryNode("TypeName");
         
         if (!parseSpecsAndQuals(output)) return false;
@@ -1597,7 +1666,7 @@ public class Parser extends BasicParser {
                 if(match(t_id)) {
                     Token t= getCurrent();
                     consumeAndAddAsLeaf(output);
-                    scopedTypedefStack.peek().add(t.getImage());
+                    addTypeDef(t.getImage());
                 } else {
                     if (!parseNamespacedType(output)) return false;
                 }
@@ -1871,7 +1940,7 @@ public class Parser extends BasicParser {
                 
                 if (consume(TokenType.t_lcurl)) {
                     String name = output.getLeafNode(type).getToken().getImage();
-                    compoundTypeNames.add(name);
+                    addCompoundTypeName(name);
                     
                     if (!parseStructDeclarationList(output)) return false;
                     if (!consume(TokenType.t_rcurl)) return false;
@@ -1910,7 +1979,7 @@ public class Parser extends BasicParser {
         String image = getCurrent().getImage();
         output.addChild(new LeafNode(token));
         getNext();
-        scopedTypedefStack.peek().add(image);
+        addTypeDef(image);
         
         
         parent.addChild(output);
@@ -1997,7 +2066,7 @@ public class Parser extends BasicParser {
             }
             
             if (match(t_semic)) {
-                if(scopedTypedefStack.peek().contains(getPrevious().getImage())) {
+                if(typedefs.contains(getPrevious().getImage())) {
                     parent.addChild(child);
                     return true;
                 }
@@ -2007,13 +2076,17 @@ public class Parser extends BasicParser {
         String typename = getCurrent().getImage();
         consumeAndAddAsLeaf(child);
         
-        scopedTypedefStack.peek().add(typename);
+        addTypeDef(typename);
         
         parent.addChild(child);
         return true;
     }
     
     private boolean parseDeclarator(CategoryNode parent) {
+        return memoize("Declarator", this::parseDeclaratorRule, parent);
+    }
+    
+    private boolean parseDeclaratorRule(CategoryNode parent) {
         CategoryNode child = new CategoryNode("Declarator");
         
         if (match(TokenType.t_star)) {
@@ -2193,6 +2266,10 @@ public class Parser extends BasicParser {
     }
     
     private boolean parseDeclarationSpecifiers(CategoryNode parent) {
+        return memoize("DeclarationSpecifiers", this::parseDeclarationSpecifiersRule, parent);
+    }
+    
+    private boolean parseDeclarationSpecifiersRule(CategoryNode parent) {
         CategoryNode child = new CategoryNode("DeclarationSpecifiers");
         
         if (!parseSpecsAndQuals(child)) return false;
@@ -2385,7 +2462,7 @@ public class Parser extends BasicParser {
         
         
         String name = child.getLeafNode(TokenType.t_id).getToken().getImage();
-        noScopeTypeDef.add(name);
+        addNoScopeTypeDef(name);
         boolean forced = false;
         if (match(TokenType.t_colon)) {
             forceParse();
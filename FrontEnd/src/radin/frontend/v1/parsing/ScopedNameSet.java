@@ -0,0 +1,83 @@
+package radin.frontend.v1.parsing;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A set of names that can be rolled back to an earlier state. Instead of copying the set whenever the parser might
+ * backtrack, every added name is recorded in a trail, and rolling back to a mark removes the names added after it.
+ * Marks must be rolled back to in the reverse order they were made.
+ */
+public class ScopedNameSet {
+
+    private Set<String> names;
+    private List<String> trail;
+
+    public ScopedNameSet() {
+        names = new HashSet<>();
+        trail = new ArrayList<>();
+    }
+
+    public boolean contains(String name) {
+        return names.contains(name);
+    }
+
+    /**
+     * Adds a name to the set
+     * @param name the name
+     * @return true if the name wasn't already in the set
+     */
+    public boolean add(String name) {
+        if (!names.add(name)) return false;
+        trail.add(name);
+        return true;
+    }
+
+    /**
+     * @return a mark that the set can be rolled back to
+     */
+    public int mark() {
+        return trail.size();
+    }
+
+    /**
+     * Removes every name added since a mark was made
+     * @param mark the mark
+     * @return the removed names
+     */
+    public List<String> rollback(int mark) {
+        if (trail.size() <= mark) return Collections.emptyList();
+        List<String> removed = new ArrayList<>();
+        for (int i = trail.size() - 1; i >= mark; i--) {
+            String name = trail.remove(i);
+            names.remove(name);
+            removed.add(name);
+        }
+        return removed;
+    }
+
+    /**
+     * @param mark the mark
+     * @return the names added since a mark was made
+     */
+    public List<String> addedSince(int mark) {
+        return new ArrayList<>(trail.subList(mark, trail.size()));
+    }
+
+    public HashSet<String> toSet() {
+        return new HashSet<>(names);
+    }
+
+    public void clear() {
+        names.clear();
+        trail.clear();
+    }
+
+    @Override
+    public String toString() {
+        return names.toString();
+    }
+}
@@ -31,6 +31,7 @@ import radin.core.utility.ICompilationSettings;
 import radin.core.utility.UniversalCompilerSettings;
 
 import java.util.*;
+import java.util.logging.Level;
 import java.util.stream.Collectors;
 
 import static radin.core.lexical.TokenType.t_id;
@@ -204,10 +205,12 @@ public class ActionRoutineApplier implements ISemanticAnalyzer<ParseNode, Abstra
                 boolean b = enactActionRoutine(catNode);
                 if(!b) {
                     
-                    ICompilationSettings.debugLog.finer("Failed to enact action routine for " +
-                            String.format("%-30s", node) +
-                            (node.hasChildren()? "(CHILDREN = " + ((CategoryNode) node).getAllChildren() + ")" : "") +
-                            (stringErrors.peek() == null ? "" : String.format("  %60s", "Error: " + stringErrors.peek())));
+                    if(ICompilationSettings.debugLog.isLoggable(Level.FINER)) {
+                        ICompilationSettings.debugLog.finer("Failed to enact action routine for " +
+                                String.format("%-30s", node) +
+                                (node.hasChildren() ? "(CHILDREN = " + ((CategoryNode) node).getAllChildren() + ")" : "") +
+                                (stringErrors.peek() == null ? "" : String.format("  %60s", "Error: " + stringErrors.peek())));
+                    }
                     if(stringErrors.peek() == null) {
                         throw new ActionRoutineApplierFailure(node, "Failed to enact action routine for " + node);
                     } else {
@@ -970,7 +973,7 @@ public class ActionRoutineApplier implements ISemanticAnalyzer<ParseNode, Abstra
                         );
                         AbstractSyntaxNode outer = new AbstractSyntaxNode(ASTNodeType.specifier, specifierInner);
                         CXDeferredClassDefinition type = ((CXDeferredClassDefinition) environment.getType(outer));
-                        ICompilationSettings.debugLog.info("Added deferred type for " + type.getIdentifier().fullInfo());
+                        ICompilationSettings.debugLog.info(() -> "Added deferred type for " + type.getIdentifier().fullInfo());
                         node.setSynthesized(
                                 new TypedAbstractSyntaxNode(ASTNodeType.specifier, type, specifierInner)
                         );
@@ -1393,7 +1396,7 @@ public class ActionRoutineApplier implements ISemanticAnalyzer<ParseNode, Abstra
                         // environment.addTypeDefinition(new CXCompoundTypeNameIndirection
                         // (CXCompoundTypeNameIndirection.CompoundType._class, name.getToken().getImage()) ,name.getToken().getImage());
                         
-                        ICompilationSettings.debugLog.finer("Adding temp " + node.getLeafNode(t_id).getToken());
+                        ICompilationSettings.debugLog.finer("Adding temp %s", node.getLeafNode(t_id).getToken());
                         environment.addTemp(node.getLeafNode(t_id).getToken());
                         
                         AbstractSyntaxNode declarations = getCatNode("ClassDeclarationList").getSynthesized();
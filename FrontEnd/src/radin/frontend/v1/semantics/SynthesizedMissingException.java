@@ -4,9 +4,18 @@ import radin.frontend.v1.parsing.ParseNode;
 
 public class SynthesizedMissingException extends Exception {
     public final ParseNode node;
-    
+
     public SynthesizedMissingException(ParseNode node) {
-        super("Node " + node.toString() + " missing synthesized");
         this.node = node;
     }
+
+    /**
+     * The message is only created when it's asked for, as this exception is thrown and caught often while applying
+     * action routines
+     * @return the message
+     */
+    @Override
+    public String getMessage() {
+        return "Node " + node.toString() + " missing synthesized";
+    }
 }
@@ -14,7 +14,7 @@ public class BasicLexer extends Tokenizer<Token> {
     private List<AbstractCompilationError> errors;
     
     public BasicLexer(String inputString, String filename) {
-        super(inputString, filename);
+        super(inputString, filename, Token[]::new);
         errors = new LinkedList<>();
     }
     // char+const+do+double+els+float+for+if+int+long+return+short+static+typedef+union+unsigned+struct+void+while+class+public+private+new+super+virtual+sizeof+(boolean)+(in)+(implement)+(internal)+(using)
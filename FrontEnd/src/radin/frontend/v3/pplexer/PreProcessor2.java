@@ -8,7 +8,7 @@ import java.util.List;
 public class PreProcessor2 extends Tokenizer<PreProcessingToken> {
     
     public PreProcessor2(String inputString, String filename) {
-        super(inputString, filename);
+        super(inputString, filename, PreProcessingToken[]::new);
     }
     
     @Override
@@ -8,11 +8,16 @@ import radin.core.utility.ICompilationSettings;
 
 import java.util.LinkedList;
 import java.util.List;
+import java.util.function.Supplier;
 
 public class FrontEndUnit<T, P extends AbstractTree<? extends P>, S> implements IFrontEndUnit<S> {
     ITokenizer<? extends T> lexer;
     IParser<? super T, ? extends P> parser;
     ISemanticAnalyzer<? super P, ? extends S> builder;
+    private Supplier<? extends ITokenizer<? extends T>> lexerFactory;
+    private Supplier<? extends IParser<? super T, ? extends P>> parserFactory;
+    private boolean prepared;
+    private P preparedTree;
     
     @Override
     public <V> void setVariable(String variable, V value) {
@@ -76,7 +81,34 @@ public class FrontEndUnit<T, P extends AbstractTree<? extends P>, S> implements
         this.builder = builder;
     }
     
-    public S build() {
+    /**
+     * Creates a front end unit that can be {@link #copy() copied}
+     * @param lexerFactory creates the lexer of this unit and of its copies
+     * @param parserFactory creates the parser of this unit and of its copies
+     * @param builder the builder, shared with the copies
+     */
+    public FrontEndUnit(Supplier<? extends ITokenizer<? extends T>> lexerFactory,
+                        Supplier<? extends IParser<? super T, ? extends P>> parserFactory,
+                        ISemanticAnalyzer<? super P, ? extends S> builder) {
+        this(lexerFactory.get(), parserFactory.get(), builder);
+        this.lexerFactory = lexerFactory;
+        this.parserFactory = parserFactory;
+    }
+    
+    @Override
+    public FrontEndUnit<T, P, S> copy() {
+        if(lexerFactory == null || parserFactory == null) return null;
+        return new FrontEndUnit<>(lexerFactory, parserFactory, builder);
+    }
+    
+    @Override
+    public boolean prepare() {
+        prepared = true;
+        preparedTree = parse();
+        return preparedTree != null;
+    }
+    
+    private P parse() {
         ICompilationSettings.debugLog.info("Running Lexer");
         lexer.run();
         if(lexer.hasErrors()) {
@@ -91,6 +123,22 @@ public class FrontEndUnit<T, P extends AbstractTree<? extends P>, S> implements
         }
         ICompilationSettings.debugLog.info("Created Parse Tree of depth " + parse.getDepth() + " with a total of " + parse.getTotalNodes() + " nodes");
         // parse.printTreeForm();
+        return parse;
+    }
+    
+    public S build() {
+        P parse;
+        if(prepared) {
+            parse = preparedTree;
+            prepared = false;
+            preparedTree = null;
+            builder.reset();
+            builder.clearErrors();
+            if(parse == null) return null;
+        } else {
+            parse = parse();
+            if(parse == null) return null;
+        }
         ICompilationSettings.debugLog.info("Running Builder");
         return builder.analyze(parse);
     }
@@ -112,6 +160,8 @@ public class FrontEndUnit<T, P extends AbstractTree<? extends P>, S> implements
     
     @Override
     public void reset() {
+        prepared = false;
+        preparedTree = null;
         lexer.reset();
         parser.reset();
         builder.reset();
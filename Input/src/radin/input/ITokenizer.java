@@ -2,6 +2,8 @@ package radin.input;
 
 import radin.core.chaining.IToolChainHead;
 import radin.core.errorhandling.ICompilationErrorCollector;
+import radin.core.lexical.Token;
+import radin.core.lexical.TokenType;
 
 import java.util.Iterator;
 import java.util.LinkedList;
@@ -26,6 +28,16 @@ public interface ITokenizer<T> extends Iterator<T>, Iterable<T>, IToolChainHead<
     
     T getCurrent();
     
+    /**
+     * Gets the type of the current token
+     * @return the type, or null if the tokens aren't {@link Token}s
+     */
+    default TokenType getCurrentType() {
+        T current = getCurrent();
+        if(current instanceof Token) return ((Token) current).getType();
+        return null;
+    }
+    
     T getNext();
     
     void reset();
@@ -0,0 +1,73 @@
+package radin.input;
+
+import radin.core.lexical.Token;
+import radin.core.lexical.TokenType;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.function.IntFunction;
+
+/**
+ * A growable store of the tokens created by a {@link Tokenizer}, with constant time access by index. When the tokens
+ * are {@link Token}s, their types are also kept in a parallel array, so that parsers can check the type of a token
+ * without going through the token.
+ * @param <T> the type of the tokens
+ */
+public class TokenBuffer<T> {
+
+    private static final int INITIAL_CAPACITY = 256;
+    private static final TokenType[] TOKEN_TYPES = TokenType.values();
+
+    private T[] tokens;
+    private int[] types;
+    private int size;
+
+    /**
+     * @param arrayFactory creates the array that holds the tokens, such as {@code Token[]::new}
+     */
+    public TokenBuffer(IntFunction<T[]> arrayFactory) {
+        tokens = arrayFactory.apply(INITIAL_CAPACITY);
+        types = new int[INITIAL_CAPACITY];
+        size = 0;
+    }
+
+    public void add(T token) {
+        if (size == tokens.length) {
+            tokens = Arrays.copyOf(tokens, size * 2);
+            types = Arrays.copyOf(types, size * 2);
+        }
+        tokens[size] = token;
+        types[size] = token instanceof Token ? ((Token) token).getType().ordinal() : -1;
+        size++;
+    }
+
+    public T get(int index) {
+        Objects.checkIndex(index, size);
+        return tokens[index];
+    }
+
+    /**
+     * Gets the type of a token
+     * @param index the index of the token
+     * @return the type of the token, or null if the token isn't a {@link Token}
+     */
+    public TokenType getType(int index) {
+        Objects.checkIndex(index, size);
+        int type = types[index];
+        if (type < 0) return null;
+        return TOKEN_TYPES[type];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        Arrays.fill(tokens, 0, size, null);
+        size = 0;
+    }
+}
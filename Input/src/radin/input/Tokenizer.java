@@ -6,8 +6,7 @@ import radin.core.lexical.TokenType;
 import radin.core.utility.ICompilationSettings;
 import radin.core.utility.UniversalCompilerSettings;
 
-import java.util.LinkedList;
-import java.util.List;
+import java.util.function.IntFunction;
 
 
 /**
@@ -19,7 +18,7 @@ public abstract class Tokenizer<T> implements ITokenizer<T> {
     
     private static ICompilationSettings<?,?,?> compilationSettings;
     protected String inputString;
-    protected List<T> createdTokens;
+    protected TokenBuffer<T> createdTokens;
     protected int tokenIndex;
     protected int currentIndex;
     protected int column;
@@ -28,9 +27,15 @@ public abstract class Tokenizer<T> implements ITokenizer<T> {
     
     protected final static char EOF = '\0';
     
-    public Tokenizer(String inputString, String filename) {
+    /**
+     * @param inputString the text to tokenize
+     * @param filename the name of the file the text is from
+     * @param arrayFactory creates arrays of the output type, such as {@code Token[]::new}, used to store the created
+     *                     tokens
+     */
+    public Tokenizer(String inputString, String filename, IntFunction<T[]> arrayFactory) {
         this.inputString = inputString;
-        createdTokens = new LinkedList<>();
+        createdTokens = new TokenBuffer<>(arrayFactory);
         tokenIndex = -1;
         column = 1;
         lineNumber = 1;
@@ -234,6 +239,19 @@ public abstract class Tokenizer<T> implements ITokenizer<T> {
         return createdTokens.get(tokenIndex);
     }
     
+    /**
+     * Gets the type of the current token from the token buffer, without going through the token
+     * @return the type, or null if the tokens aren't {@link Token}s
+     */
+    @Override
+    public TokenType getCurrentType() {
+        if(createdTokens.size() == 0) {
+            T next = getNext();
+            if(next == null) return null;
+        }
+        return createdTokens.getType(tokenIndex);
+    }
+    
     public static ICompilationSettings getCompilationSettings() {
         return compilationSettings;
     }
@@ -247,8 +265,26 @@ public abstract class Tokenizer<T> implements ITokenizer<T> {
      * @return the char. If it's the EOF, returns {@link TokenType#t_eof}
      */
     protected char getChar() {
-        if(currentIndex == getInputString().length()) return EOF;
-        return getInputString().charAt(currentIndex);
+        if(currentIndex == inputLength()) return EOF;
+        return inputCharAt(currentIndex);
+    }
+    
+    /**
+     * Gets a character of the input. Lexers that edit their input while lexing can override this, along with
+     * {@link Tokenizer#inputLength()} and {@link Tokenizer#inputSubstring(int, int)}, to read from their own storage
+     * @param index the index of the character
+     * @return the character
+     */
+    protected char inputCharAt(int index) {
+        return inputString.charAt(index);
+    }
+    
+    protected int inputLength() {
+        return inputString.length();
+    }
+    
+    protected String inputSubstring(int start, int end) {
+        return inputString.substring(start, end);
     }
     
     /**
@@ -264,7 +300,7 @@ public abstract class Tokenizer<T> implements ITokenizer<T> {
         } else {
             column++;
         }
-        return getInputString().charAt(currentIndex++);
+        return inputCharAt(currentIndex++);
     }
     
     /**
@@ -274,8 +310,8 @@ public abstract class Tokenizer<T> implements ITokenizer<T> {
      * characters left in the input string
      */
     protected String getNextChars(int count) {
-        int min = Math.min(getInputString().length(), currentIndex + count);
-        return getInputString().substring(currentIndex, min);
+        int min = Math.min(inputLength(), currentIndex + count);
+        return inputSubstring(currentIndex, min);
     }
    
     /**
@@ -286,8 +322,8 @@ public abstract class Tokenizer<T> implements ITokenizer<T> {
      * characters left in the input string
      */
     protected String consumeNextChars(int count) {
-        int min = Math.min(getInputString().length(), currentIndex + count);
-        String substring = getInputString().substring(currentIndex, min);
+        int min = Math.min(inputLength(), currentIndex + count);
+        String substring = inputSubstring(currentIndex, min);
         for (int i = currentIndex; i < min; i++) {
             consumeChar();
         }
@@ -324,7 +360,7 @@ public abstract class Tokenizer<T> implements ITokenizer<T> {
     protected int getColumn() {
         int output = 1;
         int fakeIndex = currentIndex- 1;
-        while(fakeIndex >= 0 && getInputString().charAt(fakeIndex) != '\n') {
+        while(fakeIndex >= 0 && inputCharAt(fakeIndex) != '\n') {
             fakeIndex--;
             output++;
         }
@@ -341,7 +377,11 @@ public abstract class Tokenizer<T> implements ITokenizer<T> {
      * @return whether it's an exact match
      */
     protected boolean match(String str) {
-        return getNextChars(str.length()).equals(str);
+        if(currentIndex + str.length() > inputLength()) return false;
+        for (int i = 0; i < str.length(); i++) {
+            if(inputCharAt(currentIndex + i) != str.charAt(i)) return false;
+        }
+        return true;
     }
     
     protected abstract T singleLex();
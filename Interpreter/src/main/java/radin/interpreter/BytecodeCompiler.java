@@ -0,0 +1,960 @@
+package radin.interpreter;
+
+import radin.core.lexical.TokenType;
+import radin.core.semantics.ASTNodeType;
+import radin.core.semantics.types.CXIdentifier;
+import radin.core.semantics.types.CXType;
+import radin.core.semantics.types.ICXWrapper;
+import radin.core.semantics.types.TypedAbstractSyntaxNode;
+import radin.core.semantics.types.primitives.CXPrimitiveType;
+import radin.core.semantics.types.primitives.LongPrimitive;
+import radin.core.semantics.types.primitives.ShortPrimitive;
+import radin.core.semantics.types.primitives.UnsignedPrimitive;
+import radin.core.semantics.types.wrapped.ConstantType;
+import radin.interpreter.ClassFileWriter.Code;
+import radin.interpreter.ClassFileWriter.Label;
+import radin.midanalysis.TypeAugmentedSemanticNode;
+import radin.output.tags.BasicCompilationTag;
+import radin.output.tags.ResolvedPathTag;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.*;
+import java.util.logging.Level;
+
+import static radin.interpreter.ClassFileWriter.Opcodes.*;
+
+/**
+ * Lowers functions to the static methods of a class that is defined while the program runs, so that they run as JVM
+ * bytecode and can be compiled by the JIT. A function is only lowered if it works with nothing but numbers and
+ * characters, and only calls other functions that are lowered. A single expression or statement that can't be lowered
+ * leaves the whole function to the interpreter. Numbers follow the fixed widths of their C types, with
+ * {@code int} kept in a JVM int, {@code long} in a long, and {@code float} and {@code double} in a double.
+ */
+public class BytecodeCompiler {
+
+    private static final String CLASS_NAME = "radin/interpreter/JodinCode";
+
+    /**
+     * How a value is kept on the JVM stack
+     */
+    enum Kind {
+        INT(int.class),
+        LONG(long.class),
+        DOUBLE(double.class),
+        VOID(void.class);
+
+        private final Class<?> javaType;
+
+        Kind(Class<?> javaType) {
+            this.javaType = javaType;
+        }
+
+        boolean isWide() {
+            return this == LONG || this == DOUBLE;
+        }
+
+        int size() {
+            if (this == VOID) return 0;
+            return isWide() ? 2 : 1;
+        }
+
+        Class<?> getJavaType() {
+            return javaType;
+        }
+    }
+
+    /**
+     * Thrown when a node can't be lowered, so the function that contains it must be interpreted
+     */
+    private static class UnsupportedNodeException extends Exception {
+        private static final long serialVersionUID = 1L;
+
+        public UnsupportedNodeException(TypeAugmentedSemanticNode node) {
+            super("Can't lower " + node.getASTType() + " nodes");
+        }
+
+        public UnsupportedNodeException(String message) {
+            super(message);
+        }
+    }
+
+    /**
+     * A function that was lowered to bytecode
+     */
+    public static class CompiledFunction {
+
+        private final MethodHandle handle;
+        private final Kind[] parameterKinds;
+        private final CXType returnType;
+
+        private CompiledFunction(MethodHandle handle, Kind[] parameterKinds, CXType returnType) {
+            this.handle = handle;
+            this.parameterKinds = parameterKinds;
+            this.returnType = returnType;
+        }
+
+        /**
+         * @return a handle that takes the arguments of the function in an array, and returns its boxed result
+         */
+        public MethodHandle getHandle() {
+            return handle;
+        }
+
+        Kind[] getParameterKinds() {
+            return parameterKinds;
+        }
+
+        public CXType getReturnType() {
+            return returnType;
+        }
+    }
+
+    private final Interpreter interpreter;
+    private final IdentityHashMap<TypeAugmentedSemanticNode, String> methodNames = new IdentityHashMap<>();
+    private ClassFileWriter writer;
+
+    public BytecodeCompiler(Interpreter interpreter) {
+        this.interpreter = interpreter;
+    }
+
+    /**
+     * Lowers every function that can be lowered, and defines the class holding them
+     *
+     * @param functions the function definitions of the program
+     * @param lookup a lookup with full privileges in this package, used to define the class
+     * @return the lowered functions, by their definitions
+     */
+    public Map<TypeAugmentedSemanticNode, CompiledFunction> compile(Collection<TypeAugmentedSemanticNode> functions,
+                                                                    MethodHandles.Lookup lookup) {
+        int index = 0;
+        for (TypeAugmentedSemanticNode function : functions) {
+            if (function.getASTType() != ASTNodeType.function_definition) continue;
+            String name = function.getASTChild(ASTNodeType.id).getToken().getImage().replaceAll("[.;\\[/<>]", "_");
+            methodNames.put(function, name + "$" + index++);
+        }
+
+        // removing a function can make its callers fail, so functions are lowered again until none fail
+        IdentityHashMap<TypeAugmentedSemanticNode, Code> lowered = new IdentityHashMap<>();
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            lowered.clear();
+            writer = new ClassFileWriter(CLASS_NAME);
+            for (TypeAugmentedSemanticNode function : new ArrayList<>(methodNames.keySet())) {
+                try {
+                    lowered.put(function, new FunctionLowering(function).lower());
+                } catch (UnsupportedNodeException | IllegalStateException e) {
+                    if (interpreter.log(Level.INFO)) interpreter.logger.info("Interpreting " + methodNames.get(function) + ": " + e.getMessage());
+                    methodNames.remove(function);
+                    changed = true;
+                }
+            }
+        }
+
+        Map<TypeAugmentedSemanticNode, CompiledFunction> output = new IdentityHashMap<>();
+        if (lowered.isEmpty()) return output;
+        Map<TypeAugmentedSemanticNode, MethodType> types = new IdentityHashMap<>();
+        try {
+            for (Map.Entry<TypeAugmentedSemanticNode, Code> entry : lowered.entrySet()) {
+                MethodType type = methodType(entry.getKey());
+                types.put(entry.getKey(), type);
+                writer.addMethod(methodNames.get(entry.getKey()), type.toMethodDescriptorString(), entry.getValue());
+            }
+            MethodHandles.Lookup code = lookup.defineHiddenClass(writer.toByteArray(), true);
+            for (TypeAugmentedSemanticNode function : lowered.keySet()) {
+                MethodType type = types.get(function);
+                MethodHandle handle = code.findStatic(code.lookupClass(), methodNames.get(function), type)
+                        .asSpreader(Object[].class, type.parameterCount())
+                        .asType(MethodType.methodType(Object.class, Object[].class));
+                output.put(function, new CompiledFunction(handle, parameterKinds(function), function.getCXType()));
+                if (interpreter.log(Level.INFO)) interpreter.logger.info("Compiled " + methodNames.get(function) + " to bytecode");
+            }
+        } catch (IllegalAccessException | NoSuchMethodException | UnsupportedNodeException | LinkageError e) {
+            if (interpreter.log(Level.WARNING)) interpreter.logger.warning("Couldn't define bytecode: " + e);
+            output.clear();
+        }
+        return output;
+    }
+
+    private MethodType methodType(TypeAugmentedSemanticNode function) throws UnsupportedNodeException {
+        Kind[] kinds = parameterKinds(function);
+        Class<?>[] parameters = new Class<?>[kinds.length];
+        for (int i = 0; i < kinds.length; i++) {
+            parameters[i] = kinds[i].getJavaType();
+        }
+        return MethodType.methodType(kindOf(function.getCXType()).getJavaType(), parameters);
+    }
+
+    private Kind[] parameterKinds(TypeAugmentedSemanticNode function) throws UnsupportedNodeException {
+        List<TypeAugmentedSemanticNode> parameters =
+                function.getASTChild(ASTNodeType.parameter_list).getChildren();
+        Kind[] kinds = new Kind[parameters.size()];
+        for (int i = 0; i < kinds.length; i++) {
+            kinds[i] = kindOf(declaredType(parameters.get(i)));
+            if (kinds[i] == Kind.VOID) throw new UnsupportedNodeException("Void parameter");
+        }
+        return kinds;
+    }
+
+    private static CXType declaredType(TypeAugmentedSemanticNode declaration) {
+        return ((TypedAbstractSyntaxNode) declaration.getASTNode()).getCxType();
+    }
+
+    private static CXType unwrap(CXType type) {
+        while (true) {
+            if (type instanceof ICXWrapper) {
+                type = ((ICXWrapper) type).getWrappedType();
+            } else if (type instanceof ConstantType) {
+                type = ((ConstantType) type).getSubtype();
+            } else {
+                return type;
+            }
+        }
+    }
+
+    static Kind kindOf(CXType type) throws UnsupportedNodeException {
+        CXType unwrapped = unwrap(type);
+        if (unwrapped == null) throw new UnsupportedNodeException("Untyped value");
+        if (unwrapped instanceof LongPrimitive) {
+            if (unwrapped.generateCDefinition().endsWith("double")) {
+                throw new UnsupportedNodeException("Can't lower " + unwrapped.generateCDefinition());
+            }
+            return Kind.LONG;
+        }
+        if (unwrapped instanceof ShortPrimitive) return Kind.INT;
+        if (unwrapped instanceof UnsignedPrimitive) {
+            if (((UnsignedPrimitive) unwrapped).getPrimitiveCXType().equals(CXPrimitiveType.CHAR)) return Kind.INT;
+            throw new UnsupportedNodeException("Can't lower " + unwrapped.generateCDefinition());
+        }
+        if (unwrapped.equals(CXPrimitiveType.INTEGER) || unwrapped.equals(CXPrimitiveType.CHAR)) return Kind.INT;
+        if (unwrapped.equals(CXPrimitiveType.DOUBLE) || unwrapped.equals(CXPrimitiveType.FLOAT)) return Kind.DOUBLE;
+        if (unwrapped.equals(CXPrimitiveType.VOID)) return Kind.VOID;
+        throw new UnsupportedNodeException("Can't lower values of type " + unwrapped);
+    }
+
+    /**
+     * Lowers the body of a single function
+     */
+    private class FunctionLowering {
+
+        private final TypeAugmentedSemanticNode definition;
+        private final Kind returnKind;
+        private final Code code;
+        /**
+         * The JVM locals of the frame slots, by the slot and the kind of the value kept in it
+         */
+        private final HashMap<Integer, Integer> locals = new HashMap<>();
+        private final Kind[] parameterKinds;
+        /**
+         * The JVM locals of the parameters, in order
+         */
+        private final int[] parameterLocals;
+        /**
+         * The start of the function, which tail calls of the function to itself jump back to
+         */
+        private final Label start;
+
+        private FunctionLowering(TypeAugmentedSemanticNode definition) throws UnsupportedNodeException {
+            this.definition = definition;
+            this.returnKind = kindOf(definition.getCXType());
+            FrameSlotAllocator.getFrameSize(definition);
+
+            parameterKinds = parameterKinds(definition);
+            parameterLocals = new int[parameterKinds.length];
+            int size = 0;
+            for (Kind kind : parameterKinds) {
+                size += kind.size();
+            }
+            code = new Code(size);
+            List<TypeAugmentedSemanticNode> parameters = definition.getASTChild(ASTNodeType.parameter_list).getChildren();
+            int index = 0;
+            for (int i = 0; i < parameterKinds.length; i++) {
+                int slot = FrameSlotAllocator.getSlot(parameters.get(i).getASTChild(ASTNodeType.id));
+                if (slot < 0) throw new UnsupportedNodeException("Parameter without a frame slot");
+                locals.put(localKey(slot, parameterKinds[i]), index);
+                parameterLocals[i] = index;
+                index += parameterKinds[i].size();
+            }
+            start = code.newLabel();
+        }
+
+        private Code lower() throws UnsupportedNodeException {
+            code.mark(start);
+            statement(definition.getASTChild(ASTNodeType.compound_statement));
+            if (code.isReachable()) {
+                pushZero(returnKind);
+                returnValue(returnKind);
+            }
+            return code;
+        }
+
+        private int localKey(int slot, Kind kind) {
+            return slot * 4 + kind.ordinal();
+        }
+
+        private int local(TypeAugmentedSemanticNode id, Kind kind) throws UnsupportedNodeException {
+            if (id.containsCompilationTag(ResolvedPathTag.class)) {
+                throw new UnsupportedNodeException("Can't lower global " + id.getToken().getImage());
+            }
+            int slot = FrameSlotAllocator.getSlot(id);
+            if (slot < 0) throw new UnsupportedNodeException("Can't lower variable " + id.getToken().getImage());
+            Integer index = locals.get(localKey(slot, kind));
+            if (index == null) {
+                index = code.newLocal(kind.isWide());
+                locals.put(localKey(slot, kind), index);
+            }
+            return index;
+        }
+
+        private void load(Kind kind, int index) {
+            switch (kind) {
+                case INT:
+                    code.local(ILOAD, index, 1);
+                    break;
+                case LONG:
+                    code.local(LLOAD, index, 2);
+                    break;
+                case DOUBLE:
+                    code.local(DLOAD, index, 2);
+                    break;
+            }
+        }
+
+        private void store(Kind kind, int index) {
+            switch (kind) {
+                case INT:
+                    code.local(ISTORE, index, -1);
+                    break;
+                case LONG:
+                    code.local(LSTORE, index, -2);
+                    break;
+                case DOUBLE:
+                    code.local(DSTORE, index, -2);
+                    break;
+            }
+        }
+
+        private void pop(Kind kind) {
+            if (kind == Kind.INT) code.op(POP, -1);
+            else if (kind.isWide()) code.op(POP2, -2);
+        }
+
+        private void dup(Kind kind) {
+            if (kind == Kind.INT) code.op(DUP, 1);
+            else if (kind.isWide()) code.op(DUP2, 2);
+        }
+
+        private void pushZero(Kind kind) {
+            switch (kind) {
+                case INT:
+                    code.op(ICONST_0, 1);
+                    break;
+                case LONG:
+                    code.op(LCONST_0, 2);
+                    break;
+                case DOUBLE:
+                    code.op(DCONST_0, 2);
+                    break;
+            }
+        }
+
+        private void pushInt(int value) {
+            if (value >= -1 && value <= 5) {
+                code.op(ICONST_0 + value, 1);
+            } else if (value >= Byte.MIN_VALUE && value <= Byte.MAX_VALUE) {
+                code.op(BIPUSH, value & 0xFF, 1, 1);
+            } else if (value >= Short.MIN_VALUE && value <= Short.MAX_VALUE) {
+                code.op(SIPUSH, value & 0xFFFF, 2, 1);
+            } else {
+                code.op(LDC_W, writer.intConstant(value), 2, 1);
+            }
+        }
+
+        private void pushConstant(Kind kind, long integral, double floating) {
+            switch (kind) {
+                case INT:
+                    pushInt((int) integral);
+                    break;
+                case LONG:
+                    code.op(LDC2_W, writer.longConstant(integral), 2, 2);
+                    break;
+                case DOUBLE:
+                    code.op(LDC2_W, writer.doubleConstant(floating), 2, 2);
+                    break;
+            }
+        }
+
+        private void returnValue(Kind kind) {
+            switch (kind) {
+                case INT:
+                    code.op(IRETURN, -1);
+                    break;
+                case LONG:
+                    code.op(LRETURN, -2);
+                    break;
+                case DOUBLE:
+                    code.op(DRETURN, -2);
+                    break;
+                default:
+                    code.op(RETURN, 0);
+            }
+            code.unreachable();
+        }
+
+        private void convert(Kind from, Kind to) throws UnsupportedNodeException {
+            if (from == to) return;
+            if (from == Kind.VOID || to == Kind.VOID) throw new UnsupportedNodeException("Void value");
+            switch (from) {
+                case INT:
+                    code.op(to == Kind.LONG ? I2L : I2D, 1);
+                    break;
+                case LONG:
+                    code.op(to == Kind.INT ? L2I : L2D, to == Kind.INT ? -1 : 0);
+                    break;
+                case DOUBLE:
+                    code.op(to == Kind.INT ? D2I : D2L, to == Kind.INT ? -1 : 0);
+                    break;
+            }
+        }
+
+        /**
+         * Narrows a value to the width of its type, as the interpreter does when storing it
+         */
+        private void narrow(CXType type) {
+            CXType unwrapped = unwrap(type);
+            if (unwrapped instanceof ShortPrimitive) {
+                code.op(I2S, 0);
+            } else if (unwrapped instanceof UnsignedPrimitive || CXPrimitiveType.CHAR.equals(unwrapped)) {
+                code.op(I2C, 0);
+            } else if (CXPrimitiveType.FLOAT.equals(unwrapped)) {
+                code.op(D2F, -1);
+                code.op(F2D, 1);
+            }
+        }
+
+        /**
+         * Lowers an expression, converting and narrowing its value to a type
+         */
+        private void expression(TypeAugmentedSemanticNode node, CXType type) throws UnsupportedNodeException {
+            Kind kind = kindOf(type);
+            convert(expression(node), kind);
+            narrow(type);
+        }
+
+        private void statement(TypeAugmentedSemanticNode node) throws UnsupportedNodeException {
+            switch (node.getASTType()) {
+                case compound_statement:
+                    for (TypeAugmentedSemanticNode child : node.getDirectChildren()) {
+                        statement(child);
+                    }
+                    break;
+                case declarations:
+                    for (TypeAugmentedSemanticNode child : node.getChildren()) {
+                        statement(child);
+                    }
+                    break;
+                case declaration: {
+                    Kind kind = kindOf(declaredType(node));
+                    if (kind == Kind.VOID) throw new UnsupportedNodeException("Void variable");
+                    pushZero(kind);
+                    store(kind, local(node.getASTChild(ASTNodeType.id), kind));
+                    break;
+                }
+                case initialized_declaration: {
+                    TypeAugmentedSemanticNode declaration = node.getChild(0);
+                    if (declaration.getASTType() != ASTNodeType.declaration) throw new UnsupportedNodeException(declaration);
+                    CXType type = declaredType(declaration);
+                    Kind kind = kindOf(type);
+                    if (kind == Kind.VOID) throw new UnsupportedNodeException("Void variable");
+                    expression(node.getChild(1), type);
+                    store(kind, local(declaration.getASTChild(ASTNodeType.id), kind));
+                    break;
+                }
+                case if_cond: {
+                    Label otherwise = code.newLabel();
+                    condition(node.getChild(0), otherwise, false);
+                    statement(node.getChild(1));
+                    if (node.getChild(2).getASTType() != ASTNodeType.empty) {
+                        Label end = code.newLabel();
+                        code.jump(GOTO, end, 0);
+                        code.mark(otherwise);
+                        statement(node.getChild(2));
+                        code.mark(end);
+                    } else {
+                        code.mark(otherwise);
+                    }
+                    break;
+                }
+                case while_cond: {
+                    Label top = code.newLabel();
+                    Label end = code.newLabel();
+                    code.mark(top);
+                    condition(node.getChild(0), end, false);
+                    statement(node.getChild(1));
+                    code.jump(GOTO, top, 0);
+                    code.mark(end);
+                    break;
+                }
+                case do_while_cond: {
+                    Label top = code.newLabel();
+                    code.mark(top);
+                    statement(node.getChild(0));
+                    condition(node.getChild(1), top, true);
+                    break;
+                }
+                case for_cond: {
+                    Label top = code.newLabel();
+                    Label end = code.newLabel();
+                    statement(node.getChild(0));
+                    code.mark(top);
+                    if (node.getChild(1).getASTType() != ASTNodeType.empty) {
+                        condition(node.getChild(1), end, false);
+                    }
+                    statement(node.getChild(3));
+                    if (node.getChild(2).getASTType() != ASTNodeType.empty) {
+                        effect(node.getChild(2));
+                    }
+                    code.jump(GOTO, top, 0);
+                    code.mark(end);
+                    break;
+                }
+                case _return:
+                    if (node.containsCompilationTag(BasicCompilationTag.TAIL_CALL)) {
+                        TypeAugmentedSemanticNode callee = interpreter.getSymbol(TailCallAnalyzer.getCallee(node));
+                        if (callee == definition) {
+                            selfTailCall(node.getChild(0));
+                            break;
+                        }
+                        // the JVM can't make tail calls, so chains of tail calls that loop back stay in the interpreter
+                        if (TailCallAnalyzer.tailCallsReach(callee, definition, interpreter::getSymbol)) {
+                            throw new UnsupportedNodeException("Tail calls " + TailCallAnalyzer.getCallee(node) + " in a loop");
+                        }
+                    }
+                    if (node.getChildren().size() > 0) {
+                        if (returnKind == Kind.VOID) throw new UnsupportedNodeException("Value returned from void function");
+                        expression(node.getChild(0), definition.getCXType());
+                    } else if (returnKind != Kind.VOID) {
+                        pushZero(returnKind);
+                    }
+                    returnValue(returnKind);
+                    break;
+                case typedef:
+                case top_level_decs:
+                case empty:
+                    break;
+                default:
+                    effect(node);
+            }
+        }
+
+        /**
+         * Lowers a tail call of the function to itself as a jump back to its start, once the arguments are stored in
+         * the parameters
+         */
+        private void selfTailCall(TypeAugmentedSemanticNode call) throws UnsupportedNodeException {
+            List<TypeAugmentedSemanticNode> parameters = definition.getASTChild(ASTNodeType.parameter_list).getChildren();
+            List<TypeAugmentedSemanticNode> arguments = call.getASTChild(ASTNodeType.sequence).getDirectChildren();
+            for (int i = 0; i < arguments.size(); i++) {
+                expression(arguments.get(i), declaredType(parameters.get(i)));
+            }
+            for (int i = parameterLocals.length - 1; i >= 0; i--) {
+                store(parameterKinds[i], parameterLocals[i]);
+            }
+            code.jump(GOTO, start, 0);
+        }
+
+        /**
+         * Lowers an expression whose value isn't used
+         */
+        private void effect(TypeAugmentedSemanticNode node) throws UnsupportedNodeException {
+            switch (node.getASTType()) {
+                case assignment: {
+                    TypeAugmentedSemanticNode target = node.getChild(0);
+                    if (node.getASTChild(ASTNodeType.assignment_type).getToken().getType() != TokenType.t_assign) {
+                        throw new UnsupportedNodeException("Can't lower operator assignments");
+                    }
+                    if (target.getASTType() != ASTNodeType.id) throw new UnsupportedNodeException(target);
+                    Kind kind = kindOf(target.getCXType());
+                    expression(node.getChild(2), target.getCXType());
+                    store(kind, local(target, kind));
+                    break;
+                }
+                case uniop:
+                    if (isStep(node.getChild(0).getToken().getType())) {
+                        step(node.getChild(1), node.getChild(0).getToken().getType(), false, false);
+                        break;
+                    }
+                    pop(expression(node));
+                    break;
+                case postop:
+                    step(node.getChild(0), node.getChild(1).getToken().getType(), false, false);
+                    break;
+                default:
+                    pop(expression(node));
+            }
+        }
+
+        private boolean isStep(TokenType op) {
+            return op == TokenType.t_inc || op == TokenType.t_dec;
+        }
+
+        /**
+         * Lowers an increment or decrement of a local
+         *
+         * @param keep whether to leave the value of the expression on the stack
+         * @param prefix whether the value of the expression is the value after the step
+         * @return the kind of the value left on the stack
+         */
+        private Kind step(TypeAugmentedSemanticNode target, TokenType op, boolean keep, boolean prefix)
+                throws UnsupportedNodeException {
+            if (target.getASTType() != ASTNodeType.id) throw new UnsupportedNodeException(target);
+            CXType type = target.getCXType();
+            Kind kind = kindOf(type);
+            if (kind == Kind.VOID) throw new UnsupportedNodeException("Void variable");
+            int index = local(target, kind);
+            int amount = op == TokenType.t_inc ? 1 : -1;
+            if (!keep && kind == Kind.INT && unwrap(type).equals(CXPrimitiveType.INTEGER)) {
+                code.increment(index, amount);
+                return Kind.VOID;
+            }
+            load(kind, index);
+            if (keep && !prefix) dup(kind);
+            pushConstant(kind, amount, amount);
+            switch (kind) {
+                case INT:
+                    code.op(IADD, -1);
+                    break;
+                case LONG:
+                    code.op(LADD, -2);
+                    break;
+                default:
+                    code.op(DADD, -2);
+            }
+            narrow(type);
+            if (keep && prefix) dup(kind);
+            store(kind, index);
+            return keep ? kind : Kind.VOID;
+        }
+
+        /**
+         * Lowers an expression, leaving its value on the stack
+         *
+         * @return the kind of the value
+         */
+        private Kind expression(TypeAugmentedSemanticNode node) throws UnsupportedNodeException {
+            switch (node.getASTType()) {
+                case binop: {
+                    TokenType op = node.getChild(0).getToken().getType();
+                    if (isComparison(op) || op == TokenType.t_dand || op == TokenType.t_dor) {
+                        return materialize(node);
+                    }
+                    Kind kind = kindOf(node.getCXType());
+                    if (kind == Kind.VOID) throw new UnsupportedNodeException("Void value");
+                    boolean shift = op == TokenType.t_lshift || op == TokenType.t_rshift;
+                    convert(expression(node.getChild(1)), kind);
+                    convert(expression(node.getChild(2)), shift ? Kind.INT : kind);
+                    arithmetic(op, kind);
+                    narrow(node.getCXType());
+                    return kind;
+                }
+                case uniop: {
+                    TokenType op = node.getChild(0).getToken().getType();
+                    TypeAugmentedSemanticNode operand = node.getChild(1);
+                    switch (op) {
+                        case t_inc:
+                        case t_dec:
+                            return step(operand, op, true, true);
+                        case t_bang:
+                            return materialize(node);
+                        case t_add: {
+                            Kind kind = kindOf(node.getCXType());
+                            convert(expression(operand), kind);
+                            return kind;
+                        }
+                        case t_minus: {
+                            Kind kind = kindOf(node.getCXType());
+                            convert(expression(operand), kind);
+                            code.op(kind == Kind.INT ? INEG : kind == Kind.LONG ? LNEG : DNEG, 0);
+                            narrow(node.getCXType());
+                            return kind;
+                        }
+                        case t_not: {
+                            Kind kind = kindOf(node.getCXType());
+                            if (kind == Kind.DOUBLE) throw new UnsupportedNodeException("Can't complement a floating point");
+                            convert(expression(operand), kind);
+                            pushConstant(kind, -1, -1);
+                            code.op(kind == Kind.INT ? IXOR : LXOR, kind == Kind.INT ? -1 : -2);
+                            narrow(node.getCXType());
+                            return kind;
+                        }
+                        default:
+                            throw new UnsupportedNodeException("Can't lower " + op);
+                    }
+                }
+                case postop:
+                    return step(node.getChild(0), node.getChild(1).getToken().getType(), true, false);
+                case id: {
+                    Kind kind = kindOf(node.getCXType());
+                    if (kind == Kind.VOID) throw new UnsupportedNodeException("Void variable");
+                    load(kind, local(node, kind));
+                    return kind;
+                }
+                case literal: {
+                    Kind kind = kindOf(node.getCXType());
+                    Interpreter.Instance<?> instance;
+                    try {
+                        instance = interpreter.getInstance(node);
+                    } catch (Interpreter.EarlyExit | Interpreter.JodinNullPointerException | RuntimeException e) {
+                        throw new UnsupportedNodeException(node);
+                    }
+                    if (!(instance instanceof Interpreter.PrimitiveInstance)) throw new UnsupportedNodeException(node);
+                    Interpreter.PrimitiveInstance<?, ?> value = (Interpreter.PrimitiveInstance<?, ?>) instance;
+                    if (!value.isScalar()) throw new UnsupportedNodeException(node);
+                    pushConstant(kind, value.longValue(), value.doubleValue());
+                    return kind;
+                }
+                case _true:
+                    code.op(ICONST_1, 1);
+                    return Kind.INT;
+                case _false:
+                    code.op(ICONST_0, 1);
+                    return Kind.INT;
+                case sizeof: {
+                    long size = ((TypedAbstractSyntaxNode) node.getASTNode()).getCxType().getDataSize(interpreter.environment);
+                    pushConstant(Kind.LONG, size, size);
+                    return Kind.LONG;
+                }
+                case cast:
+                    expression(node.getChild(0), node.getCXType());
+                    return kindOf(node.getCXType());
+                case function_call:
+                    return call(node);
+                default:
+                    throw new UnsupportedNodeException(node);
+            }
+        }
+
+        private Kind call(TypeAugmentedSemanticNode node) throws UnsupportedNodeException {
+            ResolvedPathTag tag = node.getChild(0).getCompilationTag(ResolvedPathTag.class);
+            if (tag == null) throw new UnsupportedNodeException("Can't lower calls through pointers");
+            CXIdentifier id = tag.getAbsolutePath();
+            if (interpreter.isIntrinsic(id.toString())) {
+                throw new UnsupportedNodeException("Calls intrinsic " + id);
+            }
+            TypeAugmentedSemanticNode function = interpreter.getSymbol(id);
+            if (function == null || !methodNames.containsKey(function)) {
+                throw new UnsupportedNodeException("Calls interpreted function " + id);
+            }
+            List<TypeAugmentedSemanticNode> parameters = function.getASTChild(ASTNodeType.parameter_list).getChildren();
+            List<TypeAugmentedSemanticNode> arguments = node.getASTChild(ASTNodeType.sequence).getDirectChildren();
+            if (parameters.size() != arguments.size()) throw new UnsupportedNodeException("Wrong amount of arguments to " + id);
+            int size = 0;
+            for (int i = 0; i < arguments.size(); i++) {
+                CXType type = declaredType(parameters.get(i));
+                expression(arguments.get(i), type);
+                size += kindOf(type).size();
+            }
+            Kind returned = kindOf(function.getCXType());
+            int method = writer.methodReference(CLASS_NAME, methodNames.get(function),
+                    methodType(function).toMethodDescriptorString());
+            code.op(INVOKESTATIC, method, 2, returned.size() - size);
+            return returned;
+        }
+
+        private void arithmetic(TokenType op, Kind kind) throws UnsupportedNodeException {
+            int offset = kind == Kind.INT ? 0 : kind == Kind.LONG ? 1 : 3;
+            int change = kind == Kind.INT ? -1 : -2;
+            switch (op) {
+                case t_add:
+                    code.op(IADD + offset, change);
+                    return;
+                case t_minus:
+                    code.op(ISUB + offset, change);
+                    return;
+                case t_star:
+                    code.op(IMUL + offset, change);
+                    return;
+                case t_fwslash:
+                    code.op(IDIV + offset, change);
+                    return;
+                case t_percent:
+                    code.op(IREM + offset, change);
+                    return;
+                default:
+            }
+            if (kind == Kind.DOUBLE) throw new UnsupportedNodeException("Can't lower " + op + " on floating points");
+            switch (op) {
+                case t_lshift:
+                    code.op(ISHL + offset, -1);
+                    return;
+                case t_rshift:
+                    code.op(ISHR + offset, -1);
+                    return;
+                case t_and:
+                    code.op(IAND + offset, change);
+                    return;
+                case t_bar:
+                    code.op(IOR + offset, change);
+                    return;
+                case t_crt:
+                    code.op(IXOR + offset, change);
+                    return;
+                default:
+                    throw new UnsupportedNodeException("Can't lower " + op);
+            }
+        }
+
+        private boolean isComparison(TokenType op) {
+            switch (op) {
+                case t_lt:
+                case t_lte:
+                case t_gt:
+                case t_gte:
+                case t_eq:
+                case t_neq:
+                    return true;
+                default:
+                    return false;
+            }
+        }
+
+        /**
+         * Lowers a condition into an int that's either 0 or 1
+         */
+        private Kind materialize(TypeAugmentedSemanticNode node) throws UnsupportedNodeException {
+            Label isFalse = code.newLabel();
+            Label end = code.newLabel();
+            condition(node, isFalse, false);
+            code.op(ICONST_1, 1);
+            code.jump(GOTO, end, 0);
+            code.mark(isFalse);
+            code.op(ICONST_0, 1);
+            code.mark(end);
+            return Kind.INT;
+        }
+
+        /**
+         * Lowers a condition into a jump
+         *
+         * @param node the condition
+         * @param target where to jump
+         * @param jumpIf whether to jump when the condition is true or when it's false
+         */
+        private void condition(TypeAugmentedSemanticNode node, Label target, boolean jumpIf)
+                throws UnsupportedNodeException {
+            switch (node.getASTType()) {
+                case _true:
+                case _false:
+                    if ((node.getASTType() == ASTNodeType._true) == jumpIf) code.jump(GOTO, target, 0);
+                    return;
+                case uniop:
+                    if (node.getChild(0).getToken().getType() == TokenType.t_bang) {
+                        condition(node.getChild(1), target, !jumpIf);
+                        return;
+                    }
+                    break;
+                case binop: {
+                    TokenType op = node.getChild(0).getToken().getType();
+                    if (op == TokenType.t_dand || op == TokenType.t_dor) {
+                        // jumping when an && is false or an || is true only needs one side to decide
+                        boolean decidedBy = op == TokenType.t_dor;
+                        if (jumpIf == decidedBy) {
+                            condition(node.getChild(1), target, jumpIf);
+                            condition(node.getChild(2), target, jumpIf);
+                        } else {
+                            Label skip = code.newLabel();
+                            condition(node.getChild(1), skip, decidedBy);
+                            condition(node.getChild(2), target, jumpIf);
+                            code.mark(skip);
+                        }
+                        return;
+                    }
+                    if (isComparison(op)) {
+                        compare(op, node.getChild(1), node.getChild(2), target, jumpIf);
+                        return;
+                    }
+                    break;
+                }
+                default:
+            }
+            Kind kind = expression(node);
+            switch (kind) {
+                case INT:
+                    code.jump(jumpIf ? IFNE : IFEQ, target, -1);
+                    break;
+                case LONG:
+                    code.op(LCONST_0, 2);
+                    code.op(LCMP, -3);
+                    code.jump(jumpIf ? IFNE : IFEQ, target, -1);
+                    break;
+                case DOUBLE:
+                    code.op(DCONST_0, 2);
+                    code.op(DCMPL, -3);
+                    code.jump(jumpIf ? IFNE : IFEQ, target, -1);
+                    break;
+                default:
+                    throw new UnsupportedNodeException("Void condition");
+            }
+        }
+
+        private void compare(TokenType op, TypeAugmentedSemanticNode lhs, TypeAugmentedSemanticNode rhs, Label target,
+                             boolean jumpIf) throws UnsupportedNodeException {
+            Kind left = kindOf(lhs.getCXType());
+            Kind right = kindOf(rhs.getCXType());
+            if (left == Kind.VOID || right == Kind.VOID) throw new UnsupportedNodeException("Void value");
+            Kind kind = left.ordinal() > right.ordinal() ? left : right;
+            convert(expression(lhs), kind);
+            convert(expression(rhs), kind);
+            if (!jumpIf) op = inverse(op);
+            if (kind == Kind.INT) {
+                code.jump(IF_ICMPEQ + comparisonOffset(op), target, -2);
+                return;
+            }
+            if (kind == Kind.LONG) {
+                code.op(LCMP, -3);
+            } else {
+                // a comparison with NaN is false, so NaN must fail the test when jumping if it's true, and pass the
+                // inverted test when jumping if it's false
+                boolean lessThan = op == TokenType.t_lt || op == TokenType.t_lte;
+                code.op(lessThan == jumpIf ? DCMPG : DCMPL, -3);
+            }
+            code.jump(IFEQ + comparisonOffset(op), target, -1);
+        }
+
+        private int comparisonOffset(TokenType op) {
+            switch (op) {
+                case t_eq:
+                    return 0;
+                case t_neq:
+                    return 1;
+                case t_lt:
+                    return 2;
+                case t_gte:
+                    return 3;
+                case t_gt:
+                    return 4;
+                default:
+                    return 5;
+            }
+        }
+
+        private TokenType inverse(TokenType op) {
+            switch (op) {
+                case t_eq:
+                    return TokenType.t_neq;
+                case t_neq:
+                    return TokenType.t_eq;
+                case t_lt:
+                    return TokenType.t_gte;
+                case t_gte:
+                    return TokenType.t_lt;
+                case t_gt:
+                    return TokenType.t_lte;
+                default:
+                    return TokenType.t_gt;
+            }
+        }
+    }
+}
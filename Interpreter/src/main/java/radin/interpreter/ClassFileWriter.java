@@ -0,0 +1,426 @@
+package radin.interpreter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Writes a class file made of static methods, for classes that are defined while the program runs. Classes are written
+ * with the Java 5 class file version, which doesn't need stack map frames, so the verifier works out the types of the
+ * stack and locals by itself.
+ */
+public class ClassFileWriter {
+
+    private static final int MAGIC = 0xCAFEBABE;
+    private static final int VERSION = 49;
+
+    static final int ACC_PUBLIC = 0x0001;
+    static final int ACC_STATIC = 0x0008;
+    static final int ACC_FINAL = 0x0010;
+    static final int ACC_SUPER = 0x0020;
+
+    private final String name;
+    private final ByteArrayOutputStream poolBytes = new ByteArrayOutputStream();
+    private final DataOutputStream pool = new DataOutputStream(poolBytes);
+    private final HashMap<String, Integer> constants = new HashMap<>();
+    private int poolSize = 1;
+    private final List<byte[]> methods = new ArrayList<>();
+
+    /**
+     * @param name the internal name of the class, such as {@code radin/interpreter/JodinCode}
+     */
+    public ClassFileWriter(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    private int constant(String key, int slots, PoolEntry entry) {
+        Integer index = constants.get(key);
+        if (index != null) return index;
+        index = poolSize;
+        try {
+            entry.write();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        poolSize += slots;
+        if (poolSize > 0xFFFF) throw new IllegalStateException("Too many constants in " + name);
+        constants.put(key, index);
+        return index;
+    }
+
+    private interface PoolEntry {
+        void write() throws IOException;
+    }
+
+    int utf8(String value) {
+        return constant("U" + value, 1, () -> {
+            pool.writeByte(1);
+            pool.writeUTF(value);
+        });
+    }
+
+    int classReference(String internalName) {
+        int nameIndex = utf8(internalName);
+        return constant("C" + internalName, 1, () -> {
+            pool.writeByte(7);
+            pool.writeShort(nameIndex);
+        });
+    }
+
+    int longConstant(long value) {
+        return constant("J" + value, 2, () -> {
+            pool.writeByte(5);
+            pool.writeLong(value);
+        });
+    }
+
+    int doubleConstant(double value) {
+        return constant("D" + Double.doubleToRawLongBits(value), 2, () -> {
+            pool.writeByte(6);
+            pool.writeDouble(value);
+        });
+    }
+
+    int intConstant(int value) {
+        return constant("I" + value, 1, () -> {
+            pool.writeByte(3);
+            pool.writeInt(value);
+        });
+    }
+
+    int methodReference(String owner, String methodName, String descriptor) {
+        int classIndex = classReference(owner);
+        int nameIndex = utf8(methodName);
+        int descriptorIndex = utf8(descriptor);
+        int nameAndType = constant("N" + methodName + descriptor, 1, () -> {
+            pool.writeByte(12);
+            pool.writeShort(nameIndex);
+            pool.writeShort(descriptorIndex);
+        });
+        return constant("M" + owner + "." + methodName + descriptor, 1, () -> {
+            pool.writeByte(10);
+            pool.writeShort(classIndex);
+            pool.writeShort(nameAndType);
+        });
+    }
+
+    /**
+     * Adds a static method to the class
+     *
+     * @param methodName the name of the method
+     * @param descriptor the descriptor of the method
+     * @param code the finished body of the method
+     */
+    public void addMethod(String methodName, String descriptor, Code code) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        byte[] instructions = code.finish();
+        try {
+            out.writeShort(ACC_PUBLIC | ACC_STATIC);
+            out.writeShort(utf8(methodName));
+            out.writeShort(utf8(descriptor));
+            out.writeShort(1);
+            out.writeShort(utf8("Code"));
+            out.writeInt(12 + instructions.length);
+            out.writeShort(code.maxStack);
+            out.writeShort(code.maxLocals);
+            out.writeInt(instructions.length);
+            out.write(instructions);
+            out.writeShort(0); // exception table
+            out.writeShort(0); // attributes
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        methods.add(bytes.toByteArray());
+    }
+
+    public byte[] toByteArray() {
+        int thisClass = classReference(name);
+        int superClass = classReference("java/lang/Object");
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        try {
+            out.writeInt(MAGIC);
+            out.writeShort(0);
+            out.writeShort(VERSION);
+            out.writeShort(poolSize);
+            poolBytes.writeTo(out);
+            out.writeShort(ACC_PUBLIC | ACC_FINAL | ACC_SUPER);
+            out.writeShort(thisClass);
+            out.writeShort(superClass);
+            out.writeShort(0); // interfaces
+            out.writeShort(0); // fields
+            out.writeShort(methods.size());
+            for (byte[] method : methods) {
+                out.write(method);
+            }
+            out.writeShort(0); // attributes
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * A position in a method's code that can be jumped to
+     */
+    public static class Label {
+
+        private int position = -1;
+        private int stack = -1;
+        private final List<Integer> jumps = new ArrayList<>();
+    }
+
+    /**
+     * The instructions of a method. The depth of the operand stack is followed as instructions are added, so the
+     * maximum depth can be written with the method.
+     */
+    public static class Code {
+
+        private byte[] bytes = new byte[64];
+        private int length = 0;
+        private int stack = 0;
+        private boolean reachable = true;
+        private int maxStack = 0;
+        private int maxLocals;
+        private final List<Label> labels = new ArrayList<>();
+
+        /**
+         * @param locals the amount of local slots used by the parameters
+         */
+        public Code(int locals) {
+            this.maxLocals = locals;
+        }
+
+        private void write(int b) {
+            if (length == bytes.length) {
+                byte[] grown = new byte[bytes.length * 2];
+                System.arraycopy(bytes, 0, grown, 0, length);
+                bytes = grown;
+            }
+            bytes[length++] = (byte) b;
+        }
+
+        private void adjust(int stackChange) {
+            stack += stackChange;
+            if (stack > maxStack) maxStack = stack;
+        }
+
+        /**
+         * Adds an instruction without operands
+         *
+         * @param opcode the instruction
+         * @param stackChange how much the instruction grows the stack by, with longs and doubles counting twice
+         */
+        public void op(int opcode, int stackChange) {
+            write(opcode);
+            adjust(stackChange);
+        }
+
+        public void op(int opcode, int operand, int operandSize, int stackChange) {
+            write(opcode);
+            if (operandSize == 2) write(operand >> 8);
+            write(operand);
+            adjust(stackChange);
+        }
+
+        /**
+         * Reserves a local slot, and its neighbour if the local is a long or a double
+         *
+         * @param wide whether the local is a long or a double
+         * @return the index of the local
+         */
+        public int newLocal(boolean wide) {
+            int index = maxLocals;
+            maxLocals += wide ? 2 : 1;
+            return index;
+        }
+
+        /**
+         * Adds a load or store of a local, using the wide form when needed
+         */
+        public void local(int opcode, int index, int stackChange) {
+            if (index > 0xFF) {
+                write(Opcodes.WIDE);
+                op(opcode, index, 2, stackChange);
+            } else {
+                op(opcode, index, 1, stackChange);
+            }
+        }
+
+        public void increment(int index, int amount) {
+            if (index > 0xFF || amount < Byte.MIN_VALUE || amount > Byte.MAX_VALUE) {
+                write(Opcodes.WIDE);
+                write(Opcodes.IINC);
+                write(index >> 8);
+                write(index);
+                write(amount >> 8);
+                write(amount);
+            } else {
+                write(Opcodes.IINC);
+                write(index);
+                write(amount);
+            }
+        }
+
+        public Label newLabel() {
+            Label label = new Label();
+            labels.add(label);
+            return label;
+        }
+
+        /**
+         * Adds a jump to a label. Code after a {@code goto} can only be reached through a label.
+         *
+         * @param opcode the jump instruction
+         * @param label where to jump to
+         * @param stackChange how much the jump changes the stack by
+         */
+        public void jump(int opcode, Label label, int stackChange) {
+            label.jumps.add(length);
+            write(opcode);
+            write(0);
+            write(0);
+            adjust(stackChange);
+            label.stack = stack;
+            if (opcode == Opcodes.GOTO) {
+                reachable = false;
+            }
+        }
+
+        public void mark(Label label) {
+            label.position = length;
+            if (!reachable && label.stack >= 0) {
+                stack = label.stack;
+            }
+            reachable = true;
+        }
+
+        /**
+         * Marks that the code after this point can't be reached until the next label, such as after a return
+         */
+        public void unreachable() {
+            reachable = false;
+        }
+
+        /**
+         * @return whether the current position can be reached, so whether code added here can run
+         */
+        public boolean isReachable() {
+            return reachable;
+        }
+
+        private byte[] finish() {
+            if (length > 0xFFFF) throw new IllegalStateException("Method is too large");
+            for (Label label : labels) {
+                for (int jump : label.jumps) {
+                    int offset = label.position - jump;
+                    if (label.position < 0 || offset < Short.MIN_VALUE || offset > Short.MAX_VALUE) {
+                        throw new IllegalStateException("Can't jump to label");
+                    }
+                    bytes[jump + 1] = (byte) (offset >> 8);
+                    bytes[jump + 2] = (byte) offset;
+                }
+            }
+            byte[] output = new byte[length];
+            System.arraycopy(bytes, 0, output, 0, length);
+            return output;
+        }
+    }
+
+    /**
+     * The instructions used by {@link BytecodeCompiler}
+     */
+    public static final class Opcodes {
+
+        private Opcodes() {
+        }
+
+        public static final int ICONST_0 = 0x03;
+        public static final int ICONST_1 = 0x04;
+        public static final int LCONST_0 = 0x09;
+        public static final int DCONST_0 = 0x0e;
+        public static final int BIPUSH = 0x10;
+        public static final int SIPUSH = 0x11;
+        public static final int LDC_W = 0x13;
+        public static final int LDC2_W = 0x14;
+        public static final int ILOAD = 0x15;
+        public static final int LLOAD = 0x16;
+        public static final int DLOAD = 0x18;
+        public static final int ISTORE = 0x36;
+        public static final int LSTORE = 0x37;
+        public static final int DSTORE = 0x39;
+        public static final int POP = 0x57;
+        public static final int POP2 = 0x58;
+        public static final int DUP = 0x59;
+        public static final int DUP2 = 0x5c;
+        public static final int IADD = 0x60;
+        public static final int LADD = 0x61;
+        public static final int DADD = 0x63;
+        public static final int ISUB = 0x64;
+        public static final int LSUB = 0x65;
+        public static final int DSUB = 0x67;
+        public static final int IMUL = 0x68;
+        public static final int LMUL = 0x69;
+        public static final int DMUL = 0x6b;
+        public static final int IDIV = 0x6c;
+        public static final int LDIV = 0x6d;
+        public static final int DDIV = 0x6f;
+        public static final int IREM = 0x70;
+        public static final int LREM = 0x71;
+        public static final int DREM = 0x73;
+        public static final int INEG = 0x74;
+        public static final int LNEG = 0x75;
+        public static final int DNEG = 0x77;
+        public static final int ISHL = 0x78;
+        public static final int LSHL = 0x79;
+        public static final int ISHR = 0x7a;
+        public static final int LSHR = 0x7b;
+        public static final int IAND = 0x7e;
+        public static final int LAND = 0x7f;
+        public static final int IOR = 0x80;
+        public static final int LOR = 0x81;
+        public static final int IXOR = 0x82;
+        public static final int LXOR = 0x83;
+        public static final int IINC = 0x84;
+        public static final int I2L = 0x85;
+        public static final int I2D = 0x87;
+        public static final int L2I = 0x88;
+        public static final int L2D = 0x8a;
+        public static final int D2I = 0x8e;
+        public static final int D2L = 0x8f;
+        public static final int D2F = 0x90;
+        public static final int I2C = 0x92;
+        public static final int I2S = 0x93;
+        public static final int F2D = 0x8d;
+        public static final int LCMP = 0x94;
+        public static final int DCMPL = 0x97;
+        public static final int DCMPG = 0x98;
+        public static final int IFEQ = 0x99;
+        public static final int IFNE = 0x9a;
+        public static final int IFLT = 0x9b;
+        public static final int IFGE = 0x9c;
+        public static final int IFGT = 0x9d;
+        public static final int IFLE = 0x9e;
+        public static final int IF_ICMPEQ = 0x9f;
+        public static final int IF_ICMPNE = 0xa0;
+        public static final int IF_ICMPLT = 0xa1;
+        public static final int IF_ICMPGE = 0xa2;
+        public static final int IF_ICMPGT = 0xa3;
+        public static final int IF_ICMPLE = 0xa4;
+        public static final int GOTO = 0xa7;
+        public static final int IRETURN = 0xac;
+        public static final int LRETURN = 0xad;
+        public static final int DRETURN = 0xaf;
+        public static final int RETURN = 0xb1;
+        public static final int INVOKESTATIC = 0xb8;
+        public static final int WIDE = 0xc4;
+    }
+}
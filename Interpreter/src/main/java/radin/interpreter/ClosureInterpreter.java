@@ -0,0 +1,1517 @@
+package radin.interpreter;
+
+import radin.core.SymbolTable;
+import radin.core.errorhandling.CompilationError;
+import radin.core.lexical.Token;
+import radin.core.lexical.TokenType;
+import radin.core.semantics.ASTNodeType;
+import radin.core.semantics.TypeEnvironment;
+import radin.core.semantics.exceptions.InvalidPrimitiveException;
+import radin.core.semantics.types.CXIdentifier;
+import radin.core.semantics.types.CXType;
+import radin.core.semantics.types.TypedAbstractSyntaxNode;
+import radin.core.semantics.types.compound.CXClassType;
+import radin.core.semantics.types.methods.CXConstructor;
+import radin.core.semantics.types.primitives.ArrayType;
+import radin.core.semantics.types.primitives.CXPrimitiveType;
+import radin.core.semantics.types.primitives.LongPrimitive;
+import radin.core.semantics.types.primitives.PointerType;
+import radin.midanalysis.MethodTASNTracker;
+import radin.midanalysis.TypeAugmentedSemanticNode;
+import radin.output.tags.*;
+
+import java.util.*;
+import java.util.logging.Level;
+
+import static radin.core.lexical.TokenType.*;
+
+/**
+ * An interpreter that compiles the type augmented syntax tree of each function into a tree of executable nodes the
+ * first time that function is called, and then runs those nodes instead of walking the tree again. Variables are
+ * resolved to slots in a flat frame, and operators, literals and call targets are all resolved while compiling.
+ * <p>
+ * Functions that contain nodes that can't be compiled are run by the tree walking {@link Interpreter} instead.
+ * </p>
+ */
+public class ClosureInterpreter extends Interpreter {
+
+    private final IdentityHashMap<TypeAugmentedSemanticNode, CompiledFunction> compiledFunctions = new IdentityHashMap<>();
+
+    /**
+     * The token of the innermost statement that was running when an error was thrown, used to create stack traces
+     */
+    private Token failedAt;
+
+    public ClosureInterpreter(TypeEnvironment environment, SymbolTable<CXIdentifier, TypeAugmentedSemanticNode> symbols) {
+        super(environment, symbols);
+    }
+
+    @Override
+    protected boolean execute(TypeAugmentedSemanticNode entrance, Instance<?>... args) throws EarlyExit,
+            JodinNullPointerException {
+        CompiledFunction function = getCompiledFunction(entrance);
+        returnValue = function.call(null, function.bind(args));
+        return returnValue != null;
+    }
+
+    private CompiledFunction getCompiledFunction(TypeAugmentedSemanticNode definition) {
+        CompiledFunction function = compiledFunctions.get(definition);
+        if (function == null) {
+            function = new CompiledFunction(definition);
+            compiledFunctions.put(definition, function);
+        }
+        return function;
+    }
+
+    /**
+     * Creates a new object of a class, which isn't constructed yet
+     * @param type the class
+     * @return a pointer to the object
+     */
+    @SuppressWarnings("unchecked")
+    private PointerInstance<CXClassType> createObject(CXClassType type) {
+        // an instance created from a class type is always an instance of that class type
+        return (PointerInstance<CXClassType>) createNewInstance(type).toPointer();
+    }
+
+    /**
+     * Thrown when a node can't be compiled, so the function that contains it must be run by the tree walker
+     */
+    private static class UncompilableNodeException extends Exception {
+        private static final long serialVersionUID = 1L;
+
+        public UncompilableNodeException(TypeAugmentedSemanticNode node) {
+            super("Can't compile " + node.getASTType() + " nodes");
+        }
+
+        public UncompilableNodeException(String message) {
+            super(message);
+        }
+    }
+
+    /**
+     * The local state of a single call of a compiled function
+     */
+    private final class Frame {
+
+        private final Instance<?>[] locals;
+        private final PointerInstance<CXClassType> self;
+        private Instance<?> returnValue;
+        /**
+         * The function called by the tail call this frame returned with, and the locals of that call
+         */
+        private CompiledFunction tailCall;
+        private Instance<?>[] tailLocals;
+
+        private Frame(Instance<?>[] locals, PointerInstance<CXClassType> self) {
+            this.locals = locals;
+            this.self = self;
+        }
+    }
+
+    private abstract class ExpressionNode {
+
+        /**
+         * Evaluates this expression
+         * @param frame the current frame
+         * @return the value of the expression, or null if it has no value
+         */
+        abstract Instance<?> evaluate(Frame frame) throws EarlyExit, JodinNullPointerException;
+
+        /**
+         * Evaluates this expression when its value is only read and never kept or modified, such as the operands of a
+         * binary operation. This allows constants to skip being copied.
+         */
+        Instance<?> evaluateOperand(Frame frame) throws EarlyExit, JodinNullPointerException {
+            return evaluate(frame);
+        }
+
+        /**
+         * Evaluates this expression as the condition of a branch or loop
+         */
+        boolean evaluateCondition(Frame frame) throws EarlyExit, JodinNullPointerException {
+            return passThroughNullable(evaluate(frame)).unwrap().isTrue();
+        }
+
+        /**
+         * Evaluates this expression when its value isn't used
+         */
+        void evaluateForEffect(Frame frame) throws EarlyExit, JodinNullPointerException {
+            evaluate(frame);
+        }
+
+        /**
+         * Evaluates this expression and assigns its value to an existing number or character
+         */
+        void evaluateInto(Frame frame, PrimitiveInstance<?, ?> target) throws EarlyExit, JodinNullPointerException {
+            target.copyFrom(passThroughNullable(evaluate(frame)).copy());
+        }
+
+        /**
+         * Whether this expression can be evaluated without calling a function, which means that it can't cause any
+         * other node to be evaluated again before it finishes
+         */
+        boolean isSimple() {
+            return false;
+        }
+    }
+
+    private abstract class StatementNode {
+
+        /**
+         * Executes this statement
+         * @param frame the current frame
+         * @return true if a return statement was executed
+         */
+        abstract boolean execute(Frame frame) throws EarlyExit, JodinNullPointerException;
+    }
+
+    /**
+     * A function or constructor, which is compiled the first time it's created
+     */
+    private class CompiledFunction {
+
+        private final TypeAugmentedSemanticNode definition;
+        private final Token name;
+        private final int parameterCount;
+        private final Conversion[] parameterConversions;
+        /**
+         * Converts returned values to the return type, which does nothing for a constructor
+         */
+        private final Conversion returnConversion;
+        private final int frameSize;
+        /**
+         * The body of the function, or null if the function is run by the tree walker
+         */
+        private StatementNode body;
+
+        private CompiledFunction(TypeAugmentedSemanticNode definition) {
+            this.definition = definition;
+            TypeAugmentedSemanticNode id = definition.getASTChild(ASTNodeType.id);
+            Token first = definition.findFirstToken();
+            if (id != null) {
+                name = id.getToken();
+            } else {
+                name = new Token(t_id, first.getImage() + "::<init>");
+                name.setFilename(first.getFilename());
+                name.setActualLineNumber(first.getActualLineNumber());
+            }
+            List<TypeAugmentedSemanticNode> parameters =
+                    definition.getASTChild(ASTNodeType.parameter_list).getChildren();
+            parameterCount = parameters.size();
+            parameterConversions = new Conversion[parameterCount];
+            for (int i = 0; i < parameterCount; i++) {
+                parameterConversions[i] = getConversion(getParameterType(parameters.get(i)));
+            }
+            returnConversion = getConversion(
+                    definition.getASTType() == ASTNodeType.function_definition ? definition.getCXType() : null);
+            frameSize = FrameSlotAllocator.getFrameSize(definition);
+
+            try {
+                List<StatementNode> statements = new ArrayList<>();
+                if (definition.containsCompilationTag(PriorConstructorTag.class)) {
+                    statements.add(new PriorConstructorNode(definition.getCompilationTag(PriorConstructorTag.class)));
+                }
+                statements.add(compileStatement(definition.getASTChild(ASTNodeType.compound_statement)));
+                body = new BlockNode(statements, null);
+                if (log(Level.INFO)) logger.info("Compiled " + name.getImage() + " with a frame of size " + frameSize);
+            } catch (UncompilableNodeException e) {
+                if (log(Level.INFO)) logger.info("Using tree walker for " + name.getImage() + ": " + e.getMessage());
+            }
+        }
+
+        Instance<?>[] createLocals() {
+            return new Instance<?>[frameSize];
+        }
+
+        /**
+         * Creates the locals of a call of this function from already evaluated arguments
+         */
+        Instance<?>[] bind(Instance<?>[] values) {
+            Instance<?>[] locals = createLocals();
+            for (int i = 0; i < values.length && i < parameterCount; i++) {
+                locals[i] = parameter(i, passThroughNullable(values[i]));
+            }
+            return locals;
+        }
+
+        /**
+         * Creates the local of a parameter from an argument, converted to the type of the parameter
+         */
+        Instance<?> parameter(int index, Instance<?> argument) {
+            Instance<?> converted = convertTo(argument, parameterConversions[index]);
+            return converted == argument ? argument.copy() : converted;
+        }
+
+        Instance<?> call(PointerInstance<CXClassType> self, Instance<?>[] locals) throws EarlyExit,
+                JodinNullPointerException {
+            if (isSegmentedStack()) {
+                return callOnStack(() -> run(self, locals));
+            }
+            return run(self, locals);
+        }
+
+        /**
+         * Runs this function, followed by every tail call it ends with, reusing the same Java frame for each call
+         */
+        private Instance<?> run(PointerInstance<CXClassType> self, Instance<?>[] locals) throws EarlyExit,
+                JodinNullPointerException {
+            CompiledFunction function = this;
+            while (true) {
+                if (function.body == null) return function.interpret(self, locals);
+                Frame frame = new Frame(locals, self);
+                try {
+                    function.body.execute(frame);
+                } catch (RuntimeException | Error | JodinNullPointerException e) {
+                    StackTraceInfo info = new StackTraceInfo(function.name);
+                    info.setCurrentToken(failedAt != null ? failedAt : function.name);
+                    failedAt = null;
+                    stackTrace.add(0, info);
+                    throw e;
+                }
+                if (frame.tailCall == null) return convertTo(frame.returnValue, function.returnConversion);
+                function = frame.tailCall;
+                locals = frame.tailLocals;
+            }
+        }
+
+        private Instance<?> interpret(PointerInstance<CXClassType> self, Instance<?>[] locals) throws EarlyExit,
+                JodinNullPointerException {
+            for (int i = 0; i < parameterCount; i++) {
+                arguments.push(locals[i]);
+            }
+            if (self != null) {
+                thisStack.push(self);
+            }
+            useThisStack.push(self != null);
+            createClosure();
+            startStackTraceFor(name);
+            Instance<?> output = null;
+            if (!invoke(definition) || !completeTailCalls()) {
+                throw new Error("Interpreter didn't complete " + name.getImage());
+            }
+            if (completeReturn()) {
+                output = returnValue;
+                returnValue = null;
+            }
+            stackTrace.pop();
+            endClosure();
+            useThisStack.pop();
+            if (self != null) {
+                thisStack.pop();
+            }
+            return output;
+        }
+    }
+
+    private StatementNode compileStatement(TypeAugmentedSemanticNode node) throws UncompilableNodeException {
+        switch (node.getASTType()) {
+            case compound_statement: {
+                List<StatementNode> statements = new ArrayList<>();
+                for (TypeAugmentedSemanticNode child : node.getDirectChildren()) {
+                    StatementNode statement = compileStatement(child);
+                    if (statement != null) statements.add(statement);
+                }
+                return new BlockNode(statements, node.getDirectChildren());
+            }
+            case declarations: {
+                List<StatementNode> statements = new ArrayList<>();
+                for (TypeAugmentedSemanticNode child : node.getChildren()) {
+                    StatementNode statement = compileStatement(child);
+                    if (statement != null) statements.add(statement);
+                }
+                return new BlockNode(statements, node.getChildren());
+            }
+            case declaration:
+                return compileDeclaration(node);
+            case initialized_declaration: {
+                DeclarationNode declaration = compileDeclaration(node.getChild(0));
+                return new InitializedDeclarationNode(declaration, compileExpression(node.getChild(1)));
+            }
+            case if_cond:
+                return new IfNode(
+                        compileExpression(node.getChild(0)),
+                        compileStatement(node.getChild(1)),
+                        compileStatement(node.getChild(2))
+                );
+            case while_cond:
+                return new WhileNode(
+                        compileExpression(node.getChild(0)),
+                        compileStatement(node.getChild(1))
+                );
+            case do_while_cond:
+                return new DoWhileNode(
+                        compileStatement(node.getChild(0)),
+                        compileExpression(node.getChild(1))
+                );
+            case for_cond:
+                return new ForNode(
+                        compileStatement(node.getChild(0)),
+                        compileExpression(node.getChild(1)),
+                        compileExpression(node.getChild(2)),
+                        compileStatement(node.getChild(3))
+                );
+            case _return:
+                if (node.containsCompilationTag(BasicCompilationTag.TAIL_CALL)) {
+                    return new TailCallNode(
+                            getSymbol(TailCallAnalyzer.getCallee(node)),
+                            compileSequence(node.getChild(0).getASTChild(ASTNodeType.sequence))
+                    );
+                }
+                if (node.getChildren().size() > 0) {
+                    return new ReturnNode(compileExpression(node.getChild(0)));
+                }
+                return new ReturnNode(null);
+            case typedef:
+            case top_level_decs:
+            case empty:
+                return null;
+            default:
+                return new ExpressionStatementNode(compileExpression(node));
+        }
+    }
+
+    private DeclarationNode compileDeclaration(TypeAugmentedSemanticNode node) throws UncompilableNodeException {
+        CXType cxType = ((TypedAbstractSyntaxNode) node.getASTNode()).getCxType();
+        List<ExpressionNode> sizes = null;
+        if (cxType instanceof ArrayType && !(cxType instanceof PointerType)) {
+            MultiDimensionalArrayWithSizeTag compilationTag = node.getCompilationTag(MultiDimensionalArrayWithSizeTag.class);
+            if (compilationTag != null) {
+                sizes = new ArrayList<>();
+                for (TypeAugmentedSemanticNode expression : compilationTag.getExpressions()) {
+                    sizes.add(compileExpression(expression));
+                }
+            }
+        }
+        int slot = FrameSlotAllocator.getSlot(node.getASTChild(ASTNodeType.id));
+        if (slot < 0) throw new UncompilableNodeException("Declaration without a frame slot");
+        return new DeclarationNode(slot, cxType, sizes);
+    }
+
+    private ExpressionNode[] compileSequence(TypeAugmentedSemanticNode sequence) throws UncompilableNodeException {
+        List<TypeAugmentedSemanticNode> children = sequence.getDirectChildren();
+        ExpressionNode[] output = new ExpressionNode[children.size()];
+        for (int i = 0; i < output.length; i++) {
+            output[i] = compileExpression(children.get(i));
+        }
+        return output;
+    }
+
+    private ExpressionNode compileExpression(TypeAugmentedSemanticNode node) throws UncompilableNodeException {
+        switch (node.getASTType()) {
+            case binop:
+                return new BinaryNode(
+                        node.getChild(0).getToken().getType(),
+                        compileExpression(node.getChild(1)),
+                        compileExpression(node.getChild(2))
+                );
+            case uniop:
+                return new UnaryNode(node.getChild(0).getToken().getType(), compileExpression(node.getChild(1)));
+            case postop:
+                return new PostfixNode(node.getChild(1).getToken().getType(), compileExpression(node.getChild(0)));
+            case assignment: {
+                Token assignmentToken = node.getASTChild(ASTNodeType.assignment_type).getToken();
+                if (assignmentToken.getType() != t_assign && assignmentToken.getType() != t_operator_assign) {
+                    throw new UncompilableNodeException("Unknown assignment " + assignmentToken);
+                }
+                return new AssignmentNode(
+                        compileExpression(node.getChild(0)),
+                        compileExpression(node.getChild(2)),
+                        assignmentToken.getType() == t_assign
+                );
+            }
+            case array_reference:
+                return new ArrayReferenceNode(
+                        compileExpression(node.getChild(0)),
+                        compileExpression(node.getChild(1))
+                );
+            case id: {
+                String name = node.getToken().getImage();
+                if (node.containsCompilationTag(ResolvedPathTag.class)) {
+                    return new GlobalNode(node.getCompilationTag(ResolvedPathTag.class).getAbsolutePath());
+                }
+                int slot = FrameSlotAllocator.getSlot(node);
+                if (slot >= 0) return new LocalNode(slot);
+                if (name.equals("this")) return new ThisNode();
+                throw new UncompilableNodeException("Unknown variable " + name);
+            }
+            case literal:
+                if (node.getCXType() == null) throw new UncompilableNodeException("Untyped literal " + node.getToken());
+                try {
+                    return new ConstantNode(getInstance(node));
+                } catch (EarlyExit | JodinNullPointerException e) {
+                    throw new UncompilableNodeException(node);
+                }
+            case sizeof:
+                return new ConstantNode(createNewInstance(LongPrimitive.create(),
+                        ((TypedAbstractSyntaxNode) node.getASTNode()).getCxType().getDataSize(environment)));
+            case _true:
+                return new ConstantNode(createNewInstance(CXPrimitiveType.CHAR, 1));
+            case _false:
+                return new ConstantNode(createNewInstance(CXPrimitiveType.CHAR, 0));
+            case string: {
+                String image = node.getToken().getImage();
+                return new StringNode(image.substring(1, image.length() - 1));
+            }
+            case function_call: {
+                CXIdentifier id = node.getChild(0).getCompilationTag(ResolvedPathTag.class).getAbsolutePath();
+                String funcCall = id.toString();
+                ExpressionNode[] arguments = compileSequence(node.getASTChild(ASTNodeType.sequence));
+                if (isIntrinsic(funcCall)) {
+                    return new IntrinsicCallNode(funcCall, id, node, arguments);
+                }
+                TypeAugmentedSemanticNode function = getSymbol(id);
+                if (function == null) {
+                    throw new CompilationError("Symbol " + funcCall + " not " +
+                            "defined", node.getASTChild(ASTNodeType.id).getToken());
+                }
+                return new FunctionCallNode(function, arguments);
+            }
+            case method_call: {
+                Token idToken = node.getASTChild(ASTNodeType.id).getToken();
+                ExpressionNode[] arguments = compileSequence(node.getASTChild(ASTNodeType.sequence));
+                if (node.containsCompilationTag(SuperCallTag.class)) {
+                    return new SuperMethodCallNode(idToken, arguments);
+                }
+                return new MethodCallNode(compileExpression(node.getChild(0)), idToken, arguments);
+            }
+            case constructor_call: {
+                CXClassType subType = (CXClassType) ((PointerType) node.getCXType()).getSubType();
+                CXConstructor constructor = node.getCompilationTag(ConstructorCallTag.class).getConstructor();
+                return new ConstructorCallNode(subType, constructor,
+                        compileSequence(node.getASTChild(ASTNodeType.sequence)));
+            }
+            case field_get:
+                return new FieldGetNode(compileExpression(node.getChild(0)), node.getChild(1).getToken().getImage());
+            case indirection:
+                return new IndirectionNode(compileExpression(node.getChild(0)));
+            case addressof:
+                return new AddressOfNode(compileExpression(node.getChild(0)));
+            case cast:
+                return new CastNode(compileExpression(node.getChild(0)), node.getCXType());
+            case inline_array: {
+                ArrayType arrayType = (ArrayType) node.getCXType();
+                InlineArrayTag tag = node.getCompilationTag(InlineArrayTag.class);
+                return new InlineArrayNode(arrayType, tag.getSize(),
+                        compileSequence(node.getASTChild(ASTNodeType.sequence)));
+            }
+            case empty:
+                return null;
+            default:
+                throw new UncompilableNodeException(node);
+        }
+    }
+
+    // Statements
+
+    private class BlockNode extends StatementNode {
+
+        private final StatementNode[] statements;
+        private final Token[] tokens;
+
+        private BlockNode(List<StatementNode> statements, List<TypeAugmentedSemanticNode> nodes) {
+            this.statements = statements.toArray(new StatementNode[0]);
+            this.tokens = new Token[this.statements.length];
+            if (nodes != null) {
+                int index = 0;
+                for (TypeAugmentedSemanticNode node : nodes) {
+                    if (index < tokens.length) {
+                        tokens[index++] = node.findFirstToken();
+                    }
+                }
+            }
+        }
+
+        @Override
+        boolean execute(Frame frame) throws EarlyExit, JodinNullPointerException {
+            int i = 0;
+            try {
+                for (; i < statements.length; i++) {
+                    if (statements[i].execute(frame)) return true;
+                }
+            } catch (RuntimeException | Error | JodinNullPointerException e) {
+                if (failedAt == null) failedAt = tokens[i];
+                throw e;
+            }
+            return false;
+        }
+    }
+
+    private class ExpressionStatementNode extends StatementNode {
+
+        private final ExpressionNode expression;
+
+        private ExpressionStatementNode(ExpressionNode expression) {
+            this.expression = expression;
+        }
+
+        @Override
+        boolean execute(Frame frame) throws EarlyExit, JodinNullPointerException {
+            expression.evaluateForEffect(frame);
+            return false;
+        }
+    }
+
+    private class DeclarationNode extends StatementNode {
+
+        private final int slot;
+        private final CXType type;
+        private final ExpressionNode[] sizes;
+        /**
+         * The default value of a number or character, which is copied for every declaration instead of creating the
+         * default value from the type again
+         */
+        private PrimitiveInstance<?, ?> prototype;
+
+        private DeclarationNode(int slot, CXType type, List<ExpressionNode> sizes) {
+            this.slot = slot;
+            this.type = type;
+            this.sizes = sizes == null ? null : sizes.toArray(new ExpressionNode[0]);
+        }
+
+        @Override
+        boolean execute(Frame frame) throws EarlyExit, JodinNullPointerException {
+            if (sizes != null) {
+                List<Integer> dimensions = new ArrayList<>(sizes.length);
+                for (ExpressionNode size : sizes) {
+                    dimensions.add(((PrimitiveInstance<?, ?>) passThroughNullable(size.evaluate(frame))).intValue());
+                }
+                frame.locals[slot] = createArray((ArrayType) type, dimensions);
+            } else if (prototype != null) {
+                frame.locals[slot] = prototype.copy();
+            } else {
+                Instance<?> value = defaultValue(type);
+                if (value instanceof PrimitiveInstance && ((PrimitiveInstance<?, ?>) value).isScalar()) {
+                    prototype = (PrimitiveInstance<?, ?>) value.copy();
+                }
+                frame.locals[slot] = value;
+            }
+            return false;
+        }
+    }
+
+    private class InitializedDeclarationNode extends StatementNode {
+
+        private final DeclarationNode declaration;
+        private final ExpressionNode value;
+
+        private InitializedDeclarationNode(DeclarationNode declaration, ExpressionNode value) {
+            this.declaration = declaration;
+            this.value = value;
+        }
+
+        @Override
+        boolean execute(Frame frame) throws EarlyExit, JodinNullPointerException {
+            declaration.execute(frame);
+            Instance<?> initial = passThroughNullable(value.evaluate(frame)).unwrap();
+            frame.locals[declaration.slot].copyFrom(initial);
+            return false;
+        }
+    }
+
+    private class IfNode extends StatementNode {
+
+        private final ExpressionNode condition;
+        private final StatementNode then;
+        private final StatementNode otherwise;
+
+        private IfNode(ExpressionNode condition, StatementNode then, StatementNode otherwise) {
+            this.condition = condition;
+            this.then = then;
+            this.otherwise = otherwise;
+        }
+
+        @Override
+        boolean execute(Frame frame) throws EarlyExit, JodinNullPointerException {
+            if (condition.evaluateCondition(frame)) {
+                return then != null && then.execute(frame);
+            } else if (otherwise != null) {
+                return otherwise.execute(frame);
+            }
+            return false;
+        }
+    }
+
+    private class WhileNode extends StatementNode {
+
+        private final ExpressionNode condition;
+        private final StatementNode body;
+
+        private WhileNode(ExpressionNode condition, StatementNode body) {
+            this.condition = condition;
+            this.body = body;
+        }
+
+        @Override
+        boolean execute(Frame frame) throws EarlyExit, JodinNullPointerException {
+            while (condition.evaluateCondition(frame)) {
+                if (body != null && body.execute(frame)) return true;
+            }
+            return false;
+        }
+    }
+
+    private class DoWhileNode extends StatementNode {
+
+        private final StatementNode body;
+        private final ExpressionNode condition;
+
+        private DoWhileNode(StatementNode body, ExpressionNode condition) {
+            this.body = body;
+            this.condition = condition;
+        }
+
+        @Override
+        boolean execute(Frame frame) throws EarlyExit, JodinNullPointerException {
+            do {
+                if (body != null && body.execute(frame)) return true;
+            } while (condition.evaluateCondition(frame));
+            return false;
+        }
+    }
+
+    private class ForNode extends StatementNode {
+
+        private final StatementNode initializer;
+        private final ExpressionNode condition;
+        private final ExpressionNode update;
+        private final StatementNode body;
+
+        private ForNode(StatementNode initializer, ExpressionNode condition, ExpressionNode update, StatementNode body) {
+            this.initializer = initializer;
+            this.condition = condition;
+            this.update = update;
+            this.body = body;
+        }
+
+        @Override
+        boolean execute(Frame frame) throws EarlyExit, JodinNullPointerException {
+            if (initializer != null) initializer.execute(frame);
+            while (condition == null || condition.evaluateCondition(frame)) {
+                if (body != null && body.execute(frame)) return true;
+                if (update != null) update.evaluateForEffect(frame);
+            }
+            return false;
+        }
+    }
+
+    private class ReturnNode extends StatementNode {
+
+        private final ExpressionNode value;
+
+        private ReturnNode(ExpressionNode value) {
+            this.value = value;
+        }
+
+        @Override
+        boolean execute(Frame frame) throws EarlyExit, JodinNullPointerException {
+            if (value != null) {
+                frame.returnValue = passThroughNullable(value.evaluate(frame)).unwrap();
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Returns with a call to another function, which is made by {@link CompiledFunction#run} once this frame has ended
+     */
+    private class TailCallNode extends StatementNode {
+
+        private final TypeAugmentedSemanticNode definition;
+        private final ExpressionNode[] arguments;
+        private CompiledFunction function;
+
+        private TailCallNode(TypeAugmentedSemanticNode definition, ExpressionNode[] arguments) {
+            this.definition = definition;
+            this.arguments = arguments;
+        }
+
+        @Override
+        boolean execute(Frame frame) throws EarlyExit, JodinNullPointerException {
+            if (function == null) {
+                function = getCompiledFunction(definition);
+            }
+            frame.tailLocals = evaluateArguments(function, arguments, frame);
+            frame.tailCall = function;
+            return true;
+        }
+    }
+
+    /**
+     * Calls the constructor of the parent class at the start of a constructor
+     */
+    private class PriorConstructorNode extends StatementNode {
+
+        private final CXConstructor constructor;
+        private final ExpressionNode[] arguments;
+        private CompiledFunction function;
+
+        private PriorConstructorNode(PriorConstructorTag tag) throws UncompilableNodeException {
+            this.constructor = tag.getPriorConstructor();
+            this.arguments = compileSequence(tag.getSequence());
+        }
+
+        @Override
+        boolean execute(Frame frame) throws EarlyExit, JodinNullPointerException {
+            if (function == null) {
+                function = getCompiledFunction(MethodTASNTracker.getInstance().get(constructor));
+            }
+            function.call(frame.self, evaluateArguments(function, arguments, frame));
+            return false;
+        }
+    }
+
+    // Expressions
+
+    /**
+     * Evaluates the arguments of a call directly into the locals of the called function
+     */
+    private Instance<?>[] evaluateArguments(CompiledFunction function, ExpressionNode[] arguments, Frame frame) throws EarlyExit,
+            JodinNullPointerException {
+        Instance<?>[] locals = function.createLocals();
+        for (int i = 0; i < arguments.length; i++) {
+            Instance<?> value = passThroughNullable(arguments[i].evaluate(frame));
+            if (i < function.parameterCount) {
+                locals[i] = function.parameter(i, value);
+            }
+        }
+        return locals;
+    }
+
+    private class LocalNode extends ExpressionNode {
+
+        private final int slot;
+
+        private LocalNode(int slot) {
+            this.slot = slot;
+        }
+
+        @Override
+        Instance<?> evaluate(Frame frame) {
+            return frame.locals[slot];
+        }
+
+        @Override
+        boolean isSimple() {
+            return true;
+        }
+
+        @Override
+        void evaluateInto(Frame frame, PrimitiveInstance<?, ?> target) throws EarlyExit, JodinNullPointerException {
+            Instance<?> value = passThroughNullable(frame.locals[slot]);
+            if (value instanceof PrimitiveInstance && ((PrimitiveInstance<?, ?>) value).isScalar()) {
+                target.copyFrom(value);
+            } else {
+                super.evaluateInto(frame, target);
+            }
+        }
+    }
+
+    private class ThisNode extends ExpressionNode {
+
+        @Override
+        Instance<?> evaluate(Frame frame) {
+            return frame.self;
+        }
+
+        @Override
+        boolean isSimple() {
+            return true;
+        }
+    }
+
+    private class GlobalNode extends ExpressionNode {
+
+        private final CXIdentifier identifier;
+        private Instance<?> value;
+
+        private GlobalNode(CXIdentifier identifier) {
+            this.identifier = identifier;
+        }
+
+        @Override
+        Instance<?> evaluate(Frame frame) {
+            if (value == null) {
+                value = globalAutoVariables.get(identifier);
+            }
+            return value;
+        }
+
+        @Override
+        boolean isSimple() {
+            return true;
+        }
+    }
+
+    /**
+     * A value that never changes, such as a literal. Every evaluation creates a copy, as values can be modified in place.
+     */
+    private class ConstantNode extends ExpressionNode {
+
+        private final Instance<?> value;
+
+        private ConstantNode(Instance<?> value) {
+            this.value = value;
+        }
+
+        @Override
+        Instance<?> evaluate(Frame frame) {
+            return value.copy();
+        }
+
+        @Override
+        Instance<?> evaluateOperand(Frame frame) {
+            return value;
+        }
+
+        @Override
+        void evaluateInto(Frame frame, PrimitiveInstance<?, ?> target) {
+            target.copyFrom(value);
+        }
+
+        @Override
+        boolean isSimple() {
+            return true;
+        }
+    }
+
+    private class StringNode extends ExpressionNode {
+
+        private final String text;
+        private CXClassType stringType;
+        private CompiledFunction constructor;
+
+        private StringNode(String text) {
+            this.text = text;
+        }
+
+        @Override
+        Instance<?> evaluate(Frame frame) throws EarlyExit, JodinNullPointerException {
+            PointerInstance<CXPrimitiveType> charPointer = createCharPointerFromString(text);
+            if (constructor == null) {
+                PointerType pointerType = (PointerType) environment.getType(CXIdentifier.from("std", "String"),
+                        null);
+                stringType = (CXClassType) pointerType.getSubType();
+                constructor = getCompiledFunction(dynamicConstructorLookup(stringType,
+                        Collections.singletonList(charPointer.getType())));
+            }
+            PointerInstance<CXClassType> instance = createObject(stringType);
+            if (instance.getPointer() == null) {
+                throw new Error("Creating a new instance of " + stringType + " failed");
+            }
+            constructor.call(instance, constructor.bind(new Instance<?>[]{ charPointer }));
+            return instance;
+        }
+    }
+
+    private class BinaryNode extends ExpressionNode {
+
+        private final TokenType op;
+        private final ExpressionNode lhs;
+        private final ExpressionNode rhs;
+
+        /**
+         * Holds the result of the operation when it's used as a condition, so that no instance is created
+         */
+        private final PrimitiveInstance<Number, CXPrimitiveType> condition =
+                integralInstance(CXPrimitiveType.INTEGER, ValueKind.INT, 0, false);
+        /**
+         * Holds the result of the operation when it's the operand of another operation. The value is read before this
+         * node can be evaluated again, as long as the node isn't the left hand side of an operation whose right hand
+         * side calls a function.
+         */
+        private PrimitiveInstance<Number, ?> operand;
+        /**
+         * Whether the value of the left hand side can be kept in a reused instance until the right hand side is
+         * evaluated
+         */
+        private final boolean reuseLeft;
+        /**
+         * Whether the operation is && or ||, whose operands are only ever evaluated as conditions
+         */
+        private final boolean logical;
+
+        private BinaryNode(TokenType op, ExpressionNode lhs, ExpressionNode rhs) {
+            this.op = op;
+            this.lhs = lhs;
+            this.rhs = rhs;
+            this.reuseLeft = rhs.isSimple();
+            this.logical = op == t_dand || op == t_dor;
+        }
+
+        private PrimitiveInstance<?, ?> evaluateLeft(Frame frame) throws EarlyExit, JodinNullPointerException {
+            Instance<?> value = reuseLeft ? lhs.evaluateOperand(frame) : lhs.evaluate(frame);
+            return toOperand(passThroughNullable(value).unwrap());
+        }
+
+        private PrimitiveInstance<?, ?> evaluateRight(Frame frame) throws EarlyExit, JodinNullPointerException {
+            return toOperand(passThroughNullable(rhs.evaluateOperand(frame)).unwrap());
+        }
+
+        @Override
+        boolean isSimple() {
+            return lhs.isSimple() && rhs.isSimple();
+        }
+
+        @Override
+        Instance<?> evaluateOperand(Frame frame) throws EarlyExit, JodinNullPointerException {
+            if (logical) {
+                // the condition instance isn't used when a logical operation is evaluated as a condition
+                condition.setIntegral(ValueKind.INT, evaluateCondition(frame) ? 1 : 0);
+                return condition;
+            }
+            PrimitiveInstance<?, ?> left = evaluateLeft(frame);
+            Instance<?> shortCircuited = shortCircuit(op, left);
+            if (shortCircuited != null) return shortCircuited;
+            PrimitiveInstance<?, ?> right = evaluateRight(frame);
+            try {
+                if (left != null && left.isScalar()) {
+                    if (operand == null || operand.getType() != left.getType()) {
+                        operand = createScalarResult(left);
+                    }
+                    if (scalarOperation(op, left, right, operand)) {
+                        return operand;
+                    }
+                }
+                return binaryOperation(op, left, right);
+            } catch (InvalidPrimitiveException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        Instance<?> evaluate(Frame frame) throws EarlyExit, JodinNullPointerException {
+            PrimitiveInstance<?, ?> left = evaluateLeft(frame);
+            Instance<?> shortCircuited = shortCircuit(op, left);
+            if (shortCircuited != null) return shortCircuited;
+            PrimitiveInstance<?, ?> right = evaluateRight(frame);
+            try {
+                return binaryOperation(op, left, right);
+            } catch (InvalidPrimitiveException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        boolean evaluateCondition(Frame frame) throws EarlyExit, JodinNullPointerException {
+            if (op == t_dand) return lhs.evaluateCondition(frame) && rhs.evaluateCondition(frame);
+            if (op == t_dor) return lhs.evaluateCondition(frame) || rhs.evaluateCondition(frame);
+            PrimitiveInstance<?, ?> left = evaluateLeft(frame);
+            PrimitiveInstance<?, ?> right = evaluateRight(frame);
+            try {
+                if (scalarOperation(op, left, right, condition)) {
+                    return condition.isTrue();
+                }
+                return binaryOperation(op, left, right).isTrue();
+            } catch (InvalidPrimitiveException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        void evaluateInto(Frame frame, PrimitiveInstance<?, ?> target) throws EarlyExit, JodinNullPointerException {
+            PrimitiveInstance<?, ?> left = evaluateLeft(frame);
+            if (op == t_dand && left.isFalse()) {
+                target.setIntegral(ValueKind.INT, 0);
+                return;
+            }
+            if (op == t_dor && left.isTrue()) {
+                target.setIntegral(ValueKind.INT, 1);
+                return;
+            }
+            PrimitiveInstance<?, ?> right = evaluateRight(frame);
+            try {
+                if (!scalarOperation(op, left, right, target)) {
+                    target.copyFrom(binaryOperation(op, left, right));
+                }
+            } catch (InvalidPrimitiveException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    private class UnaryNode extends ExpressionNode {
+
+        private final TokenType op;
+        private final ExpressionNode operand;
+
+        private UnaryNode(TokenType op, ExpressionNode operand) {
+            this.op = op;
+            this.operand = operand;
+        }
+
+        @Override
+        Instance<?> evaluate(Frame frame) throws EarlyExit, JodinNullPointerException {
+            return unaryOperation(op, passThroughNullable(operand.evaluate(frame)).unwrap());
+        }
+
+        @Override
+        boolean evaluateCondition(Frame frame) throws EarlyExit, JodinNullPointerException {
+            if (op == t_bang) {
+                return passThroughNullable(operand.evaluateOperand(frame)).unwrap().isFalse();
+            }
+            return super.evaluateCondition(frame);
+        }
+    }
+
+    private class PostfixNode extends ExpressionNode {
+
+        private final TokenType op;
+        private final ExpressionNode operand;
+        /**
+         * Holds the value from before the operation when it's the operand of another operation
+         */
+        private PrimitiveInstance<?, ?> previous;
+
+        private PostfixNode(TokenType op, ExpressionNode operand) {
+            this.op = op;
+            this.operand = operand;
+        }
+
+        @Override
+        Instance<?> evaluate(Frame frame) throws EarlyExit, JodinNullPointerException {
+            return postfixOperation(op, passThroughNullable(operand.evaluate(frame)).unwrap());
+        }
+
+        @Override
+        Instance<?> evaluateOperand(Frame frame) throws EarlyExit, JodinNullPointerException {
+            Instance<?> value = passThroughNullable(operand.evaluate(frame)).unwrap();
+            if (!isStep() || !(value instanceof PrimitiveInstance) || !((PrimitiveInstance<?, ?>) value).isScalar()) {
+                return postfixOperation(op, value);
+            }
+            PrimitiveInstance<?, ?> current = (PrimitiveInstance<?, ?>) value;
+            if (previous == null || previous.getType() != current.getType() ||
+                    previous.isUnsigned() != current.isUnsigned()) {
+                previous = (PrimitiveInstance<?, ?>) current.copy();
+            } else {
+                previous.copyValueFrom(current);
+            }
+            unaryOperation(op, current);
+            return previous;
+        }
+
+        @Override
+        void evaluateInto(Frame frame, PrimitiveInstance<?, ?> target) throws EarlyExit, JodinNullPointerException {
+            Instance<?> value = passThroughNullable(operand.evaluate(frame)).unwrap();
+            if (!isStep() || !(value instanceof PrimitiveInstance) || !((PrimitiveInstance<?, ?>) value).isScalar()) {
+                target.copyFrom(postfixOperation(op, value));
+                return;
+            }
+            target.copyFrom(value);
+            unaryOperation(op, value);
+        }
+
+        private boolean isStep() {
+            return op == t_inc || op == t_dec;
+        }
+
+        @Override
+        void evaluateForEffect(Frame frame) throws EarlyExit, JodinNullPointerException {
+            if (isStep()) {
+                // the value from before the operation isn't needed, so the operand doesn't need to be copied
+                unaryOperation(op, passThroughNullable(operand.evaluate(frame)).unwrap());
+            } else {
+                evaluate(frame);
+            }
+        }
+    }
+
+    private class AssignmentNode extends ExpressionNode {
+
+        private final ExpressionNode lhs;
+        private final ExpressionNode rhs;
+        private final boolean plainAssignment;
+
+        private AssignmentNode(ExpressionNode lhs, ExpressionNode rhs, boolean plainAssignment) {
+            this.lhs = lhs;
+            this.rhs = rhs;
+            this.plainAssignment = plainAssignment;
+        }
+
+        @Override
+        Instance<?> evaluate(Frame frame) throws EarlyExit, JodinNullPointerException {
+            if (plainAssignment && lhs instanceof ArrayReferenceNode) {
+                ((ArrayReferenceNode) lhs).assign(frame, rhs);
+                return null;
+            }
+            Instance<?> target = passThroughNullable(lhs.evaluate(frame));
+            if (plainAssignment && target instanceof PrimitiveInstance && ((PrimitiveInstance<?, ?>) target).isScalar()) {
+                rhs.evaluateInto(frame, (PrimitiveInstance<?, ?>) target);
+                return null;
+            }
+            Instance<?> value = passThroughNullable(rhs.evaluate(frame)).copy();
+            if (plainAssignment) {
+                target.copyFrom(value);
+            }
+            return null;
+        }
+    }
+
+    /**
+     * An element of an array. Elements of arrays that are stored flat are read and written directly when possible,
+     * instead of through a reference to the element.
+     */
+    private class ArrayReferenceNode extends ExpressionNode {
+
+        private final ExpressionNode array;
+        private final ExpressionNode index;
+        /**
+         * Holds the value of the element when it's the operand of an operation
+         */
+        private PrimitiveInstance<?, ?> element;
+
+        private ArrayReferenceNode(ExpressionNode array, ExpressionNode index) {
+            this.array = array;
+            this.index = index;
+        }
+
+        private ArrayInstance<?, ?> evaluateArray(Frame frame) throws EarlyExit, JodinNullPointerException {
+            return (ArrayInstance<?, ?>) passThroughNullable(array.evaluate(frame)).unwrap();
+        }
+
+        private int evaluateIndex(Frame frame) throws EarlyExit, JodinNullPointerException {
+            return ((PrimitiveInstance<?, ?>) passThroughNullable(index.evaluateOperand(frame))).intValue();
+        }
+
+        @Override
+        Instance<?> evaluate(Frame frame) throws EarlyExit, JodinNullPointerException {
+            ArrayInstance<?, ?> arr = evaluateArray(frame);
+            return (Instance<?>) arr.getAt(evaluateIndex(frame));
+        }
+
+        @Override
+        Instance<?> evaluateOperand(Frame frame) throws EarlyExit, JodinNullPointerException {
+            ArrayInstance<?, ?> arr = evaluateArray(frame);
+            int position = evaluateIndex(frame);
+            FlatStorage<?> storage = arr.getFlatStorage();
+            if (storage == null) return (Instance<?>) arr.getAt(position);
+            position = arr.positionOf(position);
+            if (element == null || element.getType() != storage.getElementType()) {
+                element = storage.load(position);
+            } else {
+                storage.loadInto(position, element);
+            }
+            return element;
+        }
+
+        @Override
+        boolean evaluateCondition(Frame frame) throws EarlyExit, JodinNullPointerException {
+            ArrayInstance<?, ?> arr = evaluateArray(frame);
+            int position = evaluateIndex(frame);
+            FlatStorage<?> storage = arr.getFlatStorage();
+            if (storage == null) return passThroughNullable((Instance<?>) arr.getAt(position)).unwrap().isTrue();
+            return !storage.isZero(arr.positionOf(position));
+        }
+
+        @Override
+        void evaluateInto(Frame frame, PrimitiveInstance<?, ?> target) throws EarlyExit, JodinNullPointerException {
+            ArrayInstance<?, ?> arr = evaluateArray(frame);
+            int position = evaluateIndex(frame);
+            FlatStorage<?> storage = arr.getFlatStorage();
+            if (storage == null) {
+                target.copyFrom(passThroughNullable((Instance<?>) arr.getAt(position)).copy());
+            } else {
+                storage.loadInto(arr.positionOf(position), target);
+            }
+        }
+
+        /**
+         * Assigns the value of an expression to the element
+         */
+        void assign(Frame frame, ExpressionNode value) throws EarlyExit, JodinNullPointerException {
+            ArrayInstance<?, ?> arr = evaluateArray(frame);
+            int position = evaluateIndex(frame);
+            FlatStorage<?> storage = arr.getFlatStorage();
+            if (storage != null) {
+                Instance<?> operand = passThroughNullable(value.evaluateOperand(frame)).unwrap();
+                if (operand instanceof PrimitiveInstance && ((PrimitiveInstance<?, ?>) operand).isScalar()) {
+                    storage.storeFrom(arr.positionOf(position), (PrimitiveInstance<?, ?>) operand);
+                    return;
+                }
+                passThroughNullable((Instance<?>) arr.getAt(position)).copyFrom(operand.copy());
+                return;
+            }
+            Instance<?> target = passThroughNullable((Instance<?>) arr.getAt(position));
+            target.copyFrom(passThroughNullable(value.evaluate(frame)).copy());
+        }
+
+        @Override
+        boolean isSimple() {
+            return array.isSimple() && index.isSimple();
+        }
+    }
+
+    private class FieldGetNode extends ExpressionNode {
+
+        private final ExpressionNode owner;
+        private final String field;
+        private int slot = -1;
+
+        private FieldGetNode(ExpressionNode owner, String field) {
+            this.owner = owner;
+            this.field = field;
+        }
+
+        @Override
+        Instance<?> evaluate(Frame frame) throws EarlyExit, JodinNullPointerException {
+            Instance<?> value = passThroughNullable(owner.evaluate(frame)).unwrap();
+            if (value == null) {
+                throw new JodinNullPointerException();
+            }
+            CompoundInstance<?> compoundInstance = (CompoundInstance<?>) value;
+            if (slot < 0) {
+                // the owner is always the same class or a subclass of it, so its field stays in the same slot
+                int found = compoundInstance.getShape().slotOf(field);
+                if (found < 0) {
+                    throw new Error("Field " + field + " not found in " + compoundInstance.getType());
+                }
+                slot = found;
+            }
+            return compoundInstance.get(slot);
+        }
+    }
+
+    private class IndirectionNode extends ExpressionNode {
+
+        private final ExpressionNode pointer;
+
+        private IndirectionNode(ExpressionNode pointer) {
+            this.pointer = pointer;
+        }
+
+        @Override
+        Instance<?> evaluate(Frame frame) throws EarlyExit, JodinNullPointerException {
+            Instance<?> og = passThroughNullable(pointer.evaluate(frame)).unwrap();
+            if (og instanceof PrimitiveInstance && !(og instanceof PointerInstance)) {
+                if (((PrimitiveInstance<?, ?>) og).doubleValue() == 0) {
+                    throw new Error("Can't dereference a null pointer");
+                }
+            } else if (og instanceof PointerInstance) {
+                if (((PointerInstance<?>) og).getBackingValue() == null) {
+                    throw new Error("Can't dereference a null pointer");
+                }
+            }
+            return ((PointerInstance<?>) og).deref();
+        }
+    }
+
+    private class AddressOfNode extends ExpressionNode {
+
+        private final ExpressionNode value;
+
+        private AddressOfNode(ExpressionNode value) {
+            this.value = value;
+        }
+
+        @Override
+        Instance<?> evaluate(Frame frame) throws EarlyExit, JodinNullPointerException {
+            return passThroughNullable(value.evaluate(frame)).toPointer();
+        }
+    }
+
+    private class CastNode extends ExpressionNode {
+
+        private final ExpressionNode value;
+        private final CXType castingTo;
+
+        private CastNode(ExpressionNode value, CXType castingTo) {
+            this.value = value;
+            this.castingTo = castingTo;
+        }
+
+        @Override
+        Instance<?> evaluate(Frame frame) throws EarlyExit, JodinNullPointerException {
+            try {
+                return passThroughNullable(value.evaluate(frame)).castTo(castingTo);
+            } catch (InvalidPrimitiveException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    private class InlineArrayNode extends ExpressionNode {
+
+        private final ArrayType arrayType;
+        private final int size;
+        private final ExpressionNode[] elements;
+
+        private InlineArrayNode(ArrayType arrayType, int size, ExpressionNode[] elements) {
+            this.arrayType = arrayType;
+            this.size = size;
+            this.elements = elements;
+        }
+
+        @Override
+        Instance<?> evaluate(Frame frame) throws EarlyExit, JodinNullPointerException {
+            ArrayInstance<CXType, ArrayType> array = new ArrayInstance<>(arrayType, arrayType.getBaseType(), size);
+            for (int i = 0; i < size && i < elements.length; i++) {
+                @SuppressWarnings("unchecked")
+                Instance<CXType> element = (Instance<CXType>) passThroughNullable(elements[i].evaluate(frame)).unwrap();
+                array.setAt(i, element);
+            }
+            return array;
+        }
+    }
+
+    private class IntrinsicCallNode extends ExpressionNode {
+
+        private final String funcCall;
+        private final CXIdentifier id;
+        private final TypeAugmentedSemanticNode node;
+        private final ExpressionNode[] arguments;
+
+        private IntrinsicCallNode(String funcCall, CXIdentifier id, TypeAugmentedSemanticNode node,
+                                  ExpressionNode[] arguments) {
+            this.funcCall = funcCall;
+            this.id = id;
+            this.node = node;
+            this.arguments = arguments;
+        }
+
+        @Override
+        Instance<?> evaluate(Frame frame) throws EarlyExit, JodinNullPointerException {
+            for (ExpressionNode argument : arguments) {
+                ClosureInterpreter.this.arguments.push(passThroughNullable(argument.evaluate(frame)));
+            }
+            int previousSize = memStack.size();
+            if (!invokeIntrinsic(funcCall, id, node)) {
+                throw new Error("Intrinsic " + funcCall + " didn't complete");
+            }
+            if (memStack.size() > previousSize) {
+                return memStack.pop();
+            }
+            return null;
+        }
+    }
+
+    private class FunctionCallNode extends ExpressionNode {
+
+        private final TypeAugmentedSemanticNode definition;
+        private final ExpressionNode[] arguments;
+        private CompiledFunction function;
+
+        private FunctionCallNode(TypeAugmentedSemanticNode definition, ExpressionNode[] arguments) {
+            this.definition = definition;
+            this.arguments = arguments;
+        }
+
+        @Override
+        Instance<?> evaluate(Frame frame) throws EarlyExit, JodinNullPointerException {
+            if (function == null) {
+                function = getCompiledFunction(definition);
+            }
+            return function.call(null, evaluateArguments(function, arguments, frame));
+        }
+    }
+
+    private class MethodCallNode extends ExpressionNode {
+
+        private final ExpressionNode owner;
+        private final Token name;
+        private final ExpressionNode[] arguments;
+        private final InlineCache<CompiledFunction> cache = new InlineCache<>(CompiledFunction[]::new);
+
+        private MethodCallNode(ExpressionNode owner, Token name, ExpressionNode[] arguments) {
+            this.owner = owner;
+            this.name = name;
+            this.arguments = arguments;
+        }
+
+        @Override
+        Instance<?> evaluate(Frame frame) throws EarlyExit, JodinNullPointerException {
+            // method calls are only made on objects of class types
+            @SuppressWarnings("unchecked")
+            CompoundInstance<CXClassType> receiver =
+                    (CompoundInstance<CXClassType>) passThroughNullable(owner.evaluate(frame)).unwrap();
+            Instance<?>[] values = new Instance<?>[arguments.length];
+            for (int i = 0; i < arguments.length; i++) {
+                values[i] = passThroughNullable(arguments[i].evaluate(frame));
+            }
+            if (receiver == null) {
+                throw new JodinNullPointerException();
+            }
+            CompiledFunction function = cache.get(receiver.getType());
+            if (function == null) {
+                List<CXType> types = new ArrayList<>(arguments.length);
+                for (Instance<?> value : values) {
+                    types.add(value.getType());
+                }
+                TypeAugmentedSemanticNode method = dispatchMethod(cache, receiver.getType(), name, types);
+                if (method == null) {
+                    throw new Error("Method " + receiver.getType() + "::" + name.getImage() + types + " not " +
+                            "defined");
+                }
+                function = getCompiledFunction(method);
+                cache.put(receiver.getType(), function);
+            }
+            return function.call(receiver.toPointer(), function.bind(values));
+        }
+    }
+
+    private class SuperMethodCallNode extends ExpressionNode {
+
+        private final Token name;
+        private final ExpressionNode[] arguments;
+        private final InlineCache<CompiledFunction> cache = new InlineCache<>(CompiledFunction[]::new);
+
+        private SuperMethodCallNode(Token name, ExpressionNode[] arguments) {
+            this.name = name;
+            this.arguments = arguments;
+        }
+
+        @Override
+        Instance<?> evaluate(Frame frame) throws EarlyExit, JodinNullPointerException {
+            CompoundInstance<CXClassType> current = (CompoundInstance<CXClassType>) frame.self.asPointer().getPointer();
+            CXClassType parent = current.getType().getParent();
+            PointerInstance<CXClassType> superPointer = new PointerInstance<>(parent.toPointer());
+            superPointer.setBackingValue(current.toPointer().getBackingValue());
+
+            Instance<?>[] values = new Instance<?>[arguments.length];
+            for (int i = 0; i < arguments.length; i++) {
+                values[i] = passThroughNullable(arguments[i].evaluate(frame)).unwrap();
+            }
+            CompiledFunction function = cache.get(parent);
+            if (function == null) {
+                List<CXType> types = new ArrayList<>(arguments.length);
+                for (Instance<?> value : values) {
+                    types.add(value.getType());
+                }
+                TypeAugmentedSemanticNode method = dispatchMethod(cache, parent, name, types);
+                if (method == null) {
+                    throw new Error("Method " + parent + "::" + name.getImage() + types + " not " +
+                            "defined");
+                }
+                function = getCompiledFunction(method);
+                cache.put(parent, function);
+            }
+            return function.call(superPointer, function.bind(values));
+        }
+    }
+
+    private class ConstructorCallNode extends ExpressionNode {
+
+        private final CXClassType type;
+        private final CXConstructor constructor;
+        private final ExpressionNode[] arguments;
+        private CompiledFunction function;
+
+        private ConstructorCallNode(CXClassType type, CXConstructor constructor, ExpressionNode[] arguments) {
+            this.type = type;
+            this.constructor = constructor;
+            this.arguments = arguments;
+        }
+
+        @Override
+        Instance<?> evaluate(Frame frame) throws EarlyExit, JodinNullPointerException {
+            PointerInstance<CXClassType> instance = createObject(type);
+            if (instance.getPointer() == null) {
+                throw new Error("Creating a new instance of " + type + " failed");
+            }
+            if (function == null) {
+                function = getCompiledFunction(MethodTASNTracker.getInstance().get(constructor));
+            }
+            function.call(instance, evaluateArguments(function, arguments, frame));
+            return instance;
+        }
+    }
+}
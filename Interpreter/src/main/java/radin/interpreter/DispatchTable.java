@@ -0,0 +1,54 @@
+package radin.interpreter;
+
+import radin.core.semantics.types.compound.CXClassType;
+import radin.core.semantics.types.methods.CXMethod;
+import radin.midanalysis.MethodTASNTracker;
+import radin.midanalysis.TypeAugmentedSemanticNode;
+
+import java.util.List;
+
+/**
+ * The virtual methods of a class, indexed by their position in the virtual method order of the class. A method that
+ * overrides another takes the position of the method it overrides, so the index of a virtual method found for one
+ * class can be used to find the method to call for any subclass.
+ */
+public class DispatchTable {
+
+    private final CXMethod[] methods;
+    private final TypeAugmentedSemanticNode[] definitions;
+
+    public DispatchTable(CXClassType clazz) {
+        List<CXMethod> order = clazz.getVirtualMethodsOrder();
+        methods = order.toArray(new CXMethod[0]);
+        definitions = new TypeAugmentedSemanticNode[methods.length];
+        for (int i = 0; i < methods.length; i++) {
+            definitions[i] = MethodTASNTracker.getInstance().get(methods[i]);
+        }
+    }
+
+    /**
+     * Gets the index of a virtual method
+     *
+     * @param method the method
+     * @return the index, or -1 if the method isn't a virtual method of the class
+     */
+    public int indexOf(CXMethod method) {
+        for (int i = 0; i < methods.length; i++) {
+            if (methods[i] == method) return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Gets the definition of the method at an index
+     *
+     * @param index the index of the method
+     * @param name the name of the method, to make sure the index refers to the same method in this class
+     * @return the definition, or null if there's no such method
+     */
+    public TypeAugmentedSemanticNode get(int index, String name) {
+        if (index < 0 || index >= methods.length) return null;
+        if (!methods[index].getIdentifierName().equals(name)) return null;
+        return definitions[index];
+    }
+}
@@ -1,128 +1,212 @@
 package radin.interpreter;
 
 
-import radin.core.utility.Option;
-import radin.core.utility.Reference;
-
 import java.io.*;
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.HashMap;
-import java.util.List;
-
-import static radin.core.utility.Option.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
 
 /**
- * Handles file descriptors for the interpreter
+ * Handles file descriptors for the interpreter. Every file descriptor is backed by a channel, with a buffer for each
+ * direction it's open in, so that reading or writing a character only makes a system call when a buffer is empty or
+ * full.
+ * <p>
+ * Like C, standard out is flushed at every new line, standard error is flushed after every write, and everything else
+ * is flushed when its buffer is full, when it's closed, or when {@link #flushAll()} is called.
+ * </p>
  */
 public class FileHandler {
 
     private final static int MAX_FILES = 4096;
-    
-    private HashMap<Integer, Option<InputStream>> fdToInput;
-    private HashMap<Integer, Option<OutputStream>> fdToOutput;
-    private boolean[] usedFileDescriptors;
-    private int openFiles;
-    
+    private final static int BUFFER_SIZE = 8192;
+
+    private enum FlushPolicy {
+        /**
+         * Flushed when the buffer is full
+         */
+        FULL,
+        /**
+         * Flushed at every new line
+         */
+        LINE,
+        /**
+         * Flushed after every write
+         */
+        ALWAYS
+    }
+
+    /**
+     * A file descriptor. Files have separate read and write positions, as if the file was opened twice.
+     */
+    private static class OpenFile {
+
+        private final ReadableByteChannel input;
+        private final WritableByteChannel output;
+        private final InputStream standardInput;
+        private final FlushPolicy flushPolicy;
+        /**
+         * The bytes read ahead of the reader, kept ready to be read
+         */
+        private final ByteBuffer readBuffer;
+        /**
+         * The bytes written that haven't been flushed yet, kept ready to be written to
+         */
+        private final ByteBuffer writeBuffer;
+        private long readPosition = 0;
+        private long writePosition = 0;
+
+        private OpenFile(ReadableByteChannel input, WritableByteChannel output, InputStream standardInput,
+                         FlushPolicy flushPolicy) {
+            this.input = input;
+            this.output = output;
+            this.standardInput = standardInput;
+            this.flushPolicy = flushPolicy;
+            readBuffer = input != null ? ByteBuffer.allocate(BUFFER_SIZE).flip() : null;
+            writeBuffer = output != null ? ByteBuffer.allocate(BUFFER_SIZE) : null;
+        }
+
+        /**
+         * Reads the next bytes into the empty read buffer
+         * @return false if there is nothing left to read
+         */
+        private boolean fill() throws IOException {
+            readBuffer.clear();
+            int read;
+            if (input instanceof FileChannel) {
+                read = ((FileChannel) input).read(readBuffer, readPosition);
+                if (read > 0) readPosition += read;
+            } else {
+                read = input.read(readBuffer);
+            }
+            readBuffer.flip();
+            return read > 0;
+        }
+
+        private void flush() throws IOException {
+            writeBuffer.flip();
+            while (writeBuffer.hasRemaining()) {
+                if (output instanceof FileChannel) {
+                    writePosition += ((FileChannel) output).write(writeBuffer, writePosition);
+                } else {
+                    output.write(writeBuffer);
+                }
+            }
+            writeBuffer.clear();
+        }
+
+        private boolean ready() throws IOException {
+            if (readBuffer.hasRemaining()) return true;
+            if (input instanceof FileChannel) {
+                return readPosition < ((FileChannel) input).size();
+            }
+            return standardInput != null && standardInput.available() > 0;
+        }
+
+        private void close() throws IOException {
+            IOException failure = null;
+            if (output != null) {
+                try {
+                    flush();
+                } catch (IOException e) {
+                    failure = e;
+                }
+                output.close();
+            }
+            if (input != null && input != output) {
+                input.close();
+            }
+            if (failure != null) throw failure;
+        }
+    }
+
+    /**
+     * The open files, by their file descriptor
+     */
+    private final ArrayList<OpenFile> files = new ArrayList<>();
+    /**
+     * The file descriptors below the highest open one that are closed, with the lowest reused first
+     */
+    private final PriorityQueue<Integer> closedFileDescriptors = new PriorityQueue<>();
+    private final Charset charset = Charset.defaultCharset();
+
     /**
      * Creates the file handler
      * Starts with 3 predefined file descriptors
-     * FD 0 ->
+     * FD 0 -> stdin
+     * FD 1 -> stdout
+     * FD 2 -> stderr
      */
     public FileHandler() {
-        fdToInput = new HashMap<>(MAX_FILES);
-        fdToOutput = new HashMap<>(MAX_FILES);
-        usedFileDescriptors = new boolean[MAX_FILES];
-        
-        // stdin
-        addInputStream(0, Some(System.in));
-        addOutputStream(0, None());
-        usedFileDescriptors[0] = true;
-    
-        // stdout
-        addInputStream(1, None());
-        addOutputStream(1, Some(System.out));
-        usedFileDescriptors[1] = true;
-    
-        //sterr
-        addInputStream(2, None());
-        addOutputStream(2, Some(System.err));
-        usedFileDescriptors[2] = true;
-        
-        openFiles = 3;
+        files.add(new OpenFile(Channels.newChannel(System.in), null, System.in, FlushPolicy.FULL));
+        files.add(new OpenFile(null, Channels.newChannel(System.out), null, FlushPolicy.LINE));
+        files.add(new OpenFile(null, Channels.newChannel(System.err), null, FlushPolicy.ALWAYS));
     }
-    
+
     private int findOpenFileDescriptor() throws IOException {
-        if(openFiles == MAX_FILES) {
-            throw new IOException("Too many files open");
+        if (!closedFileDescriptors.isEmpty()) {
+            return closedFileDescriptors.poll();
         }
-    
-        for (int i = 0; i < usedFileDescriptors.length; i++) {
-            if(!usedFileDescriptors[i]) return i;
+        if (files.size() == MAX_FILES) {
+            throw new IOException("Too many files open");
         }
-        
-        return -1;
+        files.add(null);
+        return files.size() - 1;
     }
-    
-    private Option<OutputStream> getOutputStream(int fd) {
-        return fdToOutput.getOrDefault(fd, None());
+
+    private OpenFile getFile(int fd) throws IOException {
+        OpenFile file = fd >= 0 && fd < files.size() ? files.get(fd) : null;
+        if (file == null) throw new IOException("File Descriptor not open");
+        return file;
     }
-    
-    private Option<InputStream> getInputStream(int fd) {
-        return fdToInput.getOrDefault(fd, None());
+
+    private OpenFile getInput(int fd) throws IOException {
+        OpenFile file = getFile(fd);
+        if (file.input == null) throw new IOException("File Descriptor not open");
+        return file;
     }
     
-    private boolean addInputStream(int fd, Option<InputStream> inputStream) {
-        if(fdToInput.containsKey(fd)) return false;
-        fdToInput.put(fd, inputStream);
-        return true;
+    private boolean fill(int fd, OpenFile file) throws IOException {
+        if (fd == 0 && files.get(1) != null && files.get(1).output != null) {
+            // whatever was written before waiting for input should be seen first, such as a prompt
+            files.get(1).flush();
+        }
+        if (file.output != null) {
+            // a file can read back what was written to it
+            file.flush();
+        }
+        return file.fill();
     }
-    
-    private boolean addOutputStream(int fd, Option<OutputStream> outputStream) {
-        if(fdToOutput.containsKey(fd)) return false;
-        fdToOutput.put(fd, outputStream);
-        return true;
+
+    private OpenFile getOutput(int fd) throws IOException {
+        OpenFile file = getFile(fd);
+        if (file.output == null) throw new IOException("File Descriptor not open");
+        return file;
     }
-    
+
     public boolean closeFileDescriptor(int fd){
-        Option<InputStream> input = fdToInput.getOrDefault(fd, None());
-        boolean inputSuccess = input.onSome( i -> {
-            try {
-                i.close();
-                return true;
-            } catch (IOException e) {
-                e.printStackTrace();
-                return false;
-            }
-        },
-                false);
-    
-        Option<OutputStream> output = fdToOutput.getOrDefault(fd, None());
-        boolean outputSuccess = output.onSome( i -> {
-            try {
-                i.close();
-                return true;
-            } catch (IOException e) {
-                e.printStackTrace();
-                return false;
-            }
-        },
-                false);
-    
-        fdToOutput.remove(fd);
-        fdToInput.remove(fd);
-        
-        usedFileDescriptors[fd] = false;
-        
-        
-        return inputSuccess && outputSuccess;
+        OpenFile file = fd >= 0 && fd < files.size() ? files.get(fd) : null;
+        if (file == null) return false;
+        files.set(fd, null);
+        closedFileDescriptors.add(fd);
+        try {
+            file.close();
+            return true;
+        } catch (IOException e) {
+            e.printStackTrace();
+            return false;
+        }
     }
-    
+
     public enum AccessOption {
         READ,
         WRITE
     }
-    
+
     /**
      * Attempts to create a file, returning a file descriptor
      * @param path the path of the file
@@ -135,67 +219,141 @@ public class FileHandler {
         if(!file.exists()) {
             if(!file.createNewFile()) throw new IOException(path + " can not exist");
         }
-    
+
         List<AccessOption> optionsFixed = Arrays.asList(options);
-        int fd = findOpenFileDescriptor(); // if no fd exists, IOEXCEPTION will throw
-        
-        if(optionsFixed.contains(AccessOption.READ)) {
-            addInputStream(fd, Some(new FileInputStream(file)));
-        } else {
-            addInputStream(fd, None());
-        }
-        if(optionsFixed.contains(AccessOption.WRITE)) {
-            addOutputStream(fd, Some(new FileOutputStream(file)));
-        } else {
-            addOutputStream(fd, None());
-        }
-        
-        
+        boolean read = optionsFixed.contains(AccessOption.READ);
+        boolean write = optionsFixed.contains(AccessOption.WRITE);
+
+        Set<StandardOpenOption> openOptions = EnumSet.noneOf(StandardOpenOption.class);
+        if (read) openOptions.add(StandardOpenOption.READ);
+        if (write) {
+            openOptions.add(StandardOpenOption.WRITE);
+            openOptions.add(StandardOpenOption.TRUNCATE_EXISTING);
+        }
+        FileChannel channel = FileChannel.open(file.toPath(), openOptions);
+
+        int fd;
+        try {
+            fd = findOpenFileDescriptor(); // if no fd exists, IOEXCEPTION will throw
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        files.set(fd, new OpenFile(read ? channel : null, write ? channel : null, null, FlushPolicy.FULL));
         return fd;
     }
-    
+
     public void flushFile(int fd) {
-        Reference<OutputStream> stream = new Reference<>();
-        if(getOutputStream(fd).match(stream)) {
-            try {
-                stream.getValue().flush();
-            } catch (IOException e) {
-                e.printStackTrace();
-            }
+        try {
+            OpenFile file = getFile(fd);
+            if (file.output != null) file.flush();
+        } catch (IOException e) {
+            e.printStackTrace();
         }
     }
-    
+
+    /**
+     * Flushes every open file, such as before the program exits
+     */
+    public void flushAll() {
+        for (int fd = 0; fd < files.size(); fd++) {
+            if (files.get(fd) != null) flushFile(fd);
+        }
+    }
+
     public void closeFile(int fd)  {
         closeFileDescriptor(fd);
     }
-    
+
     public int readFile(int fd) throws IOException {
-        Reference<InputStream> stream = new Reference<>();
-        if(getInputStream(fd).match(stream)) {
-            InputStream value = stream.getValue();
-            return value.read();
-        } else {
-            throw new IOException("File Descriptor not open");
+        OpenFile file = getInput(fd);
+        if (!file.readBuffer.hasRemaining() && !fill(fd, file)) {
+            return -1;
         }
+        return file.readBuffer.get() & 0xFF;
     }
-    
+
+    /**
+     * Reads up to an amount of characters, as many as can be read without waiting after the first one
+     * @param fd the file descriptor
+     * @param target the array the characters are read into
+     * @param offset the index in the array of the first character read
+     * @param length the most characters to read
+     * @return the amount of characters read, or -1 if the end of the file was reached
+     * @throws IOException if the file descriptor can't be read from
+     */
+    public int readBlock(int fd, char[] target, int offset, int length) throws IOException {
+        OpenFile file = getInput(fd);
+        if (length == 0) return 0;
+        if (!file.readBuffer.hasRemaining() && !fill(fd, file)) {
+            return -1;
+        }
+        int read = 0;
+        while (true) {
+            int count = Math.min(length - read, file.readBuffer.remaining());
+            for (int i = 0; i < count; i++) {
+                target[offset + read + i] = (char) (file.readBuffer.get() & 0xFF);
+            }
+            read += count;
+            if (read == length || !file.ready() || !fill(fd, file)) return read;
+        }
+    }
+
     public boolean writeFile(int fd, char c) throws IOException {
-        Reference<OutputStream> stream = new Reference<>();
-        if(getOutputStream(fd).match(stream)) {
-            stream.getValue().write(c);
-            return true;
-        } else {
-            throw new IOException("File Descriptor not open");
+        OpenFile file = getOutput(fd);
+        if (!file.writeBuffer.hasRemaining()) file.flush();
+        file.writeBuffer.put((byte) c);
+        if (file.flushPolicy == FlushPolicy.ALWAYS || file.flushPolicy == FlushPolicy.LINE && c == '\n') {
+            file.flush();
         }
+        return true;
     }
 
-    public boolean fileReady(int fd) throws IOException {
-        Reference<InputStream> stream = new Reference<>();
-        if(getInputStream(fd).match(stream)) {
-            return stream.getValue().available() > 0;
-        } else {
-            throw new IOException("File Descriptor not open");
+    /**
+     * Writes an amount of characters
+     * @param fd the file descriptor
+     * @param source the array the characters are written from
+     * @param offset the index in the array of the first character written
+     * @param length the amount of characters to write
+     * @throws IOException if the file descriptor can't be written to
+     */
+    public void writeBlock(int fd, char[] source, int offset, int length) throws IOException {
+        OpenFile file = getOutput(fd);
+        boolean newLine = false;
+        for (int i = offset; i < offset + length; i++) {
+            if (!file.writeBuffer.hasRemaining()) file.flush();
+            file.writeBuffer.put((byte) source[i]);
+            newLine |= source[i] == '\n';
+        }
+        if (file.flushPolicy == FlushPolicy.ALWAYS || file.flushPolicy == FlushPolicy.LINE && newLine) {
+            file.flush();
         }
     }
-    
+
+    /**
+     * Writes text, encoded the same way as {@link System#out}
+     * @param fd the file descriptor
+     * @param text the text
+     * @throws IOException if the file descriptor can't be written to
+     */
+    public void writeText(int fd, CharSequence text) throws IOException {
+        OpenFile file = getOutput(fd);
+        String string = text.toString();
+        byte[] bytes = string.getBytes(charset);
+        int written = 0;
+        while (written < bytes.length) {
+            if (!file.writeBuffer.hasRemaining()) file.flush();
+            int count = Math.min(bytes.length - written, file.writeBuffer.remaining());
+            file.writeBuffer.put(bytes, written, count);
+            written += count;
+        }
+        if (file.flushPolicy == FlushPolicy.ALWAYS || file.flushPolicy == FlushPolicy.LINE && string.indexOf('\n') >= 0) {
+            file.flush();
+        }
+    }
+
+    public boolean fileReady(int fd) throws IOException {
+        return getInput(fd).ready();
+    }
+
 }
@@ -0,0 +1,150 @@
+package radin.interpreter;
+
+import radin.core.semantics.ASTNodeType;
+import radin.midanalysis.TypeAugmentedSemanticNode;
+import radin.output.tags.*;
+
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * Assigns every parameter and local variable of a function an index into a flat frame, so that variables can be
+ * accessed without looking up their name. Declarations and uses of locals have a {@link LocalSlotTag} attached to
+ * their id, and the function definition gets a {@link FrameSizeTag}.
+ * <p>
+ * Slots are handed out in order, so a lexical scope is just a range of slots, which is reused once the scope ends.
+ * </p>
+ */
+public class FrameSlotAllocator {
+
+    private final LinkedList<HashMap<String, Integer>> scopes = new LinkedList<>();
+    private final LinkedList<Integer> scopeStarts = new LinkedList<>();
+    private int next = 0;
+    private int size = 0;
+
+    private FrameSlotAllocator() {
+    }
+
+    /**
+     * Gets the frame size of a function definition, assigning the slots of the function if it hasn't been done already
+     *
+     * @param definition a function or constructor definition
+     * @return the amount of slots needed to run the function
+     */
+    public static int getFrameSize(TypeAugmentedSemanticNode definition) {
+        FrameSizeTag tag = definition.getCompilationTag(FrameSizeTag.class);
+        if (tag == null) {
+            FrameSlotAllocator allocator = new FrameSlotAllocator();
+            tag = new FrameSizeTag(allocator.allocate(definition));
+            definition.addCompilationTag(tag);
+        }
+        return tag.getSize();
+    }
+
+    /**
+     * Gets the slot of a local variable
+     *
+     * @param id an id node
+     * @return the slot of the variable, or -1 if the id doesn't refer to a local variable
+     */
+    public static int getSlot(TypeAugmentedSemanticNode id) {
+        LocalSlotTag tag = id.getCompilationTag(LocalSlotTag.class);
+        if (tag == null) return -1;
+        return tag.getSlot();
+    }
+
+    private int allocate(TypeAugmentedSemanticNode definition) {
+        startScope();
+        for (TypeAugmentedSemanticNode parameter : definition.getASTChild(ASTNodeType.parameter_list).getChildren()) {
+            visit(parameter);
+        }
+        if (definition.containsCompilationTag(PriorConstructorTag.class)) {
+            visit(definition.getCompilationTag(PriorConstructorTag.class).getSequence());
+        }
+        visit(definition.getASTChild(ASTNodeType.compound_statement));
+        endScope();
+        return size;
+    }
+
+    private void startScope() {
+        scopes.push(new HashMap<>());
+        scopeStarts.push(next);
+    }
+
+    private void endScope() {
+        scopes.pop();
+        next = scopeStarts.pop();
+    }
+
+    private void visit(TypeAugmentedSemanticNode node) {
+        if (node == null) return;
+        switch (node.getASTType()) {
+            case compound_statement:
+            case for_cond:
+                startScope();
+                visitAll(node.getChildren());
+                endScope();
+                break;
+            case declaration: {
+                MultiDimensionalArrayWithSizeTag arrayTag = node.getCompilationTag(MultiDimensionalArrayWithSizeTag.class);
+                if (arrayTag != null) {
+                    visitAll(arrayTag.getExpressions());
+                }
+                TypeAugmentedSemanticNode id = node.getASTChild(ASTNodeType.id);
+                if (id != null && !id.containsCompilationTag(ResolvedPathTag.class)) {
+                    id.addCompilationTag(new LocalSlotTag(declare(id.getToken().getImage())));
+                }
+                break;
+            }
+            case id: {
+                if (node.containsCompilationTag(ResolvedPathTag.class) || node.containsCompilationTag(LocalSlotTag.class)) {
+                    break;
+                }
+                Integer slot = lookup(node.getToken().getImage());
+                if (slot != null) {
+                    node.addCompilationTag(new LocalSlotTag(slot));
+                }
+                break;
+            }
+            case field_get:
+                visit(node.getChild(0));
+                break;
+            case method_call:
+                if (!node.containsCompilationTag(SuperCallTag.class)) {
+                    visit(node.getChild(0));
+                }
+                visit(node.getASTChild(ASTNodeType.sequence));
+                break;
+            case function_call:
+            case constructor_call:
+                visit(node.getASTChild(ASTNodeType.sequence));
+                break;
+            default:
+                visitAll(node.getChildren());
+        }
+    }
+
+    private void visitAll(List<TypeAugmentedSemanticNode> nodes) {
+        for (TypeAugmentedSemanticNode node : nodes) {
+            visit(node);
+        }
+    }
+
+    private int declare(String name) {
+        Integer existing = scopes.peek().get(name);
+        if (existing != null) return existing;
+        int slot = next++;
+        size = Math.max(size, next);
+        scopes.peek().put(name, slot);
+        return slot;
+    }
+
+    private Integer lookup(String name) {
+        for (HashMap<String, Integer> scope : scopes) {
+            Integer slot = scope.get(name);
+            if (slot != null) return slot;
+        }
+        return null;
+    }
+}
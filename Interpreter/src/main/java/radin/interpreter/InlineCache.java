@@ -0,0 +1,62 @@
+package radin.interpreter;
+
+import radin.core.semantics.types.compound.CXClassType;
+
+import java.util.function.IntFunction;
+
+/**
+ * Remembers what a single method call site dispatched to for the last few classes of receivers, so that the method
+ * doesn't need to be looked up again. Once a call site has seen more classes than the cache can hold, new classes
+ * aren't added, and are instead dispatched through the {@link DispatchTable} of the class.
+ *
+ * @param <T> the type of the dispatched to function
+ */
+public class InlineCache<T> {
+
+    private static final int SIZE = 4;
+
+    private final CXClassType[] receivers = new CXClassType[SIZE];
+    private final T[] targets;
+    private int entries = 0;
+    private int virtualIndex = -1;
+
+    /**
+     * @param arrayFactory creates the array that holds the functions, such as {@code CompiledFunction[]::new}
+     */
+    public InlineCache(IntFunction<T[]> arrayFactory) {
+        this.targets = arrayFactory.apply(SIZE);
+    }
+
+    /**
+     * Gets the function dispatched to for a class of receiver
+     *
+     * @param receiver the class of the receiver
+     * @return the function, or null if the class hasn't been seen
+     */
+    public T get(CXClassType receiver) {
+        for (int i = 0; i < entries; i++) {
+            if (receivers[i] == receiver) return targets[i];
+        }
+        return null;
+    }
+
+    public void put(CXClassType receiver, T target) {
+        if (entries < SIZE) {
+            receivers[entries] = receiver;
+            targets[entries] = target;
+            entries++;
+        }
+    }
+
+    /**
+     * @return the index of the called method in the dispatch table, or -1 if the method isn't virtual or hasn't been
+     * looked up yet
+     */
+    public int getVirtualIndex() {
+        return virtualIndex;
+    }
+
+    public void setVirtualIndex(int virtualIndex) {
+        this.virtualIndex = virtualIndex;
+    }
+}
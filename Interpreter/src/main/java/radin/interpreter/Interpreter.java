@@ -14,11 +14,11 @@ import radin.core.semantics.types.ICXWrapper;
 import radin.core.semantics.types.TypedAbstractSyntaxNode;
 import radin.core.semantics.types.compound.CXClassType;
 import radin.core.semantics.types.compound.CXCompoundType;
-import radin.core.semantics.types.compound.ICXCompoundType;
 import radin.core.semantics.types.methods.CXConstructor;
 import radin.core.semantics.types.methods.CXMethod;
 import radin.core.semantics.types.methods.ParameterTypeList;
 import radin.core.semantics.types.primitives.*;
+import radin.core.semantics.types.wrapped.ConstantType;
 import radin.core.utility.ICompilationSettings;
 import radin.core.utility.Option;
 import radin.midanalysis.MethodTASNTracker;
@@ -26,7 +26,11 @@ import radin.midanalysis.TypeAugmentedSemanticNode;
 import radin.output.tags.*;
 
 import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Level;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -36,7 +40,7 @@ import static radin.core.utility.Option.Some;
 
 public class Interpreter {
     
-    private JodinLogger logger = ICompilationSettings.ilog;
+    protected JodinLogger logger = ICompilationSettings.ilog;
     private static final boolean LOG_STATE = true;
     
     public abstract class Instance <T extends CXType> {
@@ -83,29 +87,174 @@ public class Interpreter {
         }
     }
     
+    /**
+     * How the value of a {@link PrimitiveInstance} is stored. Numbers and characters are stored unboxed, and the kind
+     * remembers which boxed type the value would have had, so that {@link PrimitiveInstance#getBackingValue()} is
+     * unchanged. Anything else, such as the elements of an array, is stored as an object.
+     */
+    enum ValueKind {
+        OBJECT,
+        CHAR,
+        SHORT,
+        INT,
+        LONG,
+        FLOAT,
+        DOUBLE;
+        
+        boolean isFloatingPoint() {
+            return this == FLOAT || this == DOUBLE;
+        }
+    }
+    
     public class PrimitiveInstance <R, P extends AbstractCXPrimitiveType> extends Instance<P> {
         
         private R backingValue;
+        private ValueKind kind = ValueKind.OBJECT;
+        private long integral;
+        private double floating;
         private boolean unsigned;
         
         public PrimitiveInstance(P type, R backingValue, boolean unsigned) {
             super(type);
-            this.backingValue = backingValue;
-            // if (backingValue == null) if (log()) logger.warning("Shouldn't set backing value to null");
+            setBackingValue(backingValue);
+            // if (backingValue == null) if (log(Level.WARNING)) logger.warning("Shouldn't set backing value to null");
+            this.unsigned = unsigned;
+        }
+        
+        private PrimitiveInstance(PrimitiveInstance<R, ?> value, P type, boolean unsigned) {
+            super(type);
+            copyValueFrom(value);
+            this.unsigned = unsigned;
+        }
+        
+        /**
+         * Creates an instance without setting its value, for instances whose value is stored elsewhere
+         */
+        protected PrimitiveInstance(P type, boolean unsigned) {
+            super(type);
             this.unsigned = unsigned;
         }
         
         public R getBackingValue() {
-            return backingValue;
+            switch (kind) {
+                case CHAR:
+                    return (R) Character.valueOf((char) integral);
+                case SHORT:
+                    return (R) Short.valueOf((short) integral);
+                case INT:
+                    return (R) Integer.valueOf((int) integral);
+                case LONG:
+                    return (R) Long.valueOf(integral);
+                case FLOAT:
+                    return (R) Float.valueOf((float) floating);
+                case DOUBLE:
+                    return (R) Double.valueOf(floating);
+                default:
+                    return backingValue;
+            }
         }
         
         public void setBackingValue(R backingValue) {
-            this.backingValue = backingValue;
+            this.backingValue = null;
+            if (backingValue instanceof Character) {
+                setIntegral(ValueKind.CHAR, (Character) backingValue);
+            } else if (backingValue instanceof Double) {
+                setFloatingPoint(ValueKind.DOUBLE, (Double) backingValue);
+            } else if (backingValue instanceof Float) {
+                setFloatingPoint(ValueKind.FLOAT, (Float) backingValue);
+            } else if (backingValue instanceof Short) {
+                setIntegral(ValueKind.SHORT, (Short) backingValue);
+            } else if (backingValue instanceof Integer) {
+                setIntegral(ValueKind.INT, (Integer) backingValue);
+            } else if (backingValue instanceof Number) {
+                setIntegral(ValueKind.LONG, ((Number) backingValue).longValue());
+            } else {
+                this.kind = ValueKind.OBJECT;
+                this.backingValue = backingValue;
+            }
+        }
+        
+        /**
+         * Sets the value to an integral or character without boxing it
+         * @param kind the kind of the value
+         * @param value the value, which will be narrowed to the kind
+         */
+        void setIntegral(ValueKind kind, long value) {
+            this.kind = kind;
+            switch (kind) {
+                case CHAR:
+                    integral = (char) value;
+                    break;
+                case SHORT:
+                    integral = (short) value;
+                    break;
+                case INT:
+                    integral = (int) value;
+                    break;
+                default:
+                    integral = value;
+            }
+        }
+        
+        /**
+         * Sets the value to a floating point number without boxing it
+         * @param kind the kind of the value
+         * @param value the value, which will be narrowed to the kind
+         */
+        void setFloatingPoint(ValueKind kind, double value) {
+            this.kind = kind;
+            floating = kind == ValueKind.FLOAT ? (float) value : value;
+        }
+        
+        void copyValueFrom(PrimitiveInstance<?, ?> other) {
+            ValueKind otherKind = other.getKind();
+            if (otherKind.isFloatingPoint()) {
+                setFloatingPoint(otherKind, other.doubleValue());
+            } else if (otherKind != ValueKind.OBJECT) {
+                setIntegral(otherKind, other.longValue());
+            } else {
+                this.kind = ValueKind.OBJECT;
+                this.backingValue = (R) other.backingValue;
+            }
+        }
+        
+        ValueKind getKind() {
+            return kind;
+        }
+        
+        /**
+         * @return whether the value is a number or a character, and so stored unboxed
+         */
+        boolean isScalar() {
+            return kind != ValueKind.OBJECT;
+        }
+        
+        long longValue() {
+            if (kind.isFloatingPoint()) return (long) floating;
+            return integral;
+        }
+        
+        int intValue() {
+            if (kind.isFloatingPoint()) return (int) floating;
+            return (int) integral;
+        }
+        
+        double doubleValue() {
+            if (kind.isFloatingPoint()) return floating;
+            return integral;
+        }
+        
+        char charValue() {
+            return (char) integral;
+        }
+        
+        boolean isUnsigned() {
+            return unsigned;
         }
         
         @Override
         public String toString() {
-            return "(" + getType() + ") " + backingValue;
+            return "(" + getType() + ") " + getBackingValue();
         }
         
         @Override
@@ -115,9 +264,9 @@ public class Interpreter {
             }
             
             if (other == null) {
-                this.backingValue = (R) Integer.valueOf(0);
+                setIntegral(ValueKind.INT, 0);
             } else {
-                this.backingValue = ((PrimitiveInstance<R, P>) other).backingValue;
+                copyValueFrom((PrimitiveInstance<?, ?>) other);
             }
         }
         
@@ -127,100 +276,54 @@ public class Interpreter {
             if (o == null || getClass() != o.getClass()) return false;
             PrimitiveInstance<?, ?> that = (PrimitiveInstance<?, ?>) o;
             return unsigned == that.unsigned &&
-                    Objects.equals(backingValue, that.backingValue);
+                    Objects.equals(getBackingValue(), that.getBackingValue());
         }
         
         
         @Override
         boolean isFalse() {
-            if (backingValue instanceof Number) {
-                if (backingValue instanceof Double) {
-                    return ((Number) this.backingValue).doubleValue() == 0;
-                } else {
-                    return ((Number) this.backingValue).longValue() == 0;
-                }
-                
+            if (kind.isFloatingPoint()) {
+                return floating == 0;
+            } else if (isScalar()) {
+                return integral == 0;
             }
-            if (backingValue instanceof Character) return ((Character) backingValue).charValue() == 0;
             return true;
         }
         
         @Override
         public int hashCode() {
-            return Objects.hash(backingValue, unsigned);
+            return Objects.hash(getBackingValue(), unsigned);
         }
         
         @Override
         Instance<P> copy() {
-            return new PrimitiveInstance<R, P>(getType(), backingValue, unsigned);
+            return new PrimitiveInstance<R, P>(this, getType(), unsigned);
         }
         
         @Override
         Instance<?> castTo(CXType castingTo) throws InvalidPrimitiveException {
-            if (backingValue instanceof Number) {
-                if (castingTo.equals(CXPrimitiveType.INTEGER)) {
-                    return new PrimitiveInstance<>(CXPrimitiveType.INTEGER, (int) ((Number) backingValue).intValue(),
-                            false);
-                } else if (castingTo.equals(CXPrimitiveType.DOUBLE)) {
-                    return new PrimitiveInstance<>(CXPrimitiveType.DOUBLE, (double) ((Number) backingValue).doubleValue(),
-                            false);
-                } else if (castingTo.equals(CXPrimitiveType.FLOAT)) {
-                    return new PrimitiveInstance<>(CXPrimitiveType.DOUBLE, ((Number) backingValue).floatValue(),
-                            false);
-                } else if (castingTo.equals(CXPrimitiveType.CHAR)) {
-                    return new PrimitiveInstance<>(CXPrimitiveType.CHAR, (char) ((Number) backingValue).intValue(),
-                            false);
-                } else if (castingTo.equals(CXPrimitiveType.VOID)) {
-                    return null;
-                } else if (castingTo instanceof LongPrimitive) {
-                    return new PrimitiveInstance<>(LongPrimitive.create(), (long) ((Number) backingValue).longValue(), false);
-                } else if (castingTo instanceof ShortPrimitive) {
-                    return new PrimitiveInstance<>(new ShortPrimitive((CXPrimitiveType) getType()),
-                            (short) ((Number) backingValue).shortValue(),
-                            false);
-                } else if (castingTo instanceof UnsignedPrimitive) {
-                    UnsignedPrimitive to = (UnsignedPrimitive) castingTo;
-                    PrimitiveInstance<Number, AbstractCXPrimitiveType> primitiveInstance =
-                            (PrimitiveInstance<Number, AbstractCXPrimitiveType>) castTo(to.getPrimitiveCXType());
-                    return new PrimitiveInstance<>(primitiveInstance.getType(), backingValue, true);
-                } else if (castingTo instanceof PointerType &&
-                        ((Number) this.backingValue).intValue() == 0
-                ) {
-                    return new PointerInstance<>(((PointerType) castingTo).getSubType(),
-                            new ArrayList<>(Collections.singletonList(null)), 0);
-                }
-            } else if (backingValue instanceof Character) {
+            if (isScalar()) {
                 if (castingTo.equals(CXPrimitiveType.INTEGER)) {
-                    return new PrimitiveInstance<>(CXPrimitiveType.INTEGER,
-                            (int) ((Character) backingValue).charValue(),
-                            false);
+                    return integralInstance(CXPrimitiveType.INTEGER, ValueKind.INT, intValue(), false);
                 } else if (castingTo.equals(CXPrimitiveType.DOUBLE)) {
-                    return new PrimitiveInstance<>(CXPrimitiveType.DOUBLE, (double) ((Character) backingValue).charValue(),
-                            false);
+                    return floatingPointInstance(CXPrimitiveType.DOUBLE, ValueKind.DOUBLE, doubleValue(), false);
                 } else if (castingTo.equals(CXPrimitiveType.FLOAT)) {
-                    return new PrimitiveInstance<>(CXPrimitiveType.DOUBLE, (float) ((Character) backingValue).charValue(),
-                            false);
+                    return floatingPointInstance(CXPrimitiveType.DOUBLE, ValueKind.FLOAT, doubleValue(), false);
                 } else if (castingTo.equals(CXPrimitiveType.CHAR)) {
-                    return new PrimitiveInstance<>(CXPrimitiveType.CHAR, (char) ((Character) backingValue).charValue(),
-                            false);
-                } else if (castingTo.equals(CXPrimitiveType.CHAR)) {
-                    return new PrimitiveInstance<>(CXPrimitiveType.CHAR, (char) ((Character) backingValue).charValue(),
-                            false);
+                    return integralInstance(CXPrimitiveType.CHAR, ValueKind.CHAR, intValue(), false);
                 } else if (castingTo.equals(CXPrimitiveType.VOID)) {
                     return null;
                 } else if (castingTo instanceof LongPrimitive) {
-                    return new PrimitiveInstance<>(LongPrimitive.create(), (long) ((Character) backingValue).charValue(), false);
+                    return integralInstance(LongPrimitive.create(), ValueKind.LONG, longValue(), false);
                 } else if (castingTo instanceof ShortPrimitive) {
-                    return new PrimitiveInstance<>(new ShortPrimitive((CXPrimitiveType) getType()), (short) ((Character) backingValue).charValue(),
+                    return integralInstance(new ShortPrimitive((CXPrimitiveType) getType()), ValueKind.SHORT, intValue(),
                             false);
                 } else if (castingTo instanceof UnsignedPrimitive) {
                     UnsignedPrimitive to = (UnsignedPrimitive) castingTo;
                     PrimitiveInstance<Number, AbstractCXPrimitiveType> primitiveInstance =
                             (PrimitiveInstance<Number, AbstractCXPrimitiveType>) castTo(to.getPrimitiveCXType());
-                    return new PrimitiveInstance<>(primitiveInstance.getType(), backingValue, true);
-                } else if (castingTo instanceof PointerType &&
-                        ((Number) this.backingValue).intValue() == 0
-                ) {
+                    return new PrimitiveInstance<>(this, primitiveInstance.getType(), true);
+                } else if (castingTo instanceof PointerType && intValue() == 0) {
                     return new PointerInstance<>(((PointerType) castingTo).getSubType(),
                             new ArrayList<>(Collections.singletonList(null)), 0);
                 }
@@ -231,6 +334,26 @@ public class Interpreter {
 
     }
     
+    /**
+     * Creates an integral or character instance without boxing its value
+     */
+    <P extends AbstractCXPrimitiveType> PrimitiveInstance<Number, P> integralInstance(P type, ValueKind kind, long value,
+                                                                                   boolean unsigned) {
+        PrimitiveInstance<Number, P> instance = new PrimitiveInstance<>(type, null, unsigned);
+        instance.setIntegral(kind, value);
+        return instance;
+    }
+    
+    /**
+     * Creates a floating point instance without boxing its value
+     */
+    <P extends AbstractCXPrimitiveType> PrimitiveInstance<Number, P> floatingPointInstance(P type, ValueKind kind,
+                                                                                        double value, boolean unsigned) {
+        PrimitiveInstance<Number, P> instance = new PrimitiveInstance<>(type, null, unsigned);
+        instance.setFloatingPoint(kind, value);
+        return instance;
+    }
+    
     public class SegmentationFault extends Error {
         
         public SegmentationFault() {
@@ -249,6 +372,273 @@ public class Interpreter {
         }
     }
     
+    /**
+     * The elements of an array of numbers or characters, stored in a single Java array of the matching primitive type
+     * instead of one instance per element. Pointers into the array share the storage.
+     * <p>
+     * Getting an element creates an {@link ElementInstance}, which reads and writes the storage directly. The
+     * {@link #loadInto(int, PrimitiveInstance)} and {@link #storeFrom(int, PrimitiveInstance)} methods access an
+     * element without creating an instance.
+     * </p>
+     */
+    public class FlatStorage <R extends CXType> extends AbstractList<Instance<R>> {
+        
+        private final AbstractCXPrimitiveType elementType;
+        private final ValueKind kind;
+        private final boolean unsigned;
+        private final int size;
+        private char[] chars;
+        private short[] shorts;
+        private int[] ints;
+        private long[] longs;
+        private float[] floats;
+        private double[] doubles;
+        
+        /**
+         * @param prototype the default value of an element
+         * @param kind how elements are stored, wide enough for every value of the element type
+         * @param size the amount of elements
+         */
+        public FlatStorage(PrimitiveInstance<?, ?> prototype, ValueKind kind, int size) {
+            this.elementType = prototype.getType();
+            this.kind = kind;
+            this.unsigned = prototype.isUnsigned();
+            this.size = size;
+            switch (kind) {
+                case CHAR:
+                    chars = new char[size];
+                    break;
+                case SHORT:
+                    shorts = new short[size];
+                    break;
+                case INT:
+                    ints = new int[size];
+                    break;
+                case LONG:
+                    longs = new long[size];
+                    break;
+                case FLOAT:
+                    floats = new float[size];
+                    break;
+                case DOUBLE:
+                    doubles = new double[size];
+                    break;
+                default:
+                    throw new IllegalArgumentException("Elements of kind " + kind + " can't be stored flat");
+            }
+        }
+        
+        public AbstractCXPrimitiveType getElementType() {
+            return elementType;
+        }
+        
+        long getLong(int position) {
+            switch (kind) {
+                case CHAR:
+                    return chars[position];
+                case SHORT:
+                    return shorts[position];
+                case INT:
+                    return ints[position];
+                case LONG:
+                    return longs[position];
+                case FLOAT:
+                    return (long) floats[position];
+                default:
+                    return (long) doubles[position];
+            }
+        }
+        
+        double getDouble(int position) {
+            switch (kind) {
+                case FLOAT:
+                    return floats[position];
+                case DOUBLE:
+                    return doubles[position];
+                default:
+                    return getLong(position);
+            }
+        }
+        
+        void setLong(int position, long value) {
+            switch (kind) {
+                case CHAR:
+                    chars[position] = (char) value;
+                    break;
+                case SHORT:
+                    shorts[position] = (short) value;
+                    break;
+                case INT:
+                    ints[position] = (int) value;
+                    break;
+                case LONG:
+                    longs[position] = value;
+                    break;
+                case FLOAT:
+                    floats[position] = value;
+                    break;
+                default:
+                    doubles[position] = value;
+            }
+        }
+        
+        void setDouble(int position, double value) {
+            switch (kind) {
+                case FLOAT:
+                    floats[position] = (float) value;
+                    break;
+                case DOUBLE:
+                    doubles[position] = value;
+                    break;
+                default:
+                    setLong(position, (long) value);
+            }
+        }
+        
+        boolean isZero(int position) {
+            return kind.isFloatingPoint() ? getDouble(position) == 0 : getLong(position) == 0;
+        }
+        
+        /**
+         * Copies an element into an existing instance
+         */
+        void loadInto(int position, PrimitiveInstance<?, ?> target) {
+            if (kind.isFloatingPoint()) {
+                target.setFloatingPoint(kind, getDouble(position));
+            } else {
+                target.setIntegral(kind, getLong(position));
+            }
+        }
+        
+        /**
+         * Creates a new instance holding a copy of an element
+         */
+        PrimitiveInstance<Number, AbstractCXPrimitiveType> load(int position) {
+            if (kind.isFloatingPoint()) {
+                return floatingPointInstance(elementType, kind, getDouble(position), unsigned);
+            }
+            return integralInstance(elementType, kind, getLong(position), unsigned);
+        }
+        
+        /**
+         * Sets an element to the value of a number or character
+         */
+        void storeFrom(int position, PrimitiveInstance<?, ?> value) {
+            if (value.getKind().isFloatingPoint()) {
+                setDouble(position, value.doubleValue());
+            } else if (value.isScalar()) {
+                setLong(position, value.longValue());
+            } else {
+                throw new IllegalStateException("Can't store " + value + " in an array of " + elementType);
+            }
+        }
+        
+        @Override
+        public Instance<R> get(int position) {
+            if (position < 0 || position >= size) {
+                throw new IndexOutOfBoundsException("Index " + position + " out of bounds of size " + size);
+            }
+            return (Instance<R>) new ElementInstance(this, position);
+        }
+        
+        @Override
+        public Instance<R> set(int position, Instance<R> value) {
+            Instance<R> previous = (Instance<R>) load(position);
+            Instance<?> stored = value instanceof NullableInstance ? ((NullableInstance<?, ?>) value).getValue() : value;
+            if (stored == null) {
+                setLong(position, 0);
+            } else {
+                storeFrom(position, (PrimitiveInstance<?, ?>) stored);
+            }
+            return previous;
+        }
+        
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+    
+    /**
+     * An element of a {@link FlatStorage}. The value isn't kept in the instance, so changes made through the instance
+     * or the storage are always seen by both.
+     */
+    public class ElementInstance extends PrimitiveInstance<Object, AbstractCXPrimitiveType> {
+        
+        private final FlatStorage<?> storage;
+        private final int position;
+        
+        public ElementInstance(FlatStorage<?> storage, int position) {
+            super(storage.elementType, storage.unsigned);
+            this.storage = storage;
+            this.position = position;
+        }
+        
+        @Override
+        public Object getBackingValue() {
+            return storage.load(position).getBackingValue();
+        }
+        
+        @Override
+        public void setBackingValue(Object backingValue) {
+            if (backingValue == null) {
+                storage.setLong(position, 0);
+            } else {
+                super.setBackingValue(backingValue);
+            }
+        }
+        
+        @Override
+        void setIntegral(ValueKind kind, long value) {
+            storage.setLong(position, value);
+        }
+        
+        @Override
+        void setFloatingPoint(ValueKind kind, double value) {
+            storage.setDouble(position, value);
+        }
+        
+        @Override
+        void copyValueFrom(PrimitiveInstance<?, ?> other) {
+            storage.storeFrom(position, other);
+        }
+        
+        @Override
+        ValueKind getKind() {
+            return storage.kind;
+        }
+        
+        @Override
+        boolean isScalar() {
+            return true;
+        }
+        
+        @Override
+        long longValue() {
+            return storage.getLong(position);
+        }
+        
+        @Override
+        int intValue() {
+            return (int) storage.getLong(position);
+        }
+        
+        @Override
+        double doubleValue() {
+            return storage.getDouble(position);
+        }
+        
+        @Override
+        char charValue() {
+            return (char) storage.getLong(position);
+        }
+        
+        @Override
+        boolean isFalse() {
+            return storage.isZero(position);
+        }
+    }
+    
     interface SemiIndirection<R extends CXType, I extends Instance<R>> {
         I getValue();
         PointerInstance<R> asPointer();
@@ -337,21 +727,18 @@ public class Interpreter {
      * @param <T> Type of Array
      */
     public class ArrayInstance <R extends CXType, T extends ArrayType>
-            extends PrimitiveInstance<ArrayList<Instance<R>>, T> {
+            extends PrimitiveInstance<List<Instance<R>>, T> {
         
         protected int size;
         private R subType;
         
         public ArrayInstance(T type, R subtype, int size) {
-            super(type, new ArrayList<>(size), true);
+            super(type, createArrayStorage(subtype, size), true);
             this.subType = subtype;
-            for (int i = 0; i < size; i++) {
-                getBackingValue().add(((Instance<R>) defaultValue(subtype)));
-            }
             this.size = size;
         }
         
-        public ArrayInstance(T type, R subType, ArrayList<Instance<R>> other) {
+        public ArrayInstance(T type, R subType, List<Instance<R>> other) {
             super(type,
                     other,
                     true);
@@ -377,6 +764,31 @@ public class Interpreter {
 
 
 
+        /**
+         * @return the storage of the elements if they are stored flat, or null
+         */
+        public FlatStorage<R> getFlatStorage() {
+            List<Instance<R>> backingValue = getBackingValue();
+            if (backingValue instanceof FlatStorage) return (FlatStorage<R>) backingValue;
+            return null;
+        }
+        
+        /**
+         * Gets the position of an element in the backing storage, which is shared with pointers into the array
+         * @param index the index of the element relative to this array or pointer
+         * @return the position
+         */
+        public int positionOf(int index) {
+            int position = index + getOffset();
+            if (position >= getBackingValue().size()) throw new SegmentationFault("Index " + position + " out of " +
+                    "bounds of size " + getBackingValue().size());
+            return position;
+        }
+        
+        protected int getOffset() {
+            return 0;
+        }
+        
         public SemiIndirection<R, Instance<R>> getAt(int index) {
             if (index >= getBackingValue().size()) throw new SegmentationFault("Index " + index + " out of bounds of " +
                     "size " + getBackingValue().size());
@@ -423,7 +835,7 @@ public class Interpreter {
                 
                 try {
                     for (int i = 0; i < getSize() && getAt(i).getValue() != null; i++) {
-                        output.append(((PrimitiveInstance<Character, ?>) getAt(i).getValue()).backingValue);
+                        output.append(((PrimitiveInstance<Character, ?>) getAt(i).getValue()).getBackingValue());
                     }
                 }catch (IndexOutOfBoundsException e) {
                     throw new SegmentationFault(e);
@@ -451,7 +863,7 @@ public class Interpreter {
                 try {
                     for (int i = 0; i < getSize() && getAt(i).getValue() != null; i++) {
                         
-                        char backingValue = ((PrimitiveInstance<Character, ?>) getAtNoIndirection(i)).backingValue;
+                        char backingValue = ((PrimitiveInstance<Character, ?>) getAtNoIndirection(i)).getBackingValue();
                         if (backingValue != '\0') {
                             output.append(backingValue);
                         }
@@ -543,7 +955,7 @@ public class Interpreter {
         }
         
         public PointerInstance(R type,
-                               ArrayList<Instance<R>> backing,
+                               List<Instance<R>> backing,
                                int offset) {
             super(type.toPointer(), type, backing);
             index = offset;
@@ -557,6 +969,11 @@ public class Interpreter {
             return new PointerInstance<R>(getSubType(), getBackingValue(), index + offset);
         }
         
+        @Override
+        protected int getOffset() {
+            return index;
+        }
+        
 
         public Instance<R> getPointer() {
             if (getBackingValue().size() == 0) return null;
@@ -705,7 +1122,7 @@ public class Interpreter {
         
         @Override
         boolean isFalse() {
-            return copy().isFalse();
+            return location.getAtNoIndirection(location.index).isFalse();
         }
         
         @Override
@@ -724,26 +1141,54 @@ public class Interpreter {
     
     public class CompoundInstance <T extends CXCompoundType> extends Instance<T> {
         
-        private HashMap<String, Instance<?>> fields;
+        private final ObjectShape shape;
+        private final Instance<?>[] fields;
         
         public CompoundInstance(T type) {
             super(type);
-            this.fields = new HashMap<>();
-            for (ICXCompoundType.FieldDeclaration field : type.getAllFields()) {
-                fields.put(field.getName(), defaultValue(field.getType()));
+            this.shape = Interpreter.this.getShape(type);
+            this.fields = new Instance<?>[shape.size()];
+            for (int i = 0; i < fields.length; i++) {
+                fields[i] = defaultValue(shape.getFieldType(i));
             }
         }
         
+        private CompoundInstance(T type, ObjectShape shape, Instance<?>[] fields) {
+            super(type);
+            this.shape = shape;
+            this.fields = fields;
+        }
+        
+        public ObjectShape getShape() {
+            return shape;
+        }
+        
         public <R extends CXType, I extends Instance<R>> I get(String key) {
-            return (I) fields.get(key);
+            int slot = shape.slotOf(key);
+            if (slot < 0) return null;
+            return (I) fields[slot];
+        }
+        
+        /**
+         * Gets a field by its slot in the shape of this instance
+         * @param slot the slot
+         * @return the field
+         */
+        public <R extends CXType, I extends Instance<R>> I get(int slot) {
+            return (I) fields[slot];
         }
         
         @Override
         void copyFrom(Instance<?> other) {
             assert other instanceof CompoundInstance;
-            
-            for (String s : fields.keySet()) {
-                this.fields.replace(s, ((CompoundInstance<CXCompoundType>) other).fields.get(s));
+            CompoundInstance<?> compoundInstance = (CompoundInstance<?>) other;
+            if (compoundInstance.shape == shape) {
+                System.arraycopy(compoundInstance.fields, 0, fields, 0, fields.length);
+                return;
+            }
+            for (int i = 0; i < fields.length; i++) {
+                int slot = compoundInstance.shape.slotOf(shape.getFieldName(i));
+                fields[i] = slot < 0 ? null : compoundInstance.fields[slot];
             }
         }
         
@@ -754,11 +1199,7 @@ public class Interpreter {
         
         @Override
         Instance<T> copy() {
-            CompoundInstance<T> tCompoundInstance = new CompoundInstance<>(getType());
-            for (Map.Entry<String, Instance<?>> stringInstanceEntry : fields.entrySet()) {
-                tCompoundInstance.fields.put(stringInstanceEntry.getKey(), stringInstanceEntry.getValue());
-            }
-            return tCompoundInstance;
+            return new CompoundInstance<>(getType(), shape, fields.clone());
         }
         
         @Override
@@ -808,15 +1249,19 @@ public class Interpreter {
     }
     
     
-    private class StackTraceInfo {
+    class StackTraceInfo {
         
         private Token function;
+        /**
+         * The last node run in this function, the token is only found from it when the stack trace is printed
+         */
+        private TypeAugmentedSemanticNode currentNode;
         private Token currentToken;
         private HashMap<String, Instance<?>> stackVariables;
         
         public StackTraceInfo(Token function) {
             this.function = function;
-            this.currentToken = nearestCurrentToken;
+            this.currentNode = nearestCurrentNode;
             stackVariables = new HashMap<>();
         }
         
@@ -828,34 +1273,92 @@ public class Interpreter {
             return stackVariables;
         }
         
+        public void setCurrentNode(TypeAugmentedSemanticNode currentNode) {
+            this.currentNode = currentNode;
+            this.currentToken = null;
+        }
+        
         public void setCurrentToken(Token currentToken) {
             this.currentToken = currentToken;
         }
         
         @Override
         public String toString() {
-            if (function.getFilename() != null)
+            Token currentToken = this.currentToken;
+            if (currentToken == null && currentNode != null) {
+                currentToken = closestToken(currentNode);
+            }
+            if (function.getFilename() != null && currentToken != null)
                 return function.getImage() + "(" + currentToken.getFilename() + ":" + currentToken.getActualLineNumber() + ")";
             return function.getImage();
         }
     }
     
-    private TypeEnvironment environment;
+    protected TypeEnvironment environment;
     private SymbolTable<CXIdentifier, TypeAugmentedSemanticNode> symbols;
     
-    private Stack<HashMap<String, Instance<?>>> autoVariables = new Stack<>();
-    private Instance<?> returnValue;
-    private final Stack<Instance<?>> memStack = new Stack<>();
-    private final Stack<Instance<?>> arguments = new Stack<>();
+    private static final Instance<?>[] EMPTY_FRAME = new Instance<?>[0];
+    
+    /**
+     * The frames of the functions being run, where every local variable has a slot assigned by the
+     * {@link FrameSlotAllocator}
+     */
+    private Stack<Instance<?>[]> autoVariables = new Stack<>();
+    protected Instance<?> returnValue;
+    /**
+     * Set when a return statement is executed, so that the statements containing it stop running. Cleared by the call
+     * that invoked the function using {@link #completeReturn()}.
+     */
+    private boolean returning = false;
+    /**
+     * The function called by a return statement tagged as a tail call, whose arguments have already been pushed. It's
+     * called by {@link #completeTailCalls()} once the frame of the function that returned has ended.
+     */
+    private TypeAugmentedSemanticNode tailCall;
+    /**
+     * The amount of calls that can be made on a single stack segment before the next call continues on a new one
+     */
+    private static final int CALLS_PER_SEGMENT = 1024;
+    /**
+     * The size of the stack of every segment
+     */
+    private static final long SEGMENT_SIZE = 16L << 20;
+    private boolean segmentedStack = false;
+    /**
+     * The amount of calls running on the current stack segment
+     */
+    private int segmentDepth = 0;
+    /**
+     * The amount of bytes allocated by stack segments that have finished
+     */
+    private long segmentAllocatedBytes = 0;
+    protected final Stack<Instance<?>> memStack = new Stack<>();
+    protected final Stack<Instance<?>> arguments = new Stack<>();
     private Stack<Integer> previousMemStackSize = new Stack<>();
-    private Stack<StackTraceInfo> stackTrace = new Stack<>();
-    private HashMap<CXIdentifier, Instance<?>> globalAutoVariables;
-    private Stack<PointerInstance<CXClassType>> thisStack = new Stack<>();
-    private Stack<Boolean> useThisStack = new Stack<>();
+    protected Stack<StackTraceInfo> stackTrace = new Stack<>();
+    protected HashMap<CXIdentifier, Instance<?>> globalAutoVariables;
+    protected Stack<PointerInstance<CXClassType>> thisStack = new Stack<>();
+    protected Stack<Boolean> useThisStack = new Stack<>();
     
     private FileHandler fileHandler = new FileHandler();
+    /**
+     * The dispatch tables of every class, built when the interpreter is created
+     */
+    private final Map<CXClassType, DispatchTable> dispatchTables = new IdentityHashMap<>();
+    /**
+     * The inline caches of method call sites, by the method call node
+     */
+    private final Map<TypeAugmentedSemanticNode, InlineCache<TypeAugmentedSemanticNode>> callSiteCaches =
+            new IdentityHashMap<>();
+    /**
+     * The field layouts of every compound type, with the layouts of classes built when the interpreter is created
+     */
+    private final Map<CXCompoundType, ObjectShape> shapes = new IdentityHashMap<>();
     
-    private Token nearestCurrentToken = null;
+    /**
+     * The node being run, recorded into the top of the stack trace when a function is called or an error is thrown
+     */
+    private TypeAugmentedSemanticNode nearestCurrentNode = null;
     private boolean log;
     private boolean main_started = false;
     private boolean log_after_main = true;
@@ -864,17 +1367,26 @@ public class Interpreter {
     public Interpreter(TypeEnvironment environment, SymbolTable<CXIdentifier, TypeAugmentedSemanticNode> symbols) {
         this.environment = environment;
         this.symbols = symbols;
-        autoVariables.add(new HashMap<>());
+        autoVariables.add(EMPTY_FRAME);
         log = System.getenv("LOG_INTERPRETER") != null && System.getenv("LOG_INTERPRETER").equals("true");
         if (log()) {
             System.out.println("Logging Interpreter information");
         }
-        if (log()) logger.info("Adding symbols and global variables to symbol table");
+        if (log(Level.INFO)) logger.info("Adding symbols and global variables to symbol table");
+        for (Map.Entry<SymbolTable<CXIdentifier, TypeAugmentedSemanticNode>.Key, TypeAugmentedSemanticNode> symbol : this.symbols) {
+            if (symbol.getValue() != null && symbol.getValue().getASTType() == ASTNodeType.function_definition) {
+                TailCallAnalyzer.markTailCalls(symbol.getValue(), this::getSymbol);
+            }
+        }
         /*List<Map.Entry<SymbolTable<CXIdentifier, TypeAugmentedSemanticNode>.Key, TypeAugmentedSemanticNode>> entries =
                 new ArrayList<>(this.symbols.entrySet());
                 
          */
         useThisStack.push(false);
+        for (CXClassType cxClassType : environment.getAllCreated()) {
+            dispatchTables.put(cxClassType, new DispatchTable(cxClassType));
+            shapes.put(cxClassType, new ObjectShape(cxClassType));
+        }
         Queue<Map.Entry<SymbolTable<CXIdentifier, TypeAugmentedSemanticNode>.Key, TypeAugmentedSemanticNode>> queue =
                 new ArrayDeque<>(this.symbols.entrySet());
         globalAutoVariables = new HashMap<>();
@@ -890,26 +1402,26 @@ public class Interpreter {
                 if (symbol.getValue().getTreeType() != ASTNodeType.empty) {
                     try {
                         Instance<?> newInstance = createNewInstance(symbol.getKey().getType());
-                        if (log()) logger.info("Generating usable value for " + symbol.getKey());
+                        if (log(Level.INFO)) logger.info("Generating usable value for " + symbol.getKey());
                         if (!invoke(symbol.getValue())) throw new IllegalStateException();
                         if (memStack.peek() == null) {
                             memStack.pop();
-                            if (log()) logger.info("No usable value for " + symbol.getKey() + " created...");
-                            if (log()) logger.info("Will retry later");
+                            if (log(Level.INFO)) logger.info("No usable value for " + symbol.getKey() + " created...");
+                            if (log(Level.INFO)) logger.info("Will retry later");
                             queue.add(symbol);
                             continue;
                         }
-                        if (log()) logger.fine("Added " + symbol.getKey().getType() + " " + symbol.getKey().getToken() + " with " +
+                        if (log(Level.FINE)) logger.fine("Added " + symbol.getKey().getType() + " " + symbol.getKey().getToken() + " with " +
                                 "value " + memStack.peek());
                         //addAutoVariable(symbol.getKey().getToken().getImage(), newInstance);
                         globalAutoVariables.put(symbol.getKey().getKey(), newInstance);
                         newInstance.copyFrom(pop());
-                    } catch (FunctionReturned | EarlyExit | JodinNullPointerException functionReturned) {
+                    } catch (EarlyExit | JodinNullPointerException e) {
                         throw new IllegalStateException();
                     }
                 } else {
                     Instance<?> newInstance = createNewInstance(symbol.getKey().getType());
-                    if (log()) logger.fine("Added " + symbol.getKey().getToken() + " with default value " + newInstance);
+                    if (log(Level.FINE)) logger.fine("Added " + symbol.getKey().getToken() + " with default value " + newInstance);
                     globalAutoVariables.put(symbol.getKey().getKey(), newInstance);
                     /*
                     addAutoVariable(symbol.getKey().getToken().getImage(),
@@ -929,9 +1441,9 @@ public class Interpreter {
                 if (symbol.getValue().getTreeType() != ASTNodeType.empty) {
                     try {
                         Instance<?> newInstance = createNewInstance(symbol.getKey().getType());
-                        if (log()) logger.info("Generating usable value for " + symbol.getKey());
+                        if (log(Level.INFO)) logger.info("Generating usable value for " + symbol.getKey());
                         if (!invoke(symbol.getValue())) throw new IllegalStateException();
-                        if (log()) logger.fine("Added " + symbol.getKey().getType() + " " + symbol.getKey().getToken() + " with " +
+                        if (log(Level.FINE)) logger.fine("Added " + symbol.getKey().getType() + " " + symbol.getKey().getToken() + " with " +
                                 "value " + memStack.peek());
                         addAutoVariable(symbol.getKey().getToken().getImage(), newInstance);
                         newInstance.copyFrom(pop());
@@ -940,7 +1452,7 @@ public class Interpreter {
                     }
                 } else {
                     Instance<?> newInstance = createNewInstance(symbol.getKey().getType());
-                    if (log()) logger.fine("Added " + symbol.getKey().getToken() + " with default value " + newInstance);
+                    if (log(Level.FINE)) logger.fine("Added " + symbol.getKey().getToken() + " with default value " + newInstance);
                     addAutoVariable(symbol.getKey().getToken().getImage(),
                             newInstance);
                 }
@@ -951,7 +1463,97 @@ public class Interpreter {
         //globalAutoVariables = autoVariables.peek();
     }
     
-    private boolean log() {
+    /**
+     * Determines if deep recursion continues on new stack segments, each run by its own thread with a large stack,
+     * instead of overflowing the stack of the thread running the interpreter. The depth of recursion is then limited
+     * by the memory available, not the stack size of the JVM.
+     *
+     * @param segmentedStack whether to use a segmented stack
+     */
+    public void setSegmentedStack(boolean segmentedStack) {
+        this.segmentedStack = segmentedStack;
+    }
+    
+    protected boolean isSegmentedStack() {
+        return segmentedStack;
+    }
+    
+    /**
+     * A call of a function, method or constructor, which can be moved onto a new stack segment
+     */
+    @FunctionalInterface
+    protected interface SegmentedCall<T> {
+        T call() throws EarlyExit, JodinNullPointerException;
+    }
+    
+    /**
+     * Makes a call on the current stack segment, or on a new stack segment if the current one is full. The thread
+     * running the current segment waits for the new one to finish, so the interpreter only ever runs on one thread at
+     * a time.
+     *
+     * @param call the call
+     * @return the result of the call
+     */
+    protected <T> T callOnStack(SegmentedCall<T> call) throws EarlyExit, JodinNullPointerException {
+        if (!segmentedStack) return call.call();
+        if (segmentDepth < CALLS_PER_SEGMENT) {
+            segmentDepth++;
+            try {
+                return call.call();
+            } finally {
+                segmentDepth--;
+            }
+        }
+        
+        int depth = segmentDepth;
+        segmentDepth = 0;
+        try {
+            return callOnNewSegment(call);
+        } finally {
+            segmentDepth = depth;
+        }
+    }
+    
+    /**
+     * Makes a call on a new stack segment, waiting for it to finish
+     *
+     * @param call the call
+     * @return the result of the call
+     */
+    private <T> T callOnNewSegment(SegmentedCall<T> call) throws EarlyExit, JodinNullPointerException {
+        AtomicReference<T> result = new AtomicReference<>();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread segment = new Thread(null, () -> {
+            try {
+                result.set(call.call());
+            } catch (Throwable e) {
+                failure.set(e);
+            } finally {
+                if (log(Level.INFO)) segmentAllocatedBytes += Math.max(allocatedBytes(), 0);
+            }
+        }, "interpreter-stack-segment", SEGMENT_SIZE);
+        if (log(Level.FINE)) logger.fine("Continuing on a new stack segment");
+        segment.start();
+        boolean interrupted = false;
+        while (true) {
+            try {
+                segment.join();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) Thread.currentThread().interrupt();
+        
+        Throwable e = failure.get();
+        if (e instanceof EarlyExit) throw (EarlyExit) e;
+        if (e instanceof JodinNullPointerException) throw (JodinNullPointerException) e;
+        if (e instanceof RuntimeException) throw (RuntimeException) e;
+        if (e instanceof Error) throw (Error) e;
+        return result.get();
+    }
+    
+    protected boolean log() {
         if (!log_after_main) {
             return log;
         }
@@ -959,40 +1561,72 @@ public class Interpreter {
         return log && (!log_after_main || main_started);
     }
     
+    /**
+     * Whether the interpreter is logging and the logger would keep a message at the given level, checked before
+     * any message is built
+     * @param level the level of the message
+     * @return whether to build and log the message
+     */
+    protected boolean log(Level level) {
+        return log() && logger.isLoggable(level);
+    }
+    
+    
+    /**
+     * @return the amount of bytes allocated by the current thread so far, or -1 if the JVM can't measure it
+     */
+    private static long allocatedBytes() {
+        // not every JVM has the com.sun.management extension, so it's looked up instead of linked against
+        try {
+            Class<?> extension = Class.forName("com.sun.management.ThreadMXBean");
+            ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+            if (extension.isInstance(threadMXBean)) {
+                return (long) extension.getMethod("getCurrentThreadAllocatedBytes").invoke(threadMXBean);
+            }
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return -1;
+        }
+        return -1;
+    }
     
     public int run(String[] args) {
         long startTime = System.currentTimeMillis();
+        long startAllocated = log(Level.INFO) ? allocatedBytes() : -1;
         if (args.length == 0)
             System.out.println("Running Interpreter...");
         else {
             System.out.println("Running Interpreter with args " + Arrays.deepToString(args) + "...");
         }
         try {
-            createClosure();
-            
             TypeAugmentedSemanticNode main = getSymbol("start");
-            arguments.push(createNewInstance(CXPrimitiveType.INTEGER, args.length));
             ArrayInstance<PointerType, ArrayType> argv = createArray(CXPrimitiveType.CHAR.toPointer(), args.length);
             for (int i = 0; i < args.length; i++) {
                 argv.setAt(i, createCharPointerFromString(args[i]));
             }
-            arguments.push(argv);
-            startStackTraceFor(new Token(t_id, "start"));
-            if (!invoke(main)) {
-                throw new Error("Interpreter didn't complete");
+            Instance<?> argc = createNewInstance(CXPrimitiveType.INTEGER, args.length);
+            // the first segment is also created with a large stack, for functions that don't run in the interpreter
+            boolean returned = segmentedStack ? callOnNewSegment(() -> execute(main, argc, argv)) : execute(main, argc, argv);
+            fileHandler.flushAll();
+            if (returned) {
+                double elapsed = (double) (System.currentTimeMillis() - startTime) / 1000;
+                System.out.println("Finished in " + elapsed + " sec");
+                if (startAllocated >= 0) {
+                    long allocated = (allocatedBytes() + segmentAllocatedBytes - startAllocated) / 1024;
+                    logger.info("Allocated " + allocated + " KiB while running");
+                }
+                return ((PrimitiveInstance<Number, CXPrimitiveType>) returnValue).getBackingValue().intValue();
             }
-            stackTrace.pop();
-            endClosure();
-        } catch (FunctionReturned e) {
-            double elapsed = (double) (System.currentTimeMillis() - startTime) / 1000;
-            System.out.println("Finished in " + elapsed + " sec");
-            return ((PrimitiveInstance<Number, CXPrimitiveType>) returnValue).backingValue.intValue();
         } catch (EarlyExit e) {
+            fileHandler.flushAll();
             double elapsed = (double) (System.currentTimeMillis() - startTime) / 1000;
             System.out.println("Exited after " + elapsed + " sec");
             return e.code;
         } catch (Throwable e) {
+            fileHandler.flushAll();
             System.err.println("\nError " + e.toString() + " thrown (in jodin):");
+            if (!stackTrace.empty()) {
+                stackTrace.peek().setCurrentNode(nearestCurrentNode);
+            }
             logCurrentState();
             /*
             StackTraceInfo peek = stackTrace.peek();
@@ -1013,14 +1647,102 @@ public class Interpreter {
         }
         return -1;
     }
+
+    /**
+     * Runs the entrance point of the program with the given arguments.
+     *
+     * @param entrance the function definition to run
+     * @param args the arguments passed to the entrance point
+     * @return true if the entrance point returned a value, which is then stored in {@link #returnValue}
+     */
+    protected boolean execute(TypeAugmentedSemanticNode entrance, Instance<?>... args) throws EarlyExit,
+            JodinNullPointerException {
+        createClosure();
+        for (Instance<?> arg : args) {
+            arguments.push(arg);
+        }
+        startStackTraceFor(new Token(t_id, "start"));
+        if (!invoke(entrance) || !completeTailCalls()) {
+            throw new Error("Interpreter didn't complete");
+        }
+        boolean returned = completeReturn();
+        stackTrace.pop();
+        endClosure();
+        return returned;
+    }
+
+
+    /**
+     * Finishes a call to a function, clearing the signal set by a return statement
+     *
+     * @return true if the function ended with a return statement
+     */
+    protected boolean completeReturn() {
+        boolean output = returning;
+        returning = false;
+        return output;
+    }
+
+    /**
+     * Finishes the current function with a value, as a return statement would
+     *
+     * @param value the value returned, or null for no value
+     */
+    protected void returnWith(Instance<?> value) {
+        returnValue = value;
+        returning = true;
+    }
+    
+    /**
+     * Runs a function that is called by name. The arguments of the call have already been pushed onto the argument
+     * stack.
+     *
+     * @param function the definition of the function
+     * @return false if the function failed
+     */
+    protected boolean callFunction(TypeAugmentedSemanticNode function) throws EarlyExit, JodinNullPointerException {
+        return invoke(function);
+    }
+    
+    /**
+     * Runs a function that is called by name, followed by every tail call it ends with
+     *
+     * @param function the definition of the function
+     * @return false if the function failed
+     * @see #callFunction(TypeAugmentedSemanticNode)
+     */
+    protected boolean runFunction(TypeAugmentedSemanticNode function) throws EarlyExit, JodinNullPointerException {
+        return callOnStack(() -> callFunction(function)) && completeTailCalls();
+    }
     
+    /**
+     * Makes the tail call the last function returned with, if there is one, and then every tail call that ends
+     * with, until a function returns normally. Each call replaces the top of the stack trace, as the function that made
+     * it has already ended.
+     *
+     * @return false if a function failed
+     */
+    protected boolean completeTailCalls() throws EarlyExit, JodinNullPointerException {
+        while (tailCall != null) {
+            TypeAugmentedSemanticNode function = tailCall;
+            tailCall = null;
+            completeReturn();
+            stackTrace.pop();
+            startStackTraceFor(function.getASTChild(ASTNodeType.id).getToken());
+            if (!callFunction(function)) return false;
+        }
+        return true;
+    }
     
-    private void startStackTraceFor(Token name) {
-        if (log()) logger.info("Starting stack trace for " + name.getImage());
+    protected void startStackTraceFor(Token name) {
+        if (log(Level.INFO)) logger.info("Starting stack trace for " + name.getImage());
+        if (!stackTrace.empty()) {
+            stackTrace.peek().setCurrentNode(nearestCurrentNode);
+        }
         stackTrace.push(new StackTraceInfo(name));
     }
     
-    private void startStackTraceFor(String modname, Token actual) {
+    protected void startStackTraceFor(String modname, Token actual) {
         Token output = new Token(actual.getType(), modname);
         output.setActualLineNumber(actual.getActualLineNumber());
         output.setFilename(actual.getFilename());
@@ -1062,11 +1784,9 @@ public class Interpreter {
         }
         startStackTraceFor(classTypeInstance.getType() + "::" + idToken.getImage(), idToken);
         logCurrentState();
-        try {
-            if (!invoke(method)) return false;
-            endClosure();
-        } catch (FunctionReturned functionReturned) {
-            endClosure();
+        if (!invoke(method)) return false;
+        endClosure();
+        if (completeReturn()) {
             push(returnValue);
             returnValue = null;
         }
@@ -1078,35 +1798,37 @@ public class Interpreter {
     }
     
     
-    public void addAutoVariable(String name, Instance<?> value) {
-        autoVariables.peek().put(name, value);
-        if (!stackTrace.empty()) {
-            stackTrace.peek().getStackVariables().put(name, value);
+    public void addAutoVariable(TypeAugmentedSemanticNode id, Instance<?> value) {
+        int slot = FrameSlotAllocator.getSlot(id);
+        if (slot < 0) {
+            return;
+        }
+        autoVariables.peek()[slot] = value;
+        if (log() && !stackTrace.empty()) {
+            stackTrace.peek().getStackVariables().put(id.getToken().getImage(), value);
         }
     }
     
     
-    public <T extends CXType> Instance<T> getAutoVariable(String name) {
-        return ((Instance<T>) autoVariables.peek().get(name));
+    public <T extends CXType> Instance<T> getAutoVariable(TypeAugmentedSemanticNode id) {
+        return ((Instance<T>) autoVariables.peek()[FrameSlotAllocator.getSlot(id)]);
     }
     
     public void createClosure() {
-        autoVariables.push(new HashMap<>());
-        previousMemStackSize.push(memStack.size());
+        createClosure(0);
     }
     
-    public void startLexicalScope() {
-        autoVariables.push(new HashMap<>(autoVariables.peek()));
-        // autoVariables.push(autoVariables.peek());
-    }
-    
-    public void endLexicalScope() {
-        autoVariables.pop();
+    public void createClosure(int frameSize) {
+        autoVariables.push(frameSize == 0 ? EMPTY_FRAME : new Instance<?>[frameSize]);
+        previousMemStackSize.push(memStack.size());
     }
     
     public void endClosure() {
         autoVariables.pop();
-        if (log()) logger.info("Available variables: " + autoVariables.peek().keySet());
+        if (log(Level.INFO) && !autoVariables.empty()) {
+            // the outermost closure has no closure around it to show
+            logger.info("Available variables: " + Arrays.toString(autoVariables.peek()));
+        }
         int previousSize = previousMemStackSize.pop();
         while (memStack.size() > previousSize) {
             memStack.pop();
@@ -1114,46 +1836,46 @@ public class Interpreter {
     }
     
     public void push(Instance<?> val) {
-        if (log()) logger.fine("Value was pushed to stack: " + val);
+        if (log(Level.FINE)) logger.fine("Value was pushed to stack: " + val);
         memStack.push(val);
     }
     
     public Instance<?> popNullablePassesThrough() {
-        Instance<?> pop = memStack.pop();
-        if (pop instanceof NullableInstance) {
-            if (((NullableInstance) pop).getValue() != null) return ((NullableInstance) pop).getValue();
-        }
-        return pop;
+        return passThroughNullable(memStack.pop());
     }
     
     public Instance<?> pop() {
-        if (log()) logger.fine("Value was popped from stack: " + memStack.peek());
-        Instance<?> pop = memStack.pop();
-        if (pop instanceof NullableInstance) {
-            if (((NullableInstance) pop).getValue() != null) return ((NullableInstance) pop).getValue();
-        }
-        return pop;
+        if (log(Level.FINE)) logger.fine("Value was popped from stack: " + memStack.peek());
+        return passThroughNullable(memStack.pop());
     }
     
     public Instance<?> argumentPop() {
-        if (log()) logger.fine("Argument was popped from stack: " + arguments.peek());
-        Instance<?> pop = arguments.pop();
-        if (pop instanceof NullableInstance) {
-            if (((NullableInstance) pop).getValue() != null) return ((NullableInstance) pop).getValue();
+        if (log(Level.FINE)) logger.fine("Argument was popped from stack: " + arguments.peek());
+        return passThroughNullable(arguments.pop());
+    }
+    
+    /**
+     * Gets the value held by a nullable instance, if it holds one
+     * @param instance the instance
+     * @return the held value, or the instance itself
+     */
+    protected Instance<?> passThroughNullable(Instance<?> instance) {
+        if (instance instanceof NullableInstance) {
+            if (((NullableInstance) instance).getValue() != null) return ((NullableInstance) instance).getValue();
         }
-        return pop;
+        return instance;
     }
     
     /*
     public Instance<?> pop() {
-        if (log()) logger.fine("Value was popped from stack: " + memStack.peek());
+        if (log(Level.FINE)) logger.fine("Value was popped from stack: " + memStack.peek());
         return memStack.pop();
     }
     
      */
     
     
-    protected Instance<?> getInstance(TypeAugmentedSemanticNode node) throws EarlyExit, FunctionReturned, JodinNullPointerException {
+    protected Instance<?> getInstance(TypeAugmentedSemanticNode node) throws EarlyExit, JodinNullPointerException {
         switch (node.getASTType()) {
             case id: {
                 String name = node.getToken().getImage(); /*
@@ -1173,7 +1895,11 @@ public class Interpreter {
                 }
 
 
-                return autoVariables.peek().get(name);
+                int slot = FrameSlotAllocator.getSlot(node);
+                if (slot < 0) {
+                    return null;
+                }
+                return autoVariables.peek()[slot];
             }
             case literal: {
                 AbstractCXPrimitiveType primitiveType = (AbstractCXPrimitiveType) node.getCXType();
@@ -1212,12 +1938,9 @@ public class Interpreter {
                 logCurrentState();
     
     
-                if (log()) logger.info("Calling constructor for " + constructor.getParent());
-                try {
-                    if (!invoke(constructor)) throw new JodinNullPointerException();
-                } catch (FunctionReturned ignored) {
-        
-                }
+                if (log(Level.INFO)) logger.info("Calling constructor for " + constructor.getParent());
+                if (!invoke(constructor)) throw new JodinNullPointerException();
+                completeReturn();
     
                 stackTrace.pop();
                 thisStack.pop();
@@ -1230,15 +1953,15 @@ public class Interpreter {
         return null;
     }
     
-    private static class FunctionReturned extends Throwable {
-        
-    }
-    
-    private static class EarlyExit extends Throwable {
+    /**
+     * Thrown when the program calls exit. This only happens once per program, so no stack trace is captured.
+     */
+    static class EarlyExit extends Throwable {
         
         private final int code;
         
         public EarlyExit(int code) {
+            super(null, null, false, false);
             this.code = code;
         }
         
@@ -1247,7 +1970,7 @@ public class Interpreter {
         }
     }
     
-    private class JodinNullPointerException extends Exception {
+    class JodinNullPointerException extends Exception {
         
         public JodinNullPointerException() {
             logCurrentState();
@@ -1258,13 +1981,13 @@ public class Interpreter {
         return symbols.get(new CXIdentifier(new Token(t_id, s)));
     }
 
-    private TypeAugmentedSemanticNode getSymbol(CXIdentifier id) {
+    protected TypeAugmentedSemanticNode getSymbol(CXIdentifier id) {
         return symbols.get(id);
     }
     
     public <T extends CXType> ArrayInstance<T, ArrayType> createArray(T type, int size) {
         ArrayInstance<T, ArrayType> output = new ArrayInstance<>(new ArrayType(type), type, size);
-        if (type.isPrimitive()) {
+        if (type.isPrimitive() && output.getFlatStorage() == null) {
             try {
                 Instance<T> instance = (Instance<T>) createNewInstance(CXPrimitiveType.INTEGER, 0).castTo(type);
                 for (int i = 0; i < size; i++) {
@@ -1280,6 +2003,146 @@ public class Interpreter {
         return output;
     }
     
+    /**
+     * Creates the storage of the elements of an array, with every element set to its default value. Numbers and
+     * characters are stored flat.
+     */
+    protected <R extends CXType> List<Instance<R>> createArrayStorage(R elementType, int size) {
+        Instance<?> prototype = defaultValue(elementType);
+        if (prototype instanceof PrimitiveInstance && !(prototype instanceof ArrayInstance) &&
+                ((PrimitiveInstance<?, ?>) prototype).isScalar()) {
+            PrimitiveInstance<?, ?> primitive = (PrimitiveInstance<?, ?>) prototype;
+            ValueKind kind = scalarKind(elementType);
+            return new FlatStorage<>(primitive, kind != null ? kind : primitive.getKind(), size);
+        }
+        ArrayList<Instance<R>> output = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            output.add((Instance<R>) (i == 0 ? prototype : defaultValue(elementType)));
+        }
+        return output;
+    }
+    
+    /**
+     * Gets how values of a number or character type are stored, by the size of the type. The default value of a type
+     * doesn't always have the kind of its type, such as an int for a long, so this is used wherever a value must keep
+     * every bit of its type.
+     * @param type the type
+     * @return the kind, or null if the type isn't a number or a character
+     */
+    ValueKind scalarKind(CXType type) {
+        type = unwrap(type);
+        if (!(type instanceof AbstractCXPrimitiveType) || type instanceof ArrayType) return null;
+        AbstractCXPrimitiveType primitive = (AbstractCXPrimitiveType) type;
+        long size = primitive.getDataSize(environment);
+        if (primitive.isFloatingPoint()) {
+            return size <= environment.getFloatSize() ? ValueKind.FLOAT : ValueKind.DOUBLE;
+        }
+        if (!primitive.isIntegral() || size == 0) return null;
+        if (size <= environment.getCharSize()) return ValueKind.CHAR;
+        if (size <= environment.getShortIntSize()) return ValueKind.SHORT;
+        if (size <= environment.getIntSize()) return ValueKind.INT;
+        return ValueKind.LONG;
+    }
+    
+    /**
+     * Converts a number or character to a type, like C does when it's passed to or returned from a function. The
+     * value is narrowed or widened to the width of the type, so a function gives the same result however it's run.
+     * @param value the value
+     * @param type the type of the parameter or the return type
+     * @return the value, if it already has the kind of the type or isn't a number or a character, otherwise a new
+     * instance of the type
+     */
+    protected Instance<?> convertTo(Instance<?> value, CXType type) {
+        if (type == null) return value;
+        return convertTo(value, getConversion(type));
+    }
+    
+    /**
+     * Converts a number or character with a conversion that was already looked up, for calls that are made often
+     * @see #convertTo(Instance, CXType)
+     */
+    Instance<?> convertTo(Instance<?> value, Conversion conversion) {
+        ValueKind kind = conversion.kind;
+        if (kind == null || !(value instanceof PrimitiveInstance)) return value;
+        PrimitiveInstance<?, ?> primitive = (PrimitiveInstance<?, ?>) value;
+        if (!primitive.isScalar() || primitive.getKind() == kind && primitive.isUnsigned() == conversion.unsigned) {
+            return value;
+        }
+        PrimitiveInstance<?, ?> output = (PrimitiveInstance<?, ?>) conversion.prototype.copy();
+        if (kind.isFloatingPoint()) {
+            output.setFloatingPoint(kind, primitive.doubleValue());
+        } else {
+            output.setIntegral(kind, primitive.longValue());
+        }
+        return output;
+    }
+    
+    /**
+     * Gets how values are converted to a type
+     * @param type the type
+     * @return the conversion, which leaves values unchanged if the type isn't a number or a character
+     */
+    Conversion getConversion(CXType type) {
+        Conversion conversion = conversions.get(type);
+        if (conversion == null) {
+            conversion = new Conversion(type);
+            conversions.put(type, conversion);
+        }
+        return conversion;
+    }
+    
+    private final Map<CXType, Conversion> conversions = new IdentityHashMap<>();
+    
+    /**
+     * How values are converted to a type, worked out once for each type
+     */
+    class Conversion {
+        
+        /**
+         * The kind of the type, or null if values aren't converted to it
+         */
+        private final ValueKind kind;
+        private final boolean unsigned;
+        /**
+         * A new instance of the type, copied for each converted value
+         */
+        private final PrimitiveInstance<?, ?> prototype;
+        
+        private Conversion(CXType type) {
+            ValueKind kind = type != null ? scalarKind(type) : null;
+            Instance<?> prototype = kind != null ? createNewInstance(type) : null;
+            if (prototype instanceof PrimitiveInstance) {
+                this.kind = kind;
+                this.prototype = (PrimitiveInstance<?, ?>) prototype;
+            } else {
+                this.kind = null;
+                this.prototype = null;
+            }
+            unsigned = unwrap(type) instanceof UnsignedPrimitive;
+        }
+    }
+    
+    private static CXType unwrap(CXType type) {
+        while (true) {
+            if (type instanceof ICXWrapper) {
+                type = ((ICXWrapper) type).getWrappedType();
+            } else if (type instanceof ConstantType) {
+                type = ((ConstantType) type).getSubtype();
+            } else {
+                return type;
+            }
+        }
+    }
+    
+    /**
+     * Gets the declared type of a parameter
+     * @param parameter the declaration of the parameter
+     * @return the type
+     */
+    protected static CXType getParameterType(TypeAugmentedSemanticNode parameter) {
+        return ((TypedAbstractSyntaxNode) parameter.getASTNode()).getCxType();
+    }
+    
     public ArrayInstance<CXType, ArrayType> createArrayOfType(CXType type, int size) {
         return new ArrayInstance<>(new ArrayType(type), type, size);
     }
@@ -1314,7 +2177,7 @@ public class Interpreter {
             );
         }
         // output.setAt(output.size - 1, null);
-        if (log()) logger.fine("Created Jodin-Style string " + output);
+        if (log(Level.FINE)) logger.fine("Created Jodin-Style string " + output);
         return output;
     }
     
@@ -1329,6 +2192,7 @@ public class Interpreter {
             disableLogging = true;
             JodinLogger logger = ICompilationSettings.interpreterStateLogger;
             
+            Token nearestCurrentToken = closestToken(nearestCurrentNode);
             logger.finest("WHILE EXECUTING AT " + nearestCurrentToken.getFilename() + "::" + nearestCurrentToken.getActualLineNumber());
             int indent = 0;
             for (StackTraceInfo stackTraceInfo : new LinkedList<>(stackTrace)) {
@@ -1350,9 +2214,9 @@ public class Interpreter {
                     PointerInstance<CXClassType> thisInstance = thisStack.get(thisStackIndex);
                     if (!thisInstance.isNull()) {
                         CompoundInstance<CXClassType> pointer = (CompoundInstance<CXClassType>) thisInstance.getPointer();
-                        for (Map.Entry<String, Instance<?>> stringInstanceEntry : pointer.fields.entrySet()) {
-                            logger.finest(" ".repeat(eqIndex) + "   + " + String.format("%-15s = %s", stringInstanceEntry.getKey(),
-                                    stringInstanceEntry.getValue()));
+                        for (int i = 0; i < pointer.fields.length; i++) {
+                            logger.finest(" ".repeat(eqIndex) + "   + " + String.format("%-15s = %s", pointer.shape.getFieldName(i),
+                                    pointer.fields[i]));
                         }
                     }
                     
@@ -1366,7 +2230,7 @@ public class Interpreter {
                     if (instanceEntry.getValue() instanceof PointerInstance && ((PointerInstance<?>) instanceEntry.getValue()).getSubType() instanceof CXClassType) {
                         PointerInstance<CXClassType> value = (PointerInstance<CXClassType>) instanceEntry.getValue();
                         if (value == null || value.getPointer() == null) {
-                            if (log()) logger.finest(" ".repeat(eqIndex) + "  java nullptr");
+                            if (log(Level.FINEST)) logger.finest(" ".repeat(eqIndex) + "  java nullptr");
                             continue;
                         }
                         try {
@@ -1383,18 +2247,18 @@ public class Interpreter {
                             continue;
                         }
                         PointerInstance<CXPrimitiveType> cString = (PointerInstance<CXPrimitiveType>) pop();
-                        if (log()) logger.finest(" ".repeat(eqIndex) + "  toString() = \"" + cString.takeString().thisOrElse("No toString() " +
+                        if (log(Level.FINEST)) logger.finest(" ".repeat(eqIndex) + "  toString() = \"" + cString.takeString().thisOrElse("No toString() " +
                                 "defined") + "\"");
                     } else if (instanceEntry.getValue() instanceof ArrayInstance && !(instanceEntry.getValue() instanceof PointerInstance)) {
                         var backingValue = ((ArrayInstance<?, ?>) instanceEntry.getValue()).getBackingValue();
                         for (int i = 0; i < backingValue.size(); i++) {
-                            if (log()) logger.finest(" ".repeat(eqIndex) + "  [" + i + "]" + " " + backingValue.get(i));
+                            if (log(Level.FINEST)) logger.finest(" ".repeat(eqIndex) + "  [" + i + "]" + " " + backingValue.get(i));
                         }
                     } else if (instanceEntry.getValue() instanceof CompoundInstance) {
                         CompoundInstance<?> value = (CompoundInstance<?>) instanceEntry.getValue();
-                        for (Map.Entry<String, Instance<?>> stringInstanceEntry : value.fields.entrySet()) {
-                            if (log()) logger.finest(" ".repeat(eqIndex) + "   + " + String.format("%-15s = %s", stringInstanceEntry.getKey(),
-                                    stringInstanceEntry.getValue()));
+                        for (int i = 0; i < value.fields.length; i++) {
+                            if (log(Level.FINEST)) logger.finest(" ".repeat(eqIndex) + "   + " + String.format("%-15s = %s", value.shape.getFieldName(i),
+                                    value.fields[i]));
                         }
                     }
                 }
@@ -1467,7 +2331,7 @@ public class Interpreter {
                 }
             }
             
-            // if (log()) logger.finest("Return Value: " + returnValue);
+            // if (log(Level.FINEST)) logger.finest("Return Value: " + returnValue);
             disableLogging = false;
         }
     }
@@ -1497,6 +2361,41 @@ public class Interpreter {
     }
     
     private Number opOnFloatingPoint(TokenType op, double lhs, double rhs) {
+        double output = floatingPointOperation(op, lhs, rhs);
+        if (isComparison(op)) {
+            return (int) output;
+        }
+        return output;
+    }
+    
+    private Number opOnIntegral(TokenType op, long lhs, long rhs) {
+        long output = integralOperation(op, lhs, rhs);
+        if (isComparison(op)) {
+            return (int) output;
+        }
+        return output;
+    }
+    
+    /**
+     * @return whether the result of the operator is a truth value, which is always stored as an int
+     */
+    private static boolean isComparison(TokenType op) {
+        switch (op) {
+            case t_dand:
+            case t_dor:
+            case t_lte:
+            case t_gte:
+            case t_eq:
+            case t_neq:
+            case t_lt:
+            case t_gt:
+                return true;
+            default:
+                return false;
+        }
+    }
+    
+    private static double floatingPointOperation(TokenType op, double lhs, double rhs) {
         switch (op) {
             case t_dand:
                 return lhs != 0 && rhs != 0 ? 1 : 0;
@@ -1529,7 +2428,7 @@ public class Interpreter {
         }
     }
     
-    private Number opOnIntegral(TokenType op, long lhs, long rhs) {
+    private static long integralOperation(TokenType op, long lhs, long rhs) {
         switch (op) {
             case t_dand:
                 return lhs != 0 && rhs != 0 ? 1 : 0;
@@ -1585,198 +2484,582 @@ public class Interpreter {
     }
     
     
-    public Boolean invoke(TypeAugmentedSemanticNode input) throws FunctionReturned, EarlyExit, JodinNullPointerException {
-        // if (log()) logger.info("Executing " + input);
-        nearestCurrentToken = closestToken(input);
-        if (!stackTrace.empty()) {
-            stackTrace.peek().setCurrentToken(nearestCurrentToken);
+    /**
+     * Converts an evaluated value into the operand of an arithmetic operation. In binary operations, arrays are
+     * treated as pointers.
+     * @param value the evaluated value
+     * @return the operand
+     */
+    protected PrimitiveInstance<?, ?> toOperand(Instance<?> value) {
+        if (value instanceof NullableInstance) {
+            return (PrimitiveInstance<?, ?>) ((NullableInstance) value).getValue();
+        } else if (value instanceof ArrayInstance) {
+            return ((ArrayInstance<?, ?>) value).asPointer();
         }
-        switch (input.getASTType()) {
-            case binop: {
-                Token op = input.getChild(0).getToken();
-                if (!invoke(input.getChild(1))) return false;
-                Instance<?> lhsNull = pop().unwrap();
-                
-                
-                PrimitiveInstance<?, ?> lhs, rhs;
-                if (lhsNull instanceof NullableInstance) {
-                    lhs = (PrimitiveInstance<?, ?>) ((NullableInstance) lhsNull).getValue();
-                } else if (lhsNull instanceof ArrayInstance) {
-                    // in binary operations, treat arrays as pointers
-                    lhs = ((ArrayInstance<?, ?>) lhsNull).asPointer();
-                } else {
-                    lhs = (PrimitiveInstance<?, ?>) lhsNull;
-                }
-                
-                // short circuit evaluation
-                if (op.getType() == t_dand) {
-                    if (lhs.isFalse()) {
-                        push(
-                                new PrimitiveInstance<>(lhs.getType(), 0, false)
-                        );
-                        break;
+        return (PrimitiveInstance<?, ?>) value;
+    }
+
+    /**
+     * Checks whether a binary operation can be decided from its left hand side only
+     * @param op the operator
+     * @param lhs the left hand side
+     * @return the result of the operation, or null if the right hand side must be evaluated
+     */
+    protected Instance<?> shortCircuit(TokenType op, PrimitiveInstance<?, ?> lhs) {
+        if (op == t_dand) {
+            if (lhs.isFalse()) {
+                return new PrimitiveInstance<>(lhs.getType(), 0, false);
+            }
+        } else if (op == t_dor) {
+            if (lhs.isTrue()) {
+                return new PrimitiveInstance<>(lhs.getType(), 1, false);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Performs a binary operation on two numbers or characters without boxing them. The result is stored in the value
+     * of an existing instance, which may be one of the operands.
+     * @param op the operator
+     * @param lhs the left hand side
+     * @param rhs the right hand side
+     * @param output the instance the value of the result is copied into
+     * @return false if either operand isn't a number or a character, in which case nothing is done
+     */
+    protected boolean scalarOperation(TokenType op, PrimitiveInstance<?, ?> lhs, PrimitiveInstance<?, ?> rhs,
+                                      PrimitiveInstance<?, ?> output) throws InvalidPrimitiveException {
+        if (lhs == null || rhs == null || !lhs.isScalar() || !rhs.isScalar()) return false;
+        AbstractCXPrimitiveType type = lhs.getType();
+        if (type.isFloatingPoint()) {
+            double result = floatingPointOperation(op, lhs.doubleValue(), rhs.doubleValue());
+            if (isComparison(op)) {
+                output.setIntegral(ValueKind.INT, (long) result);
+            } else {
+                output.setFloatingPoint(ValueKind.DOUBLE, result);
+            }
+        } else {
+            // characters are promoted and the right hand side is used at its full width, values are only narrowed
+            // when they're stored
+            long result = integralOperation(op, lhs.longValue(), rhs.longValue());
+            output.setIntegral(isComparison(op) ? ValueKind.INT : ValueKind.LONG, result);
+        }
+        return true;
+    }
+    
+    /**
+     * Creates the instance that the result of a binary operation on two numbers or characters is stored in
+     * @param lhs the left hand side of the operation
+     * @return a new instance
+     */
+    protected PrimitiveInstance<Number, ?> createScalarResult(PrimitiveInstance<?, ?> lhs) {
+        AbstractCXPrimitiveType type = lhs.getType();
+        return new PrimitiveInstance<>(type, null, type != CXPrimitiveType.CHAR && lhs.unsigned);
+    }
+
+    protected Instance<?> binaryOperation(TokenType op, PrimitiveInstance<?, ?> lhs, PrimitiveInstance<?, ?> rhs) throws InvalidPrimitiveException {
+        if (log(Level.FINE)) logger.fine("Performing " + op + " on " + lhs + " and " + rhs);
+
+        if (lhs != null && rhs != null && lhs.isScalar() && rhs.isScalar()) {
+            PrimitiveInstance<Number, ?> output = createScalarResult(lhs);
+            scalarOperation(op, lhs, rhs, output);
+            return output;
+        } else if (lhs instanceof PointerInstance && rhs instanceof PointerInstance) {
+            if (log(Level.FINER)) logger.finer("Comparing two pointers");
+            return opOnObjects(op, lhs, rhs);
+        } else if (
+                (lhs == null ||
+                        lhs.getBackingValue() == null) &&
+                        rhs.getType().isIntegral() &&
+                        (
+                                (rhs.getBackingValue() instanceof Number && ((Number) rhs.getBackingValue()).longValue() == 0) ||
+                                        rhs.getBackingValue() instanceof Character && ((Character) rhs.getBackingValue()).charValue() == 0)
+        ) {
+            if (rhs.getBackingValue() instanceof Character) {
+                if (log(Level.FINER)) logger.finer("Comparing a character to a ptr");
+            } else {
+                if (log(Level.FINER)) logger.finer("Comparing an integral to a ptr");
+            }
+            return new PrimitiveInstance<>(LongPrimitive.create(), opOnIntegral(
+                    op,
+                    0L,
+                    ((Number) rhs.getBackingValue()).longValue()
+            ), rhs.unsigned);
+        } else if ((rhs == null ||
+                rhs.getBackingValue() == null) && lhs.getType().isIntegral() && ((Number) lhs.getBackingValue()).longValue() == 0) {
+            if (log(Level.FINER)) logger.finer("Comparing a ptr to an integral");
+            return new PrimitiveInstance<>(LongPrimitive.create(), opOnIntegral(
+                    op,
+                    ((Number) lhs.getBackingValue()).longValue(),
+                    0L
+            ),
+                    lhs.unsigned);
+        } else if (lhs.getType().isFloatingPoint()) {
+            if (log(Level.FINER)) logger.finer("Operation is on floating points");
+            return new PrimitiveInstance<>(lhs.getType(),
+                    opOnFloatingPoint(op, ((Number) lhs.getBackingValue()).doubleValue(),
+                            ((Number) rhs.getBackingValue()).doubleValue()),
+                    lhs.unsigned);
+        }
+
+        if (log(Level.FINER)) logger.finer("Operation is on integrals");
+        if (lhs.getType() == CXPrimitiveType.CHAR) {
+            PrimitiveInstance<Number, ?> lhsCasted =
+                    (PrimitiveInstance<Number, ?>) lhs.castTo(CXPrimitiveType.INTEGER);
+            PrimitiveInstance<Number, ?> rhsCasted =
+                    (PrimitiveInstance<Number, ?>) rhs.castTo(CXPrimitiveType.INTEGER);
+
+            var mid = new PrimitiveInstance<>(lhsCasted.getType(), opOnIntegral(op,
+                    lhsCasted.getBackingValue().longValue(),
+                    rhsCasted.getBackingValue().longValue()),
+                    lhs.unsigned);
+            return mid.castTo(CXPrimitiveType.CHAR);
+        } else {
+            PrimitiveInstance<Number, ?> casted = (PrimitiveInstance<Number, ?>) rhs.castTo(lhs.getType());
+
+            return new PrimitiveInstance<>(lhs.getType(), opOnIntegral(op,
+                    ((Number) lhs.getBackingValue()).longValue(),
+                    casted.getBackingValue().longValue()),
+                    lhs.unsigned);
+        }
+    }
+
+    /**
+     * Increments or decrements a value in place
+     * @param value the value
+     * @param delta the amount to change the value by
+     */
+    private void step(Instance<?> value, int delta) {
+        if (value instanceof PointerInstance) {
+            ((PointerInstance) value).index += delta;
+        } else if (value instanceof PrimitiveInstance) {
+            PrimitiveInstance<?, ?> primitive = (PrimitiveInstance<?, ?>) value;
+            if (primitive.getKind() == ValueKind.CHAR) {
+                primitive.setIntegral(ValueKind.CHAR, primitive.charValue() + delta);
+            } else {
+                primitive.setIntegral(ValueKind.LONG, primitive.longValue() + delta);
+            }
+        }
+    }
+
+    /**
+     * Performs a prefix unary operation. Increments and decrements modify the operand in place, the other operations
+     * return a new value.
+     * @param op the operator
+     * @param operand the operand
+     * @return the result of the operation
+     */
+    protected Instance<?> unaryOperation(TokenType op, Instance<?> operand) {
+        switch (op) {
+            case t_inc:
+                step(operand, 1);
+                break;
+            case t_dec:
+                step(operand, -1);
+                break;
+            case t_add:
+                break;
+            case t_minus:
+                if (operand instanceof PrimitiveInstance) {
+                    // the operand can be a variable, which keeps its value
+                    PrimitiveInstance<?, ?> primitive = (PrimitiveInstance<?, ?>) operand.copy();
+                    if (primitive.getKind() == ValueKind.CHAR) {
+                        primitive.setIntegral(ValueKind.CHAR, primitive.charValue() * -1);
+                    } else if (primitive.getKind().isFloatingPoint()) {
+                        primitive.setFloatingPoint(primitive.getKind(), -primitive.doubleValue());
+                    } else {
+                        primitive.setIntegral(ValueKind.LONG, primitive.longValue() * -1);
                     }
-                    
-                } else if (op.getType() == t_dor) {
-                    if (lhs.isTrue()) {
-                        push(
-                                new PrimitiveInstance<>(lhs.getType(), 1, false)
-                        );
-                        break;
+                    return primitive;
+                }
+                break;
+            case t_not:
+                if (operand instanceof PrimitiveInstance) {
+                    PrimitiveInstance<?, ?> primitive = (PrimitiveInstance<?, ?>) operand.copy();
+                    if (!primitive.isScalar() || primitive.getKind().isFloatingPoint()) {
+                        throw new UnsupportedOperationException();
                     }
+                    // the operand is promoted, so the complement is at least as wide as an int
+                    primitive.setIntegral(ValueKind.LONG, ~primitive.longValue());
+                    return primitive;
                 }
+                break;
+            case t_bang:
+                return integralInstance(CXPrimitiveType.INTEGER, ValueKind.INT, operand.isFalse() ? 1 : 0, false);
+        }
+        return operand;
+    }
+
+    /**
+     * Performs a postfix operation, modifying the operand in place
+     * @param op the operator
+     * @param operand the operand
+     * @return a copy of the operand from before the operation
+     */
+    protected Instance<?> postfixOperation(TokenType op, Instance<?> operand) {
+        Instance<?> output = operand.copy();
+        switch (op) {
+            case t_inc:
+                step(operand, 1);
+                break;
+            case t_dec:
+                step(operand, -1);
+                break;
+        }
+        return output;
+    }
+
+    /**
+     * The names of functions that are implemented by the interpreter itself
+     */
+    protected static final Set<String> INTRINSICS = Set.of(
+            "calloc",
+            "free",
+            "_interpreter_print",
+            "get_hashcode_for",
+            "exit",
+            "_open_file",
+            "_flush_file",
+            "_close_file",
+            "_read_file",
+            "_write_file",
+            "_read_file_block",
+            "_write_file_block",
+            "_file_ready",
+            "breakpoint"
+    );
+    
+    protected boolean isIntrinsic(String funcCall) {
+        return INTRINSICS.contains(funcCall);
+    }
+    
+    /**
+     * Gets the characters a pointer points to, so that intrinsics can read or write many of them at once
+     *
+     * @param pointer a pointer to characters
+     * @param length the amount of characters used, which must all be within the array pointed into
+     * @return the storage of the characters, or null if they aren't stored flat
+     */
+    private FlatStorage<?> getCharStorage(PointerInstance<?> pointer, int length) {
+        if (length < 0) throw new SegmentationFault("Negative length " + length);
+        if (length > 0) pointer.positionOf(length - 1);
+        FlatStorage<?> storage = pointer.getFlatStorage();
+        if (storage == null || storage.kind != ValueKind.CHAR) return null;
+        return storage;
+    }
+    
+    /**
+     * Runs an intrinsic function. The arguments of the function must already be on the argument stack, and the result
+     * of the function, if there is one, is pushed onto the memory stack.
+     *
+     * @param funcCall the name of the intrinsic
+     * @param id the resolved identifier of the intrinsic
+     * @param input the function call node
+     * @return whether the intrinsic completed successfully
+     */
+    protected boolean invokeIntrinsic(String funcCall, CXIdentifier id, TypeAugmentedSemanticNode input) throws EarlyExit, JodinNullPointerException {
+        try {
+            return runIntrinsic(funcCall, id, input);
+        } catch (RuntimeException | Error e) {
+            // the intrinsic only appears in the stack trace when it fails, instead of being pushed on every call
+            startStackTraceFor(id.getBase());
+            stackTrace.peek().setCurrentNode(input);
+            throw e;
+        }
+    }
+    
+    private boolean runIntrinsic(String funcCall, CXIdentifier id, TypeAugmentedSemanticNode input) throws EarlyExit, JodinNullPointerException {
+        switch (funcCall) {
+                case "calloc": {
+                    CXType cxType =
+                            ((TypedAbstractSyntaxNode) input.getASTChild(ASTNodeType.sequence).getASTChild(ASTNodeType.sizeof).getASTNode()).getCxType();
+                    PrimitiveInstance<Number, ?> size = (PrimitiveInstance<Number, ?>) argumentPop();
+                    argumentPop();
+                    if (log(Level.INFO)) logger.info("Using simulated Calloc to creating an array of " + cxType + "...");
+                    push(createArrayOfType(cxType, size.getBackingValue().intValue()));
+                    if (log(Level.INFO)) logger.info("Array of " + cxType + "created with size " + size.getBackingValue().intValue() + " => " + memStack.peek());
+                    logCurrentState();
+                    return true;
+                }
+                case "free": {
+                    PointerInstance<?> pop = (PointerInstance<?>) argumentPop();
+                    if (log(Level.INFO)) logger.info("freeing object " + pop);
+                    pop.setPointer(null);
+                    return true;
+                }
+                case "_interpreter_print": {
+                    PointerInstance<CXPrimitiveType> pop = (PointerInstance<CXPrimitiveType>) argumentPop();
+                    StringBuilder text = new StringBuilder();
+                    while (!pop.isNull()) {
+                        PrimitiveInstance<Character, ?> pointer = (PrimitiveInstance<Character, ?>) pop.getPointer();
+                        if (pointer.getBackingValue() == '\\') {
+                            pop = pop.getPointerOfOffset(1);
+                            char escape = ((PrimitiveInstance<Character, ?>) pop.getPointer()).getBackingValue();
+                            switch (escape) {
+                                case 'n': {
+                                    text.append(System.lineSeparator());
+                                    break;
+                                }
+                                case 't': {
+                                    text.append('\t');
+                                    break;
+                                }
+                                case 'r': {
+                                    text.append('\r');
+                                    break;
+                                }
+                                case '\\':
+                                case '\'':
+                                case '\"':
+                                case '?': {
+                                    text.append(escape);
+                                    break;
+                                }
+                            }
+                        } else {
+                            text.append(pointer.getBackingValue());
+                        }
+                        pop = pop.getPointerOfOffset(1);
+                    }
+                    try {
+                        fileHandler.writeText(1, text);
+                    } catch (IOException e) {
+                        e.printStackTrace();
+                    }
+                    logCurrentState();
+                    return true;
+                }
+                case "get_hashcode_for": {
+                    push(createNewInstance(CXPrimitiveType.INTEGER, argumentPop().hashCode()));
+                    logCurrentState();
+                    return true;
+                }
+                case "exit": {
+                    PrimitiveInstance<? extends Number, ?> pop = (PrimitiveInstance<? extends Number, ?>) argumentPop();
+                    int exitCode = pop.getBackingValue().intValue();
+                    throw new EarlyExit(exitCode);
+                }
+
+                case "_open_file": {
+                    startStackTraceFor(id.getBase());
+                    //hopefully a string
+                    PointerInstance<CXPrimitiveType> errorPtr = (PointerInstance<CXPrimitiveType>) argumentPop();
+                    PointerInstance<CXClassType> stringObj = (PointerInstance<CXClassType>) argumentPop();
+                    callMethod(stringObj, "getCStr");
+                    PointerInstance<CXPrimitiveType> charPtr = (PointerInstance<CXPrimitiveType>) pop();
+                    String path = charPtr.takeString().expect("A c-style string must be passed here. Instead found " + charPtr);
+                    try {
+                        int fd = fileHandler.openFile(path, FileHandler.AccessOption.READ, FileHandler.AccessOption.WRITE);
+                        push(createNewInstance(CXPrimitiveType.INTEGER, fd));
+                    } catch (IOException e) {
+                    
+                        PrimitiveInstance<Long, ?> error = (PrimitiveInstance<Long, ?>) errorPtr.getPointer();
+                        error.setBackingValue(1L);
+                    }
+                    stackTrace.pop();
+                    logCurrentState();
+                    return true;
+                }
+                case "_flush_file": {
+                    PrimitiveInstance<? extends Number, ?> fdInstance = (PrimitiveInstance<? extends Number, ?>) argumentPop();
                 
-                if (!invoke(input.getChild(2))) return false;
-                Instance<?> rhsNull = pop().unwrap();
-                
-                if (rhsNull instanceof NullableInstance) {
-                    rhs = (PrimitiveInstance<?, ?>) ((NullableInstance) rhsNull).getValue();
-                } else if (rhsNull instanceof ArrayInstance) {
-                    // in binary operations, treat arrays as pointers
-                    rhs = ((ArrayInstance) rhsNull).asPointer();
-                } else {
-                    rhs = (PrimitiveInstance<?, ?>) rhsNull;
+                    int fd = fdInstance.getBackingValue().intValue();
+                
+                    fileHandler.flushFile(fd);
+                
+                
+                    logCurrentState();
+                    return true;
                 }
+                case "_close_file": {
+                    PrimitiveInstance<? extends Number, ?> fdInstance = (PrimitiveInstance<? extends Number, ?>) argumentPop();
                 
                 
-                if (log()) logger.fine("Performing " + op + " on " + lhs + " and " + rhs);
+                    int fd = fdInstance.getBackingValue().intValue();
                 
+                    fileHandler.closeFile(fd);
+                
+                
+                    logCurrentState();
+                
+                    return true;
+                }
+                case "_read_file": {
+                    PointerInstance<CXPrimitiveType> errorInstance = (PointerInstance<CXPrimitiveType>) argumentPop();
+                    PrimitiveInstance<? extends Number, ?> fdInstance = (PrimitiveInstance<? extends Number, ?>) argumentPop();
+                
+                    PrimitiveInstance<? super Number, ?> error = (PrimitiveInstance<? super Number, ?>) errorInstance.getPointer();
+                    int fd = fdInstance.getBackingValue().intValue();
                 
-                Instance<?> createdValue;
-                if (lhs instanceof PointerInstance && rhs instanceof PointerInstance) {
-                    if (log()) logger.finer("Comparing two pointers");
-                    createdValue = opOnObjects(op.getType(), lhs, rhs);
-                } else if (
-                        (lhs == null ||
-                                lhs.getBackingValue() == null) &&
-                                rhs.getType().isIntegral() &&
-                                (
-                                        (rhs.backingValue instanceof Number && ((Number) rhs.backingValue).longValue() == 0) ||
-                                                rhs.backingValue instanceof Character && ((Character) rhs.backingValue).charValue() == 0)
-                ) {
-                    if (rhs.backingValue instanceof Character) {
-                        if (log()) logger.finer("Comparing a character to a ptr");
-                    } else {
-                        if (log()) logger.finer("Comparing an integral to a ptr");
-                    }
-                    createdValue = new PrimitiveInstance<>(LongPrimitive.create(), opOnIntegral(
-                            op.getType(),
-                            0L,
-                            ((Number) rhs.backingValue).longValue()
-                    ), rhs.unsigned);
-                    // createdValue = null;
-                } else if ((rhs == null ||
-                        rhs.getBackingValue() == null) && lhs.getType().isIntegral() && ((Number) lhs.backingValue).longValue() == 0) {
-                    if (log()) logger.finer("Comparing a ptr to an integral");
-                    createdValue = new PrimitiveInstance<>(LongPrimitive.create(), opOnIntegral(
-                            op.getType(),
-                            ((Number) lhs.backingValue).longValue(),
-                            0L
-                    ),
-                            lhs.unsigned);
-                } else if (lhs.getType().isFloatingPoint()) {
-                    if (log()) logger.finer("Operation is on floating points");
-                    createdValue = new PrimitiveInstance<>(lhs.getType(),
-                            opOnFloatingPoint(op.getType(), ((Number) lhs.backingValue).doubleValue(),
-                                    ((Number) rhs.backingValue).doubleValue()),
-                            lhs.unsigned);
-                } else {
-                    if (log()) logger.finer("Operation is on integrals");
                     try {
-                        if (lhs.getType() == CXPrimitiveType.CHAR) {
-                            PrimitiveInstance<Number, ?> lhsCasted =
-                                    (PrimitiveInstance<Number, ?>) lhs.castTo(CXPrimitiveType.INTEGER);
-                            PrimitiveInstance<Number, ?> rhsCasted =
-                                    (PrimitiveInstance<Number, ?>) rhs.castTo(CXPrimitiveType.INTEGER);
-                            
-                            var mid = new PrimitiveInstance<>(lhsCasted.getType(), opOnIntegral(op.getType(),
-                                    lhsCasted.getBackingValue().longValue(),
-                                    rhsCasted.getBackingValue().longValue()),
-                                    lhs.unsigned);
-                            createdValue = mid.castTo(CXPrimitiveType.CHAR);
-                        } else {
-                            PrimitiveInstance<Number, ?> casted = (PrimitiveInstance<Number, ?>) rhs.castTo(lhs.getType());
-                            
-                            
-                            createdValue = new PrimitiveInstance<>(lhs.getType(), opOnIntegral(op.getType(),
-                                    ((Number) lhs.backingValue).longValue(),
-                                    casted.getBackingValue().longValue()),
-                                    lhs.unsigned);
+                        int b = fileHandler.readFile(fd);
+                        if (b == -1) {
+                            error.setBackingValue(2);
                         }
-                    } catch (InvalidPrimitiveException e) {
-                        return false;
+                        push(createNewInstance(UnsignedPrimitive.createUnsigned(CXPrimitiveType.CHAR), (char) b));
+                    } catch (IOException e) {
+                        push(createNewInstance(UnsignedPrimitive.createUnsigned(CXPrimitiveType.CHAR), (char) 0));
+                        error.setBackingValue(1);
                     }
-                }
-                push(createdValue);
                 
-            }
-            break;
+                
+                    logCurrentState();
+                
+                    return true;
+                }
             
-            case uniop: {
-                if (!invoke(input.getChild(1))) return false;
-                Instance<?> pop = pop().unwrap();
-                Instance<?> push = pop;
-                switch (input.getChild(0).getToken().getType()) {
-                    case t_inc: {
-                        if (pop instanceof PointerInstance) {
-                            ((PointerInstance) pop).index += 1;
-                        } else if (pop instanceof PrimitiveInstance) {
-                            if (((PrimitiveInstance<?, ?>) pop).getBackingValue() instanceof Character) {
-                                ((PrimitiveInstance<Character, ?>) pop).setBackingValue((char) (((Character) ((PrimitiveInstance) pop).getBackingValue()).charValue() + 1));
-                            } else {
-                                ((PrimitiveInstance<Number, ?>) pop).setBackingValue(opOnIntegral(t_add,
-                                        ((PrimitiveInstance<Number, ?>) pop).backingValue.longValue(), 1));
-                            }
-                        }
+                case "_write_file": {
+                    PrimitiveInstance<Character, ?> cInstance = (PrimitiveInstance<Character, ?>) argumentPop();
+                    PrimitiveInstance<? extends Number, ?> fdInstance = (PrimitiveInstance<? extends Number, ?>) argumentPop();
+                
+                    char c = cInstance.getBackingValue();
+                    int fd = fdInstance.getBackingValue().intValue();
+                
+                
+                    try {
+                        fileHandler.writeFile(fd, c);
+                    } catch (IOException e) {
+                        logCurrentState();
+                        pushBoolean(false);
+                        return true;
                     }
-                    break;
-                    case t_dec: {
-                        if (pop instanceof PointerInstance) {
-                            ((PointerInstance) pop).index -= 1;
-                        } else if (pop instanceof PrimitiveInstance) {
-                            if (((PrimitiveInstance<?, ?>) pop).getBackingValue() instanceof Character) {
-                                ((PrimitiveInstance<Character, ?>) pop).setBackingValue((char) (((Character) ((PrimitiveInstance) pop).getBackingValue()).charValue() - 1));
-                            } else {
-                                ((PrimitiveInstance<Number, ?>) pop).setBackingValue(opOnIntegral(t_minus,
-                                        ((PrimitiveInstance<Number, ?>) pop).backingValue.longValue(), 1));
+                
+                
+                    logCurrentState();
+                    pushBoolean(true);
+                    return true;
+                }
+                case "_read_file_block": {
+                    PointerInstance<CXPrimitiveType> errorInstance = (PointerInstance<CXPrimitiveType>) argumentPop();
+                    PrimitiveInstance<? extends Number, ?> lengthInstance = (PrimitiveInstance<? extends Number, ?>) argumentPop();
+                    PointerInstance<?> buffer = (PointerInstance<?>) toOperand(argumentPop());
+                    PrimitiveInstance<? extends Number, ?> fdInstance = (PrimitiveInstance<? extends Number, ?>) argumentPop();
+                    
+                    PrimitiveInstance<? super Number, ?> error = (PrimitiveInstance<? super Number, ?>) errorInstance.getPointer();
+                    int fd = fdInstance.getBackingValue().intValue();
+                    int length = lengthInstance.getBackingValue().intValue();
+                    
+                    int read;
+                    try {
+                        FlatStorage<?> storage = getCharStorage(buffer, length);
+                        if (storage != null) {
+                            read = fileHandler.readBlock(fd, storage.chars, buffer.positionOf(0), length);
+                        } else {
+                            char[] chars = new char[length];
+                            read = fileHandler.readBlock(fd, chars, 0, length);
+                            for (int i = 0; i < read; i++) {
+                                buffer.getAt(i).getValue().copyFrom(
+                                        createNewInstance(UnsignedPrimitive.createUnsigned(CXPrimitiveType.CHAR), chars[i]));
                             }
                         }
+                        if (read == -1) {
+                            read = 0;
+                            error.setBackingValue(2);
+                        }
+                    } catch (IOException e) {
+                        read = 0;
+                        error.setBackingValue(1);
                     }
-                    case t_add:
-                        break;
-                    case t_minus:
-                        if (pop instanceof PrimitiveInstance) {
-                            if (((PrimitiveInstance<?, ?>) pop).getBackingValue() instanceof Character) {
-                                ((PrimitiveInstance<Character, ?>) pop).setBackingValue((char) (((Character) ((PrimitiveInstance) pop).getBackingValue()).charValue() * -1));
-                            } else {
-                                ((PrimitiveInstance<Number, ?>) pop).setBackingValue(opOnIntegral(t_star,
-                                        ((PrimitiveInstance<Number, ?>) pop).backingValue.longValue(), -1));
+                    push(createNewInstance(CXPrimitiveType.INTEGER, read));
+                    
+                    logCurrentState();
+                    return true;
+                }
+                case "_write_file_block": {
+                    PrimitiveInstance<? extends Number, ?> lengthInstance = (PrimitiveInstance<? extends Number, ?>) argumentPop();
+                    PointerInstance<?> buffer = (PointerInstance<?>) toOperand(argumentPop());
+                    PrimitiveInstance<? extends Number, ?> fdInstance = (PrimitiveInstance<? extends Number, ?>) argumentPop();
+                    
+                    int fd = fdInstance.getBackingValue().intValue();
+                    int length = lengthInstance.getBackingValue().intValue();
+                    
+                    try {
+                        FlatStorage<?> storage = getCharStorage(buffer, length);
+                        if (storage != null) {
+                            fileHandler.writeBlock(fd, storage.chars, buffer.positionOf(0), length);
+                        } else {
+                            char[] chars = new char[length];
+                            for (int i = 0; i < length; i++) {
+                                chars[i] = (char) toOperand(buffer.getAt(i).getValue()).longValue();
                             }
+                            fileHandler.writeBlock(fd, chars, 0, length);
                         }
-                        break;
-                    case t_not:
-                        throw new UnsupportedOperationException();
-                        /*
-                        if (pop instanceof PrimitiveInstance) {
-                            if (((PrimitiveInstance<?, ?>) pop).getBackingValue() instanceof Character) {
-                                ((PrimitiveInstance<Character, ?>) pop).setBackingValue((char) (~((Character) ((PrimitiveInstance) pop).getBackingValue()).charValue()));
-                            } else {
-                                // TODO: Implement this
-                                
-                            }
+                    } catch (IOException e) {
+                        logCurrentState();
+                        pushBoolean(false);
+                        return true;
+                    }
+                    
+                    logCurrentState();
+                    pushBoolean(true);
+                    return true;
+                }
+                case "_file_ready": {
+                    PrimitiveInstance<? extends Number, ?> fdInstance = (PrimitiveInstance<? extends Number, ?>) argumentPop();
+                    int fd = fdInstance.getBackingValue().intValue();
+                
+                    try {
+                        pushBoolean(fileHandler.fileReady(fd));
+                    } catch (IOException e) {
+                        pushBoolean(false);
+                    }
+                
+                    logCurrentState();
+                    return true;
+                }
+                case "breakpoint": {
+                    if (log()) {
+                        fileHandler.flushAll();
+                        System.out.println("Breakpoint Hit, press [ENTER] to continue");
+                        logCurrentState();
+                        try {
+                            System.in.read();
+                        } catch (IOException e) {
+                            e.printStackTrace();
                         }
-                        break;
-                        
-                         */
-                    case t_bang:
-                        push = createNewInstance(CXPrimitiveType.INTEGER, pop.isFalse() ? 1 : 0);
-                        break;
+                        System.out.println("Continuing...");
+                    }
+    
+                    return true;
+                }
+        }
+        return false;
+    }
+    
+    public Boolean invoke(TypeAugmentedSemanticNode input) throws EarlyExit, JodinNullPointerException {
+        // if (log(Level.INFO)) logger.info("Executing " + input);
+        nearestCurrentNode = input;
+        switch (input.getASTType()) {
+            case binop: {
+                TokenType op = input.getChild(0).getToken().getType();
+                if (!invoke(input.getChild(1))) return false;
+                PrimitiveInstance<?, ?> lhs = toOperand(pop().unwrap());
+                
+                // short circuit evaluation
+                Instance<?> shortCircuited = shortCircuit(op, lhs);
+                if (shortCircuited != null) {
+                    push(shortCircuited);
+                    break;
+                }
+                
+                if (!invoke(input.getChild(2))) return false;
+                PrimitiveInstance<?, ?> rhs = toOperand(pop().unwrap());
+                
+                try {
+                    push(binaryOperation(op, lhs, rhs));
+                } catch (InvalidPrimitiveException e) {
+                    return false;
                 }
-                push(push);
+            }
+            break;
+            
+            case uniop: {
+                if (!invoke(input.getChild(1))) return false;
+                push(unaryOperation(input.getChild(0).getToken().getType(), pop().unwrap()));
             }
             break;
             case declaration: {
-                String id = input.getASTChild(ASTNodeType.id).getToken().getImage();
+                TypeAugmentedSemanticNode id = input.getASTChild(ASTNodeType.id);
                 CXType cxType = ((TypedAbstractSyntaxNode) input.getASTNode()).getCxType();
                 if (cxType instanceof ArrayType && !(cxType instanceof PointerType)) {
                     MultiDimensionalArrayWithSizeTag compilationTag = input.getCompilationTag(MultiDimensionalArrayWithSizeTag.class);
@@ -1785,11 +3068,11 @@ public class Interpreter {
                         for (TypeAugmentedSemanticNode expression : compilationTag.getExpressions()) {
                             if (!invoke(expression)) return false;
                             PrimitiveInstance<Number, ?> pop = ((PrimitiveInstance<Number, ?>) pop());
-                            sizes.add(pop.backingValue.intValue());
+                            sizes.add(pop.getBackingValue().intValue());
                         }
     
                         ArrayInstance<?, ArrayType> array = createArray(((ArrayType) cxType), sizes);
-                        if (log()) logger.info("Created a " + cxType + " array of size " + array.size);
+                        if (log(Level.INFO)) logger.info("Created a " + cxType + " array of size " + array.size);
                         addAutoVariable(id, array);
                     } else {
                         addAutoVariable(id, defaultValue(cxType));
@@ -1819,7 +3102,7 @@ public class Interpreter {
                  */
                 
                 Token assignmentToken = input.getASTChild(ASTNodeType.assignment_type).getToken();
-                if (log()) logger.fine("Assigning " + rhs + " to " + lhs + " using " + assignmentToken);
+                if (log(Level.FINE)) logger.fine("Assigning " + rhs + " to " + lhs + " using " + assignmentToken);
                 if (assignmentToken.getType() == t_assign) {
                     lhs.copyFrom(rhs);
                 } else if (assignmentToken.getType() == t_operator_assign) {
@@ -1835,43 +3118,13 @@ public class Interpreter {
                 ArrayInstance<?, ?> arr = (ArrayInstance<?, ?>) pop().unwrap();
                 if (!invoke(input.getChild(1))) return false;
                 PrimitiveInstance<Number, ?> index = (PrimitiveInstance<Number, ?>) pop();
-                if (log()) logger.info("Getting at index " + index + " of " + arr);
-                push((Instance<?>) arr.getAt(index.backingValue.intValue()));
+                if (log(Level.INFO)) logger.info("Getting at index " + index + " of " + arr);
+                push((Instance<?>) arr.getAt(index.intValue()));
             }
             break;
             case postop: {
                 if (!invoke(input.getChild(0))) return false;
-                Instance<?> pop = pop().unwrap();
-                Instance<?> output = pop.copy();
-                switch (input.getChild(1).getToken().getType()) {
-                    case t_inc: {
-                        if (pop instanceof PointerInstance) {
-                            ((PointerInstance) pop).index += 1;
-                        } else if (pop instanceof PrimitiveInstance) {
-                            if (((PrimitiveInstance<?, ?>) pop).getBackingValue() instanceof Character) {
-                                ((PrimitiveInstance<Character, ?>) pop).setBackingValue((char) (((Character) ((PrimitiveInstance) pop).getBackingValue()).charValue() + 1));
-                            } else {
-                                ((PrimitiveInstance<Number, ?>) pop).setBackingValue(opOnIntegral(t_add,
-                                        ((PrimitiveInstance<Number, ?>) pop).backingValue.longValue(), 1));
-                            }
-                        }
-                    }
-                    break;
-                    case t_dec: {
-                        if (pop instanceof PointerInstance) {
-                            ((PointerInstance) pop).index -= 1;
-                        } else if (pop instanceof PrimitiveInstance) {
-                            if (((PrimitiveInstance<?, ?>) pop).getBackingValue() instanceof Character) {
-                                ((PrimitiveInstance<Character, ?>) pop).setBackingValue((char) (((Character) ((PrimitiveInstance) pop).getBackingValue()).charValue() - 1));
-                            } else {
-                                ((PrimitiveInstance<Number, ?>) pop).setBackingValue(opOnIntegral(t_minus,
-                                        ((PrimitiveInstance<Number, ?>) pop).backingValue.longValue(), 1));
-                            }
-                        }
-                    }
-                    break;
-                }
-                push(output);
+                push(postfixOperation(input.getChild(1).getToken().getType(), pop().unwrap()));
             }
             break;
             case literal:
@@ -1902,254 +3155,36 @@ public class Interpreter {
                 }
                 
                 
-                if (funcCall.equals("calloc")) {
+                if (isIntrinsic(funcCall)) {
                     if (!invoke(input.getASTChild(ASTNodeType.sequence))) return false;
-                    startStackTraceFor(id.getBase());
-                    CXType cxType =
-                            ((TypedAbstractSyntaxNode) input.getASTChild(ASTNodeType.sequence).getASTChild(ASTNodeType.sizeof).getASTNode()).getCxType();
-                    PrimitiveInstance<Number, ?> size = (PrimitiveInstance<Number, ?>) argumentPop();
-                    argumentPop();
-                    if (log()) logger.info("Using simulated Calloc to creating an array of " + cxType + "...");
-                    push(createArrayOfType(cxType, size.backingValue.intValue()));
-                    if (log()) logger.info("Array of " + cxType + "created with size " + size.backingValue.intValue() + " => " + memStack.peek());
-                    logCurrentState();
-                    stackTrace.pop();
+                    if (!invokeIntrinsic(funcCall, id, input)) return false;
                     break;
-                } else if (funcCall.equals("free")) {
-                    if (!invoke(input.getASTChild(ASTNodeType.sequence))) return false;
-                    startStackTraceFor(id.getBase());
-                    PointerInstance<?> pop = (PointerInstance<?>) argumentPop();
-                    if (log()) logger.info("freeing object " + pop);
-                    pop.setPointer(null);
-                    stackTrace.pop();
-                    break;
-                } else if (funcCall.equals("_interpreter_print")) {
-                    if (!invoke(input.getASTChild(ASTNodeType.sequence))) return false;
-                    startStackTraceFor(id.getBase());
-                    PointerInstance<CXPrimitiveType> pop = (PointerInstance<CXPrimitiveType>) argumentPop();
-                    while (!pop.isNull()) {
-                        PrimitiveInstance<Character, ?> pointer = (PrimitiveInstance<Character, ?>) pop.getPointer();
-                        if (pointer.backingValue == '\\') {
-                            pop = pop.getPointerOfOffset(1);
-                            char escape = ((PrimitiveInstance<Character, ?>) pop.getPointer()).backingValue;
-                            switch (escape) {
-                                case 'n': {
-                                    System.out.println();
-                                    break;
-                                }
-                                case 't': {
-                                    System.out.print('\t');
-                                    break;
-                                }
-                                case 'r': {
-                                    System.out.print('\r');
-                                    break;
-                                }
-                                case '\\': {
-                                    System.out.print('\\');
-                                    break;
-                                }
-                                case '\'': {
-                                    System.out.print('\'');
-                                    break;
-                                }
-                                case '\"': {
-                                    System.out.print('\"');
-                                    break;
-                                }
-                                case '?': {
-                                    System.out.print('?');
-                                    break;
-                                }
-                            }
-                        } else {
-                            System.out.print(pointer.backingValue);
-                        }
-                        pop = pop.getPointerOfOffset(1);
-                    }
-                    stackTrace.pop();
-                    logCurrentState();
-                    break;
-                } else if (funcCall.equals("get_hashcode_for")) {
+                }
+                
+                TypeAugmentedSemanticNode function = getSymbol(id);
+                
+                
+                if (function == null) {
+                    
+                    throw new CompilationError("Symbol " + funcCall + " not " +
+                            "defined", input.getASTChild(ASTNodeType.id).getToken());
+                } else {
                     if (!invoke(input.getASTChild(ASTNodeType.sequence))) return false;
+                    useThisStack.push(false);
                     startStackTraceFor(id.getBase());
-                    push(createNewInstance(CXPrimitiveType.INTEGER, argumentPop().hashCode()));
-                    stackTrace.pop();
                     logCurrentState();
-                    break;
-                } else if (funcCall.equals("exit")) {
-                    if (!invoke(input.getASTChild(ASTNodeType.sequence))) return false;
-                    PrimitiveInstance<? extends Number, ?> pop = (PrimitiveInstance<? extends Number, ?>) argumentPop();
-                    int exitCode = pop.getBackingValue().intValue();
-                    throw new EarlyExit(exitCode);
-                }
-
-                switch (funcCall) {
-                    case "_open_file": {
-                        if (!invoke(input.getASTChild(ASTNodeType.sequence))) return false;
-                        startStackTraceFor(id.getBase());
-                        //hopefully a string
-                        PointerInstance<CXPrimitiveType> errorPtr = (PointerInstance<CXPrimitiveType>) argumentPop();
-                        PointerInstance<CXClassType> stringObj = (PointerInstance<CXClassType>) argumentPop();
-                        callMethod(stringObj, "getCStr");
-                        PointerInstance<CXPrimitiveType> charPtr = (PointerInstance<CXPrimitiveType>) pop();
-                        String path = charPtr.takeString().expect("A c-style string must be passed here. Instead found " + charPtr);
-                        try {
-                            int fd = fileHandler.openFile(path, FileHandler.AccessOption.READ, FileHandler.AccessOption.WRITE);
-                            push(createNewInstance(CXPrimitiveType.INTEGER, fd));
-                        } catch (IOException e) {
-                            
-                            PrimitiveInstance<Long, ?> error = (PrimitiveInstance<Long, ?>) errorPtr.getPointer();
-                            error.setBackingValue(1L);
+                    if (log(Level.INFO)) logger.info("Calling function: " + input.getASTChild(ASTNodeType.id).getToken().getImage());
+                    if (!runFunction(function)) return false;
+                    if (completeReturn()) {
+                        if (returnValue != null) {
+                            push(returnValue);
                         }
-                        stackTrace.pop();
-                        logCurrentState();
-                        break;
-                    }
-                    case "_flush_file": {
-                        if (!invoke(input.getASTChild(ASTNodeType.sequence))) return false;
-                        startStackTraceFor(id.getBase());
-                        PrimitiveInstance<? extends Number, ?> fdInstance = (PrimitiveInstance<? extends Number, ?>) argumentPop();
-                        
-                        int fd = fdInstance.getBackingValue().intValue();
-                        
-                        fileHandler.flushFile(fd);
-                        
-                        
-                        stackTrace.pop();
-                        logCurrentState();
-                        break;
-                    }
-                    case "_close_file": {
-                        
-                        if (!invoke(input.getASTChild(ASTNodeType.sequence))) return false;
-                        startStackTraceFor(id.getBase());
-                        PrimitiveInstance<? extends Number, ?> fdInstance = (PrimitiveInstance<? extends Number, ?>) argumentPop();
-                        
-                        
-                        int fd = fdInstance.getBackingValue().intValue();
-                        
-                        fileHandler.closeFile(fd);
-                        
-                        
-                        stackTrace.pop();
-                        logCurrentState();
-                        
-                        break;
-                    }
-                    case "_read_file": {
-                        if (!invoke(input.getASTChild(ASTNodeType.sequence))) return false;
-                        startStackTraceFor(id.getBase());
-                        PointerInstance<CXPrimitiveType> errorInstance = (PointerInstance<CXPrimitiveType>) argumentPop();
-                        PrimitiveInstance<? extends Number, ?> fdInstance = (PrimitiveInstance<? extends Number, ?>) argumentPop();
-                        
-                        PrimitiveInstance<? super Number, ?> error = (PrimitiveInstance<? super Number, ?>) errorInstance.getPointer();
-                        int fd = fdInstance.getBackingValue().intValue();
-                        
-                        try {
-                            int b = fileHandler.readFile(fd);
-                            if (b == -1) {
-                                error.setBackingValue(2);
-                            }
-                            push(createNewInstance(UnsignedPrimitive.createUnsigned(CXPrimitiveType.CHAR), (char) b));
-                        } catch (IOException e) {
-                            push(createNewInstance(UnsignedPrimitive.createUnsigned(CXPrimitiveType.CHAR), (char) 0));
-                            error.setBackingValue(1);
-                        }
-                        
-                        
-                        stackTrace.pop();
-                        logCurrentState();
-                        
-                        break;
-                    }
-                    
-                    case "_write_file": {
-                        if (!invoke(input.getASTChild(ASTNodeType.sequence))) return false;
-                        startStackTraceFor(id.getBase());
-                        
-                        PrimitiveInstance<Character, ?> cInstance = (PrimitiveInstance<Character, ?>) argumentPop();
-                        PrimitiveInstance<? extends Number, ?> fdInstance = (PrimitiveInstance<? extends Number, ?>) argumentPop();
-                        
-                        char c = cInstance.getBackingValue();
-                        int fd = fdInstance.getBackingValue().intValue();
-                        
-                        
-                        try {
-                            fileHandler.writeFile(fd, c);
-                        } catch (IOException e) {
-                            stackTrace.pop();
-                            logCurrentState();
-                            pushBoolean(false);
-                            break;
-                        }
-                        
-                        
-                        stackTrace.pop();
-                        logCurrentState();
-                        pushBoolean(true);
-                        break;
-                    }
-                    case "_file_ready": {
-                        if (!invoke(input.getASTChild(ASTNodeType.sequence))) return false;
-                        startStackTraceFor(id.getBase());
-                        
-                        PrimitiveInstance<? extends Number, ?> fdInstance = (PrimitiveInstance<? extends Number, ?>) argumentPop();
-                        int fd = fdInstance.getBackingValue().intValue();
-                        
-                        try {
-                            pushBoolean(fileHandler.fileReady(fd));
-                        } catch (IOException e) {
-                            pushBoolean(false);
-                        }
-                        
-                        stackTrace.pop();
-                        logCurrentState();
-                        break;
-                    }
-                    case "breakpoint": {
-                        if (!invoke(input.getASTChild(ASTNodeType.sequence))) return false;
-                        if (log()) {
-                            System.out.println("Breakpoint Hit, press [ENTER] to continue");
-                            logCurrentState();
-                            try {
-                                System.in.read();
-                            } catch (IOException e) {
-                                e.printStackTrace();
-                            }
-                            System.out.println("Continuing...");
-                        }
-    
-                        break;
-                    }
-                    default: {
-                        TypeAugmentedSemanticNode function = getSymbol(id);
-                        
-                        
-                        if (function == null) {
-                            
-                            throw new CompilationError("Symbol " + funcCall + " not " +
-                                    "defined", input.getASTChild(ASTNodeType.id).getToken());
-                        } else {
-                            if (!invoke(input.getASTChild(ASTNodeType.sequence))) return false;
-                            useThisStack.push(false);
-                            startStackTraceFor(id.getBase());
-                            logCurrentState();
-                            try {
-                                if (log()) logger.info("Calling function: " + input.getASTChild(ASTNodeType.id).getToken().getImage());
-                                if (!invoke(function)) return false;
-                            } catch (FunctionReturned functionReturned) {
-                                if (returnValue != null) {
-                                    push(returnValue);
-                                }
-                                returnValue = null;
-                            }
-                        }
-                        logCurrentState();
-                        stackTrace.pop();
-                        useThisStack.pop();
+                        returnValue = null;
                     }
                 }
+                logCurrentState();
+                stackTrace.pop();
+                useThisStack.pop();
                 
             }
             break;
@@ -2180,21 +3215,18 @@ public class Interpreter {
                     while (!instances.isEmpty()) {
                         memStack.push(instances.pop());
                     }
-                    TypeAugmentedSemanticNode method = dynamicMethodLookup(classTypeInstance.getType().getParent(), idToken, types);
+                    TypeAugmentedSemanticNode method = lookupMethod(input, classTypeInstance.getType().getParent(), idToken, types);
                     if (method == null) {
                         throw new Error("Method " + classTypeInstance.getType().getParent() + "::" + idToken.getImage() + types + " not " +
                                 "defined");
                     }
                     startStackTraceFor(classTypeInstance.getType().getParent() + "::" + idToken.getImage(), idToken);
                     logCurrentState();
-                    try {
-                        if (!invoke(method)) return false;
-                        endClosure();
-                    } catch (FunctionReturned functionReturned) {
-                        endClosure();
+                    if (!callOnStack(() -> invoke(method))) return false;
+                    endClosure();
+                    if (completeReturn()) {
                         push(returnValue);
                         returnValue = null;
-                        
                     }
                     logCurrentState();
                     stackTrace.pop();
@@ -2225,21 +3257,18 @@ public class Interpreter {
                     while (!instances.isEmpty()) {
                         arguments.push(instances.pop());
                     }
-                    TypeAugmentedSemanticNode method = dynamicMethodLookup(classTypeInstance.getType(), idToken, types);
+                    TypeAugmentedSemanticNode method = lookupMethod(input, classTypeInstance.getType(), idToken, types);
                     if (method == null) {
                         throw new Error("Method " + classTypeInstance.getType() + "::" + idToken.getImage() + types + " not " +
                                 "defined");
                     }
                     startStackTraceFor(classTypeInstance.getType() + "::" + idToken.getImage(), idToken);
                     logCurrentState();
-                    try {
-                        if (!invoke(method)) return false;
-                        endClosure();
-                    } catch (FunctionReturned functionReturned) {
-                        endClosure();
+                    if (!callOnStack(() -> invoke(method))) return false;
+                    endClosure();
+                    if (completeReturn()) {
                         push(returnValue);
                         returnValue = null;
-                        
                     }
                     logCurrentState();
                     stackTrace.pop();
@@ -2258,10 +3287,8 @@ public class Interpreter {
                     
                     throw new JodinNullPointerException();
                 }
-                String field = input.getChild(1).getToken().getImage();
-                
                 // push field
-                push(compoundInstance.get(field));
+                push(compoundInstance.get(getFieldSlot(input, compoundInstance)));
             }
             break;
             case if_cond: {
@@ -2269,13 +3296,13 @@ public class Interpreter {
                 PrimitiveInstance<?, ?> pop = (PrimitiveInstance<Number, ?>) pop().unwrap();
                 boolean cond = pop.isTrue();
                 if (cond) {
-                    if (log()) logger.fine("Using true branch for if statement");
+                    if (log(Level.FINE)) logger.fine("Using true branch for if statement");
                     if (!invoke(input.getChild(1))) return false;
                 } else if (input.getChild(2).getASTType() != ASTNodeType.empty) {
-                    if (log()) logger.fine("Using else branch for if statement");
+                    if (log(Level.FINE)) logger.fine("Using else branch for if statement");
                     if (!invoke(input.getChild(2))) return false;
                 } else {
-                    if (log()) logger.fine("No branch for if statement");
+                    if (log(Level.FINE)) logger.fine("No branch for if statement");
                 }
             }
             break;
@@ -2286,12 +3313,14 @@ public class Interpreter {
                     boolean cond = pop.isTrue();
                     if (!cond) break;
                     if (!invoke(input.getChild(1))) return false;
+                    if (returning) break;
                 }
                 
                 break;
             case do_while_cond:
                 while (true) {
                     if (!invoke(input.getChild(0))) return false;
+                    if (returning) break;
                     if (!invoke(input.getChild(1))) return false;
                     PrimitiveInstance<Number, ?> pop = (PrimitiveInstance<Number, ?>) pop().unwrap();
                     boolean cond = pop.isTrue();
@@ -2299,7 +3328,6 @@ public class Interpreter {
                 }
                 break;
             case for_cond: {
-                startLexicalScope();
                 if (!invoke(input.getChild(0))) return false;
                 while (true) {
                     if (!invoke(input.getChild(1))) return false;
@@ -2307,34 +3335,40 @@ public class Interpreter {
                     boolean cond = pop.isTrue();
                     
                     if (!cond) break;
-                    try {
-                        if (!invoke(input.getChild(3))) return false;
-                        
-                    } catch (FunctionReturned e) {
-                        endLexicalScope();
-                        throw e;
-                    }
+                    if (!invoke(input.getChild(3))) return false;
+                    if (returning) break;
                     if (!invoke(input.getChild(2))) return false;
                 }
-                endLexicalScope();
             }
             break;
             case _return:
+                if (input.containsCompilationTag(BasicCompilationTag.TAIL_CALL)) {
+                    TypeAugmentedSemanticNode function = getSymbol(TailCallAnalyzer.getCallee(input));
+                    if (!invoke(input.getChild(0).getASTChild(ASTNodeType.sequence))) return false;
+                    if (log(Level.FINE)) logger.fine("Function to tail call " + TailCallAnalyzer.getCallee(input));
+                    tailCall = function;
+                    returnValue = null;
+                    returning = true;
+                    break;
+                }
                 if (input.getChildren().size() > 0) {
                     if (!invoke(input.getChild(0))) return false;
                     returnValue = pop().unwrap();
-                    if (log()) logger.fine("Function to return " + returnValue);
+                    if (log(Level.FINE)) logger.fine("Function to return " + returnValue);
                 }
-                throw new FunctionReturned();
+                returning = true;
+                break;
             case constructor_definition:
             case function_definition:
-                createClosure();
+                createClosure(FrameSlotAllocator.getFrameSize(input));
                 List<TypeAugmentedSemanticNode> parameters = input.getASTChild(ASTNodeType.parameter_list).getChildren();
                 
                 for (int i = parameters.size() - 1; i >= 0; i--) {
+                    Instance<?> argument = argumentPop();
+                    Instance<?> converted = convertTo(argument, getParameterType(parameters.get(i)));
                     addAutoVariable(
-                            parameters.get(i).getASTChild(ASTNodeType.id).getToken().getImage(),
-                            argumentPop().copy()
+                            parameters.get(i).getASTChild(ASTNodeType.id),
+                            converted == argument ? argument.copy() : converted
                     );
                 }
                 
@@ -2353,25 +3387,22 @@ public class Interpreter {
                     startStackTraceFor(prior.getPriorConstructor().toString(), input.findFirstToken());
                     if (!invoke(prior.getSequence())) return false;
                     if (!invoke(MethodTASNTracker.getInstance().get(prior.getPriorConstructor()))) return false;
+                    completeReturn();
                     //push(classTypeInstance);
                     stackTrace.pop();
                 }
                 
                 
-                try {
-                    if (!invoke(input.getASTChild(ASTNodeType.compound_statement))) return false;
-                } catch (FunctionReturned e) {
-                    endClosure();
-                    throw e;
+                if (!invoke(input.getASTChild(ASTNodeType.compound_statement))) return false;
+                if (returnValue != null && input.getASTType() == ASTNodeType.function_definition) {
+                    returnValue = convertTo(returnValue, input.getCXType());
                 }
                 endClosure();
                 break;
             case compound_type_reference:
-                startLexicalScope();
                 for (TypeAugmentedSemanticNode child : input.getChildren()) {
                     if (!invoke(child)) return false;
                 }
-                endLexicalScope();
                 break;
             case typedef:
                 break;
@@ -2382,7 +3413,7 @@ public class Interpreter {
                 
                 Instance<?> og = pop().unwrap();
                 if (og instanceof PrimitiveInstance && !(og instanceof PointerInstance)) {
-                    if (((PrimitiveInstance<Number, ?>) og).backingValue.doubleValue() == 0) {
+                    if (((PrimitiveInstance<Number, ?>) og).getBackingValue().doubleValue() == 0) {
                         throw new Error("Can't dereference a null pointer");
                     }
                 } else if (og instanceof PointerInstance) {
@@ -2391,7 +3422,7 @@ public class Interpreter {
                     }
                 }
                 PointerInstance<?> pointerInstance = (PointerInstance<?>) og;
-                if (log()) logger.finer("Getting indirection of " + pointerInstance.getType() + " => " + pointerInstance.getPointer());
+                if (log(Level.FINER)) logger.finer("Getting indirection of " + pointerInstance.getType() + " => " + pointerInstance.getPointer());
                 push(pointerInstance.deref());
                 break;
             case addressof:
@@ -2418,22 +3449,16 @@ public class Interpreter {
                 break;
             case initialized_declaration:
                 if (!invoke(input.getChild(0))) return false;
-                String id = input.getChild(0).getASTChild(ASTNodeType.id).getToken().getImage();
+                TypeAugmentedSemanticNode id = input.getChild(0).getASTChild(ASTNodeType.id);
                 if (!invoke(input.getChild(1))) return false;
                 Instance<CXType> autoVariable = getAutoVariable(id);
                 autoVariable.copyFrom(pop().unwrap());
                 break;
             case compound_statement:
-                startLexicalScope();
                 for (TypeAugmentedSemanticNode directChild : input.getDirectChildren()) {
-                    try {
-                        if (!invoke(directChild)) return false;
-                    } catch (FunctionReturned e) {
-                        endLexicalScope();
-                        throw e;
-                    }
+                    if (!invoke(directChild)) return false;
+                    if (returning) break;
                 }
-                endLexicalScope();
                 break;
             case sizeof:
                 push(createNewInstance(LongPrimitive.create(), ((TypedAbstractSyntaxNode) input.getASTNode()).getCxType().getDataSize(environment)));
@@ -2468,7 +3493,7 @@ public class Interpreter {
                         dynamicConstructorLookup(((CXClassType) ((PointerType) input.getCXType()).getSubType()),
                         types);
                 try {
-                    if (!invoke(constructor)) return false;
+                    if (!callOnStack(() -> invoke(constructor))) return false;
                 } catch (FunctionReturned functionReturned) {
                 }
                
@@ -2480,13 +3505,10 @@ public class Interpreter {
                 logCurrentState();
                 
                 
-                if (log()) logger.info("Calling constructor for " + cxConstructor.getParent());
+                if (log(Level.INFO)) logger.info("Calling constructor for " + cxConstructor.getParent());
                 TypeAugmentedSemanticNode cons = MethodTASNTracker.getInstance().get(cxConstructor);
-                try {
-                    if (!invoke(cons)) return false;
-                } catch (FunctionReturned ignored) {
-                    
-                }
+                if (!invoke(cons)) return false;
+                completeReturn();
                 
                 stackTrace.pop();
                 thisStack.pop();
@@ -2532,6 +3554,87 @@ public class Interpreter {
         return MethodTASNTracker.getInstance().get(method);
     }
     
+    /**
+     * Finds the method to call for a method call node, using the inline cache of the node
+     */
+    private TypeAugmentedSemanticNode lookupMethod(TypeAugmentedSemanticNode callSite, CXClassType clazz, Token id,
+                                                   List<CXType> inputTypes) {
+        InlineCache<TypeAugmentedSemanticNode> cache = callSiteCaches.get(callSite);
+        if (cache == null) {
+            cache = new InlineCache<>(TypeAugmentedSemanticNode[]::new);
+            callSiteCaches.put(callSite, cache);
+        }
+        TypeAugmentedSemanticNode method = cache.get(clazz);
+        if (method == null) {
+            method = dispatchMethod(cache, clazz, id, inputTypes);
+            if (method != null) cache.put(clazz, method);
+        }
+        return method;
+    }
+    
+    protected ObjectShape getShape(CXCompoundType type) {
+        ObjectShape shape = shapes.get(type);
+        if (shape == null) {
+            shape = new ObjectShape(type);
+            shapes.put(type, shape);
+        }
+        return shape;
+    }
+    
+    /**
+     * Gets the slot of the field read by a field get, finding it in the shape of the owner the first time the field
+     * get is run. Every owner of a field get is an instance of the same class or a subclass of it, so the field is in
+     * the same slot for all of them.
+     * @param fieldGet the field get node
+     * @param owner the owner of the field
+     * @return the slot of the field in the owner
+     */
+    protected int getFieldSlot(TypeAugmentedSemanticNode fieldGet, CompoundInstance<?> owner) {
+        FieldSlotTag tag = fieldGet.getCompilationTag(FieldSlotTag.class);
+        if (tag == null) {
+            tag = new FieldSlotTag(owner.getShape().slotOf(fieldGet.getChild(1).getToken().getImage()));
+            fieldGet.addCompilationTag(tag);
+        }
+        assert owner.getShape().getFieldName(tag.getSlot()).equals(fieldGet.getChild(1).getToken().getImage());
+        return tag.getSlot();
+    }
+    
+    protected DispatchTable getDispatchTable(CXClassType clazz) {
+        DispatchTable table = dispatchTables.get(clazz);
+        if (table == null) {
+            table = new DispatchTable(clazz);
+            dispatchTables.put(clazz, table);
+        }
+        return table;
+    }
+    
+    /**
+     * Finds the method to call for a method call that missed its inline cache. If the call site has already called a
+     * virtual method, the method is found in the dispatch table of the receiver, otherwise it's looked up by its
+     * parameter types.
+     *
+     * @param cache the inline cache of the call site, which isn't updated with the found method
+     * @param clazz the class of the receiver
+     * @param id the name of the method
+     * @param inputTypes the types of the arguments
+     * @return the definition of the method, or null if there's no such method
+     */
+    protected TypeAugmentedSemanticNode dispatchMethod(InlineCache<?> cache, CXClassType clazz, Token id,
+                                                       List<CXType> inputTypes) {
+        DispatchTable table = getDispatchTable(clazz);
+        if (cache.getVirtualIndex() >= 0) {
+            TypeAugmentedSemanticNode method = table.get(cache.getVirtualIndex(), id.getImage());
+            if (method != null) return method;
+        }
+        CXMethod method = clazz.getMethod(id, new ParameterTypeList(inputTypes), null);
+        if (method == null) return null;
+        int index = table.indexOf(method);
+        if (index >= 0) {
+            cache.setVirtualIndex(index);
+        }
+        return MethodTASNTracker.getInstance().get(method);
+    }
+    
     public TypeAugmentedSemanticNode dynamicConstructorLookup(CXClassType clazz, List<CXType> inputTypes) {
         ParameterTypeList parameterTypeList = new ParameterTypeList(inputTypes);
         CXMethod method = clazz.getConstructor(parameterTypeList);
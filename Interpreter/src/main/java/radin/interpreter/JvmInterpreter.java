@@ -0,0 +1,89 @@
+package radin.interpreter;
+
+import radin.core.semantics.ASTNodeType;
+import radin.core.semantics.TypeEnvironment;
+import radin.core.semantics.types.CXIdentifier;
+import radin.core.semantics.types.CXType;
+import radin.core.SymbolTable;
+import radin.midanalysis.TypeAugmentedSemanticNode;
+
+import java.lang.invoke.MethodHandles;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+
+/**
+ * An interpreter that runs the functions it can as JVM bytecode, produced by the {@link BytecodeCompiler}. Everything
+ * else, including the intrinsics and any function that can't be lowered, is run by the tree walking interpreter.
+ */
+public class JvmInterpreter extends Interpreter {
+
+    private final Map<TypeAugmentedSemanticNode, BytecodeCompiler.CompiledFunction> compiled;
+
+    public JvmInterpreter(TypeEnvironment environment, SymbolTable<CXIdentifier, TypeAugmentedSemanticNode> symbols) {
+        super(environment, symbols);
+        List<TypeAugmentedSemanticNode> functions = new ArrayList<>();
+        for (Map.Entry<SymbolTable<CXIdentifier, TypeAugmentedSemanticNode>.Key, TypeAugmentedSemanticNode> symbol : symbols) {
+            if (symbol.getValue() != null) {
+                functions.add(symbol.getValue());
+            }
+        }
+        compiled = new BytecodeCompiler(this).compile(functions, MethodHandles.lookup());
+        if (log(Level.INFO)) logger.info("Compiled " + compiled.size() + " functions to bytecode");
+    }
+
+    @Override
+    protected boolean callFunction(TypeAugmentedSemanticNode function) throws EarlyExit, JodinNullPointerException {
+        BytecodeCompiler.CompiledFunction compiledFunction = compiled.get(function);
+        if (compiledFunction == null) {
+            return super.callFunction(function);
+        }
+
+        BytecodeCompiler.Kind[] kinds = compiledFunction.getParameterKinds();
+        List<TypeAugmentedSemanticNode> parameters = function.getASTChild(ASTNodeType.parameter_list).getChildren();
+        Object[] arguments = new Object[kinds.length];
+        for (int i = kinds.length - 1; i >= 0; i--) {
+            // narrowed to the type of the parameter, as the interpreter would
+            PrimitiveInstance<?, ?> argument =
+                    (PrimitiveInstance<?, ?>) convertTo(argumentPop().unwrap(), getParameterType(parameters.get(i)));
+            switch (kinds[i]) {
+                case INT:
+                    arguments[i] = argument.intValue();
+                    break;
+                case LONG:
+                    arguments[i] = argument.longValue();
+                    break;
+                default:
+                    arguments[i] = argument.doubleValue();
+            }
+        }
+
+        Object result;
+        try {
+            result = (Object) compiledFunction.getHandle().invokeExact(arguments);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+
+        if (result == null) {
+            returnWith(null);
+        } else {
+            returnWith(wrap(compiledFunction.getReturnType(), (Number) result));
+        }
+        return true;
+    }
+
+    private Instance<?> wrap(CXType type, Number value) {
+        PrimitiveInstance<?, ?> instance = (PrimitiveInstance<?, ?>) createNewInstance(type);
+        ValueKind kind = scalarKind(type);
+        if (kind.isFloatingPoint()) {
+            instance.setFloatingPoint(kind, value.doubleValue());
+        } else {
+            instance.setIntegral(kind, value.longValue());
+        }
+        return instance;
+    }
+}
@@ -0,0 +1,72 @@
+package radin.interpreter;
+
+import radin.core.semantics.types.CXType;
+import radin.core.semantics.types.compound.CXCompoundType;
+import radin.core.semantics.types.compound.ICXCompoundType;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * The layout of the fields of a compound type, giving every field a slot in the array that an instance keeps its
+ * fields in. The fields of a parent class come before the fields of the class itself, so a field has the same slot in
+ * every subclass of the class it's declared in. A field that hides a field of a parent uses the slot of the parent's
+ * field.
+ */
+public class ObjectShape {
+
+    private final CXCompoundType type;
+    private final String[] names;
+    private final CXType[] types;
+    private final HashMap<String, Integer> slots = new HashMap<>();
+
+    public ObjectShape(CXCompoundType type) {
+        this.type = type;
+        List<String> names = new ArrayList<>();
+        List<CXType> types = new ArrayList<>();
+        for (ICXCompoundType.FieldDeclaration field : type.getAllFields()) {
+            Integer slot = slots.get(field.getName());
+            if (slot == null) {
+                slots.put(field.getName(), names.size());
+                names.add(field.getName());
+                types.add(field.getType());
+            } else {
+                types.set(slot, field.getType());
+            }
+        }
+        this.names = names.toArray(new String[0]);
+        this.types = types.toArray(new CXType[0]);
+    }
+
+    public CXCompoundType getType() {
+        return type;
+    }
+
+    /**
+     * @return the amount of slots an instance of the type needs
+     */
+    public int size() {
+        return names.length;
+    }
+
+    /**
+     * Gets the slot of a field
+     *
+     * @param name the name of the field
+     * @return the slot, or -1 if the type has no such field
+     */
+    public int slotOf(String name) {
+        Integer slot = slots.get(name);
+        if (slot == null) return -1;
+        return slot;
+    }
+
+    public String getFieldName(int slot) {
+        return names[slot];
+    }
+
+    public CXType getFieldType(int slot) {
+        return types[slot];
+    }
+}
@@ -6,6 +6,7 @@ import radin.core.semantics.types.CXIdentifier;
 import radin.core.utility.Pair;
 
 public class ProgramSymbolTable extends SymbolTable<CXIdentifier, TypeAugmentedSemanticNode> {
+    private static final long serialVersionUID = 1L;
     
     private SymbolTable<Pair<CXIdentifier, Integer>, TypeAugmentedSemanticNode> methodTable;
     
@@ -0,0 +1,137 @@
+package radin.interpreter;
+
+import radin.core.semantics.ASTNodeType;
+import radin.core.semantics.types.CXIdentifier;
+import radin.core.semantics.types.CXType;
+import radin.midanalysis.TypeAugmentedSemanticNode;
+import radin.output.tags.BasicCompilationTag;
+import radin.output.tags.ResolvedPathTag;
+
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Finds the return statements of a function that only return the result of calling another function, and tags them
+ * with {@link BasicCompilationTag#TAIL_CALL}. The interpreter makes those calls once the frame of the calling function
+ * has ended, so a chain of tail calls, such as a function that recurses on itself as its last action, runs as a loop
+ * instead of growing the stack.
+ * <p>
+ * Only functions are analyzed, as methods and constructors keep their receiver on the this stack until they return. A
+ * call is only a tail call if the called function returns the same type, as otherwise its result still has to be
+ * converted to the return type of the caller after it returns.
+ * </p>
+ */
+public class TailCallAnalyzer {
+    
+    private final TypeAugmentedSemanticNode definition;
+    private final Function<CXIdentifier, TypeAugmentedSemanticNode> symbols;
+    private final List<TypeAugmentedSemanticNode> tailCalls = new ArrayList<>();
+    
+    private TailCallAnalyzer(TypeAugmentedSemanticNode definition,
+                             Function<CXIdentifier, TypeAugmentedSemanticNode> symbols) {
+        this.definition = definition;
+        this.symbols = symbols;
+    }
+    
+    /**
+     * Tags the tail calls of a function definition
+     *
+     * @param definition a function definition
+     * @param symbols looks up the definition of a function by its resolved identifier
+     */
+    public static void markTailCalls(TypeAugmentedSemanticNode definition,
+                                     Function<CXIdentifier, TypeAugmentedSemanticNode> symbols) {
+        for (TypeAugmentedSemanticNode returnStatement : findTailCalls(definition, symbols)) {
+            if (!returnStatement.containsCompilationTag(BasicCompilationTag.TAIL_CALL)) {
+                returnStatement.addCompilationTag(BasicCompilationTag.TAIL_CALL);
+            }
+        }
+    }
+    
+    private static List<TypeAugmentedSemanticNode> findTailCalls(TypeAugmentedSemanticNode definition,
+                                                                Function<CXIdentifier, TypeAugmentedSemanticNode> symbols) {
+        TailCallAnalyzer analyzer = new TailCallAnalyzer(definition, symbols);
+        analyzer.visit(definition.getASTChild(ASTNodeType.compound_statement));
+        return analyzer.tailCalls;
+    }
+    
+    /**
+     * Checks if a chain of tail calls that starts in one function can lead to another
+     *
+     * @param from the function the chain starts in
+     * @param to the function that may be reached
+     * @param symbols looks up the definition of a function by its resolved identifier
+     * @return whether {@code to} can be tail called by {@code from}, or by a function that {@code from} tail calls
+     */
+    public static boolean tailCallsReach(TypeAugmentedSemanticNode from, TypeAugmentedSemanticNode to,
+                                         Function<CXIdentifier, TypeAugmentedSemanticNode> symbols) {
+        Set<TypeAugmentedSemanticNode> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+        Deque<TypeAugmentedSemanticNode> queue = new ArrayDeque<>();
+        visited.add(from);
+        queue.add(from);
+        while (!queue.isEmpty()) {
+            for (TypeAugmentedSemanticNode returnStatement : findTailCalls(queue.poll(), symbols)) {
+                TypeAugmentedSemanticNode callee = symbols.apply(getCallee(returnStatement));
+                if (callee == to) return true;
+                if (visited.add(callee)) queue.add(callee);
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Gets the function called by a tail call
+     *
+     * @param returnStatement a return statement tagged as a tail call
+     * @return the resolved identifier of the called function
+     */
+    public static CXIdentifier getCallee(TypeAugmentedSemanticNode returnStatement) {
+        return returnStatement.getChild(0).getChild(0).getCompilationTag(ResolvedPathTag.class).getAbsolutePath();
+    }
+    
+    private void visit(TypeAugmentedSemanticNode node) {
+        if (node == null) return;
+        switch (node.getASTType()) {
+            case _return:
+                if (isTailCall(node)) {
+                    tailCalls.add(node);
+                }
+                break;
+            case compound_statement:
+            case if_cond:
+            case while_cond:
+            case do_while_cond:
+            case for_cond:
+                visitAll(node.getChildren());
+                break;
+            default:
+                // only statements contain return statements
+        }
+    }
+    
+    private void visitAll(List<TypeAugmentedSemanticNode> nodes) {
+        for (TypeAugmentedSemanticNode node : nodes) {
+            visit(node);
+        }
+    }
+    
+    private boolean isTailCall(TypeAugmentedSemanticNode returnStatement) {
+        if (returnStatement.getChildren().isEmpty()) return false;
+        TypeAugmentedSemanticNode call = returnStatement.getChild(0);
+        if (call.getASTType() != ASTNodeType.function_call) return false;
+        ResolvedPathTag tag = call.getChild(0).getCompilationTag(ResolvedPathTag.class);
+        if (tag == null || Interpreter.INTRINSICS.contains(tag.getAbsolutePath().toString())) return false;
+        TypeAugmentedSemanticNode function = symbols.apply(tag.getAbsolutePath());
+        if (function == null || function.getASTType() != ASTNodeType.function_definition) return false;
+        if (!returnsSameType(function, definition)) return false;
+        int parameters = function.getASTChild(ASTNodeType.parameter_list).getChildren().size();
+        return call.getASTChild(ASTNodeType.sequence).getDirectChildren().size() == parameters;
+    }
+    
+    private static boolean returnsSameType(TypeAugmentedSemanticNode function, TypeAugmentedSemanticNode other) {
+        CXType type = function.getCXType();
+        CXType otherType = other.getCXType();
+        if (type == null || otherType == null) return type == otherType;
+        return type.generateCDefinition().equals(otherType.generateCDefinition());
+    }
+}
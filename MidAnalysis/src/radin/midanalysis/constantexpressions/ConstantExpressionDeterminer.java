@@ -2,111 +2,465 @@ package radin.midanalysis.constantexpressions;
 
 import radin.core.chaining.IToolChain;
 import radin.core.errorhandling.AbstractCompilationError;
-import radin.core.semantics.ASTNodeType;
-import radin.core.semantics.ASTMeaningfulNode;
+import radin.core.lexical.TokenType;
+import radin.core.semantics.TypeEnvironment;
+import radin.core.semantics.types.CXType;
+import radin.core.semantics.types.ICXWrapper;
+import radin.core.semantics.types.TypedAbstractSyntaxNode;
+import radin.core.semantics.types.primitives.AbstractCXPrimitiveType;
+import radin.core.semantics.types.primitives.ArrayType;
+import radin.core.semantics.types.primitives.CXPrimitiveType;
+import radin.core.semantics.types.primitives.UnsignedPrimitive;
+import radin.core.semantics.types.wrapped.ConstantType;
+import radin.midanalysis.ScopedTypeTracker;
+import radin.midanalysis.TypeAugmentedSemanticNode;
 
-import java.text.NumberFormat;
-import java.text.ParseException;
+import java.util.LinkedList;
 import java.util.List;
+import java.util.function.Function;
 
-public class ConstantExpressionDeterminer implements IToolChain<ASTMeaningfulNode<?>, Number> {
-    
-    static Number performOp(Number rhs, Number lhs, String operator) {
-        if(rhs instanceof Double) {
-            return performOp(rhs.doubleValue(), lhs, operator);
-        } else {
-            return null;
+/**
+ * Determines the values of constant expressions in a typed tree. Integral values are calculated using the width and
+ * signedness of their C type, and are returned as {@link Long}s. Floating point values are returned as {@link Double}s,
+ * rounded to a float if their type is a float. Comparisons and logical operations result in an int, like they do in C.
+ * <p>
+ * Operands are converted like they are in C before an operation: operands narrower than an int are promoted to an int,
+ * and then both sides of an arithmetic or bitwise operation are converted to the wider side. The front end types an
+ * operation by one of its operands, so the type of an operation is calculated here instead.
+ * </p>
+ * <p>
+ * Expressions that mix integral and floating point operands, or whose result is undefined in C, such as dividing by
+ * zero or shifting by more than the width of the type, aren't constant.
+ * </p>
+ */
+public class ConstantExpressionDeterminer implements IToolChain<TypeAugmentedSemanticNode, Number> {
+
+    private Function<? super TypeAugmentedSemanticNode, ? extends Number> idValues;
+
+    public ConstantExpressionDeterminer() {
+        this(id -> null);
+    }
+
+    /**
+     * @param idValues gets the value of an identifier, or null if the identifier isn't constant
+     */
+    public ConstantExpressionDeterminer(Function<? super TypeAugmentedSemanticNode, ? extends Number> idValues) {
+        this.idValues = idValues;
+    }
+
+    /**
+     * Gets the primitive type that an expression is folded into
+     * @param input a typed expression
+     * @return the type, or null if the expression can't be a constant
+     */
+    public AbstractCXPrimitiveType getResultType(TypeAugmentedSemanticNode input) {
+        switch (input.getASTType()) {
+            case binop: {
+                TokenType op = input.getChild(0).getToken().getType();
+                if (isComparison(op) || op == TokenType.t_dand || op == TokenType.t_dor) {
+                    return CXPrimitiveType.INTEGER;
+                }
+                if (op == TokenType.t_lshift || op == TokenType.t_rshift) {
+                    return promote(getResultType(input.getChild(1)));
+                }
+                if (isArithmetic(op)) {
+                    return convertOperands(getResultType(input.getChild(1)), getResultType(input.getChild(2)));
+                }
+                break;
+            }
+            case uniop: {
+                switch (input.getChild(0).getToken().getType()) {
+                    case t_bang:
+                        return CXPrimitiveType.INTEGER;
+                    case t_add:
+                    case t_minus:
+                    case t_not:
+                        return promote(getResultType(input.getChild(1)));
+                }
+                break;
+            }
         }
+        return getScalarType(input.getCXType());
     }
-    
-    private static Number performOp(double rhs, Number lhs, String operator) {
-        switch (operator) {
-            case "*": {
-                return rhs * lhs.doubleValue();
+
+    /**
+     * Promotes the type of an operand, like C does before an operation. Integral types narrower than an int become an
+     * int, as an int can hold all of their values.
+     * @param type the type of the operand
+     * @return the promoted type, or null if the type is null
+     */
+    public static AbstractCXPrimitiveType promote(AbstractCXPrimitiveType type) {
+        if (type == null || type.isFloatingPoint()) return type;
+        if (getBits(type) < getBits(CXPrimitiveType.INTEGER)) return CXPrimitiveType.INTEGER;
+        return type;
+    }
+
+    /**
+     * Gets the type both operands of an arithmetic or bitwise operation are converted to, like C's usual arithmetic
+     * conversions. Both operands are promoted, then the wider type is used, which is unsigned if either side of that
+     * width is unsigned.
+     * @param lhs the type of the left hand side
+     * @param rhs the type of the right hand side
+     * @return the common type, or null if either type is null
+     */
+    public static AbstractCXPrimitiveType convertOperands(AbstractCXPrimitiveType lhs, AbstractCXPrimitiveType rhs) {
+        lhs = promote(lhs);
+        rhs = promote(rhs);
+        if (lhs == null || rhs == null) return null;
+        if (lhs.isFloatingPoint() || rhs.isFloatingPoint()) {
+            if (!rhs.isFloatingPoint()) return lhs;
+            if (!lhs.isFloatingPoint()) return rhs;
+            return getBits(rhs) > getBits(lhs) ? rhs : lhs;
+        }
+        if (getBits(lhs) != getBits(rhs)) {
+            return getBits(rhs) > getBits(lhs) ? rhs : lhs;
+        }
+        return isUnsigned(rhs) ? rhs : lhs;
+    }
+
+    /**
+     * Gets the primitive type of a number or character type
+     * @param type the type
+     * @return the primitive type, or null if the type isn't a number or a character, or is too wide to fold
+     */
+    public static AbstractCXPrimitiveType getScalarType(CXType type) {
+        while (type instanceof ConstantType || type instanceof ICXWrapper) {
+            if (type instanceof ConstantType) {
+                type = ((ConstantType) type).getSubtype();
+            } else {
+                type = ((ICXWrapper) type).getWrappedType();
             }
-            case "/": {
-                return rhs / lhs.doubleValue();
+        }
+        if (!(type instanceof AbstractCXPrimitiveType) || type instanceof ArrayType) return null;
+        AbstractCXPrimitiveType primitive = (AbstractCXPrimitiveType) type;
+        if (primitive.isFloatingPoint()) {
+            if (CXPrimitiveType.FLOAT.equals(primitive) || CXPrimitiveType.DOUBLE.equals(primitive)) {
+                return primitive;
             }
-            case "+": {
-                return rhs + lhs.doubleValue();
+            return null;
+        }
+        if (!primitive.isIntegral()) return null;
+        long size = primitive.getDataSize(getEnvironment());
+        if (size != 1 && size != 2 && size != 4 && size != 8) return null;
+        return primitive;
+    }
+
+    /**
+     * Converts a value to a type, like an assignment or a cast would in C
+     * @param value the value
+     * @param type the type
+     * @return the converted value, or null if the conversion is undefined
+     */
+    public static Number convert(Number value, AbstractCXPrimitiveType type) {
+        if (value == null || type == null) return null;
+        if (type.isFloatingPoint()) {
+            double d = value.doubleValue();
+            if (value instanceof Long && value.longValue() < 0 && isUnsigned(type)) return null;
+            if (CXPrimitiveType.FLOAT.equals(type)) {
+                d = (float) d;
+            }
+            return d;
+        }
+        int bits = getBits(type);
+        if (value instanceof Double) {
+            double d = value.doubleValue();
+            if (Double.isNaN(d)) return null;
+            double limit = Math.pow(2, isUnsigned(type) ? bits : bits - 1);
+            double lowest = isUnsigned(type) ? 0 : -limit;
+            if (d <= lowest - 1 || d >= limit) return null;
+            return truncate((long) d, bits, isUnsigned(type));
+        }
+        return truncate(value.longValue(), bits, isUnsigned(type));
+    }
+
+    @Override
+    public Number invoke(TypeAugmentedSemanticNode input) {
+        switch (input.getASTType()) {
+            case literal:
+                return convert(parseLiteral(input.getToken().getImage()), getResultType(input));
+            case _true:
+                return 1L;
+            case _false:
+                return 0L;
+            case id:
+                return convert(idValues.apply(input), getResultType(input));
+            case cast: {
+                CXType castType = input.getCXType();
+                if (castType == null && input.getASTNode() instanceof TypedAbstractSyntaxNode) {
+                    castType = ((TypedAbstractSyntaxNode) input.getASTNode()).getCxType();
+                }
+                return convert(invoke(input.getChild(0)), getScalarType(castType));
             }
-            case "-": {
-                return rhs - lhs.doubleValue();
+            case uniop: {
+                TokenType op = input.getChild(0).getToken().getType();
+                AbstractCXPrimitiveType type = getResultType(input);
+                Number inner = invoke(input.getChild(1));
+                if (inner == null || type == null) return null;
+                switch (op) {
+                    case t_add:
+                        return convert(inner, type);
+                    case t_minus:
+                        if (inner instanceof Double) return convert(-inner.doubleValue(), type);
+                        return convert(-inner.longValue(), type);
+                    case t_not:
+                        if (inner instanceof Double) return null;
+                        return convert(~inner.longValue(), type);
+                    case t_bang:
+                        return isZero(inner) ? 1L : 0L;
+                    default:
+                        return null;
+                }
             }
-            case "%": {
-                return rhs % lhs.doubleValue();
+            case binop:
+                return performOp(input);
+            case ternary: {
+                Number condition = invoke(input.getChild(0));
+                if (condition == null) return null;
+                TypeAugmentedSemanticNode chosen = isZero(condition) ? input.getChild(2) : input.getChild(1);
+                return convert(invoke(chosen), getResultType(input));
             }
             default:
-                throw new IllegalStateException();
+                return null;
         }
     }
-    private static Number performOp(float rhs, Number lhs, String operator) {
+
+    private Number performOp(TypeAugmentedSemanticNode input) {
+        TokenType op = input.getChild(0).getToken().getType();
+        TypeAugmentedSemanticNode lhsNode = input.getChild(1);
+        TypeAugmentedSemanticNode rhsNode = input.getChild(2);
+        Number lhs = invoke(lhsNode);
+        // the right hand side isn't evaluated if the left hand side decides the result
+        if (lhs != null && op == TokenType.t_dand && isZero(lhs)) return 0L;
+        if (lhs != null && op == TokenType.t_dor && !isZero(lhs)) return 1L;
+        Number rhs = invoke(rhsNode);
+        if (lhs == null || rhs == null) return null;
+        if (op == TokenType.t_dand || op == TokenType.t_dor) {
+            return isZero(rhs) ? 0L : 1L;
+        }
+        if ((lhs instanceof Double) != (rhs instanceof Double)) return null;
+
+        if (lhs instanceof Double) {
+            AbstractCXPrimitiveType type = getResultType(input);
+            if (type == null) return null;
+            return performOp(lhs.doubleValue(), rhs.doubleValue(), op, type);
+        }
+
+        if (isComparison(op)) {
+            AbstractCXPrimitiveType type = convertOperands(getResultType(lhsNode), getResultType(rhsNode));
+            if (type == null) return null;
+            int bits = getBits(type);
+            boolean unsigned = isUnsigned(type);
+            return performOp(truncate(lhs.longValue(), bits, unsigned), truncate(rhs.longValue(), bits, unsigned), op,
+                    bits, unsigned);
+        }
+
+        AbstractCXPrimitiveType type = getResultType(input);
+        if (type == null || type.isFloatingPoint()) return null;
+        int bits = getBits(type);
+        boolean unsigned = isUnsigned(type);
+        if (op == TokenType.t_lshift || op == TokenType.t_rshift) {
+            // the amount shifted by keeps its own value
+            if (rhs.longValue() < 0 || rhs.longValue() >= bits) return null;
+            return performOp(truncate(lhs.longValue(), bits, unsigned), rhs.longValue(), op, bits, unsigned);
+        }
+        return performOp(truncate(lhs.longValue(), bits, unsigned), truncate(rhs.longValue(), bits, unsigned), op,
+                bits, unsigned);
+    }
+
+    private static Number performOp(double lhs, double rhs, TokenType operator, AbstractCXPrimitiveType type) {
+        double result;
         switch (operator) {
-            case "*": {
-                return rhs * lhs.floatValue();
-            }
+            case t_star:
+                result = lhs * rhs;
+                break;
+            case t_fwslash:
+                result = lhs / rhs;
+                break;
+            case t_add:
+                result = lhs + rhs;
+                break;
+            case t_minus:
+                result = lhs - rhs;
+                break;
+            case t_lt:
+                return lhs < rhs ? 1L : 0L;
+            case t_gt:
+                return lhs > rhs ? 1L : 0L;
+            case t_lte:
+                return lhs <= rhs ? 1L : 0L;
+            case t_gte:
+                return lhs >= rhs ? 1L : 0L;
+            case t_eq:
+                return lhs == rhs ? 1L : 0L;
+            case t_neq:
+                return lhs != rhs ? 1L : 0L;
+            default:
+                return null;
         }
-        return null;
+        if (!Double.isFinite(result)) return null;
+        return convert(result, type);
     }
-    private static Number performOp(long rhs, Number lhs, String operator) {
-        return null;
+
+    private static Number performOp(long lhs, long rhs, TokenType operator, int bits, boolean unsigned) {
+        long result;
+        switch (operator) {
+            case t_star:
+                result = lhs * rhs;
+                break;
+            case t_fwslash:
+                if (rhs == 0) return null;
+                result = unsigned ? Long.divideUnsigned(lhs, rhs) : lhs / rhs;
+                break;
+            case t_percent:
+                if (rhs == 0) return null;
+                result = unsigned ? Long.remainderUnsigned(lhs, rhs) : lhs % rhs;
+                break;
+            case t_add:
+                result = lhs + rhs;
+                break;
+            case t_minus:
+                result = lhs - rhs;
+                break;
+            case t_lshift:
+                result = lhs << rhs;
+                break;
+            case t_rshift:
+                result = unsigned ? lhs >>> rhs : lhs >> rhs;
+                break;
+            case t_and:
+                result = lhs & rhs;
+                break;
+            case t_bar:
+                result = lhs | rhs;
+                break;
+            case t_crt:
+                result = lhs ^ rhs;
+                break;
+            case t_lt:
+                return compare(lhs, rhs, unsigned) < 0 ? 1L : 0L;
+            case t_gt:
+                return compare(lhs, rhs, unsigned) > 0 ? 1L : 0L;
+            case t_lte:
+                return compare(lhs, rhs, unsigned) <= 0 ? 1L : 0L;
+            case t_gte:
+                return compare(lhs, rhs, unsigned) >= 0 ? 1L : 0L;
+            case t_eq:
+                return lhs == rhs ? 1L : 0L;
+            case t_neq:
+                return lhs != rhs ? 1L : 0L;
+            default:
+                return null;
+        }
+        return truncate(result, bits, unsigned);
     }
-    private static Number performOp(int rhs, Number lhs, String operator) {
-        return null;
+
+    private static int compare(long lhs, long rhs, boolean unsigned) {
+        return unsigned ? Long.compareUnsigned(lhs, rhs) : Long.compare(lhs, rhs);
     }
-    private static Number performOp(short rhs, Number lhs, String operator) {
-        return null;
+
+    /**
+     * Wraps a value around to a width. Unsigned values of 64 bits keep their bits, so they may be negative.
+     * @param value the value
+     * @param bits the width
+     * @param unsigned whether the value is zero extended instead of sign extended
+     * @return the wrapped value
+     */
+    private static long truncate(long value, int bits, boolean unsigned) {
+        if (bits >= 64) return value;
+        long mask = (1L << bits) - 1;
+        value &= mask;
+        if (!unsigned && (value & (1L << (bits - 1))) != 0) {
+            value |= ~mask;
+        }
+        return value;
     }
-    private static Number performOp(byte rhs, Number lhs, String operator) {
-        return null;
+
+    private static boolean isComparison(TokenType op) {
+        switch (op) {
+            case t_lt:
+            case t_gt:
+            case t_lte:
+            case t_gte:
+            case t_eq:
+            case t_neq:
+                return true;
+            default:
+                return false;
+        }
     }
-    
-    @Override
-    public Number invoke(ASTMeaningfulNode<?> input) {
-        switch (input.getTreeType()) {
-            case binop:
-                break;
-            case uniop: {
-                String opImage = input.getChildWithASTType(ASTNodeType.operator).getToken().getImage();
-                Number inner = invoke(input.getChildAtIndex(1));
-                switch (opImage) {
-                    case "+": {
-                        return inner;
-                    }
-                    case "-": {
-                        return performOp(inner, -1, "*");
+
+    private static boolean isArithmetic(TokenType op) {
+        switch (op) {
+            case t_star:
+            case t_fwslash:
+            case t_percent:
+            case t_add:
+            case t_minus:
+            case t_and:
+            case t_bar:
+            case t_crt:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private static boolean isZero(Number value) {
+        if (value instanceof Double) return value.doubleValue() == 0;
+        return value.longValue() == 0;
+    }
+
+    public static boolean isUnsigned(AbstractCXPrimitiveType type) {
+        return type instanceof UnsignedPrimitive;
+    }
+
+    private static int getBits(AbstractCXPrimitiveType type) {
+        return (int) type.getDataSize(getEnvironment()) * 8;
+    }
+
+    private static TypeEnvironment getEnvironment() {
+        return ScopedTypeTracker.getEnvironment();
+    }
+
+    /**
+     * Parses the image of a literal
+     * @param image the image
+     * @return a {@link Long} for integers and characters, a {@link Double} for floating points, or null if the image
+     * can't be parsed
+     */
+    private static Number parseLiteral(String image) {
+        try {
+            if (image.startsWith("'")) {
+                if (image.length() == 3) return (long) image.charAt(1);
+                if (image.length() == 4 && image.charAt(1) == '\\') {
+                    switch (image.charAt(2)) {
+                        case 'n':
+                            return (long) '\n';
+                        case 't':
+                            return (long) '\t';
+                        case 'r':
+                            return (long) '\r';
+                        case '0':
+                            return 0L;
+                        case '\\':
+                        case '\'':
+                        case '"':
+                            return (long) image.charAt(2);
                     }
-                    default:
                 }
-            }
-            case ternary: {
-                Number ifExpr = invoke(input.getChildAtIndex(0));
-                if(ifExpr == null) {
-                    return null;
-                } else if(ifExpr.shortValue() == 0) { // false
-                    return invoke(input.getChildAtIndex(2));
-                } else {
-                    return invoke(input.getChildAtIndex(1));
-                }
-            }
-            case literal:
-                try {
-                    return NumberFormat.getInstance().parse(input.getToken().getImage());
-                } catch (ParseException e) {
-                    return null;
-                }
-            case id: {
-                // TODO: 1/26/2020 Implement constexpr ids
                 return null;
             }
-            default:
-                break;
+            if (image.startsWith("0x")) return Long.parseLong(image.substring(2), 16);
+            if (image.startsWith("0b")) return Long.parseLong(image.substring(2), 2);
+            if (image.contains(".") || image.contains("e") || image.contains("E")) return Double.parseDouble(image);
+            return Long.parseLong(image);
+        } catch (NumberFormatException e) {
+            return null;
         }
-        return null;
     }
-    
+
     @Override
     public List<AbstractCompilationError> getErrors() {
-        return null;
+        return new LinkedList<>();
     }
 }
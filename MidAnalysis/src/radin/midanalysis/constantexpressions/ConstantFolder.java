@@ -0,0 +1,261 @@
+package radin.midanalysis.constantexpressions;
+
+import radin.core.lexical.Token;
+import radin.core.lexical.TokenType;
+import radin.core.semantics.ASTNodeType;
+import radin.core.semantics.AbstractSyntaxNode;
+import radin.core.semantics.types.CXType;
+import radin.core.semantics.types.TypedAbstractSyntaxNode;
+import radin.core.semantics.types.primitives.AbstractCXPrimitiveType;
+import radin.core.semantics.types.primitives.CXPrimitiveType;
+import radin.core.utility.ICompilationSettings;
+import radin.core.utility.UniversalCompilerSettings;
+import radin.midanalysis.TypeAugmentedSemanticNode;
+import radin.midanalysis.transformation.TASTTransformer;
+import radin.output.tags.ResolvedPathTag;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Replaces constant expressions in a typed tree with literals when the optimization level is at least 1. Local
+ * variables that are initialized once and never changed afterwards are treated as constants within their scope, so
+ * expressions using them are folded too.
+ * <p>
+ * Only local variables are propagated, as global variables can be changed by other files.
+ * </p>
+ * <p>
+ * Expressions are only folded when no integral value in them is changed by being converted to a narrower or unsigned
+ * type, as the interpreter doesn't wrap values around like C does. Those expressions are left to be calculated when the
+ * program runs, so they give the same result at every optimization level.
+ * </p>
+ */
+public class ConstantFolder extends TASTTransformer {
+
+    private Set<String> constantVariables = new HashSet<>();
+    private Map<String, Number> values = new HashMap<>();
+    private ConstantExpressionDeterminer determiner = new ConstantExpressionDeterminer(this::getValue);
+    private int folded;
+
+    @Override
+    protected TypeAugmentedSemanticNode transform() {
+        TypeAugmentedSemanticNode head = getHead();
+        if (head == null || UniversalCompilerSettings.getInstance().getSettings().getOptimizationLevel() < 1) {
+            return head;
+        }
+        folded = 0;
+        fold(head);
+        if (folded > 0) {
+            ICompilationSettings.debugLog.fine("Folded %s constant expressions", folded);
+        }
+        return head;
+    }
+
+    private Number getValue(TypeAugmentedSemanticNode id) {
+        if (id.containsCompilationTag(ResolvedPathTag.class)) return null;
+        return values.get(id.getToken().getImage());
+    }
+
+    private void fold(TypeAugmentedSemanticNode node) {
+        Set<String> oldConstantVariables = constantVariables;
+        Map<String, Number> oldValues = values;
+        switch (node.getASTType()) {
+            case function_definition:
+            case constructor_definition:
+                constantVariables = findConstantVariables(node);
+                values = new HashMap<>();
+                break;
+            case compound_statement:
+            case for_cond:
+                // variables declared within a scope can't be seen after it ends
+                values = new HashMap<>(values);
+                break;
+        }
+
+        for (TypeAugmentedSemanticNode child : new ArrayList<>(node.getChildren())) {
+            fold(child);
+            if (isFoldable(node, child) && !isNarrowed(child)) {
+                TypeAugmentedSemanticNode literal = createLiteral(child, determiner.invoke(child));
+                if (literal != null) {
+                    reScopeTo(node);
+                    replace(child, literal);
+                    unScopeTo();
+                    folded++;
+                }
+            }
+        }
+
+        constantVariables = oldConstantVariables;
+        values = oldValues;
+        if (node.getASTType() == ASTNodeType.initialized_declaration) {
+            recordValue(node);
+        }
+    }
+
+    private void recordValue(TypeAugmentedSemanticNode initializedDeclaration) {
+        TypeAugmentedSemanticNode declaration = initializedDeclaration.getChild(0);
+        String name = declaration.getASTChild(ASTNodeType.id).getToken().getImage();
+        if (!constantVariables.contains(name)) return;
+        CXType declaredType = ((TypedAbstractSyntaxNode) declaration.getASTNode()).getCxType();
+        AbstractCXPrimitiveType type = ConstantExpressionDeterminer.getScalarType(declaredType);
+        TypeAugmentedSemanticNode initializer = initializedDeclaration.getChild(1);
+        if (isNarrowed(initializer)) return;
+        Number initial = determiner.invoke(initializer);
+        Number value = ConstantExpressionDeterminer.convert(initial, type);
+        if (value != null && isSameValue(initial, value)) {
+            values.put(name, value);
+        }
+    }
+
+    /**
+     * Whether a child of a node should be replaced by a literal if it's constant. Only operations, and identifiers
+     * that are operands of operations, are replaced, as identifiers elsewhere might not be expressions.
+     */
+    private static boolean isFoldable(TypeAugmentedSemanticNode parent, TypeAugmentedSemanticNode child) {
+        switch (child.getASTType()) {
+            case binop:
+            case uniop:
+            case cast:
+            case ternary:
+                return true;
+            case id:
+                switch (parent.getASTType()) {
+                    case binop:
+                    case uniop:
+                    case cast:
+                    case ternary:
+                        return true;
+                    default:
+                        return false;
+                }
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Whether an expression contains a cast that changes an integral value
+     */
+    private boolean isNarrowed(TypeAugmentedSemanticNode expression) {
+        if (expression.getASTType() == ASTNodeType.cast) {
+            CXType castType = expression.getCXType();
+            if (castType == null && expression.getASTNode() instanceof TypedAbstractSyntaxNode) {
+                castType = ((TypedAbstractSyntaxNode) expression.getASTNode()).getCxType();
+            }
+            AbstractCXPrimitiveType type = ConstantExpressionDeterminer.getScalarType(castType);
+            Number inner = determiner.invoke(expression.getChild(0));
+            if (type != null && !type.isFloatingPoint() && inner != null &&
+                    !isSameValue(inner, ConstantExpressionDeterminer.convert(inner, type))) {
+                return true;
+            }
+        }
+        for (TypeAugmentedSemanticNode child : expression.getChildren()) {
+            if (isNarrowed(child)) return true;
+        }
+        return false;
+    }
+
+    private static boolean isSameValue(Number original, Number converted) {
+        if (original == null || converted == null) return false;
+        if (original instanceof Double || converted instanceof Double) {
+            return original.doubleValue() == converted.doubleValue();
+        }
+        return original.longValue() == converted.longValue();
+    }
+
+    /**
+     * Finds the variables of a function that are declared once, and are never assigned to, incremented, decremented, or
+     * have their address taken
+     * @param function the function or constructor definition
+     * @return the names of the variables
+     */
+    private static Set<String> findConstantVariables(TypeAugmentedSemanticNode function) {
+        Map<String, Integer> declarations = new HashMap<>();
+        Set<String> modified = new HashSet<>();
+        findDeclarationsAndModifications(function, declarations, modified);
+        Set<String> output = new HashSet<>();
+        for (Map.Entry<String, Integer> entry : declarations.entrySet()) {
+            if (entry.getValue() == 1 && !modified.contains(entry.getKey())) {
+                output.add(entry.getKey());
+            }
+        }
+        return output;
+    }
+
+    private static void findDeclarationsAndModifications(TypeAugmentedSemanticNode node,
+                                                         Map<String, Integer> declarations, Set<String> modified) {
+        TypeAugmentedSemanticNode target = null;
+        switch (node.getASTType()) {
+            case declaration: {
+                TypeAugmentedSemanticNode id = node.getASTChild(ASTNodeType.id);
+                if (id != null) {
+                    declarations.merge(id.getToken().getImage(), 1, Integer::sum);
+                }
+                break;
+            }
+            case assignment:
+            case postop:
+            case addressof:
+                target = node.getChild(0);
+                break;
+            case uniop: {
+                TokenType op = node.getChild(0).getToken().getType();
+                if (op == TokenType.t_inc || op == TokenType.t_dec) {
+                    target = node.getChild(1);
+                }
+                break;
+            }
+        }
+        if (target != null && target.getASTType() == ASTNodeType.id) {
+            modified.add(target.getToken().getImage());
+        }
+        for (TypeAugmentedSemanticNode child : node.getChildren()) {
+            findDeclarationsAndModifications(child, declarations, modified);
+        }
+    }
+
+    /**
+     * Creates a literal with the type the expression it replaces is calculated in, which is wider than the type the
+     * front end gave it when its operands are promoted. Character values that can't be written as a plain character
+     * literal are written as ints.
+     * @param replaced the expression
+     * @param value the value of the expression
+     * @return the literal, or null if the value can't be written as a literal or is changed by the type of the expression
+     */
+    private TypeAugmentedSemanticNode createLiteral(TypeAugmentedSemanticNode replaced, Number value) {
+        AbstractCXPrimitiveType type = determiner.getResultType(replaced);
+        Number converted = ConstantExpressionDeterminer.convert(value, type);
+        if (converted == null || (type != null && !type.isFloatingPoint() && !isSameValue(value, converted))) {
+            return null;
+        }
+        value = converted;
+        String image;
+        if (type.isFloatingPoint()) {
+            image = Double.toString(value.doubleValue());
+        } else if (type.isChar() && value.longValue() >= ' ' && value.longValue() <= '~' && value.longValue() != '\'' &&
+                value.longValue() != '\\') {
+            image = "'" + (char) value.longValue() + "'";
+        } else {
+            if (ConstantExpressionDeterminer.isUnsigned(type) && value.longValue() < 0) return null;
+            if (type.isChar()) {
+                type = CXPrimitiveType.INTEGER;
+            }
+            image = Long.toString(value.longValue());
+        }
+
+        Token original = replaced.findFirstToken();
+        Token token = new Token(TokenType.t_literal, image);
+        if (original != null) {
+            token.addColumnAndLineNumber(original.getVirtualColumn(), original.getVirtualLineNumber());
+            token.setActualLineNumber(original.getActualLineNumber());
+            token.setFilename(original.getFilename());
+        }
+        TypeAugmentedSemanticNode literal =
+                new TypeAugmentedSemanticNode(new AbstractSyntaxNode(ASTNodeType.literal, token));
+        literal.setType(type);
+        return literal;
+    }
+}
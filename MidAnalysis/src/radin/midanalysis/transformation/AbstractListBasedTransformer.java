@@ -8,6 +8,7 @@ import radin.output.typeanalysis.VariableTypeTracker;
 
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Objects;
 import java.util.Stack;
 
 public abstract class AbstractListBasedTransformer <T> extends ScopedTypeTracker implements
@@ -28,6 +29,7 @@ public abstract class AbstractListBasedTransformer <T> extends ScopedTypeTracker
     }
     
     protected final T getHead() {
+        if(headStack.isEmpty()) return null;
         return headStack.peek();
     }
     
@@ -49,7 +51,7 @@ public abstract class AbstractListBasedTransformer <T> extends ScopedTypeTracker
     @Override
     public T unScopeTo(T to) {
         T pop = headStack.pop();
-        if(!getHead().equals(to)) {
+        if(!Objects.equals(getHead(), to)) {
             headStack = new Stack<>();
             headStack.push(to);
         }
@@ -104,8 +106,8 @@ public abstract class AbstractListBasedTransformer <T> extends ScopedTypeTracker
         if(target == null) return insertLast(node);
         int index = indexOf(target);
         if(index == -1) throw new IndexOutOfBoundsException(index);
-        getRelevant().add(index, node);
-        return false;
+        getRelevant().add(index + 1, node);
+        return true;
     }
     
     @Override
@@ -114,7 +116,7 @@ public abstract class AbstractListBasedTransformer <T> extends ScopedTypeTracker
         int index = indexOf(target);
         if(index == -1) throw new IndexOutOfBoundsException(index);
         getRelevant().addAll(index + 1, nodes);
-        return false;
+        return true;
     }
     
     @Override
@@ -123,7 +125,7 @@ public abstract class AbstractListBasedTransformer <T> extends ScopedTypeTracker
         int index = indexOf(target);
         if(index == -1) throw new IndexOutOfBoundsException(index);
         getRelevant().add(index, node);
-        return false;
+        return true;
     }
     
     @Override
@@ -132,7 +134,7 @@ public abstract class AbstractListBasedTransformer <T> extends ScopedTypeTracker
         int index = indexOf(target);
         if(index == -1) throw new IndexOutOfBoundsException(index);
         getRelevant().addAll(index, nodes);
-        return false;
+        return true;
     }
     
     @Override
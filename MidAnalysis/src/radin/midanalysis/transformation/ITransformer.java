@@ -121,7 +121,9 @@ public interface ITransformer<T, R extends Collection<T>> {
      */
     default boolean replace(T target, T node) {
         T prev = previous(target);
-        if(!insertAfter(prev, node)) return false;
+        if(prev == null) {
+            if(!insertFirst(node)) return false;
+        } else if(!insertAfter(prev, node)) return false;
         return delete(target);
     }
     /**
@@ -132,7 +134,9 @@ public interface ITransformer<T, R extends Collection<T>> {
      */
     default boolean replace(T target, List<? extends T> nodes) {
         T prev = previous(target);
-        if(!insertAfter(prev, nodes)) return false;
+        if(prev == null) {
+            if(!insertFirst(nodes)) return false;
+        } else if(!insertAfter(prev, nodes)) return false;
         return delete(target);
     }
     
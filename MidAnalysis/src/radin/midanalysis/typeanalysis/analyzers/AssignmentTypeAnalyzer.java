@@ -33,7 +33,7 @@ public class AssignmentTypeAnalyzer extends TypeAnalyzer {
         }
     
     
-        ICompilationSettings.debugLog.finest("Determining validity of assigning to a " + lhs.getCXType());
+        ICompilationSettings.debugLog.finest("Determining validity of assigning to a %s", lhs.getCXType());
         if(lhs.getCXType() instanceof ConstantType || lhs.getCXType().isStrictlyArray()) {
             
             if(lhs.getASTType() == ASTNodeType.id)
@@ -26,6 +26,7 @@ import radin.core.utility.UniversalCompilerSettings;
 
 import java.util.LinkedList;
 import java.util.List;
+import java.util.logging.Level;
 
 import static radin.core.semantics.types.Visibility.*;
 
@@ -145,7 +146,7 @@ public class ClassTypeAnalyzer extends TypeAnalyzer {
                     
                     
                     assert visibility != null;
-                    ICompilationSettings.debugLog.finest("Added " + visibility.toString() + " " + returnType.generateCDeclaration(name.getImage()) + parameterTypeList);
+                    if(ICompilationSettings.debugLog.isLoggable(Level.FINEST)) ICompilationSettings.debugLog.finest("Added " + visibility.toString() + " " + returnType.generateCDeclaration(name.getImage()) + parameterTypeList);
                     switch (visibility) {
                         case _public: {
                             
@@ -207,7 +208,7 @@ public class ClassTypeAnalyzer extends TypeAnalyzer {
         }
         
         for (CXMethod generatedSuper : cxClassType.getGeneratedSupers()) {
-            ICompilationSettings.debugLog.info("Generated Super: " + generatedSuper.toString());
+            ICompilationSettings.debugLog.info("Generated Super: %s", generatedSuper);
             AbstractSyntaxNode methodBody = generatedSuper.getMethodBody();
             TypeAugmentedSemanticNode tree =
                     new TypeAugmentedSemanticTree(methodBody, cxClassType.getEnvironment()).getHead();
@@ -29,6 +29,7 @@ import radin.output.typeanalysis.errors.IllegalAccessError;
 import radin.output.typeanalysis.errors.*;
 
 import java.util.List;
+import java.util.logging.Level;
 import java.util.regex.Pattern;
 
 public class ExpressionTypeAnalyzer extends TypeAnalyzer {
@@ -340,7 +341,7 @@ public class ExpressionTypeAnalyzer extends TypeAnalyzer {
             assert objectInteraction.getCXType() instanceof CXCompoundType || objectInteraction.getCXType() instanceof ConstantType;
             String name =node.getChild(1).getToken().getImage();
             
-            ICompilationSettings.debugLog.fine("Checking if " + objectInteraction.getCXType() + " has field " + name + "...");
+            ICompilationSettings.debugLog.fine("Checking if %s has field %s...", objectInteraction.getCXType(), name);
             CXType parentType;
             if(objectInteraction.getCXType() instanceof CXCompoundType) {
                 parentType = objectInteraction.getCXType();
@@ -393,7 +394,7 @@ public class ExpressionTypeAnalyzer extends TypeAnalyzer {
             
             if(nextType == null) throw new IllegalAccessError(node.getChild(0).findFirstToken());
             node.setType(nextType);
-            ICompilationSettings.debugLog.fine("Found. Field Type = " + nextType);
+            ICompilationSettings.debugLog.fine("Found. Field Type = %s", nextType);
             node.setLValue(objectInteraction.isLValue());
             return true;
         }
@@ -454,8 +455,8 @@ public class ExpressionTypeAnalyzer extends TypeAnalyzer {
                     
                     return true;
                 }
-                ICompilationSettings.debugLog.finer("Couldn't find methods with name " + name.getImage());
-                ICompilationSettings.debugLog.finest("Available options = " + getCurrentTracker().allMethodsAvailable());
+                ICompilationSettings.debugLog.finer("Couldn't find methods with name %s", name.getImage());
+                if(ICompilationSettings.debugLog.isLoggable(Level.FINEST)) ICompilationSettings.debugLog.finest("Available options = " + getCurrentTracker().allMethodsAvailable());
                 throw new IllegalAccessError(cxClass, name.getImage(), typeList, node.getChild(0).findFirstToken(), name);
             }
             
@@ -20,6 +20,7 @@ import radin.core.utility.UniversalCompilerSettings;
 
 import java.util.LinkedList;
 import java.util.List;
+import java.util.logging.Level;
 
 public class FunctionTypeAnalyzer extends TypeAnalyzer {
     
@@ -46,7 +47,7 @@ public class FunctionTypeAnalyzer extends TypeAnalyzer {
         CXType returnType = ((TypedAbstractSyntaxNode) node.getASTNode()).getCxType();
         
         typeTrackingClosure();
-        ICompilationSettings.debugLog.finest("Compiling function " + node.getASTChild(ASTNodeType.id).getToken().getImage());
+        ICompilationSettings.debugLog.finest("Compiling function %s", node.getASTChild(ASTNodeType.id).getToken().getImage());
         if(hasOwnerType) {
             getCurrentTracker().addLocalVariable("this", new PointerType(owner));
             if(owner instanceof CXClassType) {
@@ -66,7 +67,7 @@ public class FunctionTypeAnalyzer extends TypeAnalyzer {
             CXType type = ((TypedAbstractSyntaxNode) parameter.getASTNode()).getCxType();
             parameterTypes.add(type);
             String name = parameter.getASTChild(ASTNodeType.id).getToken().getImage();
-            ICompilationSettings.debugLog.finest("Adding " + type.generateCDeclaration(name) + " to parameters");
+            if(ICompilationSettings.debugLog.isLoggable(Level.FINEST)) ICompilationSettings.debugLog.finest("Adding " + type.generateCDeclaration(name) + " to parameters");
             getCurrentTracker().addLocalVariable(name, type);
         }
         
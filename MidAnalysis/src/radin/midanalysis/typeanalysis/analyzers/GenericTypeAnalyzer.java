@@ -13,7 +13,7 @@ public class GenericTypeAnalyzer extends TypeAnalyzer {
     
     @Override
     public boolean determineTypes(TypeAugmentedSemanticNode node) {
-        ICompilationSettings.debugLog.info(node.toTreeForm());
+        ICompilationSettings.debugLog.info(node::toTreeForm);
     
         TypeAugmentedSemanticNode functionDefinition = node.getASTChild(ASTNodeType.function_definition);
         FunctionTypeAnalyzer functionTypeAnalyzer = new FunctionTypeAnalyzer(functionDefinition);
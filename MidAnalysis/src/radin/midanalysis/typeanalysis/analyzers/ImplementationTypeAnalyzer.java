@@ -53,13 +53,13 @@ public class ImplementationTypeAnalyzer extends TypeAnalyzer {
                         null
                         );
                 if(corresponding == null) {
-                    ICompilationSettings.debugLog.warning("Corresponding function declaration doesn't exist: " +child.getASTChild(ASTNodeType.id).getToken().getImage() );
+                    ICompilationSettings.debugLog.warning("Corresponding function declaration doesn't exist: %s", child.getASTChild(ASTNodeType.id).getToken().getImage());
                     child.setFailurePoint(true);
                     throw new MethodDoesNotExistError(child.getASTChild(ASTNodeType.id).getToken());
                 }
                 MethodTASNTracker.getInstance().add(corresponding, child);
-                ICompilationSettings.debugLog.info("Implementation found for " + corresponding);
-                ICompilationSettings.debugLog.finest(child.toTreeForm());
+                ICompilationSettings.debugLog.info("Implementation found for %s", corresponding);
+                ICompilationSettings.debugLog.finest(child::toTreeForm);
                 child.addCompilationTag(new ImplementMethodTag(corresponding));
                
             } else if(child.getASTType() == ASTNodeType.constructor_definition) {
@@ -77,13 +77,13 @@ public class ImplementationTypeAnalyzer extends TypeAnalyzer {
     
                 CXConstructor corresponding = parentType.getConstructor(parameterTypes, environment);
                 if(corresponding == null) {
-                    ICompilationSettings.debugLog.warning("Corresponding method declaration doesn't exist: " +child.getASTChild(ASTNodeType.id).getToken().getImage() );
+                    ICompilationSettings.debugLog.warning("Corresponding method declaration doesn't exist: %s", child.getASTChild(ASTNodeType.id).getToken().getImage());
                     child.setFailurePoint(true);
                     throw new MethodDoesNotExistError(child.getASTChild(ASTNodeType.id).getToken());
                 }
                 MethodTASNTracker.getInstance().add(corresponding, child);
-                ICompilationSettings.debugLog.info("Implementation found for " + corresponding);
-                ICompilationSettings.debugLog.finest(child.toTreeForm());
+                ICompilationSettings.debugLog.info("Implementation found for %s", corresponding);
+                ICompilationSettings.debugLog.finest(child::toTreeForm);
                 child.addCompilationTag(new ImplementMethodTag(corresponding));
             }
             
@@ -196,7 +196,7 @@ public class StatementDeclarationTypeAnalyzer extends TypeAnalyzer {
             
             
             if(isBaseTracker()) {
-                ICompilationSettings.debugLog.finer("Adding global variable " + name + " of type " + declarationType);
+                ICompilationSettings.debugLog.finer("Adding global variable %s of type %s", name, declarationType);
             }
             switch (nameType) {
 
@@ -2,13 +2,20 @@ package radin.midanalysis;
 
 import radin.core.semantics.types.methods.CXMethod;
 
+import java.io.Serializable;
 import java.util.HashMap;
 
 /**
  * Tracks methods and their corresponding TypeAugmentedSemanticNodes
  */
-public class MethodTASNTracker {
+public class MethodTASNTracker implements Serializable {
+    private static final long serialVersionUID = 1L;
+    
     private HashMap<CXMethod, TypeAugmentedSemanticNode> methodToTreeMap;
+    /**
+     * The trees of methods by their C function name, built when a method is first looked up by name
+     */
+    private transient HashMap<String, TypeAugmentedSemanticNode> nameToTreeMap;
     
     private static MethodTASNTracker instance = new MethodTASNTracker();
     
@@ -16,8 +23,17 @@ public class MethodTASNTracker {
         return instance;
     }
     
+    /**
+     * Replaces the tracker, such as with one loaded from an interpreter image
+     * @param tracker the new tracker
+     */
+    public static void setInstance(MethodTASNTracker tracker) {
+        instance = tracker;
+    }
+    
     public void clear() {
         methodToTreeMap.clear();
+        nameToTreeMap = null;
     }
     
     public MethodTASNTracker() {
@@ -26,16 +42,19 @@ public class MethodTASNTracker {
     
     public void add(CXMethod method, TypeAugmentedSemanticNode node) {
         methodToTreeMap.put(method, node);
+        nameToTreeMap = null;
     }
     
     public TypeAugmentedSemanticNode get(CXMethod method) {
         TypeAugmentedSemanticNode output = methodToTreeMap.getOrDefault(method, null);
         if(output == null) {
-            for (CXMethod cxMethod : methodToTreeMap.keySet()) {
-                if(cxMethod.getCFunctionName().equals(method.getCFunctionName())) {
-                    return methodToTreeMap.get(cxMethod);
+            if(nameToTreeMap == null) {
+                nameToTreeMap = new HashMap<>();
+                for (CXMethod cxMethod : methodToTreeMap.keySet()) {
+                    nameToTreeMap.putIfAbsent(cxMethod.getCFunctionName(), methodToTreeMap.get(cxMethod));
                 }
             }
+            return nameToTreeMap.get(method.getCFunctionName());
         }
         return output;
     }
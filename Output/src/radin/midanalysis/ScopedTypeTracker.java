@@ -8,6 +8,7 @@ import radin.core.semantics.types.compound.CXClassType;
 import radin.core.utility.ICompilationSettings;
 
 import java.util.Stack;
+import java.util.logging.Level;
 
 public abstract class ScopedTypeTracker implements IScopedTracker<VariableTypeTracker>{
     
@@ -39,14 +40,14 @@ public abstract class ScopedTypeTracker implements IScopedTracker<VariableTypeTr
             next = trackerStack.peek().createInnerTypeTracker();
         }
         trackerStack.push(next);
-        ICompilationSettings.debugLog.finest("Scope Level: " + trackerStack.size() + " " + "#".repeat(trackerStack.size()));
+        logScopeLevel("", null);
     }
     
     @Override
     public void typeTrackingClosure(CXClassType classType) {
         VariableTypeTracker next = trackerStack.peek().createInnerTypeTracker(classType);
         trackerStack.push(next);
-        ICompilationSettings.debugLog.finest("Scope Level: " + trackerStack.size()+ " " + "#".repeat(trackerStack.size()) + "    Inheriting from " + classType + " scope");
+        logScopeLevel("    Inheriting from %s scope", classType);
     }
     
     @Override
@@ -55,11 +56,8 @@ public abstract class ScopedTypeTracker implements IScopedTracker<VariableTypeTr
         VariableTypeTracker next = trackerStack.peek().createInnerTypeTrackerLoad(cxClassType);
         trackerStack.push(next);
         
-        ICompilationSettings.debugLog.finest("Scope Level: " + trackerStack.size() + " " + "#".repeat(trackerStack.size())
-        + "    Loading into " + cxClassType + " scope");
-        for (String s : next.allMethodsAvailable()) {
-            ICompilationSettings.debugLog.finest("Method Loaded: " + s);
-        }
+        logScopeLevel("    Loading into %s scope", cxClassType);
+        logMethodsLoaded(next);
     }
     
     
@@ -72,10 +70,20 @@ public abstract class ScopedTypeTracker implements IScopedTracker<VariableTypeTr
         }
         trackerStack.push(next);
         
-        ICompilationSettings.debugLog.finest("Scope Level: " + trackerStack.size() + " " + "#".repeat(trackerStack.size())
-                + "    Loading into " + cxClassType + " scope");
-        for (String s : next.allMethodsAvailable()) {
-            ICompilationSettings.debugLog.finest("Method Loaded: " + s);
+        logScopeLevel("    Loading into %s scope", cxClassType);
+        logMethodsLoaded(next);
+    }
+    
+    private void logScopeLevel(String format, CXClassType classType) {
+        if(!ICompilationSettings.debugLog.isLoggable(Level.FINEST)) return;
+        ICompilationSettings.debugLog.finest("Scope Level: %d %s%s", trackerStack.size(), "#".repeat(trackerStack.size()),
+                String.format(format, classType));
+    }
+    
+    private void logMethodsLoaded(VariableTypeTracker tracker) {
+        if(!ICompilationSettings.debugLog.isLoggable(Level.FINEST)) return;
+        for (String s : tracker.allMethodsAvailable()) {
+            ICompilationSettings.debugLog.finest("Method Loaded: %s", s);
         }
     }
     
@@ -107,7 +115,7 @@ public abstract class ScopedTypeTracker implements IScopedTracker<VariableTypeTr
     public void releaseTrackingClosure() {
         trackerStack.pop();
         getCurrentTracker().removeParentlessStructFields();
-        ICompilationSettings.debugLog.finest("Scope Level: " + trackerStack.size() + " " + "#".repeat(trackerStack.size()));
+        logScopeLevel("", null);
     }
     
     @Override
@@ -15,6 +15,7 @@ import java.util.LinkedList;
 import java.util.List;
 
 public class TypeAugmentedSemanticNode extends ASTMeaningfulNode<TypeAugmentedSemanticNode> {
+    private static final long serialVersionUID = 1L;
     
     private AbstractSyntaxNode astNode;
     
@@ -297,7 +298,6 @@ public class TypeAugmentedSemanticNode extends ASTMeaningfulNode<TypeAugmentedSe
     }
     
     public <T extends ICompilationTag> T getCompilationTag(Class<T> clazz) {
-        if(!containsCompilationTag(clazz)) return null;
         for (ICompilationTag compilationTag : compilationTags) {
             if(clazz.isInstance(compilationTag)) return (T) compilationTag;
         }
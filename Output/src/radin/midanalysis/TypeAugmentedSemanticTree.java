@@ -13,6 +13,7 @@ import java.util.LinkedList;
 import java.util.List;
 
 public class TypeAugmentedSemanticTree extends AbstractTree<TypeAugmentedSemanticNode> {
+    private static final long serialVersionUID = 1L;
     
     
     private TypeAugmentedSemanticNode head;
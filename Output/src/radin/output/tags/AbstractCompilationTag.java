@@ -8,6 +8,7 @@ import java.util.Arrays;
 import java.util.HashSet;
 
 public abstract class AbstractCompilationTag implements ICompilationTag {
+    private static final long serialVersionUID = 1L;
     
     private HashSet<ASTNodeType> validAttachmentPoints;
     private String tagName;
@@ -9,6 +9,7 @@ import radin.core.utility.ICompilationSettings;
 import java.util.Collections;
 
 public class ArrayWithSizeTag extends MultiDimensionalArrayWithSizeTag {
+    private static final long serialVersionUID = 1L;
     
     
     
@@ -21,7 +22,8 @@ public class ArrayWithSizeTag extends MultiDimensionalArrayWithSizeTag {
         return getExpressions().get(0);
     }
     
-    public boolean isConstant() {
+    @Override
+    protected boolean determineConstant() {
         ICompilationSettings.debugLog.info("---------------IGNORE MOST ERRORS BELOW------------------");
         if(!determiner.isConstant(getExpression())) {
             ICompilationSettings.debugLog.info("---------------IGNORE MOST ERRORS ABOVE------------------");
@@ -19,6 +19,7 @@ public enum BasicCompilationTag implements ICompilationTag{
     VOID_RETURN("VOID RETURN", ASTNodeType._return),
     CONSTANT_SIZE("CONST SIZE", ASTNodeType.declaration),
     MAIN_FUNCTION("MAIN FUNCTION", ASTNodeType.function_definition),
+    TAIL_CALL("TAIL CALL", ASTNodeType._return),
     ;
     
     private HashSet<ASTNodeType> validAttachmentPoints;
@@ -4,6 +4,7 @@ import radin.core.semantics.ASTNodeType;
 import radin.core.semantics.types.methods.CXConstructor;
 
 public class ConstructorCallTag extends AbstractCompilationTag{
+    private static final long serialVersionUID = 1L;
     
     private CXConstructor constructor;
     
@@ -0,0 +1,28 @@
+package radin.output.tags;
+
+import radin.core.semantics.ASTNodeType;
+import radin.core.semantics.types.methods.CXMethod;
+
+/**
+ * Marks a virtual method call that always calls the same implementation, so it can be called directly instead of
+ * through the vtable
+ */
+public class DirectMethodCallTag extends AbstractCompilationTag {
+    private static final long serialVersionUID = 1L;
+    
+    private CXMethod method;
+    
+    public DirectMethodCallTag(CXMethod method) {
+        super("DIRECT METHOD CALL", ASTNodeType.method_call);
+        this.method = method;
+    }
+    
+    public CXMethod getMethod() {
+        return method;
+    }
+    
+    @Override
+    public String toString() {
+        return super.toString() + " " + method.getCFunctionName();
+    }
+}
@@ -0,0 +1,26 @@
+package radin.output.tags;
+
+import radin.core.semantics.ASTNodeType;
+
+/**
+ * The index of the field a field get reads within the fields of its owner
+ */
+public class FieldSlotTag extends AbstractCompilationTag {
+    private static final long serialVersionUID = 1L;
+
+    private final int slot;
+
+    public FieldSlotTag(int slot) {
+        super("FIELD SLOT", ASTNodeType.field_get);
+        this.slot = slot;
+    }
+
+    public int getSlot() {
+        return slot;
+    }
+
+    @Override
+    public String toString() {
+        return super.toString() + " " + slot;
+    }
+}
@@ -0,0 +1,26 @@
+package radin.output.tags;
+
+import radin.core.semantics.ASTNodeType;
+
+/**
+ * The amount of local variable slots a function needs in its frame
+ */
+public class FrameSizeTag extends AbstractCompilationTag {
+    private static final long serialVersionUID = 1L;
+    
+    private final int size;
+    
+    public FrameSizeTag(int size) {
+        super("FRAME SIZE", ASTNodeType.function_definition, ASTNodeType.constructor_definition);
+        this.size = size;
+    }
+    
+    public int getSize() {
+        return size;
+    }
+    
+    @Override
+    public String toString() {
+        return super.toString() + " " + size;
+    }
+}
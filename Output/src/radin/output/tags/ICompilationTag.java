@@ -3,7 +3,9 @@ package radin.output.tags;
 
 import radin.midanalysis.TypeAugmentedSemanticNode;
 
-public interface ICompilationTag {
+import java.io.Serializable;
+
+public interface ICompilationTag extends Serializable {
     
     boolean canAttachTo(TypeAugmentedSemanticNode node);
     boolean isAttachToAny();
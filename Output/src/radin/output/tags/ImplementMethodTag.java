@@ -3,6 +3,8 @@ package radin.output.tags;
 import radin.core.semantics.types.methods.CXMethod;
 
 public class ImplementMethodTag extends AbstractCompilationTag {
+    private static final long serialVersionUID = 1L;
+    
     private CXMethod method;
     
     public ImplementMethodTag(CXMethod method) {
@@ -3,6 +3,7 @@ package radin.output.tags;
 import radin.core.semantics.ASTNodeType;
 
 public class InlineArrayTag extends AbstractCompilationTag {
+    private static final long serialVersionUID = 1L;
     
     private final int size;
     
@@ -0,0 +1,26 @@
+package radin.output.tags;
+
+import radin.core.semantics.ASTNodeType;
+
+/**
+ * The index of a local variable within the frame of the function it's declared in
+ */
+public class LocalSlotTag extends AbstractCompilationTag {
+    private static final long serialVersionUID = 1L;
+    
+    private final int slot;
+    
+    public LocalSlotTag(int slot) {
+        super("SLOT", ASTNodeType.id);
+        this.slot = slot;
+    }
+    
+    public int getSlot() {
+        return slot;
+    }
+    
+    @Override
+    public String toString() {
+        return super.toString() + " " + slot;
+    }
+}
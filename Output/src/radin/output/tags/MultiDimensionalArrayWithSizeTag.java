@@ -12,6 +12,7 @@ import java.util.LinkedList;
 import java.util.List;
 
 public class MultiDimensionalArrayWithSizeTag extends AbstractCompilationTag {
+    private static final long serialVersionUID = 1L;
     
     @FunctionalInterface
     public interface ConstantDeterminer {
@@ -23,7 +24,12 @@ public class MultiDimensionalArrayWithSizeTag extends AbstractCompilationTag {
      */
     private int k;
     private List<TypeAugmentedSemanticNode> expressions;
-    protected ConstantDeterminer determiner;
+    /**
+     * Only used to find whether the size is constant, which is kept in {@link #constant}. The determiner is usually a
+     * method reference, so it isn't written with the tag to an interpreter image.
+     */
+    protected transient ConstantDeterminer determiner;
+    private Boolean constant;
     
     public MultiDimensionalArrayWithSizeTag(int k, List<AbstractSyntaxNode> expressions, TypeEnvironment environment, ConstantDeterminer determiner) {
         super("" + k + "-DIMENSIONAL ARRAY", ASTNodeType.declaration);
@@ -44,6 +50,13 @@ public class MultiDimensionalArrayWithSizeTag extends AbstractCompilationTag {
     }
     
     public boolean isConstant() {
+        if(constant == null) {
+            constant = determineConstant();
+        }
+        return constant;
+    }
+    
+    protected boolean determineConstant() {
         if(k > expressions.size()) return false;
         for (TypeAugmentedSemanticNode expression : expressions) {
             /*
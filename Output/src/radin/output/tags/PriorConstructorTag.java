@@ -5,6 +5,7 @@ import radin.core.semantics.ASTNodeType;
 import radin.core.semantics.types.methods.CXConstructor;
 
 public class PriorConstructorTag extends AbstractCompilationTag {
+    private static final long serialVersionUID = 1L;
     
     private CXConstructor priorConstructor;
     private TypeAugmentedSemanticNode sequence;
@@ -5,6 +5,7 @@ import radin.core.semantics.AbstractSyntaxNode;
 import radin.core.semantics.types.CXIdentifier;
 
 public class ResolvedPathTag extends AbstractCompilationTag  {
+    private static final long serialVersionUID = 1L;
 
     private final CXIdentifier absolutePath;
 
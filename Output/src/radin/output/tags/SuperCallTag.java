@@ -4,6 +4,7 @@ import radin.core.semantics.ASTNodeType;
 import radin.core.semantics.types.methods.CXMethod;
 
 public class SuperCallTag extends AbstractCompilationTag {
+    private static final long serialVersionUID = 1L;
     
     private CXMethod method;
     
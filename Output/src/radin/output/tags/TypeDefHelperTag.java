@@ -3,6 +3,7 @@ package radin.output.tags;
 import radin.core.semantics.types.CXType;
 
 public class TypeDefHelperTag extends AbstractCompilationTag {
+    private static final long serialVersionUID = 1L;
     
     private CXType originalType;
     
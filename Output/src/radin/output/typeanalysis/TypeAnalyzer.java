@@ -17,6 +17,7 @@ import radin.midanalysis.TypeAugmentedSemanticNode;
 import radin.core.utility.ICompilationSettings;
 
 import java.util.*;
+import java.util.logging.Level;
 
 public abstract class TypeAnalyzer extends ScopedTypeTracker implements IInPlaceCompilerAnalyzer<TypeAugmentedSemanticNode> {
     
@@ -235,7 +236,7 @@ public abstract class TypeAnalyzer extends ScopedTypeTracker implements IInPlace
         node.setFailurePoint(true);
         ICompilationSettings.debugLog.severe(node.findFirstToken().info());
         try {
-            ICompilationSettings.debugLog.finest("\n" + node.toTreeForm());
+            if(ICompilationSettings.debugLog.isLoggable(Level.FINEST)) ICompilationSettings.debugLog.finest("\n" + node.toTreeForm());
         } catch (Error unused) {}
     }
 }
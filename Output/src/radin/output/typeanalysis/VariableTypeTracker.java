@@ -504,7 +504,7 @@ public class VariableTypeTracker implements IVariableTypeTracker {
 
     public CXIdentifier addFunction(CXIdentifier name, CXFunctionPointer type, boolean isDefinition) {
         CXIdentifier full = resolver.createIdentity(name);
-        ICompilationSettings.debugLog.fine("Added function " + full);
+        ICompilationSettings.debugLog.fine("Added function %s", full);
         TypeTrackerEntry typeTrackerEntry = new TypeTrackerEntry(EntryStatus.NEW, type.getReturnType());
         if(functionExists(full)) {
             if(isDefinition) {
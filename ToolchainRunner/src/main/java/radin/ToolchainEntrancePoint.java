@@ -2,8 +2,11 @@ package radin;
 
 
 import radin.backend.compilation.FileCompiler;
+import radin.backend.compilation.ReachabilityAnalyzer;
 import radin.backend.compilation.RuntimeCompiler;
 import radin.backend.microcompilers.FunctionCompiler;
+import radin.combo.BuildCache;
+import radin.combo.InterpreterImage;
 import radin.combo.MultipleFileHandler;
 import radin.core.SymbolTable;
 import radin.core.chaining.ToolChainFactory;
@@ -19,11 +22,14 @@ import radin.frontend.v1.parsing.ParseNode;
 import radin.frontend.v1.parsing.Parser;
 import radin.frontend.v1.semantics.ActionRoutineApplier;
 import radin.input.FrontEndUnit;
-import radin.input.IParser;
+import radin.interpreter.ClosureInterpreter;
 import radin.interpreter.Interpreter;
+import radin.interpreter.JvmInterpreter;
 import radin.interpreter.SymbolTableCreator;
+import radin.midanalysis.MethodTASNTracker;
 import radin.midanalysis.TypeAugmentedSemanticNode;
 import radin.midanalysis.TypeAugmentedSemanticTree;
+import radin.midanalysis.constantexpressions.ConstantFolder;
 import radin.midanalysis.typeanalysis.analyzers.ProgramTypeAnalyzer;
 import radin.output.typeanalysis.TypeAnalyzer;
 
@@ -35,6 +41,7 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.*;
+import java.util.function.Supplier;
 import java.util.logging.Level;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -43,6 +50,29 @@ import static java.lang.System.*;
 
 public class ToolchainEntrancePoint {
     
+    /**
+     * Creates the interpreter chosen by the settings and runs the program with it
+     * @return the exit code of the program
+     */
+    private static int runInterpreter(TypeEnvironment environment,
+                                      SymbolTable<CXIdentifier, TypeAugmentedSemanticNode> symbolTable,
+                                      boolean useJvm, ICompilationSettings<?, ?, ?> settings, List<String> args) {
+        Interpreter interpreter;
+        if (useJvm) {
+            ICompilationSettings.debugLog.config("Compiling functions to bytecode");
+            interpreter = new JvmInterpreter(environment, symbolTable);
+        } else if (settings.getInterpreterMode() == ICompilationSettings.InterpreterMode.closure) {
+            ICompilationSettings.debugLog.config("Using closure compiled interpreter");
+            interpreter = new ClosureInterpreter(environment, symbolTable);
+        } else {
+            interpreter = new Interpreter(environment, symbolTable);
+        }
+        interpreter.setSegmentedStack(settings.isSegmentedStack());
+        
+        ICompilationSettings.debugLog.info("Running interpreter");
+        return interpreter.run(args.toArray(new String[0]));
+    }
+    
     /**
      * Runs the toolchain execution mode
      * @param args
@@ -177,11 +207,15 @@ public class ToolchainEntrancePoint {
         }
         
         BufferedReader fileReader = new BufferedReader(new FileReader(configFile));
-        PreProcessingLexer lex = new PreProcessingLexer();
+        boolean is64Bit = arch == 64;
+        Supplier<PreProcessingLexer> lexerFactory = () -> {
+            PreProcessingLexer lex = new PreProcessingLexer();
+            if(is64Bit) lex.define("__64_bit__");
+            return lex;
+        };
     
-        if(arch == 64) {
+        if(is64Bit) {
             ICompilationSettings.debugLog.config("Using 64-bit mode");
-            lex.define("__64_bit__");
         } else {
             ICompilationSettings.debugLog.config("Using 32-bit mode");
         }
@@ -203,12 +237,11 @@ public class ToolchainEntrancePoint {
         }
         
     
-        IParser<Token, ParseNode> parser = new Parser();
         TypeEnvironment environment = TypeEnvironment.getStandardEnvironment();
         TypeAnalyzer.setEnvironment(environment);
         ActionRoutineApplier applier = new ActionRoutineApplier(environment);
     
-        FrontEndUnit<Token, ParseNode, AbstractSyntaxNode> frontEndUnit = new FrontEndUnit<>(lex, parser, applier);
+        FrontEndUnit<Token, ParseNode, AbstractSyntaxNode> frontEndUnit = new FrontEndUnit<>(lexerFactory, Parser::new, applier);
         
     
     
@@ -218,13 +251,16 @@ public class ToolchainEntrancePoint {
         ToolChainFactory.ToolChainBuilder<TypeAugmentedSemanticNode, TypeAugmentedSemanticNode> compilerAnalyzer = ToolChainFactory.compilerAnalyzer(
                 new ProgramTypeAnalyzer((TypeAugmentedSemanticNode) null)
         );
-        var midChain = function.chain_to(compilerAnalyzer);
+        var midChain = function.chain_to(compilerAnalyzer)
+                .chain_to(ToolChainFactory.compilerFunction(new ConstantFolder()));
         
     
         MultipleFileHandler<?> compiler = null;
+        FileCompiler fileCompiler = null;
         
         
         boolean useInterpreter = false;
+        boolean useJvm = false;
         while (fileReader.ready()) {
             String line = fileReader.readLine().replaceAll("#.*$", "");
             if(line.isBlank()) {
@@ -236,9 +272,10 @@ public class ToolchainEntrancePoint {
             
             switch (option) {
                 case "type": {
-                    if (argument.equals("interpreter")) {
+                    if (argument.equals("interpreter") || argument.equals("jvm")) {
                         useInterpreter = true;
-                        ICompilationSettings.debugLog.config("Using interpreter");
+                        useJvm = argument.equals("jvm");
+                        ICompilationSettings.debugLog.config(useJvm ? "Using interpreter with bytecode" : "Using interpreter");
                         
                         ICompilationSettings<AbstractSyntaxNode, TypeAugmentedSemanticNode,
                                 SymbolTable<CXIdentifier, TypeAugmentedSemanticNode>> newSettings =
@@ -267,10 +304,11 @@ public class ToolchainEntrancePoint {
                         settings = newSettings;
                         UniversalCompilerSettings.getInstance().setSettings(settings);
     
-                        compiler = new MultipleFileHandler<>(files, newSettings);
-    
                         var backChain = new FileCompiler();
                         newSettings.setBackToolChain(backChain);
+                        fileCompiler = backChain;
+    
+                        compiler = new MultipleFileHandler<>(files, newSettings);
                         FunctionCompiler.environment = environment;
                     } else {
                         throw new IllegalArgumentException();
@@ -310,6 +348,47 @@ public class ToolchainEntrancePoint {
                     settings.setAutoCreateStrings(autostring);
                     break;
                 }
+                case "interpreter-mode": {
+                    ICompilationSettings.InterpreterMode mode;
+                    try {
+                        mode = ICompilationSettings.InterpreterMode.valueOf(argument);
+                    } catch (IllegalArgumentException e) {
+                        throw new IllegalArgumentException("Unknown interpreter-mode " + argument + ", must be one of " +
+                                Arrays.toString(ICompilationSettings.InterpreterMode.values()));
+                    }
+                    settings.setInterpreterMode(mode);
+                    break;
+                }
+                case "packrat-parsing": {
+                    boolean packrat = Boolean.parseBoolean(argument);
+                    settings.setPackratParsing(packrat);
+                    break;
+                }
+                case "compile-threads": {
+                    int threads = Integer.parseInt(argument);
+                    settings.setCompileThreads(threads);
+                    break;
+                }
+                case "incremental": {
+                    boolean incremental = Boolean.parseBoolean(argument);
+                    settings.setIncremental(incremental);
+                    break;
+                }
+                case "precompiled-headers": {
+                    boolean precompiledHeaders = Boolean.parseBoolean(argument);
+                    settings.setPrecompiledHeaders(precompiledHeaders);
+                    break;
+                }
+                case "interpreter-image": {
+                    boolean interpreterImage = Boolean.parseBoolean(argument);
+                    settings.setInterpreterImage(interpreterImage);
+                    break;
+                }
+                case "segmented-stack": {
+                    boolean segmentedStack = Boolean.parseBoolean(argument);
+                    settings.setSegmentedStack(segmentedStack);
+                    break;
+                }
                 default: {
                     err.println("Invalid Config Option: " + option);
                     exit(-1);
@@ -321,6 +400,32 @@ public class ToolchainEntrancePoint {
     
         compiler.addFiles(UniversalCompilerSettings.getInstance().getSettings().getAdditionalSources());
         
+        String imageKey = null;
+        if(useInterpreter && settings.isInterpreterImage()) {
+            List<File> programFiles = new ArrayList<>(files);
+            programFiles.addAll(Arrays.asList(settings.getAdditionalSources()));
+            imageKey = InterpreterImage.createKey(programFiles, arch);
+            InterpreterImage image = InterpreterImage.load(imageKey);
+            if(image != null) {
+                ICompilationSettings.debugLog.info("Loaded interpreter image, skipping compilation");
+                MethodTASNTracker.setInstance(image.getMethods());
+                TypeAnalyzer.setEnvironment(image.getEnvironment());
+                FunctionCompiler.environment = image.getEnvironment();
+                exit(runInterpreter(image.getEnvironment(), image.getSymbols(), useJvm, settings, argPassOff));
+            }
+        }
+        
+        BuildCache buildCache = null;
+        if(!useInterpreter && settings.isIncremental()) {
+            if(settings.getOptimizationLevel() >= 2) {
+                ICompilationSettings.debugLog.warning("The build cache isn't used at opt-level 2 or higher, as " +
+                        "unreachable code is found across the whole program");
+            } else {
+                buildCache = new BuildCache(file -> FileCompiler.getCreatedFile(new File(file)));
+                compiler.setBuildCache(buildCache);
+            }
+        }
+        
         
         if(compiler.compileAll()) {
             ICompilationSettings.debugLog.info("Generating runtime...");
@@ -330,6 +435,11 @@ public class ToolchainEntrancePoint {
             if(useInterpreter) {
                 runtimeCompiler.setEntrancePoint("start");
                 runtimeCompiler.setJodinEntrancePoint("main");
+            } else {
+                ReachabilityAnalyzer reachability = fileCompiler.analyzeReachability();
+                if(reachability != null) {
+                    runtimeCompiler.setReachableClasses(reachability.getReachableClasses());
+                }
             }
             if (!runtimeCompiler.compile()) {
                 err.println("Runtime Jodin Compilation failed");
@@ -354,17 +464,18 @@ public class ToolchainEntrancePoint {
                 }
                 generatedOutputs.addAll(fixedCompiler.getGeneratedOutputs());
                 SymbolTable<CXIdentifier, TypeAugmentedSemanticNode> symbolTable = new SymbolTable<>(generatedOutputs);
-                Interpreter interpreter = new Interpreter(environment, symbolTable);
-    
-                ICompilationSettings.debugLog.info("Running interpreter");
-                exit(interpreter.run(argPassOff.toArray(new String[0])));
+                if(imageKey != null) {
+                    new InterpreterImage(environment, symbolTable, MethodTASNTracker.getInstance()).save(imageKey);
+                }
+                exit(runInterpreter(environment, symbolTable, useJvm, settings, argPassOff));
             } else {
                 ICompilationSettings<AbstractSyntaxNode, TypeAugmentedSemanticNode, Boolean> fixedSettings =
                         (ICompilationSettings<AbstractSyntaxNode, TypeAugmentedSemanticNode, Boolean>) settings;
                 MultipleFileHandler<Boolean> fixedCompiler = new MultipleFileHandler<>(Collections.singletonList(runtimeFile),
                         fixedSettings);
+                fixedCompiler.setBuildCache(buildCache);
     
-                if(!fixedCompiler.compileAll()) {
+                if(!fixedCompiler.compileAll() || !fileCompiler.compileDeferred(runtimeFile)) {
                     err.println("Runtime Compilation failed");
                 }
     
@@ -11,11 +11,13 @@ import radin.frontend.v1.parsing.Parser;
 import radin.frontend.v1.semantics.ActionRoutineApplier;
 import radin.core.lexical.Token;
 import radin.backend.compilation.FileCompiler;
+import radin.backend.compilation.ReachabilityAnalyzer;
 import radin.backend.compilation.RuntimeCompiler;
 import radin.backend.microcompilers.FunctionCompiler;
 import radin.combo.MultipleFileHandler;
 import radin.midanalysis.TypeAugmentedSemanticNode;
 import radin.midanalysis.TypeAugmentedSemanticTree;
+import radin.midanalysis.constantexpressions.ConstantFolder;
 import radin.midanalysis.typeanalysis.analyzers.ProgramTypeAnalyzer;
 import radin.output.typeanalysis.TypeAnalyzer;
 import radin.core.semantics.AbstractSyntaxNode;
@@ -30,6 +32,7 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.*;
+import java.util.function.Supplier;
 import java.util.logging.Level;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -154,23 +157,26 @@ public class CompilerEntrancePoint {
         }
         
         
-        PreProcessingLexer lex = new PreProcessingLexer();
+        boolean is64Bit = arch == 64;
+        Supplier<PreProcessingLexer> lexerFactory = () -> {
+            PreProcessingLexer lex = new PreProcessingLexer();
+            if(is64Bit) lex.define("__64_bit__");
+            return lex;
+        };
         
-        if(arch == 64) {
+        if(is64Bit) {
             ICompilationSettings.debugLog.config("Using 64-bit mode");
-            lex.define("__64_bit__");
         } else {
             ICompilationSettings.debugLog.config("Using 32-bit mode");
         }
         
         
         
-        IParser<Token, ParseNode> parser = new Parser();
         TypeEnvironment environment = TypeEnvironment.getStandardEnvironment();
         TypeAnalyzer.setEnvironment(environment);
         ActionRoutineApplier applier = new ActionRoutineApplier(environment);
     
-        FrontEndUnit<Token, ParseNode, AbstractSyntaxNode> frontEndUnit = new FrontEndUnit<>(lex, parser, applier);
+        FrontEndUnit<Token, ParseNode, AbstractSyntaxNode> frontEndUnit = new FrontEndUnit<>(lexerFactory, Parser::new, applier);
         settings.setFrontEndUnit(frontEndUnit);
         
     
@@ -180,7 +186,8 @@ public class CompilerEntrancePoint {
         ToolChainFactory.ToolChainBuilder<TypeAugmentedSemanticNode, TypeAugmentedSemanticNode> compilerAnalyzer = ToolChainFactory.compilerAnalyzer(
                 new ProgramTypeAnalyzer((TypeAugmentedSemanticNode) null)
         );
-        var midChain = function.chain_to(compilerAnalyzer);
+        var midChain = function.chain_to(compilerAnalyzer)
+                .chain_to(ToolChainFactory.compilerFunction(new ConstantFolder()));
         settings.setMidToolChain(midChain);
         
         
@@ -216,6 +223,10 @@ public class CompilerEntrancePoint {
             UniversalCompilerSettings.getInstance().getSettings().setLookForMainFunction(false);
             UniversalCompilerSettings.getInstance().getSettings().setInRuntimeCompilationMode(true);
             RuntimeCompiler runtimeCompiler = new RuntimeCompiler(environment);
+            ReachabilityAnalyzer reachability = backChain.analyzeReachability();
+            if(reachability != null) {
+                runtimeCompiler.setReachableClasses(reachability.getReachableClasses());
+            }
             runtimeCompiler.compile();
             
             File runtimeFile = ICompilationSettings.getBuildFile("runtime.jdn");
@@ -224,6 +235,7 @@ public class CompilerEntrancePoint {
                     compilationSettings
             );
             multipleFileHandler.compileAll();
+            backChain.compileDeferred(runtimeFile);
             
             ICompilationSettings.debugLog.info("Compilation completed");
         } else {
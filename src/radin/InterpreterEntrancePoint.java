@@ -6,7 +6,6 @@ import radin.core.IFrontEndUnit;
 import radin.core.SymbolTable;
 import radin.core.chaining.ToolChainFactory;
 import radin.input.FrontEndUnit;
-import radin.input.IParser;
 import radin.input.Tokenizer;
 import radin.frontend.v1.lexing.PreProcessingLexer;
 import radin.frontend.v1.parsing.ParseNode;
@@ -18,6 +17,7 @@ import radin.backend.microcompilers.FunctionCompiler;
 import radin.combo.MultipleFileHandler;
 import radin.midanalysis.TypeAugmentedSemanticNode;
 import radin.midanalysis.TypeAugmentedSemanticTree;
+import radin.midanalysis.constantexpressions.ConstantFolder;
 import radin.midanalysis.typeanalysis.analyzers.ProgramTypeAnalyzer;
 import radin.output.typeanalysis.TypeAnalyzer;
 import radin.core.semantics.AbstractSyntaxNode;
@@ -33,6 +33,7 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.*;
+import java.util.function.Supplier;
 import java.util.logging.Level;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -172,23 +173,26 @@ public class InterpreterEntrancePoint {
         }
         
         
-        PreProcessingLexer lex = new PreProcessingLexer();
+        boolean is64Bit = arch == 64;
+        Supplier<PreProcessingLexer> lexerFactory = () -> {
+            PreProcessingLexer lex = new PreProcessingLexer();
+            if(is64Bit) lex.define("__64_bit__");
+            return lex;
+        };
         
-        if(arch == 64) {
+        if(is64Bit) {
             ICompilationSettings.debugLog.config("Using 64-bit mode");
-            lex.define("__64_bit__");
         } else {
             ICompilationSettings.debugLog.config("Using 32-bit mode");
         }
         
         
         
-        IParser<Token, ParseNode> parser = new Parser();
         TypeEnvironment environment = TypeEnvironment.getStandardEnvironment();
         TypeAnalyzer.setEnvironment(environment);
         ActionRoutineApplier applier = new ActionRoutineApplier(environment);
         
-        FrontEndUnit<Token, ParseNode, AbstractSyntaxNode> frontEndUnit = new FrontEndUnit<>(lex, parser, applier);
+        FrontEndUnit<Token, ParseNode, AbstractSyntaxNode> frontEndUnit = new FrontEndUnit<>(lexerFactory, Parser::new, applier);
         settings.setFrontEndUnit(frontEndUnit);
         
         
@@ -198,7 +202,8 @@ public class InterpreterEntrancePoint {
         ToolChainFactory.ToolChainBuilder<TypeAugmentedSemanticNode, TypeAugmentedSemanticNode> compilerAnalyzer = ToolChainFactory.compilerAnalyzer(
                 new ProgramTypeAnalyzer((TypeAugmentedSemanticNode) null)
         );
-        var midChain = function.chain_to(compilerAnalyzer);
+        var midChain = function.chain_to(compilerAnalyzer)
+                .chain_to(ToolChainFactory.compilerFunction(new ConstantFolder()));
         settings.setMidToolChain(midChain);
         
         
@@ -0,0 +1,174 @@
+package radin;
+
+import radin.core.utility.CompilationSettings;
+import radin.core.utility.ICompilationSettings;
+import radin.core.utility.UniversalCompilerSettings;
+import radin.frontend.v1.lexing.PreProcessingLexer;
+import radin.frontend.v1.parsing.CategoryNode;
+import radin.frontend.v1.parsing.Parser;
+import radin.input.Tokenizer;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.logging.Level;
+
+/**
+ * Times how long it takes to lex and parse a generated Jodin file, with and without packrat parsing. The first argument
+ * picks the file, either {@code functions} for a file of simple functions, {@code casts} for a file of deeply nested
+ * casts to typedef names, which makes the parser backtrack a lot, or {@code macros} for a file of simple functions
+ * written with macros from many included headers. The second argument is the amount of lines or casts, and defaults to
+ * 20000. The parser recurses once per top level declaration, so larger files need a bigger thread stack (-Xss).
+ */
+public class ParseBenchmark {
+
+    private static final int LINES_PER_FUNCTION = 14;
+    private static final int TYPEDEFS = 2000;
+    private static final int CAST_DEPTH = 20;
+    private static final int HEADERS = 200;
+
+    public static void main(String[] args) throws IOException {
+        String kind = "functions";
+        int size = 20000;
+        if (args.length > 0) {
+            kind = args[0];
+        }
+        if (args.length > 1) {
+            size = Integer.parseInt(args[1]);
+        }
+
+        CompilationSettings<?, ?, ?> settings = new CompilationSettings<>();
+        settings.setLogLevel(Level.OFF);
+        UniversalCompilerSettings.getInstance().setSettings(settings);
+        Tokenizer.setCompilationSettings(settings);
+
+        String filename = "benchmark.jdn";
+        String source;
+        switch (kind) {
+            case "functions":
+                source = generateSource(size);
+                break;
+            case "casts":
+                source = generateCasts(size);
+                break;
+            case "macros": {
+                File directory = Files.createTempDirectory("benchmark").toFile();
+                directory.deleteOnExit();
+                filename = new File(directory, filename).getPath();
+                source = generateMacros(size, directory, filename);
+                break;
+            }
+            default:
+                System.err.println("Unknown benchmark " + kind);
+                return;
+        }
+        for (int run = 1; run <= 3; run++) {
+            for (boolean packrat : new boolean[] { false, true }) {
+                settings.setPackratParsing(packrat);
+                long startTime = System.nanoTime();
+                PreProcessingLexer lexer = new PreProcessingLexer(filename, source);
+                Parser parser = new Parser();
+                parser.setTokenizer(lexer);
+                CategoryNode tree = parser.parse();
+                double elapsed = (System.nanoTime() - startTime) / 1e9;
+                if (tree == null) {
+                    System.out.println("Parsing failed");
+                    return;
+                }
+                System.out.println(String.format("Run %d (packrat = %b): parsed %d tokens in %.3f sec", run, packrat,
+                        lexer.getTokenIndex() + 1, elapsed));
+            }
+        }
+    }
+
+    /**
+     * Generates a file made of simple functions
+     * @param lines the minimum amount of lines
+     * @return the source
+     */
+    private static String generateSource(int lines) {
+        StringBuilder builder = new StringBuilder("#line 1 \"benchmark.jdn\"\n");
+        int functions = (lines + LINES_PER_FUNCTION - 1) / LINES_PER_FUNCTION;
+        for (int i = 0; i < functions; i++) {
+            builder.append("int function_").append(i).append("(int a, int b) {\n");
+            builder.append("    int total = a * b + ").append(i).append(";\n");
+            builder.append("    if (total > 10 && a != b) {\n");
+            builder.append("        total = total - a;\n");
+            builder.append("    } else {\n");
+            builder.append("        while (total < 100) {\n");
+            builder.append("            total = total + b * 2;\n");
+            builder.append("        }\n");
+            builder.append("    }\n");
+            builder.append("    for (int j = 0; j < b; j++) {\n");
+            builder.append("        total = total + j;\n");
+            builder.append("    }\n");
+            builder.append("    return total;\n");
+            builder.append("}\n");
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Generates a file that includes many headers, and is made of functions that use the macros the headers define
+     * @param lines the minimum amount of lines
+     * @param directory the directory to write the headers to
+     * @param filename the name of the file
+     * @return the source
+     * @throws IOException if a header couldn't be written
+     */
+    private static String generateMacros(int lines, File directory, String filename) throws IOException {
+        StringBuilder builder = new StringBuilder("#line 1 \"" + filename + "\"\n");
+        for (int i = 0; i < HEADERS; i++) {
+            File header = new File(directory, "header_" + i + ".h");
+            header.deleteOnExit();
+            String text = "#define SCALE_" + i + " " + (i + 1) + "\n" +
+                    "#define MULTIPLY_" + i + "(a, b) ((a) * (b) * SCALE_" + i + ")\n";
+            Files.writeString(header.toPath(), text);
+            builder.append("#include \"").append(header.getName()).append("\"\n");
+        }
+        int functions = (lines + LINES_PER_FUNCTION - 1) / LINES_PER_FUNCTION;
+        for (int i = 0; i < functions; i++) {
+            int header = i % HEADERS;
+            builder.append("int function_").append(i).append("(int a, int b) {\n");
+            builder.append("    int total = MULTIPLY_").append(header).append("(a, b) + SCALE_").append(header)
+                    .append(";\n");
+            builder.append("    if (total > SCALE_").append(header).append(" && a != b) {\n");
+            builder.append("        total = total - MULTIPLY_").append(header).append("(a, 2);\n");
+            builder.append("    } else {\n");
+            builder.append("        while (total < 100) {\n");
+            builder.append("            total = total + b * 2;\n");
+            builder.append("        }\n");
+            builder.append("    }\n");
+            builder.append("    for (int j = 0; j < b; j++) {\n");
+            builder.append("        total = total + j;\n");
+            builder.append("    }\n");
+            builder.append("    return total;\n");
+            builder.append("}\n");
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Generates a file with many typedefs, and a function made of assignments of deeply nested casts
+     * @param casts the minimum amount of casts
+     * @return the source
+     */
+    private static String generateCasts(int casts) {
+        StringBuilder builder = new StringBuilder("#line 1 \"benchmark.jdn\"\n");
+        for (int i = 0; i < TYPEDEFS; i++) {
+            builder.append("typedef int type_").append(i).append(";\n");
+        }
+        builder.append("int function(int x) {\n");
+        int statements = (casts + CAST_DEPTH - 1) / CAST_DEPTH;
+        for (int i = 0; i < statements; i++) {
+            String expression = "x";
+            for (int j = 0; j < CAST_DEPTH; j++) {
+                expression = "(type_" + (i * CAST_DEPTH + j) % TYPEDEFS + ") (" + expression + " + 1)";
+            }
+            builder.append("    x = ").append(expression).append(";\n");
+        }
+        builder.append("    return x;\n");
+        builder.append("}\n");
+        return builder.toString();
+    }
+}